@@ -1,41 +1,319 @@
+import busca.IndiceTrigramas;
+import carga.ExecutorCarga;
+import carga.GeradorCatalogo;
+import carga.OperacaoCarga;
+import dao.ProdutoDAO;
 import database.DatabaseConnection;
+import exportacao.ExportadorProdutos;
+import exportacao.FormatoExportacao;
+import exportacao.RestauradorProdutos;
+import importacao.ImportadorCsv;
+import importacao.LeitorCsv;
+import metricas.CronometroInicializacao;
+import importacao.ResultadoImportacao;
+import servidor.ClienteCarga;
+import servidor.ServidorProdutos;
 import view.MainFrame;
 
 import javax.swing.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Classe principal da aplicação
  * Responsável por inicializar o sistema
+ * Sem argumentos abre a interface gráfica; com argumentos executa em modo texto
  */
 public class Main {
     public static void main(String[] args) {
+        CronometroInicializacao.iniciar();
+        if (args.length > 0) {
+            System.exit(executarModoTexto(args));
+        }
+        
+        // Inicializar banco de dados em segundo plano (driver, pool e migrações pendentes),
+        // em paralelo com a montagem da janela
+        System.out.println("Inicializando banco de dados...");
+        CompletableFuture<Boolean> bancoPronto = CompletableFuture.supplyAsync(() -> {
+            long inicio = CronometroInicializacao.agora();
+            boolean inicializado = DatabaseConnection.initializeDatabase();
+            CronometroInicializacao.fase("Banco de dados", inicio);
+            return inicializado;
+        });
+        
         // Configurar Look and Feel do sistema operacional
+        long inicioLookAndFeel = CronometroInicializacao.agora();
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception e) {
             System.err.println("Erro ao definir Look and Feel: " + e.getMessage());
         }
+        CronometroInicializacao.fase("Look and Feel", inicioLookAndFeel);
         
-        // Inicializar banco de dados
-        System.out.println("Inicializando banco de dados...");
-        DatabaseConnection.initializeDatabase();
-        
-        // Executar interface gráfica na thread do Swing
+        // Executar interface gráfica na thread do Swing; a janela aparece antes do banco estar pronto
         SwingUtilities.invokeLater(() -> {
             try {
-                MainFrame frame = new MainFrame();
+                long inicioJanela = CronometroInicializacao.agora();
+                MainFrame frame = new MainFrame(bancoPronto);
                 frame.setVisible(true);
+                CronometroInicializacao.fase("Janela", inicioJanela);
+                CronometroInicializacao.marco("Janela visível");
                 System.out.println("Sistema CRUD inicializado com sucesso!");
             } catch (Exception e) {
                 System.err.println("Erro ao inicializar interface: " + e.getMessage());
-                JOptionPane.showMessageDialog(
-                    null,
-                    "Erro ao conectar com o banco de dados!\nVerifique se o MySQL está rodando e as configurações de conexão.",
-                    "Erro de Conexão",
-                    JOptionPane.ERROR_MESSAGE
-                );
+                JOptionPane.showMessageDialog(null, "Erro ao inicializar a interface!", "Erro", JOptionPane.ERROR_MESSAGE);
                 System.exit(1);
             }
         });
     }
+    
+    /**
+     * Executa operações sem interface gráfica e retorna o código de saída
+     */
+    private static int executarModoTexto(String[] args) {
+        switch (args[0]) {
+            case "--importar":
+                if (args.length < 2) break;
+                if (!DatabaseConnection.initializeDatabase()) return 1;
+                return importarCsv(args[1], Integer.parseInt(opcao(args, "--lote", String.valueOf(ProdutoDAO.TAMANHO_LOTE_PADRAO))));
+            case "--exportar":
+                if (args.length < 2) break;
+                String formato = opcao(args, "--formato", null);
+                return exportar(Paths.get(args[1]),
+                        formato != null ? FormatoExportacao.porNome(formato) : FormatoExportacao.porArquivo(args[1]),
+                        Arrays.asList(args).contains("--gzip") || args[1].endsWith(".gz"));
+            case "--restaurar":
+                if (args.length < 2) break;
+                if (!DatabaseConnection.initializeDatabase()) return 1;
+                return restaurar(Paths.get(args[1]), Integer.parseInt(opcao(args, "--lote", String.valueOf(ProdutoDAO.TAMANHO_LOTE_PADRAO))));
+            case "--receber":
+                if (args.length < 2) break;
+                if (!DatabaseConnection.initializeDatabase()) return 1;
+                return receber(Paths.get(args[1]), Integer.parseInt(opcao(args, "--lote", String.valueOf(ProdutoDAO.TAMANHO_LOTE_PADRAO))));
+            case "--servidor":
+                if (!DatabaseConnection.initializeDatabase()) return 1;
+                return servir(Integer.parseInt(opcao(args, "--porta", String.valueOf(ServidorProdutos.PORTA_PADRAO))));
+            case "--carga-dao":
+                if (!DatabaseConnection.initializeDatabase()) return 1;
+                return cargaDao(args);
+            case "--carga-http":
+                if (args.length < 2) break;
+                return cargaHttp(URI.create(args[1]), Integer.parseInt(opcao(args, "--clientes", "16")),
+                        Integer.parseInt(opcao(args, "--segundos", "30")));
+            default:
+                System.err.println("Opção desconhecida: " + args[0]);
+        }
+        imprimirUso();
+        return 2;
+    }
+    
+    private static int importarCsv(String arquivo, int tamanhoLote) {
+        ImportadorCsv importador = new ImportadorCsv(new ProdutoDAO(), tamanhoLote);
+        importador.setOuvinteProgresso(parcial -> System.out.println("  " + parcial));
+        
+        try {
+            ResultadoImportacao resultado = importador.importar(Paths.get(arquivo));
+            System.out.println("Importação concluída: " + resultado);
+            for (String rejeicao : resultado.getRejeicoes()) {
+                System.out.println("  Rejeitada - " + rejeicao);
+            }
+            return resultado.getRejeitadas() == 0 ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("Erro ao importar arquivo: " + e.getMessage());
+            return 1;
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+    
+    private static int exportar(Path destino, FormatoExportacao formato, boolean gzip) {
+        try {
+            System.out.println("Exportando produtos para " + destino + " (" + formato + (gzip ? ", gzip" : "") + ")...");
+            System.out.println("Exportação concluída: " + new ExportadorProdutos(new ProdutoDAO()).exportar(destino, formato, gzip));
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Erro ao exportar produtos: " + e.getMessage());
+            return 1;
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+    
+    private static int restaurar(Path origem, int tamanhoLote) {
+        try {
+            System.out.println("Restaurando produtos de " + origem + "...");
+            System.out.println("Restauração concluída: " + new RestauradorProdutos(new ProdutoDAO(), tamanhoLote).restaurar(origem));
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Erro ao restaurar produtos: " + e.getMessage());
+            return 1;
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+    
+    /**
+     * Soma ao estoque as quantidades de um CSV "id,quantidade" (recebimento de mercadorias)
+     * Quantidades negativas retiram do estoque; linhas repetidas do mesmo id são somadas
+     */
+    private static int receber(Path arquivo, int tamanhoLote) {
+        Map<Integer, Integer> ajustes = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            String cabecalho = reader.readLine();
+            if (cabecalho == null) {
+                throw new IOException("Arquivo CSV sem cabeçalho");
+            }
+            try (LeitorCsv leitor = new LeitorCsv(reader, LeitorCsv.detectarSeparador(cabecalho))) {
+                List<String> registro;
+                while ((registro = leitor.lerRegistro()) != null) {
+                    if (registro.size() < 2 || registro.get(0).trim().isEmpty()) continue;
+                    try {
+                        ajustes.merge(Integer.parseInt(registro.get(0).trim()),
+                                Integer.parseInt(registro.get(1).trim()), Integer::sum);
+                    } catch (NumberFormatException e) {
+                        System.err.println("Registro ignorado (id ou quantidade inválidos): " + registro);
+                    }
+                }
+            }
+            
+            System.out.println("Ajustando o estoque de " + ajustes.size() + " produto(s)...");
+            Map<Integer, Integer> ajustados = new ProdutoDAO().ajustarEstoqueEmLote(ajustes, tamanhoLote);
+            if (ajustados == null) {
+                return 1;
+            }
+            System.out.println("Recebimento concluído: " + ajustados.size() + " produto(s) ajustado(s)");
+            for (int id : ajustes.keySet()) {
+                if (!ajustados.containsKey(id)) {
+                    System.out.println("  Rejeitado - produto " + id + " inexistente ou sem estoque suficiente");
+                }
+            }
+            return ajustados.size() == ajustes.size() ? 0 : 1;
+        } catch (IOException e) {
+            System.err.println("Erro ao ler arquivo de recebimento: " + e.getMessage());
+            return 1;
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+    
+    /**
+     * Atende a API HTTP até o processo ser encerrado (Ctrl+C ou SIGTERM)
+     */
+    private static int servir(int porta) {
+        ServidorProdutos servidor;
+        try {
+            servidor = new ServidorProdutos(new ProdutoDAO(), porta);
+        } catch (IOException e) {
+            System.err.println("Erro ao abrir a porta " + porta + ": " + e.getMessage());
+            DatabaseConnection.getInstance().closeConnection();
+            return 1;
+        }
+        
+        CountDownLatch encerrado = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            servidor.parar(5);
+            DatabaseConnection.getInstance().closeConnection();
+            encerrado.countDown();
+        }));
+        servidor.iniciar();
+        try {
+            encerrado.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+    
+    /**
+     * Gera opcionalmente um catálogo sintético e executa a carga concorrente sobre o ProdutoDAO
+     */
+    private static int cargaDao(String[] args) {
+        try {
+            ProdutoDAO produtoDAO = new ProdutoDAO();
+            GeradorCatalogo gerador = new GeradorCatalogo(Double.parseDouble(opcao(args, "--assimetria", "1.0")));
+            ExecutorCarga carga = new ExecutorCarga(produtoDAO, gerador,
+                    OperacaoCarga.lerMistura(opcao(args, "--mistura", OperacaoCarga.MISTURA_PADRAO)));
+            
+            long existentes = produtoDAO.percorrerTodos(produto -> carga.adicionarExistente(produto.getId()));
+            if (existentes < 0) return 1;
+            System.out.println(existentes + " produto(s) existentes (apenas lidos pela carga)");
+            
+            int gerar = Integer.parseInt(opcao(args, "--gerar", "0"));
+            if (gerar > 0) {
+                System.out.println("Gerando " + gerar + " produto(s) sintéticos...");
+                Random aleatorio = new Random(Long.parseLong(opcao(args, "--semente", "42")));
+                if (gerador.popular(produtoDAO, gerar, ProdutoDAO.TAMANHO_LOTE_PADRAO, aleatorio, carga::adicionarSintetico) < gerar) {
+                    return 1;
+                }
+            }
+            // Como na interface: buscas pelo índice de trigramas, a não ser que se queira medir o LIKE no banco
+            if (!Arrays.asList(args).contains("--sem-indice")) {
+                IndiceTrigramas.getInstance().construir(produtoDAO);
+            }
+            
+            int trabalhadores = Integer.parseInt(opcao(args, "--trabalhadores", "16"));
+            int segundos = Integer.parseInt(opcao(args, "--segundos", "60"));
+            System.out.println("Carga com " + trabalhadores + " trabalhador(es) por " + segundos + " s...");
+            carga.executar(trabalhadores, segundos, Integer.parseInt(opcao(args, "--aquecimento", "10")));
+            System.out.print(carga.relatorio());
+            return 0;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o catálogo: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } finally {
+            DatabaseConnection.getInstance().closeConnection();
+        }
+    }
+    
+    private static int cargaHttp(URI base, int clientes, int segundos) {
+        try {
+            return new ClienteCarga(base).executar(clientes, segundos) ? 0 : 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+    
+    /**
+     * Valor de uma opção no formato "--nome valor"
+     */
+    private static String opcao(String[] args, String nome, String padrao) {
+        for (int i = 1; i < args.length - 1; i++) {
+            if (args[i].equals(nome)) {
+                return args[i + 1];
+            }
+        }
+        return padrao;
+    }
+    
+    private static void imprimirUso() {
+        System.err.println("Uso:");
+        System.err.println("  java Main                                   (interface gráfica)");
+        System.err.println("  java Main --importar arquivo.csv [--lote N] (importação em lote)");
+        System.err.println("  java Main --exportar arquivo [--formato csv|jsonl|binario] [--gzip]");
+        System.err.println("  java Main --restaurar arquivo [--lote N]    (restaura exportação CSV ou binária)");
+        System.err.println("  java Main --receber arquivo.csv [--lote N]  (soma id,quantidade ao estoque)");
+        System.err.println("  java Main --servidor [--porta N]            (API HTTP/JSON, sem interface)");
+        System.err.println("  java Main --carga-http URL [--clientes N] [--segundos S]");
+        System.err.println("  java Main --carga-dao [--gerar N] [--assimetria S] [--trabalhadores N] [--segundos S]");
+        System.err.println("                        [--aquecimento S] [--mistura buscarPorId=50,...] [--sem-indice]");
+    }
 }
@@ -0,0 +1,129 @@
+package benchmark;
+
+import dao.ProdutoDAO;
+import database.DatabaseConnection;
+import model.Produto;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Catálogo sintético gravado no banco embarcado (H2 em modo MySQL) antes de cada rodada
+ * O tamanho é parâmetro do JMH: cada combinação roda em uma JVM própria, com o banco vazio
+ */
+@State(Scope.Benchmark)
+public class EstadoCatalogo {
+    // Termos de busca com frequências bem diferentes no catálogo
+    static final String[] TERMOS = {"mouse", "gamer", "ssd 1tb", "monitor curvo", "xyz"};
+
+    private static final String[] CATEGORIAS = {
+        "Informática", "Periféricos", "Monitores", "Celulares", "Áudio", "Armazenamento", "Hardware",
+        "Redes", "Impressoras", "Games", "Acessórios", "Cabos", "Energia", "Câmeras", "Tablets",
+        "Smart Home", "Software", "Escritório", "Componentes", "Wearables"
+    };
+    private static final String[] ITENS = {
+        "Mouse", "Teclado", "Monitor", "Headset", "SSD", "HD Externo", "Notebook", "Webcam",
+        "Roteador", "Cadeira", "Fonte", "Gabinete", "Placa de Vídeo", "Memória RAM", "Hub USB"
+    };
+    private static final String[] ATRIBUTOS = {
+        "Gamer", "Sem Fio", "Curvo", "Mecânico", "Compacto", "Pro", "RGB", "1TB", "Ultra", "Slim"
+    };
+    private static final String[] MARCAS = {
+        "Logitech", "Dell", "Samsung", "Kingston", "HyperX", "Xiaomi", "Corsair", "Asus", "Lenovo", "LG"
+    };
+
+    private static final int TAMANHO_LOTE = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int tamanho;
+
+    ProdutoDAO produtoDAO;
+    int maiorId;
+
+    @Setup(Level.Trial)
+    public void preparar() throws SQLException {
+        criarTabelas();
+        produtoDAO = new ProdutoDAO();
+
+        Random random = new Random(42);
+        List<Produto> lote = new ArrayList<>(TAMANHO_LOTE);
+        for (int i = 0; i < tamanho; i++) {
+            lote.add(gerarProduto(random, i));
+            if (lote.size() == TAMANHO_LOTE) {
+                gravar(lote);
+            }
+        }
+        if (!lote.isEmpty()) {
+            gravar(lote);
+        }
+        maiorId = produtoDAO.buscarUltimoId();
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() {
+        DatabaseConnection.getInstance().closeConnection();
+    }
+
+    static Produto gerarProduto(Random random, int sequencia) {
+        String item = ITENS[random.nextInt(ITENS.length)];
+        String atributo = ATRIBUTOS[random.nextInt(ATRIBUTOS.length)];
+        String marca = MARCAS[random.nextInt(MARCAS.length)];
+        String nome = item + " " + atributo + " " + marca + " " + sequencia;
+        String descricao = item + " " + marca + " linha " + atributo.toLowerCase() + ", garantia de "
+                + (1 + random.nextInt(3)) + " ano(s), modelo " + Integer.toHexString(random.nextInt());
+        BigDecimal preco = BigDecimal.valueOf(Math.round((10 + random.nextDouble() * 5000) * 100), 2);
+        return new Produto(nome, descricao, preco, random.nextInt(500), CATEGORIAS[random.nextInt(CATEGORIAS.length)]);
+    }
+
+    private void gravar(List<Produto> lote) {
+        if (produtoDAO.inserirEmLote(lote, ProdutoDAO.TAMANHO_LOTE_PADRAO) < 0) {
+            throw new IllegalStateException("Falha ao gravar o catálogo sintético");
+        }
+        lote.clear();
+    }
+
+    /**
+     * Esquema equivalente ao do MySQL, com os índices criados à parte (sintaxe aceita pelo H2)
+     */
+    private static void criarTabelas() throws SQLException {
+        try (Connection connection = DatabaseConnection.getInstance().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DROP TABLE IF EXISTS produtos");
+            statement.executeUpdate("DROP TABLE IF EXISTS produtos_excluidos");
+            statement.executeUpdate("""
+                CREATE TABLE produtos (
+                    id INT AUTO_INCREMENT PRIMARY KEY,
+                    nome VARCHAR(100) NOT NULL,
+                    descricao TEXT,
+                    preco DECIMAL(10,2) NOT NULL,
+                    quantidade INT NOT NULL,
+                    categoria VARCHAR(50) NOT NULL,
+                    versao INT NOT NULL DEFAULT 0,
+                    data_criacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    data_atualizacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+                )
+            """);
+            statement.executeUpdate("CREATE INDEX idx_nome ON produtos (nome)");
+            statement.executeUpdate("CREATE INDEX idx_categoria ON produtos (categoria)");
+            statement.executeUpdate("CREATE INDEX idx_data_atualizacao ON produtos (data_atualizacao)");
+            statement.executeUpdate("""
+                CREATE TABLE produtos_excluidos (
+                    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    produto_id INT NOT NULL,
+                    data_exclusao TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+            """);
+        }
+    }
+}
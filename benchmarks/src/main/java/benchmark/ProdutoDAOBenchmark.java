@@ -0,0 +1,116 @@
+package benchmark;
+
+import busca.CacheBuscas;
+import busca.IndiceTrigramas;
+import dao.CacheProdutos;
+import model.Produto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo das operações do ProdutoDAO sobre catálogos de 1 mil, 100 mil e 1 milhão de produtos
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {
+    "-Xmx3g",
+    "-Djava.awt.headless=true",
+    "-Ddb.url=jdbc:h2:mem:sistema_crud;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "-Ddb.user=sa",
+    "-Ddb.password="
+})
+public class ProdutoDAOBenchmark {
+
+    /**
+     * Índice de trigramas carregado, para medir a busca por nome sem ir ao banco
+     */
+    @State(Scope.Benchmark)
+    public static class EstadoIndice {
+        @Setup(Level.Trial)
+        public void preparar(EstadoCatalogo catalogo) throws IOException {
+            IndiceTrigramas.getInstance().construir(catalogo.produtoDAO);
+        }
+    }
+
+    /**
+     * Gerador de produtos por thread, para as inserções
+     */
+    @State(Scope.Thread)
+    public static class EstadoInsercao {
+        Random random = new Random(7);
+        int sequencia;
+    }
+
+    @Benchmark
+    public boolean inserir(EstadoCatalogo catalogo, EstadoInsercao insercao) {
+        // O catálogo cresce durante a medição; o efeito é desprezível frente ao tamanho inicial
+        Produto produto = EstadoCatalogo.gerarProduto(insercao.random, catalogo.tamanho + insercao.sequencia++);
+        return catalogo.produtoDAO.inserir(produto);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Produto> listarTodos(EstadoCatalogo catalogo) {
+        return catalogo.produtoDAO.listarTodos();
+    }
+
+    @Benchmark
+    public Produto buscarPorId(EstadoCatalogo catalogo) {
+        return catalogo.produtoDAO.buscarPorId(idAleatorio(catalogo));
+    }
+
+    @Benchmark
+    public Produto buscarPorIdSemCache(EstadoCatalogo catalogo) {
+        int id = idAleatorio(catalogo);
+        CacheProdutos.getInstance().invalidar(id);
+        return catalogo.produtoDAO.buscarPorId(id);
+    }
+
+    // Com poucos termos toda busca acertaria o CacheBuscas; as duas primeiras medem a busca em si
+    @Benchmark
+    public List<Produto> buscarPorNome(EstadoCatalogo catalogo) {
+        CacheBuscas.getInstance().limpar();
+        return catalogo.produtoDAO.buscarPorNome(termoAleatorio());
+    }
+
+    @Benchmark
+    public List<Produto> buscarPorNomeComIndice(EstadoCatalogo catalogo, EstadoIndice indice) {
+        CacheBuscas.getInstance().limpar();
+        return catalogo.produtoDAO.buscarPorNome(termoAleatorio());
+    }
+
+    @Benchmark
+    public List<Produto> buscarPorNomeRepetida(EstadoCatalogo catalogo) {
+        return catalogo.produtoDAO.buscarPorNome(termoAleatorio());
+    }
+
+    @Benchmark
+    public List<String> listarCategorias(EstadoCatalogo catalogo) {
+        return catalogo.produtoDAO.listarCategorias();
+    }
+
+    private static int idAleatorio(EstadoCatalogo catalogo) {
+        return 1 + ThreadLocalRandom.current().nextInt(catalogo.maiorId);
+    }
+
+    private static String termoAleatorio() {
+        return EstadoCatalogo.TERMOS[ThreadLocalRandom.current().nextInt(EstadoCatalogo.TERMOS.length)];
+    }
+}
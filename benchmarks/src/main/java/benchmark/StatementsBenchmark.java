@@ -0,0 +1,124 @@
+package benchmark;
+
+import database.ConnectionPool;
+import database.PerfilConexao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de preparar e executar os SQLs do ProdutoDAO com e sem o cache de statements do pool
+ * Cada chamada empresta a conexão e prepara o statement, como o DAO faz; com o cache, a partir
+ * da segunda chamada o prepare só reaproveita o statement já analisado
+ * No H2 mede a análise do SQL no cliente; contra o MySQL (-Ddb.url=jdbc:mysql://... e
+ * -Ddb.perfil=prod) mede também os prepares no servidor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {
+    "-Djava.awt.headless=true",
+    "-Ddb.url=jdbc:h2:mem:sistema_crud;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "-Ddb.user=sa",
+    "-Ddb.password="
+})
+public class StatementsBenchmark {
+    private static final int PRODUTOS = 10_000;
+
+    // Mesmas colunas e condições das consultas do ProdutoDAO, em uma tabela própria
+    private static final String SQL_BUSCAR = "SELECT id, nome, descricao, preco, quantidade, categoria, versao "
+            + "FROM statements_produtos WHERE id = ?";
+    private static final String SQL_ATUALIZAR = "UPDATE statements_produtos SET quantidade = ?, versao = versao + 1 "
+            + "WHERE id = ?";
+
+    @State(Scope.Benchmark)
+    public static class EstadoPool {
+        @Param({"0", "64"})
+        public int cacheStatements;
+
+        ConnectionPool pool;
+
+        @Setup(Level.Trial)
+        public void preparar() throws SQLException {
+            String url = PerfilConexao.atual().aplicar(System.getProperty("db.url"));
+            pool = new ConnectionPool(url, System.getProperty("db.user"), System.getProperty("db.password", ""),
+                    1, 8, 2, 5_000, 5 * 60_000, 60_000, cacheStatements);
+            try (Connection connection = pool.borrow()) {
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("DROP TABLE IF EXISTS statements_produtos");
+                    stmt.execute("CREATE TABLE statements_produtos (id INT PRIMARY KEY, nome VARCHAR(100) NOT NULL, "
+                            + "descricao TEXT, preco DECIMAL(10,2) NOT NULL, quantidade INT NOT NULL, "
+                            + "categoria VARCHAR(50), versao INT NOT NULL DEFAULT 0)");
+                }
+                connection.setAutoCommit(false);
+                try (PreparedStatement stmt = connection.prepareStatement(
+                        "INSERT INTO statements_produtos (id, nome, descricao, preco, quantidade, categoria) "
+                                + "VALUES (?, ?, ?, ?, ?, ?)")) {
+                    for (int id = 1; id <= PRODUTOS; id++) {
+                        stmt.setInt(1, id);
+                        stmt.setString(2, "Produto " + id);
+                        stmt.setString(3, "Descrição do produto " + id);
+                        stmt.setBigDecimal(4, BigDecimal.valueOf(1000 + id, 2));
+                        stmt.setInt(5, id % 100);
+                        stmt.setString(6, "Categoria " + id % 20);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+                connection.commit();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void encerrar() {
+            System.out.println();
+            System.out.println(pool);
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public String buscarPorId(EstadoPool estado) throws SQLException {
+        try (Connection connection = estado.pool.borrow();
+             PreparedStatement stmt = connection.prepareStatement(SQL_BUSCAR)) {
+            stmt.setInt(1, idAleatorio());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString("nome") : null;
+            }
+        }
+    }
+
+    @Benchmark
+    public int atualizar(EstadoPool estado) throws SQLException {
+        try (Connection connection = estado.pool.borrow();
+             PreparedStatement stmt = connection.prepareStatement(SQL_ATUALIZAR)) {
+            stmt.setInt(1, ThreadLocalRandom.current().nextInt(100));
+            stmt.setInt(2, idAleatorio());
+            return stmt.executeUpdate();
+        }
+    }
+
+    private static int idAleatorio() {
+        return ThreadLocalRandom.current().nextInt(PRODUTOS) + 1;
+    }
+}
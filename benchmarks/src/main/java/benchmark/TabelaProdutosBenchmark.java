@@ -0,0 +1,107 @@
+package benchmark;
+
+import model.Produto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import service.ProdutoService;
+import view.MoedaCellRenderer;
+import view.ProdutoTableModel;
+
+import javax.swing.JTable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversão Produto -> células da tabela, como a JTable faz ao desenhar as linhas
+ * Mede exibirLista() seguido da leitura de todas as células via getValueAt()
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {
+    "-Xmx3g",
+    "-Djava.awt.headless=true",
+    "-Ddb.url=jdbc:h2:mem:sistema_crud;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "-Ddb.user=sa",
+    "-Ddb.password="
+})
+public class TabelaProdutosBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class EstadoTabela {
+        ProdutoService produtoService;
+        ProdutoTableModel modelo;
+        List<Produto> produtos;
+        JTable tabela;
+        MoedaCellRenderer renderizador;
+
+        @Setup(Level.Trial)
+        public void preparar(EstadoCatalogo catalogo) {
+            produtoService = new ProdutoService(catalogo.produtoDAO);
+            modelo = new ProdutoTableModel(produtoService);
+            produtos = catalogo.produtoDAO.listarTodos();
+            tabela = new JTable(modelo);
+            renderizador = new MoedaCellRenderer();
+        }
+
+        @TearDown(Level.Trial)
+        public void encerrar() {
+            produtoService.encerrar();
+        }
+    }
+
+    @Benchmark
+    public void converterLinhas(EstadoTabela tabela, Blackhole blackhole) {
+        ProdutoTableModel modelo = tabela.modelo;
+        modelo.exibirLista(tabela.produtos);
+        int colunas = modelo.getColumnCount();
+        for (int linha = 0; linha < modelo.getRowCount(); linha++) {
+            for (int coluna = 0; coluna < colunas; coluna++) {
+                blackhole.consume(modelo.getValueAt(linha, coluna));
+            }
+        }
+    }
+
+    /**
+     * Apenas a primeira página, que é o que a tabela desenha ao abrir
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void converterPrimeiraPagina(EstadoTabela tabela, Blackhole blackhole) {
+        ProdutoTableModel modelo = tabela.modelo;
+        modelo.exibirLista(tabela.produtos.subList(0, Math.min(ProdutoTableModel.TAMANHO_PAGINA, tabela.produtos.size())));
+        int colunas = modelo.getColumnCount();
+        for (int linha = 0; linha < modelo.getRowCount(); linha++) {
+            for (int coluna = 0; coluna < colunas; coluna++) {
+                blackhole.consume(modelo.getValueAt(linha, coluna));
+            }
+        }
+    }
+
+    /**
+     * Desenho da coluna de preço da primeira página pelo MoedaCellRenderer, como a JTable faz a
+     * cada repintura; depois da primeira chamada os textos vêm do cache do renderizador
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void renderizarPrecos(EstadoTabela tabela, Blackhole blackhole) {
+        ProdutoTableModel modelo = tabela.modelo;
+        modelo.exibirLista(tabela.produtos.subList(0, Math.min(ProdutoTableModel.TAMANHO_PAGINA, tabela.produtos.size())));
+        for (int linha = 0; linha < modelo.getRowCount(); linha++) {
+            blackhole.consume(tabela.renderizador.getTableCellRendererComponent(
+                    tabela.tabela, modelo.getValueAt(linha, 3), false, false, linha, 3));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package busca;
+
+import model.Produto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reaproveita o último resultado da busca quando o usuário apenas estende o termo
+ * Se o resultado anterior estava completo (não foi truncado pelo limite) e o novo termo
+ * contém o anterior, o novo resultado é um subconjunto e pode ser filtrado localmente
+ */
+public class BuscaIncremental {
+    private String ultimoTermo;
+    private List<Produto> ultimoResultado;
+    private boolean ultimoCompleto;
+
+    /**
+     * Registra o resultado vindo do banco/índice para o termo informado
+     */
+    public void registrar(String termo, List<Produto> resultado, int limite) {
+        ultimoTermo = NormalizadorTexto.normalizar(termo).trim();
+        ultimoResultado = resultado;
+        ultimoCompleto = resultado.size() < limite;
+    }
+
+    /**
+     * Filtra o resultado anterior para o novo termo, ou retorna null se for preciso consultar novamente
+     */
+    public List<Produto> refinar(String termo) {
+        String consulta = NormalizadorTexto.normalizar(termo).trim();
+        if (ultimoResultado == null || !ultimoCompleto || !consulta.contains(ultimoTermo)) {
+            return null;
+        }
+
+        List<Produto> refinado = new ArrayList<>();
+        for (Produto produto : ultimoResultado) {
+            if (contem(produto.getNome(), consulta) || contem(produto.getCategoria(), consulta)) {
+                refinado.add(produto);
+            }
+        }
+
+        ultimoTermo = consulta;
+        ultimoResultado = refinado;
+        return refinado;
+    }
+
+    public void limpar() {
+        ultimoTermo = null;
+        ultimoResultado = null;
+        ultimoCompleto = false;
+    }
+
+    private static boolean contem(String texto, String consulta) {
+        return texto != null && NormalizadorTexto.normalizar(texto).contains(consulta);
+    }
+}
@@ -0,0 +1,221 @@
+package busca;
+
+import metricas.MetricasDAO;
+import model.Produto;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU de resultados da busca por nome, compartilhado entre os DAOs
+ * Guarda só a lista de ids de cada termo (normalizado, sem acentos e em minúsculas); os
+ * produtos são relidos pelo CacheProdutos ou pela chave primária
+ * Uma gravação invalida apenas as buscas que o produto passa a atender (nome, categoria ou
+ * descrição contêm o termo) ou que já o listavam; as demais continuam válidas
+ * Implementa padrão Singleton
+ */
+public class CacheBuscas implements CacheBuscasMBean {
+    private static final int TAMANHO_MAXIMO = Integer.getInteger("cache.buscas.tamanho", 256);
+    private static final long TTL_MS = Long.getLong("cache.buscas.ttlSegundos", 300) * 1000;
+
+    // Estimativa por entrada: nó do LinkedHashMap, objeto Entrada, cabeçalhos da String e dos dois vetores
+    private static final int BYTES_POR_ENTRADA = 160;
+
+    private static volatile CacheBuscas instance;
+
+    private final Map<String, Entrada> entradas = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong despejosPorTamanho = new AtomicLong();
+    private final AtomicLong despejosPorTempo = new AtomicLong();
+    private final AtomicLong invalidacoes = new AtomicLong();
+    private final AtomicLong geracao = new AtomicLong();
+
+    private CacheBuscas() {
+        MetricasDAO.registrarMBean(MetricasDAO.DOMINIO_JMX + ":type=CacheBuscas", this);
+    }
+
+    public static CacheBuscas getInstance() {
+        CacheBuscas result = instance;
+        if (result == null) {
+            synchronized (CacheBuscas.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new CacheBuscas();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ids da busca em ordem de resultado, ou null se o termo não está em cache com pelo menos
+     * limite resultados (um resultado guardado menor que o seu limite já está completo)
+     */
+    public synchronized int[] obter(String termo, int limite) {
+        Entrada entrada = entradas.get(NormalizadorTexto.normalizar(termo));
+        if (entrada == null) {
+            falhas.incrementAndGet();
+            return null;
+        }
+        if (System.currentTimeMillis() - entrada.gravadaEm > TTL_MS) {
+            entradas.remove(entrada.termo);
+            despejosPorTempo.incrementAndGet();
+            falhas.incrementAndGet();
+            return null;
+        }
+        if (entrada.ids.length < limite && entrada.ids.length == entrada.limite) {
+            // Guardada com limite menor: pode haver mais resultados
+            falhas.incrementAndGet();
+            return null;
+        }
+        acertos.incrementAndGet();
+        return Arrays.copyOf(entrada.ids, Math.min(limite, entrada.ids.length));
+    }
+
+    /**
+     * Marca a ler antes de executar a busca e passar a guardar()
+     */
+    public long getGeracao() {
+        return geracao.get();
+    }
+
+    /**
+     * Guarda o resultado de uma busca iniciada na geração informada
+     * Se alguma gravação invalidou o cache desde então, o resultado pode não refleti-la e é descartado
+     */
+    public synchronized void guardar(String termo, int limite, int[] ids, long geracaoInicial) {
+        if (geracao.get() != geracaoInicial) {
+            return;
+        }
+        String chave = NormalizadorTexto.normalizar(termo);
+        entradas.put(chave, new Entrada(chave, limite, ids.clone()));
+        if (entradas.size() > TAMANHO_MAXIMO) {
+            Iterator<Entrada> maisAntiga = entradas.values().iterator();
+            maisAntiga.next();
+            maisAntiga.remove();
+            despejosPorTamanho.incrementAndGet();
+        }
+    }
+
+    /**
+     * Produto incluído ou alterado: descarta as buscas que ele atende agora ou que já o listavam
+     * (a ordem ou a presença no resultado pode ter mudado)
+     */
+    public synchronized void invalidar(Produto produto) {
+        geracao.incrementAndGet();
+        if (entradas.isEmpty()) return;
+
+        String nome = NormalizadorTexto.normalizar(produto.getNome());
+        String categoria = NormalizadorTexto.normalizar(produto.getCategoria());
+        String descricao = NormalizadorTexto.normalizar(produto.getDescricao());
+        Iterator<Entrada> iterator = entradas.values().iterator();
+        while (iterator.hasNext()) {
+            Entrada entrada = iterator.next();
+            if (entrada.contem(produto.getId()) || nome.contains(entrada.termo)
+                    || categoria.contains(entrada.termo) || descricao.contains(entrada.termo)) {
+                iterator.remove();
+                invalidacoes.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Produto excluído: descarta apenas as buscas que o listavam
+     */
+    public synchronized void invalidar(int id) {
+        geracao.incrementAndGet();
+        Iterator<Entrada> iterator = entradas.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().contem(id)) {
+                iterator.remove();
+                invalidacoes.incrementAndGet();
+            }
+        }
+    }
+
+    public synchronized void limpar() {
+        geracao.incrementAndGet();
+        invalidacoes.addAndGet(entradas.size());
+        entradas.clear();
+    }
+
+    public synchronized int getTamanho() {
+        return entradas.size();
+    }
+
+    /**
+     * Memória aproximada das entradas (termos e listas de ids), em bytes
+     */
+    public synchronized long getMemoriaEstimadaBytes() {
+        long bytes = 0;
+        for (Entrada entrada : entradas.values()) {
+            bytes += BYTES_POR_ENTRADA + entrada.termo.length() + 8L * entrada.ids.length;
+        }
+        return bytes;
+    }
+
+    public long getAcertos() {
+        return acertos.get();
+    }
+
+    public long getFalhas() {
+        return falhas.get();
+    }
+
+    public long getDespejosPorTamanho() {
+        return despejosPorTamanho.get();
+    }
+
+    public long getDespejosPorTempo() {
+        return despejosPorTempo.get();
+    }
+
+    public long getInvalidacoes() {
+        return invalidacoes.get();
+    }
+
+    public double getTaxaAcerto() {
+        long total = acertos.get() + falhas.get();
+        return total == 0 ? 0 : acertos.get() / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheBuscas{" +
+                "tamanho=" + getTamanho() +
+                ", memoria=" + String.format("%.1f KB", getMemoriaEstimadaBytes() / 1024.0) +
+                ", acertos=" + getAcertos() +
+                ", falhas=" + getFalhas() +
+                ", taxaAcerto=" + String.format("%.1f%%", getTaxaAcerto() * 100) +
+                ", despejosPorTamanho=" + getDespejosPorTamanho() +
+                ", despejosPorTempo=" + getDespejosPorTempo() +
+                ", invalidacoes=" + getInvalidacoes() +
+                '}';
+    }
+
+    private static class Entrada {
+        private final String termo;
+        private final int limite;
+        private final int[] ids;
+        // Cópia ordenada para a verificação de pertinência na invalidação
+        private final int[] idsOrdenados;
+        private final long gravadaEm = System.currentTimeMillis();
+
+        Entrada(String termo, int limite, int[] ids) {
+            this.termo = termo;
+            this.limite = limite;
+            this.ids = ids;
+            this.idsOrdenados = ids.clone();
+            Arrays.sort(idsOrdenados);
+        }
+
+        boolean contem(int id) {
+            return Arrays.binarySearch(idsOrdenados, id) >= 0;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package busca;
+
+/**
+ * Interface JMX do cache de buscas
+ */
+public interface CacheBuscasMBean {
+    int getTamanho();
+
+    long getMemoriaEstimadaBytes();
+
+    long getAcertos();
+
+    long getFalhas();
+
+    long getDespejosPorTamanho();
+
+    long getDespejosPorTempo();
+
+    long getInvalidacoes();
+
+    double getTaxaAcerto();
+
+    void limpar();
+}
@@ -0,0 +1,307 @@
+package busca;
+
+import dao.FonteProdutos;
+import model.Produto;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido de trigramas em memória para busca por substring
+ * Substitui o "nome LIKE '%termo%'", que não consegue usar o índice idx_nome
+ * Indexa nome e categoria (e opcionalmente a descrição), sem diferenciar acentos e maiúsculas
+ * Implementa padrão Singleton para ser compartilhado entre os DAOs
+ */
+public class IndiceTrigramas {
+    // Pesos de relevância (menor = mais relevante)
+    private static final int RELEVANCIA_INICIO_NOME = 0;
+    private static final int RELEVANCIA_INICIO_PALAVRA = 1;
+    private static final int RELEVANCIA_NOME = 2;
+    private static final int RELEVANCIA_CATEGORIA = 3;
+    private static final int RELEVANCIA_DESCRICAO = 4;
+
+    private static volatile IndiceTrigramas instance;
+
+    private final boolean indexarDescricao;
+    private final Map<Long, ListaIds> postings = new HashMap<>();
+    private final Map<Integer, Documento> documentos = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean pronto;
+    private volatile boolean construindo;
+    // Ids gravados durante a construção: a versão lida do banco pode estar desatualizada
+    private final Set<Integer> alteradosDuranteConstrucao = new HashSet<>();
+
+    private IndiceTrigramas(boolean indexarDescricao) {
+        this.indexarDescricao = indexarDescricao;
+    }
+
+    public static IndiceTrigramas getInstance() {
+        IndiceTrigramas result = instance;
+        if (result == null) {
+            synchronized (IndiceTrigramas.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new IndiceTrigramas(Boolean.getBoolean("busca.indexarDescricao"));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Indica se o índice já foi carregado; enquanto estiver frio a busca deve usar SQL
+     */
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    /**
+     * Carrega todos os produtos da fonte (banco ou cópia local) em streaming e marca o índice como pronto
+     */
+    public void construir(FonteProdutos fonte) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (construindo) return;
+            construindo = true;
+            pronto = false;
+            postings.clear();
+            documentos.clear();
+            alteradosDuranteConstrucao.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            long total = fonte.percorrerTodos(produto -> {
+                lock.writeLock().lock();
+                try {
+                    if (!alteradosDuranteConstrucao.contains(produto.getId())) {
+                        indexarInterno(produto);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            if (total >= 0) {
+                pronto = true;
+                // Resultados guardados vieram do LIKE no banco (ou de um índice anterior), em outra ordem
+                CacheBuscas.getInstance().limpar();
+                System.out.printf("Índice de busca carregado: %d produtos, %d trigramas em %d ms%n",
+                        total, postings.size(), (System.nanoTime() - inicio) / 1_000_000);
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                construindo = false;
+                alteradosDuranteConstrucao.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Inclui ou atualiza um produto no índice
+     */
+    public void indexar(Produto produto) {
+        lock.writeLock().lock();
+        try {
+            if (construindo) {
+                alteradosDuranteConstrucao.add(produto.getId());
+            }
+            indexarInterno(produto);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remover(int id) {
+        lock.writeLock().lock();
+        try {
+            if (construindo) {
+                alteradosDuranteConstrucao.add(id);
+            }
+            removerInterno(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca por substring e retorna os ids ordenados por relevância
+     * (início do nome, início de palavra do nome, meio do nome, categoria, descrição)
+     */
+    public int[] buscar(String termo, int limite) {
+        String consulta = NormalizadorTexto.normalizar(termo).trim();
+        if (consulta.isEmpty()) {
+            return new int[0];
+        }
+
+        lock.readLock().lock();
+        try {
+            long[] classificados = new long[16];
+            int quantidade = 0;
+
+            if (consulta.length() < 3) {
+                // Termos curtos não formam trigramas: varre os documentos em memória
+                for (Map.Entry<Integer, Documento> entrada : documentos.entrySet()) {
+                    long chave = classificar(entrada.getKey(), entrada.getValue(), consulta);
+                    if (chave >= 0) {
+                        if (quantidade == classificados.length) classificados = Arrays.copyOf(classificados, quantidade * 2);
+                        classificados[quantidade++] = chave;
+                    }
+                }
+            } else {
+                ListaIds[] listas = listasDaConsulta(consulta);
+                if (listas == null) {
+                    return new int[0];
+                }
+                ListaIds menor = listas[0];
+                for (int i = 0; i < menor.tamanho(); i++) {
+                    int id = menor.get(i);
+                    if (!contidoEmTodas(listas, id)) continue;
+                    long chave = classificar(id, documentos.get(id), consulta);
+                    if (chave >= 0) {
+                        if (quantidade == classificados.length) classificados = Arrays.copyOf(classificados, quantidade * 2);
+                        classificados[quantidade++] = chave;
+                    }
+                }
+            }
+
+            Arrays.sort(classificados, 0, quantidade);
+            int[] ids = new int[Math.min(quantidade, limite)];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = (int) classificados[i];
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTotalDocumentos() {
+        lock.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Posting lists de cada trigrama da consulta, da menor para a maior; null se algum trigrama não existir
+     */
+    private ListaIds[] listasDaConsulta(String consulta) {
+        Set<Long> trigramas = new HashSet<>();
+        adicionarTrigramas(consulta, trigramas);
+        ListaIds[] listas = new ListaIds[trigramas.size()];
+        int i = 0;
+        for (Long trigrama : trigramas) {
+            ListaIds lista = postings.get(trigrama);
+            if (lista == null || lista.tamanho() == 0) {
+                return null;
+            }
+            listas[i++] = lista;
+        }
+        Arrays.sort(listas, (a, b) -> Integer.compare(a.tamanho(), b.tamanho()));
+        return listas;
+    }
+
+    private static boolean contidoEmTodas(ListaIds[] listas, int id) {
+        for (int i = 1; i < listas.length; i++) {
+            if (!listas[i].contem(id)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Confirma a ocorrência do termo e gera a chave de ordenação:
+     * [relevância][tamanho do nome][id]; retorna -1 se o termo não ocorrer (falso positivo dos trigramas)
+     */
+    private long classificar(int id, Documento documento, String consulta) {
+        int relevancia;
+        int posicao = documento.nome.indexOf(consulta);
+        if (posicao == 0) {
+            relevancia = RELEVANCIA_INICIO_NOME;
+        } else if (posicao > 0) {
+            relevancia = Character.isLetterOrDigit(documento.nome.charAt(posicao - 1))
+                    ? RELEVANCIA_NOME : RELEVANCIA_INICIO_PALAVRA;
+        } else if (documento.categoria.contains(consulta)) {
+            relevancia = RELEVANCIA_CATEGORIA;
+        } else if (documento.descricao != null && documento.descricao.contains(consulta)) {
+            relevancia = RELEVANCIA_DESCRICAO;
+        } else {
+            return -1;
+        }
+        long tamanho = Math.min(documento.nome.length(), 0xFFFF);
+        return ((long) relevancia << 48) | (tamanho << 32) | (id & 0xFFFFFFFFL);
+    }
+
+    private void indexarInterno(Produto produto) {
+        removerInterno(produto.getId());
+
+        Documento documento = new Documento(
+                NormalizadorTexto.normalizar(produto.getNome()),
+                NormalizadorTexto.normalizar(produto.getCategoria()),
+                indexarDescricao ? NormalizadorTexto.normalizar(produto.getDescricao()) : null);
+        documentos.put(produto.getId(), documento);
+
+        for (Long trigrama : documento.trigramas()) {
+            postings.computeIfAbsent(trigrama, t -> new ListaIds()).adicionar(produto.getId());
+        }
+    }
+
+    private void removerInterno(int id) {
+        Documento anterior = documentos.remove(id);
+        if (anterior == null) return;
+
+        for (Long trigrama : anterior.trigramas()) {
+            ListaIds lista = postings.get(trigrama);
+            if (lista != null) {
+                lista.remover(id);
+                if (lista.tamanho() == 0) {
+                    postings.remove(trigrama);
+                }
+            }
+        }
+    }
+
+    private static void adicionarTrigramas(String texto, Set<Long> destino) {
+        for (int i = 0; i + 3 <= texto.length(); i++) {
+            destino.add(((long) texto.charAt(i) << 32) | ((long) texto.charAt(i + 1) << 16) | texto.charAt(i + 2));
+        }
+    }
+
+    /**
+     * Textos normalizados de um produto, usados para confirmar e classificar os candidatos
+     */
+    private static class Documento {
+        private final String nome;
+        private final String categoria;
+        private final String descricao;
+
+        Documento(String nome, String categoria, String descricao) {
+            this.nome = nome;
+            this.categoria = categoria;
+            this.descricao = descricao;
+        }
+
+        Set<Long> trigramas() {
+            Set<Long> trigramas = new HashSet<>();
+            adicionarTrigramas(nome, trigramas);
+            adicionarTrigramas(categoria, trigramas);
+            if (descricao != null) {
+                adicionarTrigramas(descricao, trigramas);
+            }
+            return trigramas;
+        }
+    }
+}
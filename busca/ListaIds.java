@@ -0,0 +1,55 @@
+package busca;
+
+import java.util.Arrays;
+
+/**
+ * Lista de ids ordenada sobre um int[] primitivo (posting list do índice)
+ */
+class ListaIds {
+    private int[] ids = new int[4];
+    private int tamanho;
+
+    int tamanho() {
+        return tamanho;
+    }
+
+    int get(int indice) {
+        return ids[indice];
+    }
+
+    boolean contem(int id) {
+        return Arrays.binarySearch(ids, 0, tamanho, id) >= 0;
+    }
+
+    void adicionar(int id) {
+        // Ids costumam chegar em ordem crescente: anexa sem busca
+        if (tamanho == 0 || ids[tamanho - 1] < id) {
+            garantirCapacidade();
+            ids[tamanho++] = id;
+            return;
+        }
+        int posicao = Arrays.binarySearch(ids, 0, tamanho, id);
+        if (posicao >= 0) {
+            return;
+        }
+        posicao = -posicao - 1;
+        garantirCapacidade();
+        System.arraycopy(ids, posicao, ids, posicao + 1, tamanho - posicao);
+        ids[posicao] = id;
+        tamanho++;
+    }
+
+    void remover(int id) {
+        int posicao = Arrays.binarySearch(ids, 0, tamanho, id);
+        if (posicao >= 0) {
+            System.arraycopy(ids, posicao + 1, ids, posicao, tamanho - posicao - 1);
+            tamanho--;
+        }
+    }
+
+    private void garantirCapacidade() {
+        if (tamanho == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1) + 1);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package busca;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalização de texto para busca: remove acentos e converte para minúsculas
+ * Ex.: "Informática" -> "informatica", "ÁUDIO" -> "audio"
+ */
+public final class NormalizadorTexto {
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+    private NormalizadorTexto() {
+    }
+
+    public static String normalizar(String texto) {
+        if (texto == null || texto.isEmpty()) {
+            return "";
+        }
+
+        // Caminho rápido: texto ASCII não precisa de decomposição
+        boolean ascii = true;
+        for (int i = 0; i < texto.length() && ascii; i++) {
+            ascii = texto.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            return texto.toLowerCase(Locale.ROOT);
+        }
+
+        String decomposto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return MARCAS.matcher(decomposto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,297 @@
+package carga;
+
+import busca.CacheBuscas;
+import dao.CacheProdutos;
+import dao.ConflitoVersaoException;
+import dao.ProdutoDAO;
+import database.DatabaseConnection;
+import metricas.Histograma;
+import metricas.MetricasDAO;
+import model.Produto;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Carga concorrente sobre o ProdutoDAO: N trabalhadores sorteiam operações pela mistura e
+ * as executam sem pausa contra o banco configurado
+ * Leituras usam qualquer produto conhecido; atualizações e exclusões só tocam produtos
+ * sintéticos (gerados nesta execução ou inseridos pela própria carga), para não alterar
+ * dados reais de um banco compartilhado
+ * Resultado nulo ou falso de um produto ainda existente conta como erro; se outro
+ * trabalhador o excluiu no meio tempo, conta como ausente
+ */
+public class ExecutorCarga {
+    private final ProdutoDAO produtoDAO;
+    private final GeradorCatalogo gerador;
+    private final OperacaoCarga[] operacoes;
+    private final int[] pesosAcumulados;
+    private final Map<OperacaoCarga, Estatistica> estatisticas = new EnumMap<>(OperacaoCarga.class);
+    private final Ids leitura = new Ids();
+    private final Ids escrita = new Ids();
+    private volatile double duracaoSegundos;
+
+    public ExecutorCarga(ProdutoDAO produtoDAO, GeradorCatalogo gerador, Map<OperacaoCarga, Integer> mistura) {
+        this.produtoDAO = produtoDAO;
+        this.gerador = gerador;
+        this.operacoes = mistura.keySet().toArray(new OperacaoCarga[0]);
+        this.pesosAcumulados = new int[operacoes.length];
+        int soma = 0;
+        for (int i = 0; i < operacoes.length; i++) {
+            soma += mistura.get(operacoes[i]);
+            pesosAcumulados[i] = soma;
+        }
+        for (OperacaoCarga operacao : OperacaoCarga.values()) {
+            estatisticas.put(operacao, new Estatistica());
+        }
+    }
+
+    /**
+     * Produto já existente no banco: alvo só de leituras
+     */
+    public void adicionarExistente(int id) {
+        leitura.adicionar(id);
+    }
+
+    /**
+     * Produto do catálogo sintético: alvo de leituras, atualizações e exclusões
+     */
+    public void adicionarSintetico(int id) {
+        leitura.adicionar(id);
+        escrita.adicionar(id);
+    }
+
+    /**
+     * Executa a carga; operações do aquecimento não entram no resultado
+     * As métricas do DAO são reiniciadas no fim do aquecimento para cobrir o mesmo intervalo
+     */
+    public void executar(int trabalhadores, int segundos, int aquecimentoSegundos) throws InterruptedException {
+        long inicioMedicao = System.nanoTime() + TimeUnit.SECONDS.toNanos(aquecimentoSegundos);
+        long fim = inicioMedicao + TimeUnit.SECONDS.toNanos(segundos);
+        AtomicInteger contador = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(trabalhadores, r -> {
+            Thread t = new Thread(r, "carga-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < trabalhadores; i++) {
+            executor.execute(() -> {
+                ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                long agora;
+                while ((agora = System.nanoTime()) < fim) {
+                    executarOperacao(sortear(aleatorio), aleatorio, agora >= inicioMedicao);
+                }
+            });
+        }
+        executor.shutdown();
+
+        if (aquecimentoSegundos > 0) {
+            Thread.sleep(TimeUnit.NANOSECONDS.toMillis(inicioMedicao - System.nanoTime()));
+            MetricasDAO.getInstance().reiniciar();
+            System.out.println("Aquecimento concluído; medindo por " + segundos + " s");
+        }
+        // Operações em andamento no fim do prazo ainda terminam
+        executor.awaitTermination(segundos + 60L, TimeUnit.SECONDS);
+        duracaoSegundos = Math.max(1e-9, (System.nanoTime() - inicioMedicao) / 1e9);
+    }
+
+    private OperacaoCarga sortear(Random aleatorio) {
+        int sorteio = aleatorio.nextInt(pesosAcumulados[pesosAcumulados.length - 1]);
+        for (int i = 0; i < pesosAcumulados.length; i++) {
+            if (sorteio < pesosAcumulados[i]) {
+                return operacoes[i];
+            }
+        }
+        return operacoes[operacoes.length - 1];
+    }
+
+    private void executarOperacao(OperacaoCarga operacao, Random aleatorio, boolean medir) {
+        Estatistica estatistica = estatisticas.get(operacao);
+        int id = 0;
+        Produto produto = null;
+        // Sorteio e preparação ficam fora do tempo medido
+        switch (operacao) {
+            case BUSCAR_POR_ID:
+                id = leitura.sortear(aleatorio);
+                break;
+            case ATUALIZAR:
+                id = escrita.sortear(aleatorio);
+                if (id > 0) {
+                    produto = produtoDAO.buscarPorId(id);
+                    if (produto == null) {
+                        if (medir) contarFalha(estatistica, id);
+                        return;
+                    }
+                    gerador.alterar(produto, aleatorio);
+                }
+                break;
+            case EXCLUIR:
+                // Retirado antes: nenhum outro trabalhador exclui ou atualiza o mesmo produto depois,
+                // e leituras que o encontrarem excluído contam como ausentes
+                id = escrita.retirar(aleatorio);
+                leitura.remover(id);
+                break;
+            case INSERIR:
+                produto = gerador.gerar(aleatorio);
+                break;
+            default:
+                break;
+        }
+        if (id < 0) {
+            // Sem produtos para a operação (catálogo vazio ou todos excluídos)
+            return;
+        }
+
+        long inicio = System.nanoTime();
+        boolean sucesso;
+        try {
+            switch (operacao) {
+                case BUSCAR_POR_ID:
+                    sucesso = produtoDAO.buscarPorId(id) != null;
+                    break;
+                case BUSCAR_POR_NOME:
+                    sucesso = produtoDAO.buscarPorNome(gerador.termoBusca(aleatorio), 50, null) != null;
+                    break;
+                case INSERIR:
+                    sucesso = produtoDAO.inserir(produto);
+                    break;
+                case ATUALIZAR:
+                    sucesso = produtoDAO.atualizar(produto);
+                    break;
+                case EXCLUIR:
+                    sucesso = produtoDAO.excluir(id);
+                    break;
+                default:
+                    throw new IllegalStateException(operacao.name());
+            }
+        } catch (ConflitoVersaoException e) {
+            if (medir) {
+                estatistica.latencia.registrarNanos(System.nanoTime() - inicio);
+                estatistica.conflitos.increment();
+            }
+            return;
+        } catch (RuntimeException e) {
+            sucesso = false;
+        }
+        if (medir) {
+            estatistica.latencia.registrarNanos(System.nanoTime() - inicio);
+        }
+
+        if (operacao == OperacaoCarga.INSERIR && sucesso) {
+            adicionarSintetico(produto.getId());
+        } else if (!sucesso && medir) {
+            contarFalha(estatistica, operacao == OperacaoCarga.EXCLUIR ? 0 : id);
+        }
+    }
+
+    /**
+     * Falha de um produto que deixou de existir durante a operação é ausência, não erro
+     */
+    private void contarFalha(Estatistica estatistica, int id) {
+        if (id > 0 && !leitura.contem(id)) {
+            estatistica.ausentes.increment();
+        } else {
+            estatistica.erros.increment();
+        }
+    }
+
+    /**
+     * Vazão, percentis e taxas de erro por operação, seguidos das métricas do DAO
+     * (SQL, espera por conexão do pool) e dos caches no mesmo intervalo; o pool (inclusive o
+     * reuso de statements) acumula desde o início
+     */
+    public String relatorio() {
+        StringBuilder texto = new StringBuilder();
+        long total = 0;
+        long erros = 0;
+        for (OperacaoCarga operacao : operacoes) {
+            Estatistica estatistica = estatisticas.get(operacao);
+            long chamadas = estatistica.latencia.getTotal();
+            total += chamadas;
+            erros += estatistica.erros.sum();
+            texto.append(String.format("  %-14s chamadas=%d ops/s=%.1f erros=%d (%.2f%%) conflitos=%d ausentes=%d "
+                            + "p50=%.2fms p95=%.2fms p99=%.2fms máx=%.2fms%n",
+                    operacao.getMetodo(), chamadas, chamadas / duracaoSegundos, estatistica.erros.sum(),
+                    chamadas == 0 ? 0 : 100.0 * estatistica.erros.sum() / chamadas,
+                    estatistica.conflitos.sum(), estatistica.ausentes.sum(),
+                    estatistica.latencia.getPercentilMs(50), estatistica.latencia.getPercentilMs(95),
+                    estatistica.latencia.getPercentilMs(99), estatistica.latencia.getMaximoMs()));
+        }
+        texto.append(String.format("Total: %d operações em %.1f s, %.1f ops/s, %d erro(s) (%.2f%%)%n", total,
+                duracaoSegundos, total / duracaoSegundos, erros, total == 0 ? 0 : 100.0 * erros / total));
+        texto.append(String.format("Cache de produtos: taxa de acerto %.1f%%%n",
+                CacheProdutos.getInstance().getTaxaAcerto() * 100));
+        texto.append(CacheBuscas.getInstance()).append(System.lineSeparator());
+        texto.append(MetricasDAO.getInstance().resumo()).append(System.lineSeparator());
+        texto.append(DatabaseConnection.getInstance().getPool()).append(System.lineSeparator());
+        return texto.toString();
+    }
+
+    private static final class Estatistica {
+        private final Histograma latencia = new Histograma();
+        private final LongAdder erros = new LongAdder();
+        private final LongAdder conflitos = new LongAdder();
+        private final LongAdder ausentes = new LongAdder();
+    }
+
+    /**
+     * Conjunto de ids com sorteio uniforme em O(1): vetor compacto mais a posição de cada id
+     */
+    private static final class Ids {
+        private int[] ids = new int[1024];
+        // posicoes[id] = posição em ids + 1; 0 quando ausente
+        private int[] posicoes = new int[1024];
+        private int tamanho;
+
+        synchronized void adicionar(int id) {
+            if (id <= 0) return;
+            if (id >= posicoes.length) {
+                posicoes = Arrays.copyOf(posicoes, Math.max(id + 1, posicoes.length * 2));
+            }
+            if (posicoes[id] != 0) return;
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho * 2);
+            }
+            ids[tamanho++] = id;
+            posicoes[id] = tamanho;
+        }
+
+        synchronized boolean contem(int id) {
+            return id > 0 && id < posicoes.length && posicoes[id] != 0;
+        }
+
+        /**
+         * Id sorteado ou -1 se o conjunto está vazio
+         */
+        synchronized int sortear(Random aleatorio) {
+            return tamanho == 0 ? -1 : ids[aleatorio.nextInt(tamanho)];
+        }
+
+        /**
+         * Sorteia e remove um id; -1 se o conjunto está vazio
+         */
+        synchronized int retirar(Random aleatorio) {
+            if (tamanho == 0) return -1;
+            int id = ids[aleatorio.nextInt(tamanho)];
+            remover(id);
+            return id;
+        }
+
+        synchronized void remover(int id) {
+            if (!contem(id)) return;
+            int posicao = posicoes[id] - 1;
+            int ultimo = ids[--tamanho];
+            ids[posicao] = ultimo;
+            posicoes[ultimo] = posicao + 1;
+            posicoes[id] = 0;
+        }
+    }
+}
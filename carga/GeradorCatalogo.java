@@ -0,0 +1,180 @@
+package carga;
+
+import dao.ProdutoDAO;
+import model.Produto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * Catálogo sintético com a forma de um catálogo real de informática
+ * As categorias seguem uma distribuição de Zipf com expoente assimetria (0 = uniforme;
+ * 1 = a primeira categoria tem o dobro de produtos da segunda); cada categoria tem seus
+ * itens e sua faixa de preço, com cauda longa de preços altos e parte do estoque zerado
+ * Os métodos recebem o Random para que várias threads usem o mesmo gerador
+ */
+public class GeradorCatalogo {
+    /**
+     * Categoria com itens típicos e faixa de preço (mediana e dispersão log-normal)
+     */
+    private static final class Categoria {
+        private final String nome;
+        private final String[] itens;
+        private final double precoMediano;
+        private final double dispersao;
+
+        private Categoria(String nome, double precoMediano, double dispersao, String... itens) {
+            this.nome = nome;
+            this.itens = itens;
+            this.precoMediano = precoMediano;
+            this.dispersao = dispersao;
+        }
+    }
+
+    // Em ordem de popularidade: a primeira recebe a maior parte dos produtos quando há assimetria
+    private static final Categoria[] CATEGORIAS = {
+        new Categoria("Periféricos", 150, 0.8, "Mouse", "Teclado", "Headset", "Webcam", "Mousepad", "Controle"),
+        new Categoria("Hardware", 600, 0.9, "Placa de Vídeo", "Fonte", "Gabinete", "Processador", "Placa-mãe", "Cooler"),
+        new Categoria("Informática", 3000, 0.6, "Notebook", "Desktop", "All-in-One", "Mini PC", "Chromebook"),
+        new Categoria("Armazenamento", 350, 0.7, "SSD", "HD Externo", "Pen Drive", "Cartão de Memória", "NAS"),
+        new Categoria("Monitores", 1200, 0.5, "Monitor", "Monitor Curvo", "Monitor Portátil", "Suporte de Monitor"),
+        new Categoria("Celulares", 1800, 0.7, "Smartphone", "Capa", "Carregador", "Película"),
+        new Categoria("Áudio", 300, 0.9, "Fone de Ouvido", "Caixa de Som", "Soundbar", "Microfone"),
+        new Categoria("Redes", 250, 0.8, "Roteador", "Switch", "Repetidor", "Adaptador Wi-Fi", "Access Point"),
+        new Categoria("Acessórios", 60, 0.7, "Hub USB", "Cabo HDMI", "Adaptador", "Mochila", "Cadeado"),
+        new Categoria("Impressoras", 900, 0.6, "Impressora", "Multifuncional", "Cartucho", "Toner"),
+        new Categoria("Games", 400, 1.0, "Console", "Jogo", "Volante", "Cadeira Gamer"),
+        new Categoria("Energia", 450, 0.7, "Nobreak", "Estabilizador", "Filtro de Linha", "Bateria")
+    };
+    private static final String[] ATRIBUTOS = {
+        "Gamer", "Sem Fio", "Pro", "Compacto", "RGB", "Ultra", "Slim", "Mecânico", "USB-C", "Bluetooth",
+        "4K", "Full HD", "1TB", "512GB", "Essencial", "Max"
+    };
+    private static final String[] MARCAS = {
+        "Logitech", "Dell", "Samsung", "Kingston", "HyperX", "Xiaomi", "Corsair", "Asus", "Lenovo", "LG",
+        "Multilaser", "Intelbras", "TP-Link", "Positivo", "Redragon", "JBL", "Epson", "SMS"
+    };
+    // Termos ausentes do vocabulário: buscas sem resultado também fazem parte da carga
+    private static final String[] TERMOS_AUSENTES = {"xyz", "geladeira", "bicicleta"};
+
+    private final double[] acumuladaCategorias;
+
+    public GeradorCatalogo(double assimetria) {
+        if (assimetria < 0) {
+            throw new IllegalArgumentException("assimetria negativa: " + assimetria);
+        }
+        acumuladaCategorias = new double[CATEGORIAS.length];
+        double soma = 0;
+        for (int i = 0; i < CATEGORIAS.length; i++) {
+            soma += 1 / Math.pow(i + 1, assimetria);
+            acumuladaCategorias[i] = soma;
+        }
+        for (int i = 0; i < CATEGORIAS.length; i++) {
+            acumuladaCategorias[i] /= soma;
+        }
+    }
+
+    public Produto gerar(Random aleatorio) {
+        Categoria categoria = sortearCategoria(aleatorio);
+        String item = categoria.itens[aleatorio.nextInt(categoria.itens.length)];
+        String atributo = ATRIBUTOS[aleatorio.nextInt(ATRIBUTOS.length)];
+        String marca = MARCAS[aleatorio.nextInt(MARCAS.length)];
+        String modelo = Integer.toString(100 + aleatorio.nextInt(9900));
+        String nome = item + " " + marca + " " + atributo + " " + modelo;
+
+        // Descrições de tamanho variado: algumas vazias, a maioria curta, poucas longas
+        String descricao = null;
+        int tipoDescricao = aleatorio.nextInt(10);
+        if (tipoDescricao > 0) {
+            StringBuilder texto = new StringBuilder(item).append(' ').append(marca).append(" linha ")
+                    .append(atributo.toLowerCase()).append(", modelo ").append(modelo)
+                    .append(", garantia de ").append(1 + aleatorio.nextInt(3)).append(" ano(s).");
+            if (tipoDescricao > 7) {
+                for (int i = 0; i < 5 + aleatorio.nextInt(20); i++) {
+                    texto.append(' ').append(ATRIBUTOS[aleatorio.nextInt(ATRIBUTOS.length)])
+                            .append(" compatível com ").append(MARCAS[aleatorio.nextInt(MARCAS.length)]).append('.');
+                }
+            }
+            descricao = texto.toString();
+        }
+
+        // Log-normal em torno da mediana da categoria, em centavos
+        double preco = categoria.precoMediano * Math.exp(categoria.dispersao * aleatorio.nextGaussian());
+        long centavos = Math.max(1, Math.min(99_999_999, Math.round(preco * 100)));
+
+        // 10% sem estoque; o restante concentrado em quantidades pequenas
+        int quantidade = aleatorio.nextInt(10) == 0 ? 0 : 1 + (int) Math.min(9_999, -Math.log(1 - aleatorio.nextDouble()) * 25);
+
+        return new Produto(nome, descricao, BigDecimal.valueOf(centavos, 2), quantidade, categoria.nome);
+    }
+
+    /**
+     * Altera preço e estoque como uma edição comum do formulário
+     */
+    public void alterar(Produto produto, Random aleatorio) {
+        double fator = 0.8 + aleatorio.nextDouble() * 0.4;
+        produto.setPrecoCentavos(Math.max(1, Math.round(produto.getPrecoCentavos() * fator)));
+        produto.setQuantidade(Math.max(0, produto.getQuantidade() + aleatorio.nextInt(21) - 10));
+    }
+
+    /**
+     * Termo para buscarPorNome: item, marca ou atributo inteiro, prefixo de 3 letras ou termo ausente
+     */
+    public String termoBusca(Random aleatorio) {
+        int tipo = aleatorio.nextInt(20);
+        if (tipo == 0) {
+            return TERMOS_AUSENTES[aleatorio.nextInt(TERMOS_AUSENTES.length)];
+        }
+        String termo;
+        if (tipo < 10) {
+            Categoria categoria = sortearCategoria(aleatorio);
+            termo = categoria.itens[aleatorio.nextInt(categoria.itens.length)];
+        } else if (tipo < 15) {
+            termo = MARCAS[aleatorio.nextInt(MARCAS.length)];
+        } else {
+            termo = ATRIBUTOS[aleatorio.nextInt(ATRIBUTOS.length)];
+        }
+        return tipo % 4 == 0 && termo.length() > 3 ? termo.substring(0, 3) : termo;
+    }
+
+    /**
+     * Grava quantidade produtos em lotes de tamanhoLote e informa cada id gerado
+     * Retorna a quantidade gravada; para no primeiro lote que falhar
+     */
+    public int popular(ProdutoDAO produtoDAO, int quantidade, int tamanhoLote, Random aleatorio, IntConsumer idGerado) {
+        List<Produto> lote = new ArrayList<>(tamanhoLote);
+        int gravados = 0;
+        long inicio = System.nanoTime();
+        while (gravados < quantidade) {
+            lote.clear();
+            for (int i = 0; i < Math.min(tamanhoLote, quantidade - gravados); i++) {
+                lote.add(gerar(aleatorio));
+            }
+            if (produtoDAO.inserirEmLote(lote, tamanhoLote) < 0) {
+                break;
+            }
+            for (Produto produto : lote) {
+                idGerado.accept(produto.getId());
+            }
+            gravados += lote.size();
+            if (gravados % 100_000 < tamanhoLote || gravados == quantidade) {
+                System.out.printf("  %d de %d produtos gravados (%.0f/s)%n", gravados, quantidade,
+                        gravados / ((System.nanoTime() - inicio) / 1e9));
+            }
+        }
+        return gravados;
+    }
+
+    private Categoria sortearCategoria(Random aleatorio) {
+        double sorteio = aleatorio.nextDouble();
+        for (int i = 0; i < acumuladaCategorias.length - 1; i++) {
+            if (sorteio < acumuladaCategorias[i]) {
+                return CATEGORIAS[i];
+            }
+        }
+        return CATEGORIAS[CATEGORIAS.length - 1];
+    }
+}
@@ -0,0 +1,67 @@
+package carga;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Operações do ProdutoDAO exercitadas pelo ExecutorCarga
+ */
+public enum OperacaoCarga {
+    BUSCAR_POR_ID("buscarPorId"),
+    BUSCAR_POR_NOME("buscarPorNome"),
+    INSERIR("inserir"),
+    ATUALIZAR("atualizar"),
+    EXCLUIR("excluir");
+
+    // Perfil de uma estação típica: predominam leituras, com edições frequentes e poucas exclusões
+    public static final String MISTURA_PADRAO = "buscarPorId=50,buscarPorNome=20,inserir=10,atualizar=15,excluir=5";
+
+    private final String metodo;
+
+    OperacaoCarga(String metodo) {
+        this.metodo = metodo;
+    }
+
+    /**
+     * Nome do método no ProdutoDAO, usado na mistura e no relatório
+     */
+    public String getMetodo() {
+        return metodo;
+    }
+
+    public static OperacaoCarga porMetodo(String metodo) {
+        for (OperacaoCarga operacao : values()) {
+            if (operacao.metodo.equalsIgnoreCase(metodo.trim())) {
+                return operacao;
+            }
+        }
+        throw new IllegalArgumentException("Operação desconhecida: " + metodo);
+    }
+
+    /**
+     * Lê uma mistura no formato "buscarPorId=50,inserir=10" (pesos relativos, não precisam somar 100)
+     */
+    public static Map<OperacaoCarga, Integer> lerMistura(String mistura) {
+        Map<OperacaoCarga, Integer> pesos = new EnumMap<>(OperacaoCarga.class);
+        for (String parte : mistura.split(",")) {
+            String[] chaveValor = parte.split("=");
+            if (chaveValor.length != 2) {
+                throw new IllegalArgumentException("Mistura inválida: '" + parte + "' (esperado operacao=peso)");
+            }
+            int peso;
+            try {
+                peso = Integer.parseInt(chaveValor[1].trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Peso inválido: '" + parte + "'");
+            }
+            if (peso < 0) {
+                throw new IllegalArgumentException("Peso negativo: '" + parte + "'");
+            }
+            pesos.put(porMetodo(chaveValor[0]), peso);
+        }
+        if (pesos.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("Mistura sem operações: '" + mistura + "'");
+        }
+        return pesos;
+    }
+}
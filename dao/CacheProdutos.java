@@ -0,0 +1,157 @@
+package dao;
+
+import metricas.MetricasDAO;
+import model.Produto;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache read-through de produtos por id, compartilhado entre os DAOs
+ * Limitado por tamanho (LRU) e por tempo (entradas expiram após o TTL)
+ * Guarda e devolve cópias, para que alterações no formulário não afetem o cache
+ * Implementa padrão Singleton
+ */
+public class CacheProdutos implements CacheProdutosMBean {
+    private static final int TAMANHO_MAXIMO = Integer.getInteger("cache.produtos.tamanho", 10_000);
+    private static final long TTL_MS = Long.getLong("cache.produtos.ttlSegundos", 300) * 1000;
+
+    private static volatile CacheProdutos instance;
+
+    private final Map<Integer, Entrada> entradas = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong despejosPorTamanho = new AtomicLong();
+    private final AtomicLong despejosPorTempo = new AtomicLong();
+    private final AtomicLong invalidacoes = new AtomicLong();
+    private final AtomicLong geracao = new AtomicLong();
+
+    private CacheProdutos() {
+        MetricasDAO.registrarMBean(MetricasDAO.DOMINIO_JMX + ":type=CacheProdutos", this);
+    }
+
+    public static CacheProdutos getInstance() {
+        CacheProdutos result = instance;
+        if (result == null) {
+            synchronized (CacheProdutos.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new CacheProdutos();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Retorna uma cópia do produto em cache ou null (falha ou entrada expirada)
+     */
+    public synchronized Produto obter(int id) {
+        Entrada entrada = entradas.get(id);
+        if (entrada == null) {
+            falhas.incrementAndGet();
+            return null;
+        }
+        if (System.currentTimeMillis() - entrada.gravadaEm > TTL_MS) {
+            entradas.remove(id);
+            despejosPorTempo.incrementAndGet();
+            falhas.incrementAndGet();
+            return null;
+        }
+        acertos.incrementAndGet();
+        return new Produto(entrada.produto);
+    }
+
+    /**
+     * Guarda o produto lido por uma consulta iniciada na geração informada
+     * Se alguma gravação invalidou o cache desde então, a linha pode ser anterior a ela e é descartada
+     */
+    public synchronized void guardar(Produto produto, long geracaoInicial) {
+        if (geracao.get() != geracaoInicial) {
+            return;
+        }
+        entradas.put(produto.getId(), new Entrada(new Produto(produto)));
+        if (entradas.size() > TAMANHO_MAXIMO) {
+            Iterator<Entrada> maisAntiga = entradas.values().iterator();
+            maisAntiga.next();
+            maisAntiga.remove();
+            despejosPorTamanho.incrementAndGet();
+        }
+    }
+
+    public synchronized void invalidar(int id) {
+        geracao.incrementAndGet();
+        if (entradas.remove(id) != null) {
+            invalidacoes.incrementAndGet();
+        }
+    }
+
+    public synchronized void limpar() {
+        geracao.incrementAndGet();
+        invalidacoes.addAndGet(entradas.size());
+        entradas.clear();
+    }
+
+    public synchronized int getTamanho() {
+        return entradas.size();
+    }
+
+    public long getAcertos() {
+        return acertos.get();
+    }
+
+    public long getFalhas() {
+        return falhas.get();
+    }
+
+    public long getDespejosPorTamanho() {
+        return despejosPorTamanho.get();
+    }
+
+    public long getDespejosPorTempo() {
+        return despejosPorTempo.get();
+    }
+
+    public long getInvalidacoes() {
+        return invalidacoes.get();
+    }
+
+    /**
+     * Muda a cada invalidação, esteja o produto em cache ou não; como o DAO invalida em toda
+     * gravação (inclusive as lidas pela sincronização), serve de validador para respostas
+     * derivadas do banco (ETag da API HTTP)
+     */
+    public long getGeracao() {
+        return geracao.get();
+    }
+
+    public double getTaxaAcerto() {
+        long total = acertos.get() + falhas.get();
+        return total == 0 ? 0 : acertos.get() / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheProdutos{" +
+                "tamanho=" + getTamanho() +
+                ", acertos=" + getAcertos() +
+                ", falhas=" + getFalhas() +
+                ", taxaAcerto=" + String.format("%.1f%%", getTaxaAcerto() * 100) +
+                ", despejosPorTamanho=" + getDespejosPorTamanho() +
+                ", despejosPorTempo=" + getDespejosPorTempo() +
+                ", invalidacoes=" + getInvalidacoes() +
+                '}';
+    }
+
+    private static class Entrada {
+        private final Produto produto;
+        private final long gravadaEm = System.currentTimeMillis();
+
+        Entrada(Produto produto) {
+            this.produto = produto;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package dao;
+
+/**
+ * Interface JMX do cache de produtos
+ */
+public interface CacheProdutosMBean {
+    int getTamanho();
+
+    long getAcertos();
+
+    long getFalhas();
+
+    long getDespejosPorTamanho();
+
+    long getDespejosPorTempo();
+
+    long getInvalidacoes();
+
+    long getGeracao();
+
+    double getTaxaAcerto();
+
+    void limpar();
+}
@@ -0,0 +1,52 @@
+package dao;
+
+import busca.NormalizadorTexto;
+import model.Produto;
+
+import java.util.Comparator;
+
+/**
+ * Colunas pelas quais a listagem de produtos pode ser ordenada
+ * Apenas estes nomes de coluna entram no ORDER BY gerado, nunca texto vindo da interface
+ */
+public enum CampoOrdenacao {
+    ID("id", Comparator.comparingInt(Produto::getId)),
+    NOME("nome", Comparator.comparing(p -> NormalizadorTexto.normalizar(p.getNome()))),
+    PRECO("preco", Comparator.comparingLong(Produto::getPrecoCentavos)),
+    QUANTIDADE("quantidade", Comparator.comparingInt(Produto::getQuantidade)),
+    CATEGORIA("categoria", Comparator.comparing(p -> NormalizadorTexto.normalizar(p.getCategoria())));
+
+    private final String coluna;
+    private final Comparator<Produto> comparador;
+
+    CampoOrdenacao(String coluna, Comparator<Produto> comparador) {
+        this.coluna = coluna;
+        this.comparador = comparador;
+    }
+
+    public String getColuna() {
+        return coluna;
+    }
+
+    /**
+     * Ordem equivalente à do banco (sem diferenciar acentos e maiúsculas), para listas já em memória
+     */
+    public Comparator<Produto> getComparador() {
+        return comparador;
+    }
+
+    /**
+     * Valor da coluna no produto, no tipo usado como parâmetro da consulta
+     * O preço vai como BigDecimal para ser comparado exatamente com a coluna DECIMAL
+     */
+    Object valor(Produto produto) {
+        switch (this) {
+            case ID: return produto.getId();
+            case NOME: return produto.getNome();
+            case PRECO: return produto.getPreco();
+            case QUANTIDADE: return produto.getQuantidade();
+            case CATEGORIA: return produto.getCategoria();
+            default: throw new IllegalStateException(name());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package dao;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Permite cancelar uma consulta em andamento no DAO a partir de outra thread
+ * O cancelamento é repassado ao banco através de Statement.cancel()
+ */
+public class Cancelamento {
+    private volatile boolean cancelado;
+    private volatile Statement statement;
+
+    public boolean isCancelado() {
+        return cancelado;
+    }
+
+    /**
+     * Marca a operação como cancelada e interrompe a consulta em execução, se houver
+     */
+    public void cancelar() {
+        cancelado = true;
+        Statement atual = statement;
+        if (atual != null) {
+            try {
+                atual.cancel();
+            } catch (SQLException e) {
+                System.err.println("Erro ao cancelar consulta: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Vincula o statement ao cancelamento enquanto o registro estiver aberto
+     * Aceita cancelamento nulo para simplificar o uso nos métodos do DAO
+     */
+    static Registro registrar(Cancelamento cancelamento, Statement statement) throws SQLException {
+        if (cancelamento == null) {
+            return Registro.VAZIO;
+        }
+        if (cancelamento.cancelado) {
+            throw new SQLException("Consulta cancelada");
+        }
+        cancelamento.statement = statement;
+        return () -> cancelamento.statement = null;
+    }
+
+    /**
+     * Registro de vínculo, fechado no finally que envolve a execução do statement
+     */
+    interface Registro extends AutoCloseable {
+        Registro VAZIO = () -> { };
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,31 @@
+package dao;
+
+/**
+ * Lançada por ProdutoDAO.atualizar quando a linha foi gravada por outra estação (ou por um
+ * ajuste de estoque) depois de o produto ter sido lido; nada é gravado
+ */
+public class ConflitoVersaoException extends RuntimeException {
+    private final int id;
+    private final int versaoLida;
+    private final int versaoAtual;
+
+    public ConflitoVersaoException(int id, int versaoLida, int versaoAtual) {
+        super("Produto " + id + " alterado por outra gravação (versão lida " + versaoLida
+                + ", versão atual " + versaoAtual + ")");
+        this.id = id;
+        this.versaoLida = versaoLida;
+        this.versaoAtual = versaoAtual;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getVersaoLida() {
+        return versaoLida;
+    }
+
+    public int getVersaoAtual() {
+        return versaoAtual;
+    }
+}
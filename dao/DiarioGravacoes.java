@@ -0,0 +1,196 @@
+package dao;
+
+import model.Produto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Diário local das alterações aceitas pela FilaGravacao e ainda não gravadas no banco
+ * Cada registro é [tamanho][CRC32][produto] e é forçado ao disco antes de a alteração ser aceita;
+ * na leitura, um registro incompleto ou corrompido no fim (queda durante a escrita) é ignorado
+ */
+class DiarioGravacoes implements Closeable {
+    private static final int CABECALHO_REGISTRO = Integer.BYTES + Long.BYTES;
+
+    private final Path arquivo;
+    private FileChannel canal;
+
+    DiarioGravacoes(Path arquivo) throws IOException {
+        this.arquivo = arquivo;
+        Files.createDirectories(arquivo.toAbsolutePath().getParent());
+        this.canal = abrir(arquivo);
+    }
+
+    Path getArquivo() {
+        return arquivo;
+    }
+
+    /**
+     * Acrescenta o produto ao diário e só retorna depois de o registro estar no disco
+     */
+    synchronized void registrar(Produto produto) throws IOException {
+        canal.position(canal.size());
+        escreverTudo(codificar(produto));
+        canal.force(false);
+    }
+
+    /**
+     * Substitui o conteúdo do diário pelos produtos informados (vazio após gravar tudo)
+     * O novo conteúdo é gravado em um arquivo temporário e movido sobre o diário, então
+     * uma queda no meio da operação deixa o diário antigo ou o novo, nunca um vazio parcial
+     */
+    synchronized void reescrever(Collection<Produto> pendentes) throws IOException {
+        if (pendentes.isEmpty()) {
+            canal.truncate(0);
+            canal.force(false);
+            return;
+        }
+
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (FileChannel novo = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Produto produto : pendentes) {
+                ByteBuffer registro = codificar(produto);
+                while (registro.hasRemaining()) {
+                    novo.write(registro);
+                }
+            }
+            novo.force(false);
+        }
+        canal.close();
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        canal = abrir(arquivo);
+    }
+
+    /**
+     * Lê os registros válidos, na ordem em que foram gravados
+     */
+    synchronized List<Produto> ler() throws IOException {
+        List<Produto> produtos = new ArrayList<>();
+        long posicao = 0;
+        long tamanhoArquivo = canal.size();
+        ByteBuffer cabecalho = ByteBuffer.allocate(CABECALHO_REGISTRO);
+        while (posicao + CABECALHO_REGISTRO <= tamanhoArquivo) {
+            cabecalho.clear();
+            lerTudo(cabecalho, posicao);
+            cabecalho.flip();
+            int tamanho = cabecalho.getInt();
+            long crc = cabecalho.getLong();
+            if (tamanho <= 0 || posicao + CABECALHO_REGISTRO + tamanho > tamanhoArquivo) {
+                break;
+            }
+
+            ByteBuffer dados = ByteBuffer.allocate(tamanho);
+            lerTudo(dados, posicao + CABECALHO_REGISTRO);
+            CRC32 verificacao = new CRC32();
+            verificacao.update(dados.array());
+            if (verificacao.getValue() != crc) {
+                System.err.println("Registro inválido no diário de gravações na posição " + posicao
+                        + "; os registros seguintes foram ignorados");
+                break;
+            }
+            dados.flip();
+            produtos.add(decodificar(dados));
+            posicao += CABECALHO_REGISTRO + tamanho;
+        }
+        return produtos;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        canal.close();
+    }
+
+    private static FileChannel abrir(Path arquivo) throws IOException {
+        return FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private void lerTudo(ByteBuffer buffer, long posicao) throws IOException {
+        while (buffer.hasRemaining()) {
+            int lidos = canal.read(buffer, posicao);
+            if (lidos < 0) {
+                throw new IOException("Fim inesperado do diário de gravações");
+            }
+            posicao += lidos;
+        }
+    }
+
+    private void escreverTudo(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+    }
+
+    private static ByteBuffer codificar(Produto produto) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream saida = new DataOutputStream(bytes)) {
+            saida.writeInt(produto.getId());
+            escreverTexto(saida, produto.getNome());
+            escreverTexto(saida, produto.getDescricao());
+            saida.writeLong(produto.getPrecoCentavos());
+            saida.writeInt(produto.getQuantidade());
+            escreverTexto(saida, produto.getCategoria());
+            saida.writeInt(produto.getVersao());
+        }
+        byte[] dados = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(dados);
+
+        ByteBuffer registro = ByteBuffer.allocate(CABECALHO_REGISTRO + dados.length);
+        registro.putInt(dados.length).putLong(crc.getValue()).put(dados);
+        registro.flip();
+        return registro;
+    }
+
+    private static Produto decodificar(ByteBuffer dados) {
+        Produto produto = new Produto();
+        produto.setId(dados.getInt());
+        produto.setNome(lerTexto(dados));
+        produto.setDescricao(lerTexto(dados));
+        produto.setPrecoCentavos(dados.getLong());
+        produto.setQuantidade(dados.getInt());
+        produto.setCategoria(lerTexto(dados));
+        // Registros anteriores à versão no diário: sem versão, o UPDATE cai no conflito e é informado
+        if (dados.remaining() >= Integer.BYTES) {
+            produto.setVersao(dados.getInt());
+        }
+        return produto;
+    }
+
+    /**
+     * Texto como [tamanho em bytes][UTF-8], -1 para nulo (como no backup binário)
+     */
+    private static void escreverTexto(DataOutputStream saida, String valor) throws IOException {
+        if (valor == null) {
+            saida.writeInt(-1);
+            return;
+        }
+        byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+        saida.writeInt(bytes.length);
+        saida.write(bytes);
+    }
+
+    private static String lerTexto(ByteBuffer dados) {
+        int tamanho = dados.getInt();
+        if (tamanho < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[tamanho];
+        dados.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,30 @@
+package dao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registro da tabela produtos_excluidos (tombstone de um produto excluído)
+ */
+public class Exclusao {
+    private final long seq;
+    private final int produtoId;
+    private final LocalDateTime dataExclusao;
+
+    public Exclusao(long seq, int produtoId, LocalDateTime dataExclusao) {
+        this.seq = seq;
+        this.produtoId = produtoId;
+        this.dataExclusao = dataExclusao;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public int getProdutoId() {
+        return produtoId;
+    }
+
+    public LocalDateTime getDataExclusao() {
+        return dataExclusao;
+    }
+}
@@ -0,0 +1,390 @@
+package dao;
+
+import model.Produto;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Gravação adiada (write-behind) das atualizações de produtos
+ * Cada alteração é registrada no DiarioGravacoes e guardada por id: várias edições do mesmo
+ * produto antes da gravação viram um único UPDATE. Uma thread gravadora envia as pendentes
+ * com ProdutoDAO.atualizarComVersaoEmLote, em uma transação, quando junta um lote, quando a mais antiga
+ * completa ATRASO_MAXIMO_MS ou quando a fila é descarregada
+ * Com a fila cheia, enfileirar bloqueia até o gravador abrir espaço (edições de um produto já
+ * pendente sempre entram, pois não ocupam espaço novo)
+ * Alterações que estavam no diário ao abrir a fila (queda antes da gravação) são regravadas
+ * Se um lote falha, suas alterações são regravadas uma a uma: as que o banco recusa (restrição,
+ * dado inválido) saem da fila e do diário e são informadas ao ouvinte de recusas; só as que
+ * falharam por conexão ou erro temporário voltam para a fila
+ * Cada alteração guarda a versão lida do produto e o UPDATE só é aplicado se a linha ainda estiver
+ * nela: se outra estação gravou ou excluiu o produto nesse meio tempo (um ajuste de estoque, por
+ * exemplo), a alteração é descartada e informada ao ouvinte, sem sobrescrever a outra gravação
+ */
+public class FilaGravacao {
+    public static final int CAPACIDADE = Integer.getInteger("gravacao.adiada.capacidade", 1000);
+    public static final long ATRASO_MAXIMO_MS = Long.getLong("gravacao.adiada.atrasoMs", 500);
+    public static final Path ARQUIVO_PADRAO =
+            Paths.get(System.getProperty("user.home"), ".sistema-crud", "gravacoes-pendentes.dat");
+
+    private static final int TAMANHO_LOTE = 200;
+    private static final long ESPERA_APOS_FALHA_MS = 2_000;
+    private static final long TEMPO_ENCERRAMENTO_MS = 10_000;
+
+    private final ProdutoDAO produtoDAO;
+    private final DiarioGravacoes diario;
+    private final int tamanhoLote = Math.min(TAMANHO_LOTE, CAPACIDADE);
+
+    // Estado protegido pela trava
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition naoVazia = trava.newCondition();
+    private final Condition comEspaco = trava.newCondition();
+    private final Condition esvaziada = trava.newCondition();
+    private final LinkedHashMap<Integer, Produto> pendentes = new LinkedHashMap<>();
+    private final Map<Integer, Produto> emGravacao = new HashMap<>();
+    // Última versão gravada por esta fila de cada produto (as mais recentes), para registrarVersaoGravada
+    private final Map<Integer, Integer> versoesGravadas = new LinkedHashMap<Integer, Integer>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Integer> maisAntiga) {
+            return size() > CAPACIDADE;
+        }
+    };
+    private long primeiraPendenteEm;
+    private boolean urgente;
+    private boolean encerrando;
+
+    private final Thread gravador;
+    private final Thread ganchoSaida;
+    private final AtomicLong recusadas = new AtomicLong();
+    private final Consumer<List<Produto>> ouvinteRecusas;
+
+    public FilaGravacao(ProdutoDAO produtoDAO) throws IOException {
+        this(produtoDAO, ARQUIVO_PADRAO, null);
+    }
+
+    /**
+     * ouvinteRecusas (opcional) é chamado na thread gravadora com as alterações recusadas pelo
+     * banco ou em conflito com outra estação, já descartadas da fila e do diário
+     */
+    public FilaGravacao(ProdutoDAO produtoDAO, Path arquivoDiario, Consumer<List<Produto>> ouvinteRecusas)
+            throws IOException {
+        this.produtoDAO = produtoDAO;
+        this.ouvinteRecusas = ouvinteRecusas;
+        this.diario = new DiarioGravacoes(arquivoDiario);
+        for (Produto produto : diario.ler()) {
+            pendentes.put(produto.getId(), produto);
+        }
+        if (!pendentes.isEmpty()) {
+            System.out.println(pendentes.size() + " alteração(ões) recuperada(s) do diário de gravações");
+            primeiraPendenteEm = System.nanoTime();
+        }
+
+        gravador = new Thread(this::executar, "fila-gravacao");
+        gravador.setDaemon(true);
+        gravador.start();
+
+        // Cobre saídas que não passam pelo fechamento da janela (System.exit, Ctrl+C)
+        ganchoSaida = new Thread(() -> encerrar(TEMPO_ENCERRAMENTO_MS), "fila-gravacao-saida");
+        Runtime.getRuntime().addShutdownHook(ganchoSaida);
+    }
+
+    /**
+     * Aceita a alteração depois de registrá-la no diário; o produto é copiado
+     * A descrição precisa estar completa, pois o lote grava todas as colunas
+     */
+    public void enfileirar(Produto produto) throws IOException, InterruptedException {
+        if (!produto.isDescricaoCompleta()) {
+            throw new IllegalArgumentException("Produto " + produto.getId() + " sem a descrição completa");
+        }
+        Produto copia = new Produto(produto);
+
+        trava.lockInterruptibly();
+        try {
+            while (!encerrando && pendentes.size() >= CAPACIDADE && !pendentes.containsKey(copia.getId())) {
+                naoVazia.signal();
+                comEspaco.await();
+            }
+            if (encerrando) {
+                throw new IllegalStateException("Fila de gravação encerrada");
+            }
+
+            Integer versaoGravada = versoesGravadas.get(copia.getId());
+            if (versaoGravada != null && copia.getVersao() == versaoGravada - 1) {
+                copia.setVersao(versaoGravada);
+            }
+            diario.registrar(copia);
+            if (pendentes.isEmpty()) {
+                primeiraPendenteEm = System.nanoTime();
+            }
+            // Remove antes de guardar para que a edição mais nova vá para o fim da ordem de gravação
+            pendentes.remove(copia.getId());
+            pendentes.put(copia.getId(), copia);
+            if (pendentes.size() >= tamanhoLote) {
+                naoVazia.signal();
+            }
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Versão ainda não gravada do produto (pendente ou no lote em gravação), ou null
+     */
+    public Produto pendente(int id) {
+        trava.lock();
+        try {
+            Produto produto = pendentes.get(id);
+            if (produto == null) {
+                produto = emGravacao.get(id);
+            }
+            return produto != null ? new Produto(produto) : null;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Alterações descartadas (recusa do banco ou conflito de versão) desde a abertura da fila
+     */
+    public long getRecusadas() {
+        return recusadas.get();
+    }
+
+    public int getPendentes() {
+        trava.lock();
+        try {
+            return pendentes.size() + emGravacao.size();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Pede a gravação imediata e espera a fila esvaziar
+     * Retorna false se ainda houver alterações pendentes ao fim do tempo (elas continuam no diário)
+     */
+    public boolean descarregar(long timeoutMs) throws InterruptedException {
+        long restante = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        trava.lock();
+        try {
+            urgente = true;
+            naoVazia.signal();
+            while (!pendentes.isEmpty() || !emGravacao.isEmpty()) {
+                if (restante <= 0) {
+                    return false;
+                }
+                restante = esvaziada.awaitNanos(restante);
+            }
+            return true;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Grava o que estiver pendente e para o gravador
+     * Retorna false se alguma alteração não pôde ser gravada; ela será regravada ao abrir a fila de novo
+     */
+    public boolean encerrar(long timeoutMs) {
+        trava.lock();
+        try {
+            encerrando = true;
+            naoVazia.signal();
+            comEspaco.signalAll();
+        } finally {
+            trava.unlock();
+        }
+
+        try {
+            gravador.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!gravador.isAlive()) {
+            try {
+                diario.close();
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar o diário de gravações: " + e.getMessage());
+            }
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(ganchoSaida);
+        } catch (IllegalStateException e) {
+            // A JVM já está encerrando (chamada pelo próprio gancho)
+        }
+
+        int restantes = getPendentes();
+        if (restantes > 0) {
+            System.err.println(restantes + " alteração(ões) não gravada(s); mantida(s) em " + diario.getArquivo());
+        }
+        return restantes == 0;
+    }
+
+    /**
+     * Laço da thread gravadora
+     */
+    private void executar() {
+        while (true) {
+            List<Produto> lote;
+            trava.lock();
+            try {
+                while (!prontoParaGravar()) {
+                    if (pendentes.isEmpty()) {
+                        if (encerrando) {
+                            return;
+                        }
+                        naoVazia.await();
+                    } else {
+                        naoVazia.awaitNanos(primeiraPendenteEm + TimeUnit.MILLISECONDS.toNanos(ATRASO_MAXIMO_MS)
+                                - System.nanoTime());
+                    }
+                }
+                lote = new ArrayList<>(pendentes.values());
+                emGravacao.putAll(pendentes);
+                pendentes.clear();
+                urgente = false;
+                comEspaco.signalAll();
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                trava.unlock();
+            }
+
+            List<Produto> gravados = new ArrayList<>(lote.size());
+            List<Produto> naoGravados = Collections.emptyList();
+            List<Produto> recusados = new ArrayList<>();
+            List<Integer> idsNaoGravados = produtoDAO.atualizarComVersaoEmLote(lote, TAMANHO_LOTE);
+            if (idsNaoGravados == null) {
+                naoGravados = new ArrayList<>();
+                gravarIndividualmente(lote, gravados, naoGravados, recusados);
+            } else {
+                Set<Integer> emConflito = new HashSet<>(idsNaoGravados);
+                for (Produto produto : lote) {
+                    if (emConflito.contains(produto.getId())) {
+                        recusados.add(descartarConflito(produto));
+                    } else {
+                        gravados.add(produto);
+                    }
+                }
+            }
+            // Sem progresso: nada foi gravado nem recusado e o diário já contém todo o lote
+            boolean gravou = naoGravados.size() < lote.size();
+
+            trava.lock();
+            try {
+                emGravacao.clear();
+                for (Produto produto : gravados) {
+                    registrarVersaoGravada(produto);
+                }
+                // Volta para a fila o que não foi substituído por uma edição mais nova
+                for (Produto produto : naoGravados) {
+                    pendentes.putIfAbsent(produto.getId(), produto);
+                }
+                if (gravou) {
+                    // Compacta o diário: ficam as alterações que chegaram durante a gravação e as não gravadas
+                    try {
+                        diario.reescrever(pendentes.values());
+                    } catch (IOException e) {
+                        System.err.println("Erro ao compactar o diário de gravações: " + e.getMessage());
+                    }
+                }
+                if (!naoGravados.isEmpty()) {
+                    primeiraPendenteEm = System.nanoTime();
+                    if (encerrando) {
+                        return;
+                    }
+                }
+                if (pendentes.isEmpty()) {
+                    esvaziada.signalAll();
+                }
+            } finally {
+                trava.unlock();
+            }
+
+            if (!recusados.isEmpty()) {
+                recusadas.addAndGet(recusados.size());
+                if (ouvinteRecusas != null) {
+                    ouvinteRecusas.accept(recusados);
+                }
+            }
+            if (!naoGravados.isEmpty()) {
+                try {
+                    Thread.sleep(ESPERA_APOS_FALHA_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Regrava um lote que falhou produto a produto, separando as alterações recusadas pelo banco
+     * Na primeira falha de conexão ou temporária o restante volta inteiro para a fila
+     */
+    private void gravarIndividualmente(List<Produto> lote, List<Produto> gravados, List<Produto> naoGravados,
+                                       List<Produto> recusados) {
+        for (int i = 0; i < lote.size(); i++) {
+            Produto produto = lote.get(i);
+            try {
+                int resultado = produtoDAO.regravar(produto);
+                if (resultado < 0) {
+                    naoGravados.addAll(lote.subList(i, lote.size()));
+                    return;
+                }
+                if (resultado > 0) {
+                    gravados.add(produto);
+                } else {
+                    recusados.add(descartarConflito(produto));
+                }
+            } catch (GravacaoRecusadaException e) {
+                System.err.println(e.getMessage() + "; alteração descartada da fila de gravação");
+                recusados.add(produto);
+            }
+        }
+    }
+
+    /**
+     * Produto gravado ou excluído por outra estação desde a leitura: gravar a linha inteira
+     * desfaria a alteração dela (por exemplo um ajuste de estoque), então a edição é descartada
+     */
+    private static Produto descartarConflito(Produto produto) {
+        System.err.println("Produto " + produto.getId() + " alterado ou excluído em outra estação desde a versão "
+                + produto.getVersao() + "; alteração descartada da fila de gravação");
+        return produto;
+    }
+
+    /**
+     * Chamado com a trava: o produto acabou de ser gravado e passou para a versão seguinte
+     * Edições feitas sobre a cópia pendente (ainda na versão anterior) partem desta gravação,
+     * então passam para a nova versão em vez de conflitarem com a própria estação
+     */
+    private void registrarVersaoGravada(Produto gravado) {
+        versoesGravadas.put(gravado.getId(), gravado.getVersao());
+        Produto pendente = pendentes.get(gravado.getId());
+        if (pendente != null && pendente.getVersao() == gravado.getVersao() - 1) {
+            pendente.setVersao(gravado.getVersao());
+        }
+    }
+
+    private boolean prontoParaGravar() {
+        if (pendentes.isEmpty()) {
+            return false;
+        }
+        return encerrando || urgente || pendentes.size() >= tamanhoLote
+                || System.nanoTime() - primeiraPendenteEm >= TimeUnit.MILLISECONDS.toNanos(ATRASO_MAXIMO_MS);
+    }
+}
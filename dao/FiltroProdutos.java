@@ -0,0 +1,345 @@
+package dao;
+
+import busca.NormalizadorTexto;
+import model.Produto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Filtro e ordenação da listagem de produtos
+ * Gera SQL parametrizado em que as colunas são comparadas sem funções (categoria = ?,
+ * nome LIKE 'prefixo%', faixas de preço e quantidade), para que idx_categoria_nome,
+ * idx_categoria_preco, idx_nome, idx_preco e idx_quantidade possam ser usados
+ * A ordenação sempre termina pelo id, tornando a ordem total e permitindo keyset pagination
+ */
+public class FiltroProdutos {
+    private String categoria;
+    private String prefixoNome;
+    private BigDecimal precoMinimo;
+    private BigDecimal precoMaximo;
+    private Integer quantidadeMinima;
+    private Integer quantidadeMaxima;
+    private final List<Ordenacao> ordenacao = new ArrayList<>();
+
+    public FiltroProdutos() {
+    }
+
+    // Construtor de cópia
+    public FiltroProdutos(FiltroProdutos outro) {
+        this.categoria = outro.categoria;
+        this.prefixoNome = outro.prefixoNome;
+        this.precoMinimo = outro.precoMinimo;
+        this.precoMaximo = outro.precoMaximo;
+        this.quantidadeMinima = outro.quantidadeMinima;
+        this.quantidadeMaxima = outro.quantidadeMaxima;
+        this.ordenacao.addAll(outro.ordenacao);
+    }
+
+    public FiltroProdutos categoria(String categoria) {
+        this.categoria = vazioComoNulo(categoria);
+        return this;
+    }
+
+    public FiltroProdutos nomeComecaCom(String prefixo) {
+        this.prefixoNome = vazioComoNulo(prefixo);
+        return this;
+    }
+
+    /**
+     * Faixa de preço inclusiva; null deixa o limite em aberto
+     */
+    public FiltroProdutos precoEntre(BigDecimal minimo, BigDecimal maximo) {
+        this.precoMinimo = minimo;
+        this.precoMaximo = maximo;
+        return this;
+    }
+
+    /**
+     * Faixa de quantidade inclusiva; null deixa o limite em aberto
+     */
+    public FiltroProdutos quantidadeEntre(Integer minima, Integer maxima) {
+        this.quantidadeMinima = minima;
+        this.quantidadeMaxima = maxima;
+        return this;
+    }
+
+    /**
+     * Acrescenta uma coluna ao fim da ordenação
+     */
+    public FiltroProdutos ordenarPor(CampoOrdenacao campo, boolean decrescente) {
+        ordenacao.removeIf(o -> o.campo == campo);
+        ordenacao.add(new Ordenacao(campo, decrescente));
+        return this;
+    }
+
+    /**
+     * Clique no cabeçalho: a coluna que já ordena inverte a direção; senão passa a ordenar
+     * sozinha (ou, com adicionar, entra como critério seguinte)
+     */
+    public FiltroProdutos alternarOrdenacao(CampoOrdenacao campo, boolean adicionar) {
+        for (int i = 0; i < ordenacao.size(); i++) {
+            Ordenacao atual = ordenacao.get(i);
+            if (atual.campo == campo && (adicionar || ordenacao.size() == 1)) {
+                ordenacao.set(i, new Ordenacao(campo, !atual.decrescente));
+                return this;
+            }
+        }
+        if (!adicionar) {
+            ordenacao.clear();
+        }
+        // Depois do id (único) outro critério não teria efeito: entra antes dele
+        int posicao = ordenacao.size();
+        if (posicao > 0 && ordenacao.get(posicao - 1).campo == CampoOrdenacao.ID) {
+            posicao--;
+        }
+        ordenacao.add(posicao, new Ordenacao(campo, false));
+        return this;
+    }
+
+    public FiltroProdutos limparCondicoes() {
+        categoria = null;
+        prefixoNome = null;
+        precoMinimo = null;
+        precoMaximo = null;
+        quantidadeMinima = null;
+        quantidadeMaxima = null;
+        return this;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public String getPrefixoNome() {
+        return prefixoNome;
+    }
+
+    public BigDecimal getPrecoMinimo() {
+        return precoMinimo;
+    }
+
+    public BigDecimal getPrecoMaximo() {
+        return precoMaximo;
+    }
+
+    public Integer getQuantidadeMinima() {
+        return quantidadeMinima;
+    }
+
+    public Integer getQuantidadeMaxima() {
+        return quantidadeMaxima;
+    }
+
+    public List<Ordenacao> getOrdenacao() {
+        return Collections.unmodifiableList(ordenacao);
+    }
+
+    public boolean temCondicoes() {
+        return categoria != null || prefixoNome != null || precoMinimo != null || precoMaximo != null
+                || quantidadeMinima != null || quantidadeMaxima != null;
+    }
+
+    /**
+     * Sem condições e em ordem de id: a listagem padrão, em que inserções entram pelo fim
+     */
+    public boolean isPadrao() {
+        List<Ordenacao> efetiva = ordenacaoEfetiva();
+        return !temCondicoes() && efetiva.size() == 1 && !efetiva.get(0).decrescente;
+    }
+
+    /**
+     * Indica se o produto satisfaz as condições, sem ir ao banco
+     * Texto comparado sem acentos e maiúsculas, como na collation da tabela
+     */
+    public boolean aceita(Produto produto) {
+        if (categoria != null && !NormalizadorTexto.normalizar(categoria)
+                .equals(NormalizadorTexto.normalizar(produto.getCategoria()))) {
+            return false;
+        }
+        if (prefixoNome != null && !NormalizadorTexto.normalizar(produto.getNome())
+                .startsWith(NormalizadorTexto.normalizar(prefixoNome))) {
+            return false;
+        }
+        if (precoMinimo != null && produto.getPreco().compareTo(precoMinimo) < 0) return false;
+        if (precoMaximo != null && produto.getPreco().compareTo(precoMaximo) > 0) return false;
+        if (quantidadeMinima != null && produto.getQuantidade() < quantidadeMinima) return false;
+        return quantidadeMaxima == null || produto.getQuantidade() <= quantidadeMaxima;
+    }
+
+    /**
+     * Ordem da consulta aplicada a uma lista já em memória
+     */
+    public Comparator<Produto> comparador() {
+        Comparator<Produto> comparador = null;
+        for (Ordenacao o : ordenacaoEfetiva()) {
+            Comparator<Produto> coluna = o.decrescente ? o.campo.getComparador().reversed() : o.campo.getComparador();
+            comparador = comparador == null ? coluna : comparador.thenComparing(coluna);
+        }
+        return comparador;
+    }
+
+    /**
+     * Indica se os dois produtos ocupam a mesma posição na ordenação
+     */
+    public boolean mesmaPosicao(Produto a, Produto b) {
+        for (Ordenacao o : ordenacaoEfetiva()) {
+            if (!Objects.equals(o.campo.valor(a), o.campo.valor(b))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ordenação pedida seguida do id (na direção da última coluna, para que o índice
+     * secundário, que já termina pela chave primária, sirva ao ORDER BY)
+     */
+    List<Ordenacao> ordenacaoEfetiva() {
+        List<Ordenacao> efetiva = new ArrayList<>();
+        for (Ordenacao o : ordenacao) {
+            efetiva.add(o);
+            if (o.campo == CampoOrdenacao.ID) {
+                return efetiva;
+            }
+        }
+        boolean decrescente = !efetiva.isEmpty() && efetiva.get(efetiva.size() - 1).decrescente;
+        efetiva.add(new Ordenacao(CampoOrdenacao.ID, decrescente));
+        return efetiva;
+    }
+
+    /**
+     * Condições do WHERE (sem a palavra WHERE), acrescentando os valores em parametros
+     * Igualdade antes das faixas, na ordem das colunas dos índices compostos
+     */
+    List<String> condicoes(List<Object> parametros) {
+        List<String> condicoes = new ArrayList<>();
+        if (categoria != null) {
+            condicoes.add("categoria = ?");
+            parametros.add(categoria);
+        }
+        if (prefixoNome != null) {
+            condicoes.add("nome LIKE ?");
+            parametros.add(escaparLike(prefixoNome) + "%");
+        }
+        if (precoMinimo != null) {
+            condicoes.add("preco >= ?");
+            parametros.add(precoMinimo);
+        }
+        if (precoMaximo != null) {
+            condicoes.add("preco <= ?");
+            parametros.add(precoMaximo);
+        }
+        if (quantidadeMinima != null) {
+            condicoes.add("quantidade >= ?");
+            parametros.add(quantidadeMinima);
+        }
+        if (quantidadeMaxima != null) {
+            condicoes.add("quantidade <= ?");
+            parametros.add(quantidadeMaxima);
+        }
+        return condicoes;
+    }
+
+    /**
+     * Condição de keyset para as linhas depois de apos na ordenação efetiva:
+     * c1 >= ? AND (c1 > ? OR (c1 = ? AND c2 > ?) OR ...)
+     * O primeiro termo, redundante, dá ao otimizador uma faixa no índice da primeira coluna
+     */
+    String aposChave(Produto apos, List<Object> parametros) {
+        List<Ordenacao> efetiva = ordenacaoEfetiva();
+        Ordenacao primeira = efetiva.get(0);
+        if (efetiva.size() == 1) {
+            parametros.add(primeira.campo.valor(apos));
+            return primeira.campo.getColuna() + (primeira.decrescente ? " < ?" : " > ?");
+        }
+
+        StringBuilder sql = new StringBuilder(primeira.campo.getColuna())
+                .append(primeira.decrescente ? " <= ?" : " >= ?").append(" AND (");
+        parametros.add(primeira.campo.valor(apos));
+        for (int i = 0; i < efetiva.size(); i++) {
+            if (i > 0) sql.append(" OR ");
+            sql.append('(');
+            for (int j = 0; j < i; j++) {
+                sql.append(efetiva.get(j).campo.getColuna()).append(" = ? AND ");
+                parametros.add(efetiva.get(j).campo.valor(apos));
+            }
+            Ordenacao o = efetiva.get(i);
+            sql.append(o.campo.getColuna()).append(o.decrescente ? " < ?" : " > ?").append(')');
+            parametros.add(o.campo.valor(apos));
+        }
+        return sql.append(')').toString();
+    }
+
+    String orderBy() {
+        StringBuilder sql = new StringBuilder();
+        for (Ordenacao o : ordenacaoEfetiva()) {
+            if (sql.length() > 0) sql.append(", ");
+            sql.append(o.campo.getColuna()).append(o.decrescente ? " DESC" : " ASC");
+        }
+        return sql.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FiltroProdutos)) return false;
+        FiltroProdutos outro = (FiltroProdutos) o;
+        return Objects.equals(categoria, outro.categoria) && Objects.equals(prefixoNome, outro.prefixoNome)
+                && Objects.equals(precoMinimo, outro.precoMinimo) && Objects.equals(precoMaximo, outro.precoMaximo)
+                && Objects.equals(quantidadeMinima, outro.quantidadeMinima)
+                && Objects.equals(quantidadeMaxima, outro.quantidadeMaxima) && ordenacao.equals(outro.ordenacao);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(categoria, prefixoNome, precoMinimo, precoMaximo, quantidadeMinima, quantidadeMaxima,
+                ordenacao);
+    }
+
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String vazioComoNulo(String texto) {
+        return texto == null || texto.trim().isEmpty() ? null : texto.trim();
+    }
+
+    /**
+     * Uma coluna da ordenação e sua direção
+     */
+    public static class Ordenacao {
+        private final CampoOrdenacao campo;
+        private final boolean decrescente;
+
+        public Ordenacao(CampoOrdenacao campo, boolean decrescente) {
+            this.campo = campo;
+            this.decrescente = decrescente;
+        }
+
+        public CampoOrdenacao getCampo() {
+            return campo;
+        }
+
+        public boolean isDecrescente() {
+            return decrescente;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Ordenacao)) return false;
+            Ordenacao outra = (Ordenacao) o;
+            return campo == outra.campo && decrescente == outra.decrescente;
+        }
+
+        @Override
+        public int hashCode() {
+            return campo.hashCode() * 31 + Boolean.hashCode(decrescente);
+        }
+    }
+}
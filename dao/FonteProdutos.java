@@ -0,0 +1,14 @@
+package dao;
+
+import java.io.IOException;
+
+/**
+ * Origem de uma leitura completa dos produtos em ordem de id: o banco (ProdutoDAO)
+ * ou a cópia local do catálogo (CatalogoLocal)
+ */
+public interface FonteProdutos {
+    /**
+     * Entrega todos os produtos ao processador e retorna quantos foram lidos, ou -1 se a origem falhar
+     */
+    long percorrerTodos(ProcessadorProduto processador) throws IOException;
+}
@@ -0,0 +1,18 @@
+package dao;
+
+/**
+ * Lançada por ProdutoDAO.regravar quando o banco recusa a linha (restrição violada, dado
+ * inválido ou grande demais): repetir a mesma gravação não adiantaria
+ */
+public class GravacaoRecusadaException extends RuntimeException {
+    private final int id;
+
+    public GravacaoRecusadaException(int id, String motivo) {
+        super("Gravação do produto " + id + " recusada pelo banco: " + motivo);
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
@@ -0,0 +1,34 @@
+package dao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ponto até o qual as alterações do banco já foram observadas
+ * Usa apenas valores do próprio banco (data_atualizacao e seq das exclusões),
+ * então diferenças de relógio entre as estações não afetam a sincronização
+ */
+public class MarcaSincronizacao {
+    private final LocalDateTime dataAtualizacao;
+    private final long seqExclusao;
+
+    public MarcaSincronizacao(LocalDateTime dataAtualizacao, long seqExclusao) {
+        this.dataAtualizacao = dataAtualizacao;
+        this.seqExclusao = seqExclusao;
+    }
+
+    public LocalDateTime getDataAtualizacao() {
+        return dataAtualizacao;
+    }
+
+    public long getSeqExclusao() {
+        return seqExclusao;
+    }
+
+    @Override
+    public String toString() {
+        return "MarcaSincronizacao{" +
+                "dataAtualizacao=" + dataAtualizacao +
+                ", seqExclusao=" + seqExclusao +
+                '}';
+    }
+}
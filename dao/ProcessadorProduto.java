@@ -0,0 +1,13 @@
+package dao;
+
+import model.Produto;
+
+import java.io.IOException;
+
+/**
+ * Recebe os produtos um a um durante uma leitura em streaming do DAO
+ */
+@FunctionalInterface
+public interface ProcessadorProduto {
+    void processar(Produto produto) throws IOException;
+}
@@ -1,42 +1,208 @@
 package dao;
 
+import busca.CacheBuscas;
+import busca.IndiceTrigramas;
 import database.DatabaseConnection;
+import estatisticas.SnapshotEstoque;
+import metricas.Medicao;
+import metricas.MetricasDAO;
 import model.Produto;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
 
 /**
  * Classe DAO (Data Access Object) para operações CRUD com Produtos
  * Implementa padrão DAO para separar lógica de acesso a dados
+ * Cada ida ao banco é medida no MetricasDAO (latência, erros, linhas e aquisição de conexão);
+ * acertos do cache não chegam ao banco e aparecem apenas nas métricas do CacheProdutos
  */
-public class ProdutoDAO {
-    private Connection connection;
+public class ProdutoDAO implements FonteProdutos {
+    public static final int TAMANHO_LOTE_PADRAO = 1000;
+    
+    // Linhas trazidas por ida ao servidor nas leituras em streaming
+    private static final int FETCH_SIZE_STREAMING = 1000;
+    
+    // Quantidade máxima de ids por cláusula IN
+    private static final int TAMANHO_LOTE_IDS = 500;
+    
+    // Colunas exibidas na tabela; da descrição vem só a prévia, com um caractere a mais
+    // para saber se foi cortada (ver mapearPreviaEGuardar)
+    private static final String COLUNAS_LISTAGEM = "id, nome, LEFT(descricao, "
+            + (Produto.TAMANHO_PREVIA_DESCRICAO + 1) + ") AS descricao, preco, quantidade, categoria, versao";
+    
+    private static final String COLUNAS_COMPLETAS = "id, nome, descricao, preco, quantidade, categoria, versao";
+    
+    private final DatabaseConnection database;
+    private final IndiceTrigramas indice;
+    private final SnapshotEstoque snapshotEstoque;
+    private final CacheProdutos cache;
+    private final CacheBuscas cacheBuscas;
+    private final MetricasDAO metricas;
     
     public ProdutoDAO() {
-        this.connection = DatabaseConnection.getInstance().getConnection();
+        this.database = DatabaseConnection.getInstance();
+        this.indice = IndiceTrigramas.getInstance();
+        this.snapshotEstoque = SnapshotEstoque.getInstance();
+        this.cache = CacheProdutos.getInstance();
+        this.cacheBuscas = CacheBuscas.getInstance();
+        this.metricas = MetricasDAO.getInstance();
     }
     
     /**
      * CREATE - Inserir novo produto
+     * O id gerado pelo banco é atribuído ao produto informado
      */
     public boolean inserir(Produto produto) {
         String sql = "INSERT INTO produtos (nome, descricao, preco, quantidade, categoria) VALUES (?, ?, ?, ?, ?)";
+        Medicao medicao = metricas.iniciar("inserir").sql(sql, produto.getNome(), produto.getDescricao(),
+                produto.getPreco(), produto.getQuantidade(), produto.getCategoria());
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, produto.getNome());
             stmt.setString(2, produto.getDescricao());
-            stmt.setDouble(3, produto.getPreco());
+            stmt.setBigDecimal(3, produto.getPreco());
             stmt.setInt(4, produto.getQuantidade());
             stmt.setString(5, produto.getCategoria());
             
             int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            if (rowsAffected == 0) {
+                return false;
+            }
+            
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    produto.setId(keys.getInt(1));
+                }
+            }
+            medicao.linhas(rowsAffected);
+            aposGravar(produto);
+            return true;
             
         } catch (SQLException e) {
+            medicao.erro();
             System.err.println("Erro ao inserir produto: " + e.getMessage());
             return false;
+        } finally {
+            medicao.encerrar();
+        }
+    }
+    
+    /**
+     * CREATE - Inserir vários produtos com JDBC batching em uma única transação
+     * Os ids gerados são atribuídos aos produtos informados
+     * Retorna a quantidade inserida ou -1 se o lote falhar (nenhuma linha é gravada)
+     */
+    public int inserirEmLote(List<Produto> produtos, int tamanhoLote) {
+        String sql = "INSERT INTO produtos (nome, descricao, preco, quantidade, categoria) VALUES (?, ?, ?, ?, ?)";
+        Medicao medicao = metricas.iniciar("inserirEmLote").sql(sql, produtos.size() + " produto(s)");
+        
+        try (Connection connection = database.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                int total = 0;
+                int pendentes = 0;
+                int comChave = 0;
+                for (Produto produto : produtos) {
+                    stmt.setString(1, produto.getNome());
+                    stmt.setString(2, produto.getDescricao());
+                    stmt.setBigDecimal(3, produto.getPreco());
+                    stmt.setInt(4, produto.getQuantidade());
+                    stmt.setString(5, produto.getCategoria());
+                    stmt.addBatch();
+                    
+                    if (++pendentes == tamanhoLote) {
+                        total += somarAfetadas(stmt.executeBatch(), pendentes);
+                        comChave = atribuirChaves(stmt, produtos, comChave);
+                        pendentes = 0;
+                    }
+                }
+                if (pendentes > 0) {
+                    total += somarAfetadas(stmt.executeBatch(), pendentes);
+                    atribuirChaves(stmt, produtos, comChave);
+                }
+                
+                connection.commit();
+                medicao.linhas(total);
+                for (Produto produto : produtos) {
+                    aposGravar(produto);
+                }
+                return total;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao inserir lote de produtos: " + e.getMessage());
+            return -1;
+        } finally {
+            medicao.encerrar();
+        }
+    }
+    
+    /**
+     * CREATE - Restaurar produtos preservando o id (insere ou sobrescreve)
+     * Usa JDBC batching em uma única transação
+     * Retorna a quantidade gravada ou -1 se o lote falhar (nenhuma linha é gravada)
+     */
+    public int restaurarEmLote(List<Produto> produtos, int tamanhoLote) {
+        String sql = """
+            INSERT INTO produtos (id, nome, descricao, preco, quantidade, categoria) VALUES (?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE nome = VALUES(nome), descricao = VALUES(descricao), preco = VALUES(preco),
+                                    quantidade = VALUES(quantidade), categoria = VALUES(categoria), versao = versao + 1
+        """;
+        Medicao medicao = metricas.iniciar("restaurarEmLote").sql(sql, produtos.size() + " produto(s)");
+        
+        try (Connection connection = database.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                int pendentes = 0;
+                for (Produto produto : produtos) {
+                    stmt.setInt(1, produto.getId());
+                    stmt.setString(2, produto.getNome());
+                    stmt.setString(3, produto.getDescricao());
+                    stmt.setBigDecimal(4, produto.getPreco());
+                    stmt.setInt(5, produto.getQuantidade());
+                    stmt.setString(6, produto.getCategoria());
+                    stmt.addBatch();
+                    
+                    if (++pendentes == tamanhoLote) {
+                        stmt.executeBatch();
+                        pendentes = 0;
+                    }
+                }
+                if (pendentes > 0) {
+                    stmt.executeBatch();
+                }
+                
+                connection.commit();
+                medicao.linhas(produtos.size());
+                for (Produto produto : produtos) {
+                    aposGravar(produto);
+                }
+                return produtos.size();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao restaurar lote de produtos: " + e.getMessage());
+            return -1;
+        } finally {
+            medicao.encerrar();
         }
     }
     
@@ -45,54 +211,269 @@ public class ProdutoDAO {
      */
     public List<Produto> listarTodos() {
         List<Produto> produtos = new ArrayList<>();
-        String sql = "SELECT * FROM produtos ORDER BY id";
+        String sql = "SELECT " + COLUNAS_LISTAGEM + " FROM produtos ORDER BY id";
+        long geracaoCache = cache.getGeracao();
+        Medicao medicao = metricas.iniciar("listarTodos").sql(sql);
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = database.getConnection();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                Produto produto = new Produto();
-                produto.setId(rs.getInt("id"));
-                produto.setNome(rs.getString("nome"));
-                produto.setDescricao(rs.getString("descricao"));
-                produto.setPreco(rs.getDouble("preco"));
-                produto.setQuantidade(rs.getInt("quantidade"));
-                produto.setCategoria(rs.getString("categoria"));
-                
+                Produto produto = mapearPreviaEGuardar(rs, geracaoCache);
                 produtos.add(produto);
+                medicao.linha();
             }
             
         } catch (SQLException e) {
+            medicao.erro();
             System.err.println("Erro ao listar produtos: " + e.getMessage());
+        } finally {
+            medicao.encerrar();
         }
         
         return produtos;
     }
     
     /**
-     * READ - Buscar produto por ID
+     * READ - Percorrer todos os produtos em streaming, em ordem de id
+     * Usa cursor no servidor (useCursorFetch) com fetch size limitado, então a memória
+     * não cresce com o tamanho da tabela
+     * Retorna a quantidade de produtos processados ou -1 em caso de erro no banco
      */
-    public Produto buscarPorId(int id) {
-        String sql = "SELECT * FROM produtos WHERE id = ?";
+    @Override
+    public long percorrerTodos(ProcessadorProduto processador) throws IOException {
+        String sql = "SELECT " + COLUNAS_COMPLETAS + " FROM produtos ORDER BY id";
+        Medicao medicao = metricas.iniciar("percorrerTodos").sql(sql);
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(FETCH_SIZE_STREAMING);
+            
+            long total = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    processador.processar(mapearProduto(rs));
+                    total++;
+                }
+            }
+            medicao.linhas(total);
+            return total;
+            
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao percorrer produtos: " + e.getMessage());
+            return -1;
+        } finally {
+            medicao.encerrar();
+        }
+    }
+    
+    /**
+     * READ - Contar produtos cadastrados
+     */
+    public int contar() {
+        String sql = "SELECT COUNT(*) FROM produtos";
+        Medicao medicao = metricas.iniciar("contar").sql(sql);
+        
+        try (Connection connection = database.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+            
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao contar produtos: " + e.getMessage());
+        } finally {
+            medicao.encerrar();
+        }
+        
+        return 0;
+    }
+    
+    /**
+     * READ - Contar produtos com id até o limite informado
+     * Usado com buscarUltimoId() para obter uma contagem coerente com o maior id
+     */
+    public int contarAte(int ultimoId) {
+        String sql = "SELECT COUNT(*) FROM produtos WHERE id <= ?";
+        Medicao medicao = metricas.iniciar("contarAte").sql(sql, ultimoId);
+        
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, ultimoId);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+            
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao contar produtos: " + e.getMessage());
+        } finally {
+            medicao.encerrar();
+        }
+        
+        return 0;
+    }
+    
+    /**
+     * READ - Maior id cadastrado (0 se a tabela estiver vazia)
+     */
+    public int buscarUltimoId() {
+        String sql = "SELECT COALESCE(MAX(id), 0) FROM produtos";
+        Medicao medicao = metricas.iniciar("buscarUltimoId").sql(sql);
+        
+        try (Connection connection = database.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
             
             if (rs.next()) {
-                Produto produto = new Produto();
-                produto.setId(rs.getInt("id"));
-                produto.setNome(rs.getString("nome"));
-                produto.setDescricao(rs.getString("descricao"));
-                produto.setPreco(rs.getDouble("preco"));
-                produto.setQuantidade(rs.getInt("quantidade"));
-                produto.setCategoria(rs.getString("categoria"));
+                return rs.getInt(1);
+            }
+            
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao buscar último id: " + e.getMessage());
+        } finally {
+            medicao.encerrar();
+        }
+        
+        return 0;
+    }
+    
+    /**
+     * READ - Contar os produtos que satisfazem o filtro
+     * Retorna -1 em caso de erro
+     */
+    public int contar(FiltroProdutos filtro) {
+        List<Object> parametros = new ArrayList<>();
+        String sql = "SELECT COUNT(*) FROM produtos" + where(filtro.condicoes(parametros));
+        Medicao medicao = metricas.iniciar("contarFiltro").sql(sql, parametros.toArray());
+        
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            definirParametros(stmt, parametros);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+            
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao contar produtos filtrados: " + e.getMessage());
+            return -1;
+        } finally {
+            medicao.encerrar();
+        }
+        
+        return 0;
+    }
+    
+    /**
+     * READ - Listar uma página de produtos filtrados e ordenados
+     * Keyset pagination a partir de apos (a última linha da página anterior, ou null para
+     * começar do início); deslocamento pula linhas depois dela quando a página anterior
+     * ainda não foi lida. O salto é feito em uma subconsulta que lê apenas ids
+     * (deferred join), então o OFFSET percorre o índice sem ler as linhas descartadas
+     * Retorna null em caso de erro, para não ser confundido com uma página vazia
+     */
+    public List<Produto> listarPagina(FiltroProdutos filtro, Produto apos, int deslocamento, int limite,
+                                      Cancelamento cancelamento) {
+        List<Produto> produtos = new ArrayList<>();
+        List<Object> parametros = new ArrayList<>();
+        List<String> condicoes = filtro.condicoes(parametros);
+        if (apos != null) {
+            condicoes.add(filtro.aposChave(apos, parametros));
+        }
+        String orderBy = " ORDER BY " + filtro.orderBy();
+        
+        String sql;
+        if (deslocamento > 0) {
+            sql = "SELECT " + COLUNAS_LISTAGEM + " FROM produtos JOIN (SELECT id FROM produtos" + where(condicoes)
+                    + orderBy + " LIMIT ? OFFSET ?) AS pagina USING (id)" + orderBy;
+            parametros.add(limite);
+            parametros.add(deslocamento);
+        } else {
+            sql = "SELECT " + COLUNAS_LISTAGEM + " FROM produtos" + where(condicoes) + orderBy + " LIMIT ?";
+            parametros.add(limite);
+        }
+        long geracaoCache = cache.getGeracao();
+        Medicao medicao = metricas.iniciar("listarPaginaFiltro").sql(sql, parametros.toArray());
+        
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            Cancelamento.Registro registro = Cancelamento.registrar(cancelamento, stmt);
+            try {
+                definirParametros(stmt, parametros);
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        produtos.add(mapearPreviaEGuardar(rs, geracaoCache));
+                        medicao.linha();
+                    }
+                }
+            } finally {
+                registro.close();
+            }
+            
+        } catch (SQLException e) {
+            registrarErro("Erro ao listar página de produtos filtrados: ", e, cancelamento, medicao);
+            return null;
+        } finally {
+            medicao.encerrar();
+        }
+        
+        return produtos;
+    }
+    
+    /**
+     * READ - Buscar produto por ID
+     */
+    public Produto buscarPorId(int id) {
+        return buscarPorId(id, null);
+    }
+    
+    /**
+     * READ - Buscar produto por ID, permitindo cancelamento
+     * Consulta primeiro o cache de produtos (read-through); entradas que guardam
+     * apenas a prévia da descrição são relidas para trazer a descrição completa
+     */
+    public Produto buscarPorId(int id, Cancelamento cancelamento) {
+        Produto emCache = cache.obter(id);
+        if (emCache != null && emCache.isDescricaoCompleta()) {
+            return emCache;
+        }
+        
+        String sql = "SELECT " + COLUNAS_COMPLETAS + " FROM produtos WHERE id = ?";
+        long geracaoCache = cache.getGeracao();
+        Medicao medicao = metricas.iniciar("buscarPorId").sql(sql, id);
+        
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            Cancelamento.Registro registro = Cancelamento.registrar(cancelamento, stmt);
+            try {
+                stmt.setInt(1, id);
+                ResultSet rs = stmt.executeQuery();
                 
-                return produto;
+                if (rs.next()) {
+                    medicao.linha();
+                    return mapearEGuardar(rs, geracaoCache);
+                }
+            } finally {
+                registro.close();
             }
             
         } catch (SQLException e) {
-            System.err.println("Erro ao buscar produto: " + e.getMessage());
+            registrarErro("Erro ao buscar produto: ", e, cancelamento, medicao);
+        } finally {
+            medicao.encerrar();
         }
         
         return null;
@@ -102,70 +483,612 @@ public class ProdutoDAO {
      * READ - Buscar produtos por nome
      */
     public List<Produto> buscarPorNome(String nome) {
+        return buscarPorNome(nome, Integer.MAX_VALUE, null);
+    }
+    
+    /**
+     * READ - Buscar produtos por nome, limitado aos primeiros resultados e permitindo cancelamento
+     * Usa o índice de trigramas quando carregado (resultados por relevância);
+     * enquanto o índice estiver frio, recorre ao LIKE no banco
+     * Os ids do resultado ficam no CacheBuscas: um termo repetido só relê os produtos pelo id
+     * Retorna null em caso de erro
+     */
+    public List<Produto> buscarPorNome(String nome, int limite, Cancelamento cancelamento) {
+        int[] emCache = cacheBuscas.obter(nome, limite);
+        if (emCache != null) {
+            return buscarPorIds(emCache, cancelamento);
+        }
+        
+        long geracao = cacheBuscas.getGeracao();
+        if (indice.isPronto()) {
+            int[] ids = indice.buscar(nome, limite);
+            cacheBuscas.guardar(nome, limite, ids, geracao);
+            return buscarPorIds(ids, cancelamento);
+        }
+        
         List<Produto> produtos = new ArrayList<>();
-        String sql = "SELECT * FROM produtos WHERE nome LIKE ? ORDER BY nome";
+        String sql = "SELECT " + COLUNAS_LISTAGEM + " FROM produtos WHERE nome LIKE ? ORDER BY nome LIMIT ?";
+        long geracaoCache = cache.getGeracao();
+        Medicao medicao = metricas.iniciar("buscarPorNome").sql(sql, nome, limite);
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setString(1, "%" + nome + "%");
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                Produto produto = new Produto();
-                produto.setId(rs.getInt("id"));
-                produto.setNome(rs.getString("nome"));
-                produto.setDescricao(rs.getString("descricao"));
-                produto.setPreco(rs.getDouble("preco"));
-                produto.setQuantidade(rs.getInt("quantidade"));
-                produto.setCategoria(rs.getString("categoria"));
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            Cancelamento.Registro registro = Cancelamento.registrar(cancelamento, stmt);
+            try {
+                stmt.setString(1, "%" + nome + "%");
+                stmt.setInt(2, limite);
+                ResultSet rs = stmt.executeQuery();
                 
-                produtos.add(produto);
+                while (rs.next()) {
+                    Produto produto = mapearPreviaEGuardar(rs, geracaoCache);
+                    produtos.add(produto);
+                    medicao.linha();
+                }
+                cacheBuscas.guardar(nome, limite, produtos.stream().mapToInt(Produto::getId).toArray(), geracao);
+            } finally {
+                registro.close();
             }
             
         } catch (SQLException e) {
-            System.err.println("Erro ao buscar produtos por nome: " + e.getMessage());
+            registrarErro("Erro ao buscar produtos por nome: ", e, cancelamento, medicao);
+            return null;
+        } finally {
+            medicao.encerrar();
+        }
+        
+        return produtos;
+    }
+    
+    /**
+     * READ - Buscar produtos por uma lista de ids, preservando a ordem informada
+     * Produtos em cache não são consultados; os demais são buscados pela chave
+     * primária em blocos de até TAMANHO_LOTE_IDS ids
+     * Retorna null em caso de erro
+     */
+    public List<Produto> buscarPorIds(int[] ids, Cancelamento cancelamento) {
+        Map<Integer, Produto> encontrados = new HashMap<>(ids.length * 2);
+        int[] ausentes = new int[ids.length];
+        int quantidadeAusentes = 0;
+        for (int id : ids) {
+            Produto emCache = cache.obter(id);
+            if (emCache != null) {
+                encontrados.put(id, emCache);
+            } else {
+                ausentes[quantidadeAusentes++] = id;
+            }
+        }
+        
+        if (quantidadeAusentes > 0) {
+            long geracaoCache = cache.getGeracao();
+            Medicao medicao = metricas.iniciar("buscarPorIds")
+                    .sql("SELECT " + COLUNAS_LISTAGEM + " FROM produtos WHERE id IN (...)", quantidadeAusentes + " id(s)");
+            try (Connection connection = database.getConnection()) {
+                for (int inicio = 0; inicio < quantidadeAusentes; inicio += TAMANHO_LOTE_IDS) {
+                    int fim = Math.min(quantidadeAusentes, inicio + TAMANHO_LOTE_IDS);
+                    String sql = "SELECT " + COLUNAS_LISTAGEM + " FROM produtos WHERE id IN (" + marcadores(fim - inicio) + ")";
+                    
+                    try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                        Cancelamento.Registro registro = Cancelamento.registrar(cancelamento, stmt);
+                        try {
+                            for (int i = inicio; i < fim; i++) {
+                                stmt.setInt(i - inicio + 1, ausentes[i]);
+                            }
+                            ResultSet rs = stmt.executeQuery();
+                            
+                            while (rs.next()) {
+                                Produto produto = mapearPreviaEGuardar(rs, geracaoCache);
+                                encontrados.put(produto.getId(), produto);
+                                medicao.linha();
+                            }
+                        } finally {
+                            registro.close();
+                        }
+                    }
+                }
+                
+            } catch (SQLException e) {
+                registrarErro("Erro ao buscar produtos por ids: ", e, cancelamento, medicao);
+                return null;
+            } finally {
+                medicao.encerrar();
+            }
         }
         
+        List<Produto> produtos = new ArrayList<>(encontrados.size());
+        for (int id : ids) {
+            Produto produto = encontrados.get(id);
+            if (produto != null) {
+                produtos.add(produto);
+            }
+        }
         return produtos;
     }
     
     /**
      * UPDATE - Atualizar produto
+     * Se o produto traz apenas a prévia da descrição, a descrição gravada é mantida e as estruturas
+     * derivadas (índice, buscas, snapshot) são atualizadas a partir da linha relida
+     * Controle otimista: só grava se a versão da linha ainda for a do produto, que passa
+     * para a versão seguinte; se outra estação gravou antes, lança ConflitoVersaoException
+     * Retorna false se o produto não existe mais ou em caso de erro
      */
     public boolean atualizar(Produto produto) {
-        String sql = "UPDATE produtos SET nome = ?, descricao = ?, preco = ?, quantidade = ?, categoria = ? WHERE id = ?";
+        boolean gravarDescricao = produto.isDescricaoCompleta();
+        String sql = gravarDescricao
+                ? "UPDATE produtos SET nome = ?, descricao = ?, preco = ?, quantidade = ?, categoria = ?, "
+                    + "versao = versao + 1 WHERE id = ? AND versao = ?"
+                : "UPDATE produtos SET nome = ?, preco = ?, quantidade = ?, categoria = ?, "
+                    + "versao = versao + 1 WHERE id = ? AND versao = ?";
+        Medicao medicao = metricas.iniciar("atualizar").sql(sql, produto.getNome(), produto.getDescricao(),
+                produto.getPreco(), produto.getQuantidade(), produto.getCategoria(), produto.getId(),
+                produto.getVersao());
+        
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            int i = 1;
+            stmt.setString(i++, produto.getNome());
+            if (gravarDescricao) {
+                stmt.setString(i++, produto.getDescricao());
+            }
+            stmt.setBigDecimal(i++, produto.getPreco());
+            stmt.setInt(i++, produto.getQuantidade());
+            stmt.setString(i++, produto.getCategoria());
+            stmt.setInt(i++, produto.getId());
+            stmt.setInt(i, produto.getVersao());
+            
+            int rowsAffected = stmt.executeUpdate();
+            medicao.linhas(rowsAffected);
+            if (rowsAffected > 0) {
+                produto.setVersao(produto.getVersao() + 1);
+                if (gravarDescricao) {
+                    aposGravar(produto);
+                } else {
+                    aposGravarPrevia(connection, produto.getId());
+                }
+                return true;
+            }
+            
+            // Nenhuma linha: o produto foi excluído ou gravado por outra estação
+            Integer versaoAtual = buscarVersao(connection, produto.getId());
+            if (versaoAtual == null) {
+                return false;
+            }
+            cache.invalidar(produto.getId());
+            throw new ConflitoVersaoException(produto.getId(), produto.getVersao(), versaoAtual);
+            
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao atualizar produto: " + e.getMessage());
+            return false;
+        } finally {
+            medicao.encerrar();
+        }
+    }
+    
+    /**
+     * UPDATE - Atualizar vários produtos com JDBC batching em uma única transação
+     * Sem controle de versão: a última gravação prevalece (importação e restauração)
+     * Só os produtos que o UPDATE alcançou passam ao cache, ao índice e ao snapshot
+     * Retorna os ids não encontrados (inexistentes ou excluídos por outra estação) ou null se o
+     * lote falhar (nenhuma linha é gravada)
+     */
+    public List<Integer> atualizarEmLote(List<Produto> produtos, int tamanhoLote) {
+        return atualizarEmLote("atualizarEmLote", produtos, tamanhoLote, false);
+    }
+    
+    /**
+     * UPDATE - Como atualizarEmLote, com o controle otimista de atualizar (gravação adiada)
+     * Cada produto só é gravado se a versão da linha ainda for a dele, e passa para a versão seguinte
+     * Retorna os ids não gravados (gravados ou excluídos por outra estação) ou null se o lote falhar
+     */
+    public List<Integer> atualizarComVersaoEmLote(List<Produto> produtos, int tamanhoLote) {
+        return atualizarEmLote("atualizarComVersaoEmLote", produtos, tamanhoLote, true);
+    }
+    
+    private List<Integer> atualizarEmLote(String operacao, List<Produto> produtos, int tamanhoLote, boolean comVersao) {
+        String sql = "UPDATE produtos SET nome = ?, descricao = ?, preco = ?, quantidade = ?, categoria = ?, "
+                + "versao = versao + 1 WHERE id = ?" + (comVersao ? " AND versao = ?" : "");
+        Medicao medicao = metricas.iniciar(operacao).sql(sql, produtos.size() + " produto(s)");
+        
+        try (Connection connection = database.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                List<Produto> gravados = new ArrayList<>(produtos.size());
+                List<Produto> naoGravados = new ArrayList<>();
+                List<Produto> semContagem = new ArrayList<>();
+                for (int inicio = 0; inicio < produtos.size(); inicio += tamanhoLote) {
+                    List<Produto> parte = produtos.subList(inicio, Math.min(inicio + tamanhoLote, produtos.size()));
+                    for (Produto produto : parte) {
+                        stmt.setString(1, produto.getNome());
+                        stmt.setString(2, produto.getDescricao());
+                        stmt.setBigDecimal(3, produto.getPreco());
+                        stmt.setInt(4, produto.getQuantidade());
+                        stmt.setString(5, produto.getCategoria());
+                        stmt.setInt(6, produto.getId());
+                        if (comVersao) {
+                            stmt.setInt(7, produto.getVersao());
+                        }
+                        stmt.addBatch();
+                    }
+                    separarPorContagem(stmt.executeBatch(), parte, gravados, naoGravados, semContagem);
+                }
+                conferirSemContagem(connection, semContagem, comVersao, gravados, naoGravados);
+                
+                connection.commit();
+                medicao.linhas(gravados.size());
+                for (Produto produto : gravados) {
+                    if (comVersao) {
+                        produto.setVersao(produto.getVersao() + 1);
+                    }
+                    aposGravar(produto);
+                }
+                List<Integer> idsNaoGravados = new ArrayList<>(naoGravados.size());
+                for (Produto produto : naoGravados) {
+                    cache.invalidar(produto.getId());
+                    idsNaoGravados.add(produto.getId());
+                }
+                return idsNaoGravados;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao atualizar lote de produtos: " + e.getMessage());
+            return null;
+        } finally {
+            medicao.encerrar();
+        }
+    }
+    
+    /**
+     * UPDATE - Regravar um único produto com controle de versão, como em atualizarComVersaoEmLote
+     * Usado para isolar a linha que fez um lote falhar
+     * Retorna 1 se gravou, 0 se o produto foi gravado ou excluído por outra estação e -1 em falha
+     * de conexão ou temporária
+     * Lança GravacaoRecusadaException se o banco recusa a própria linha
+     */
+    public int regravar(Produto produto) {
+        String sql = "UPDATE produtos SET nome = ?, descricao = ?, preco = ?, quantidade = ?, categoria = ?, "
+                + "versao = versao + 1 WHERE id = ? AND versao = ?";
+        Medicao medicao = metricas.iniciar("regravar").sql(sql, produto.getNome(), produto.getDescricao(),
+                produto.getPreco(), produto.getQuantidade(), produto.getCategoria(), produto.getId(),
+                produto.getVersao());
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setString(1, produto.getNome());
             stmt.setString(2, produto.getDescricao());
-            stmt.setDouble(3, produto.getPreco());
+            stmt.setBigDecimal(3, produto.getPreco());
             stmt.setInt(4, produto.getQuantidade());
             stmt.setString(5, produto.getCategoria());
             stmt.setInt(6, produto.getId());
+            stmt.setInt(7, produto.getVersao());
             
             int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            medicao.linhas(rowsAffected);
+            if (rowsAffected > 0) {
+                produto.setVersao(produto.getVersao() + 1);
+                aposGravar(produto);
+                return 1;
+            }
+            cache.invalidar(produto.getId());
+            return 0;
             
         } catch (SQLException e) {
-            System.err.println("Erro ao atualizar produto: " + e.getMessage());
-            return false;
+            medicao.erro();
+            if (linhaRecusada(e)) {
+                throw new GravacaoRecusadaException(produto.getId(), e.getMessage());
+            }
+            System.err.println("Erro ao regravar produto: " + e.getMessage());
+            return -1;
+        } finally {
+            medicao.encerrar();
         }
     }
     
     /**
-     * DELETE - Excluir produto
+     * Erros causados pelos valores da linha (classes SQLState 22 - dado inválido e
+     * 23 - restrição violada), ao contrário de falhas de conexão, bloqueio ou esquema
      */
-    public boolean excluir(int id) {
-        String sql = "DELETE FROM produtos WHERE id = ?";
+    private static boolean linhaRecusada(SQLException e) {
+        String estado = e.getSQLState();
+        return e instanceof SQLDataException || e instanceof SQLIntegrityConstraintViolationException
+                || (estado != null && (estado.startsWith("22") || estado.startsWith("23")));
+    }
+    
+    /**
+     * UPDATE - Somar delta ao estoque do produto em um único UPDATE condicional, sem ler a linha antes
+     * Duas estações ajustando o mesmo produto não perdem ajustes, e o estoque nunca fica negativo
+     * Retorna a nova quantidade ou -1 se o produto não existe, o estoque é insuficiente ou em caso de erro
+     */
+    public int ajustarEstoque(int id, int delta) {
+        // LAST_INSERT_ID(expr) guarda a nova quantidade na sessão: lida sem voltar à linha
+        String sql = "UPDATE produtos SET quantidade = LAST_INSERT_ID(quantidade + ?), versao = versao + 1 "
+                + "WHERE id = ? AND quantidade + ? >= 0";
+        Medicao medicao = metricas.iniciar("ajustarEstoque").sql(sql, delta, id, delta);
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            stmt.setInt(1, id);
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, delta);
+            stmt.setInt(2, id);
+            stmt.setInt(3, delta);
             
             int rowsAffected = stmt.executeUpdate();
-            return rowsAffected > 0;
+            medicao.linhas(rowsAffected);
+            if (rowsAffected == 0) {
+                return -1;
+            }
             
+            int quantidade;
+            try (Statement consulta = connection.createStatement();
+                 ResultSet rs = consulta.executeQuery("SELECT LAST_INSERT_ID()")) {
+                rs.next();
+                quantidade = rs.getInt(1);
+            }
+            aposAjustarEstoque(id, quantidade);
+            return quantidade;
+            
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao ajustar estoque: " + e.getMessage());
+            return -1;
+        } finally {
+            medicao.encerrar();
+        }
+    }
+    
+    /**
+     * UPDATE - Ajustar o estoque de vários produtos (recebimento de mercadorias) com JDBC batching
+     * em uma única transação; cada item é o mesmo UPDATE condicional de ajustarEstoque
+     * Itens de produtos inexistentes ou sem estoque suficiente não são aplicados, os demais sim
+     * Retorna a nova quantidade dos produtos ajustados (por id) ou null se o lote falhar (nada é gravado)
+     */
+    public Map<Integer, Integer> ajustarEstoqueEmLote(Map<Integer, Integer> ajustes, int tamanhoLote) {
+        String sql = "UPDATE produtos SET quantidade = quantidade + ?, versao = versao + 1 "
+                + "WHERE id = ? AND quantidade + ? >= 0";
+        Medicao medicao = metricas.iniciar("ajustarEstoqueEmLote").sql(sql, ajustes.size() + " ajuste(s)");
+        
+        try (Connection connection = database.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                // Em ordem de id, para que recebimentos concorrentes bloqueiem as linhas na mesma ordem
+                List<Integer> ids = new ArrayList<>(new TreeSet<>(ajustes.keySet()));
+                List<Integer> aplicados = new ArrayList<>();
+                for (int inicio = 0; inicio < ids.size(); inicio += tamanhoLote) {
+                    List<Integer> parte = ids.subList(inicio, Math.min(inicio + tamanhoLote, ids.size()));
+                    Savepoint antesDaParte = connection.setSavepoint();
+                    for (int id : parte) {
+                        definirAjuste(stmt, id, ajustes.get(id));
+                        stmt.addBatch();
+                    }
+                    // UPDATEs reescritos pelo driver vão como multi-statement e mantêm a contagem de cada item
+                    int[] resultados = stmt.executeBatch();
+                    if (semContagem(resultados)) {
+                        // Sem a contagem de cada item não se sabe quais foram recusados: a parte é
+                        // desfeita e repetida item a item
+                        connection.rollback(antesDaParte);
+                        for (int id : parte) {
+                            definirAjuste(stmt, id, ajustes.get(id));
+                            if (stmt.executeUpdate() > 0) {
+                                aplicados.add(id);
+                            }
+                        }
+                    } else {
+                        connection.releaseSavepoint(antesDaParte);
+                        for (int i = 0; i < resultados.length; i++) {
+                            if (resultados[i] > 0) {
+                                aplicados.add(parte.get(i));
+                            }
+                        }
+                    }
+                }
+                
+                // Quantidades resultantes, lidas na mesma transação (as linhas seguem bloqueadas)
+                Map<Integer, Integer> quantidades = new HashMap<>();
+                for (int inicio = 0; inicio < aplicados.size(); inicio += TAMANHO_LOTE_IDS) {
+                    int fim = Math.min(inicio + TAMANHO_LOTE_IDS, aplicados.size());
+                    try (PreparedStatement consulta = connection.prepareStatement(
+                            "SELECT id, quantidade FROM produtos WHERE id IN (" + marcadores(fim - inicio) + ")")) {
+                        for (int i = inicio; i < fim; i++) {
+                            consulta.setInt(i - inicio + 1, aplicados.get(i));
+                        }
+                        try (ResultSet rs = consulta.executeQuery()) {
+                            while (rs.next()) {
+                                quantidades.put(rs.getInt("id"), rs.getInt("quantidade"));
+                            }
+                        }
+                    }
+                }
+                
+                connection.commit();
+                medicao.linhas(quantidades.size());
+                for (Map.Entry<Integer, Integer> entrada : quantidades.entrySet()) {
+                    aposAjustarEstoque(entrada.getKey(), entrada.getValue());
+                }
+                return quantidades;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao ajustar estoque em lote: " + e.getMessage());
+            return null;
+        } finally {
+            medicao.encerrar();
+        }
+    }
+    
+    /**
+     * UPDATE - Trocar a categoria de vários produtos selecionados
+     * Retorna os produtos gravados ou null se falhar (nada é gravado)
+     */
+    public List<Produto> alterarCategoriaEmLote(List<Integer> ids, String categoria) {
+        return atualizarConjunto("alterarCategoriaEmLote", "categoria = ?", categoria, ids);
+    }
+    
+    /**
+     * UPDATE - Reajustar o preço de vários produtos em percentual (10 = +10%, -15 = -15%)
+     * O banco multiplica e arredonda para centavos; percentual deve ser maior que -100
+     */
+    public List<Produto> reajustarPrecoEmLote(List<Integer> ids, BigDecimal percentual) {
+        if (percentual.compareTo(BigDecimal.valueOf(-100)) <= 0) {
+            throw new IllegalArgumentException("Percentual de reajuste inválido: " + percentual);
+        }
+        BigDecimal fator = BigDecimal.ONE.add(percentual.movePointLeft(2));
+        return atualizarConjunto("reajustarPrecoEmLote", "preco = ROUND(preco * ?, 2)", fator, ids);
+    }
+    
+    /**
+     * UPDATE - Definir a mesma quantidade em estoque para vários produtos (inventário)
+     */
+    public List<Produto> definirQuantidadeEmLote(List<Integer> ids, int quantidade) {
+        return atualizarConjunto("definirQuantidadeEmLote", "quantidade = ?", quantidade, ids);
+    }
+    
+    /**
+     * Um UPDATE ... WHERE id IN (...) por bloco de TAMANHO_LOTE_IDS, todos na mesma transação
+     * A alteração vale para todos os selecionados sem conferir a versão lida pela tela (a última
+     * gravação prevalece), mas incrementa a versão para que edições abertas em outras estações
+     * detectem o conflito; ids inexistentes são ignorados
+     */
+    private List<Produto> atualizarConjunto(String operacao, String atribuicao, Object valor, List<Integer> ids) {
+        String sql = "UPDATE produtos SET " + atribuicao + ", versao = versao + 1 WHERE id IN (";
+        // Sem repetições e em ordem de id, para que lotes concorrentes bloqueiem as linhas na mesma ordem
+        ids = new ArrayList<>(new TreeSet<>(ids));
+        Medicao medicao = metricas.iniciar(operacao).sql(sql + "...)", valor, ids.size() + " id(s)");
+        
+        try (Connection connection = database.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<Produto> produtos = new ArrayList<>(ids.size());
+                for (int inicio = 0; inicio < ids.size(); inicio += TAMANHO_LOTE_IDS) {
+                    List<Integer> bloco = ids.subList(inicio, Math.min(inicio + TAMANHO_LOTE_IDS, ids.size()));
+                    try (PreparedStatement stmt = connection.prepareStatement(sql + marcadores(bloco.size()) + ")")) {
+                        stmt.setObject(1, valor);
+                        for (int i = 0; i < bloco.size(); i++) {
+                            stmt.setInt(i + 2, bloco.get(i));
+                        }
+                        stmt.executeUpdate();
+                    }
+                    // Linhas gravadas, relidas na mesma transação (seguem bloqueadas)
+                    produtos.addAll(buscarPorIds(connection, bloco));
+                }
+                connection.commit();
+                medicao.linhas(produtos.size());
+                
+                for (Produto produto : produtos) {
+                    aposGravar(produto);
+                }
+                return produtos;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao alterar produtos em lote: " + e.getMessage());
+            return null;
+        } finally {
+            medicao.encerrar();
+        }
+    }
+    
+    /**
+     * DELETE - Excluir produto
+     * Registra a exclusão em produtos_excluidos na mesma transação, para a sincronização das outras estações
+     */
+    public boolean excluir(int id) {
+        String sql = "DELETE FROM produtos WHERE id = ?";
+        Medicao medicao = metricas.iniciar("excluir").sql(sql, id);
+        String sqlExclusao = "INSERT INTO produtos_excluidos (produto_id) VALUES (?)";
+        
+        try (Connection connection = database.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(sql);
+                 PreparedStatement stmtExclusao = connection.prepareStatement(sqlExclusao)) {
+                stmt.setInt(1, id);
+                
+                int rowsAffected = stmt.executeUpdate();
+                if (rowsAffected > 0) {
+                    stmtExclusao.setInt(1, id);
+                    stmtExclusao.executeUpdate();
+                }
+                connection.commit();
+                medicao.linhas(rowsAffected);
+                
+                if (rowsAffected > 0) {
+                    aposExcluir(id);
+                }
+                return rowsAffected > 0;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            medicao.erro();
             System.err.println("Erro ao excluir produto: " + e.getMessage());
             return false;
+        } finally {
+            medicao.encerrar();
+        }
+    }
+    
+    /**
+     * DELETE - Excluir vários produtos selecionados em uma única transação
+     * Por bloco de TAMANHO_LOTE_IDS: bloqueia as linhas existentes, registra as exclusões em
+     * produtos_excluidos com INSERT ... SELECT e apaga com DELETE ... WHERE id IN (...)
+     * Retorna os ids excluídos (ids inexistentes são ignorados) ou null se falhar (nada é excluído)
+     */
+    public List<Integer> excluirEmLote(List<Integer> ids) {
+        String sql = "DELETE FROM produtos WHERE id IN (";
+        // Sem repetições e em ordem de id, para que lotes concorrentes bloqueiem as linhas na mesma ordem
+        ids = new ArrayList<>(new TreeSet<>(ids));
+        Medicao medicao = metricas.iniciar("excluirEmLote").sql(sql + "...)", ids.size() + " id(s)");
+        
+        try (Connection connection = database.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<Integer> excluidos = new ArrayList<>(ids.size());
+                for (int inicio = 0; inicio < ids.size(); inicio += TAMANHO_LOTE_IDS) {
+                    List<Integer> bloco = ids.subList(inicio, Math.min(inicio + TAMANHO_LOTE_IDS, ids.size()));
+                    String in = "(" + marcadores(bloco.size()) + ")";
+                    try (PreparedStatement consulta = connection.prepareStatement(
+                            "SELECT id FROM produtos WHERE id IN " + in + " FOR UPDATE")) {
+                        definirParametros(consulta, new ArrayList<>(bloco));
+                        try (ResultSet rs = consulta.executeQuery()) {
+                            while (rs.next()) {
+                                excluidos.add(rs.getInt(1));
+                            }
+                        }
+                    }
+                    try (PreparedStatement stmtExclusao = connection.prepareStatement(
+                            "INSERT INTO produtos_excluidos (produto_id) SELECT id FROM produtos WHERE id IN " + in);
+                         PreparedStatement stmt = connection.prepareStatement(sql + marcadores(bloco.size()) + ")")) {
+                        definirParametros(stmtExclusao, new ArrayList<>(bloco));
+                        stmtExclusao.executeUpdate();
+                        definirParametros(stmt, new ArrayList<>(bloco));
+                        stmt.executeUpdate();
+                    }
+                }
+                connection.commit();
+                medicao.linhas(excluidos.size());
+                
+                for (int id : excluidos) {
+                    aposExcluir(id);
+                }
+                return excluidos;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao excluir produtos em lote: " + e.getMessage());
+            return null;
+        } finally {
+            medicao.encerrar();
         }
     }
     
@@ -175,18 +1098,408 @@ public class ProdutoDAO {
     public List<String> listarCategorias() {
         List<String> categorias = new ArrayList<>();
         String sql = "SELECT DISTINCT categoria FROM produtos ORDER BY categoria";
+        Medicao medicao = metricas.iniciar("listarCategorias").sql(sql);
         
-        try (Statement stmt = connection.createStatement();
+        try (Connection connection = database.getConnection();
+             Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
                 categorias.add(rs.getString("categoria"));
+                medicao.linha();
             }
             
         } catch (SQLException e) {
+            medicao.erro();
             System.err.println("Erro ao listar categorias: " + e.getMessage());
+        } finally {
+            medicao.encerrar();
         }
         
         return categorias;
     }
+    
+    /**
+     * Quantidade de produtos por categoria, em ordem de categoria
+     * Permite manter a lista de categorias incrementalmente após cada gravação
+     * Retorna null em caso de erro, para não ser confundido com uma tabela vazia
+     */
+    public Map<String, Integer> contarPorCategoria() {
+        Map<String, Integer> contagens = new LinkedHashMap<>();
+        String sql = "SELECT categoria, COUNT(*) FROM produtos GROUP BY categoria ORDER BY categoria";
+        Medicao medicao = metricas.iniciar("contarPorCategoria").sql(sql);
+        
+        try (Connection connection = database.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                contagens.put(rs.getString(1), rs.getInt(2));
+                medicao.linha();
+            }
+            
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao contar produtos por categoria: " + e.getMessage());
+            return null;
+        } finally {
+            medicao.encerrar();
+        }
+        
+        return contagens;
+    }
+    
+    /**
+     * Marca atual do banco para iniciar a sincronização: horário do servidor e última exclusão registrada
+     * Retorna null se o banco estiver inacessível
+     */
+    public MarcaSincronizacao obterMarcaAtual() {
+        String sql = "SELECT NOW(), (SELECT COALESCE(MAX(seq), 0) FROM produtos_excluidos)";
+        Medicao medicao = metricas.iniciar("obterMarcaAtual").sql(sql);
+        
+        try (Connection connection = database.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            if (rs.next()) {
+                return new MarcaSincronizacao(rs.getTimestamp(1).toLocalDateTime(), rs.getLong(2));
+            }
+            
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao obter marca de sincronização: " + e.getMessage());
+        } finally {
+            medicao.encerrar();
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Produtos alterados ou inseridos a partir do instante informado, em ordem de alteração
+     * O cache e o índice de busca são atualizados com as linhas lidas
+     */
+    public List<Produto> listarAlteradosDesde(LocalDateTime desde, int limite) {
+        List<Produto> produtos = new ArrayList<>();
+        String sql = "SELECT " + COLUNAS_COMPLETAS + ", data_atualizacao FROM produtos "
+                + "WHERE data_atualizacao >= ? ORDER BY data_atualizacao, id LIMIT ?";
+        Medicao medicao = metricas.iniciar("listarAlteradosDesde").sql(sql, desde, limite);
+        
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setTimestamp(1, Timestamp.valueOf(desde));
+            stmt.setInt(2, limite);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Produto produto = mapearProduto(rs);
+                    produto.setDataAtualizacao(rs.getTimestamp("data_atualizacao").toLocalDateTime());
+                    aposGravar(produto);
+                    produtos.add(produto);
+                    medicao.linha();
+                }
+            }
+            
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao listar produtos alterados: " + e.getMessage());
+        } finally {
+            medicao.encerrar();
+        }
+        
+        return produtos;
+    }
+    
+    /**
+     * Exclusões registradas após o seq informado ou a partir do instante informado, em ordem de seq
+     * O instante cobre exclusões de transações que confirmaram fora da ordem do seq
+     * O cache e o índice de busca são atualizados com os ids lidos
+     */
+    public List<Exclusao> listarExclusoesDesde(long aposSeq, LocalDateTime desde, int limite) {
+        List<Exclusao> exclusoes = new ArrayList<>();
+        String sql = "SELECT seq, produto_id, data_exclusao FROM produtos_excluidos "
+                + "WHERE seq > ? OR data_exclusao >= ? ORDER BY seq LIMIT ?";
+        Medicao medicao = metricas.iniciar("listarExclusoesDesde").sql(sql, aposSeq, desde, limite);
+        
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, aposSeq);
+            stmt.setTimestamp(2, Timestamp.valueOf(desde));
+            stmt.setInt(3, limite);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Exclusao exclusao = new Exclusao(rs.getLong(1), rs.getInt(2), rs.getTimestamp(3).toLocalDateTime());
+                    aposExcluir(exclusao.getProdutoId());
+                    exclusoes.add(exclusao);
+                    medicao.linha();
+                }
+            }
+            
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao listar exclusões: " + e.getMessage());
+        } finally {
+            medicao.encerrar();
+        }
+        
+        return exclusoes;
+    }
+    
+    /**
+     * Remove registros de exclusão mais antigos que o prazo de retenção
+     */
+    public int removerExclusoesAntigas(int dias) {
+        String sql = "DELETE FROM produtos_excluidos WHERE data_exclusao < NOW() - INTERVAL ? DAY";
+        Medicao medicao = metricas.iniciar("removerExclusoesAntigas").sql(sql, dias);
+        
+        try (Connection connection = database.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setInt(1, dias);
+            int removidas = stmt.executeUpdate();
+            medicao.linhas(removidas);
+            return removidas;
+            
+        } catch (SQLException e) {
+            medicao.erro();
+            System.err.println("Erro ao remover exclusões antigas: " + e.getMessage());
+            return 0;
+        } finally {
+            medicao.encerrar();
+        }
+    }
+    
+    /**
+     * Soma as linhas afetadas de um executeBatch
+     * Com rewriteBatchedStatements o driver pode devolver SUCCESS_NO_INFO; nesse caso conta o lote inteiro
+     */
+    private int somarAfetadas(int[] resultados, int enviados) {
+        int total = 0;
+        for (int r : resultados) {
+            if (r == Statement.SUCCESS_NO_INFO) {
+                return enviados;
+            }
+            total += r;
+        }
+        return total;
+    }
+    
+    private static void definirAjuste(PreparedStatement stmt, int id, int delta) throws SQLException {
+        stmt.setInt(1, delta);
+        stmt.setInt(2, id);
+        stmt.setInt(3, delta);
+    }
+    
+    private static boolean semContagem(int[] resultados) {
+        for (int resultado : resultados) {
+            if (resultado == Statement.SUCCESS_NO_INFO) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Separa os itens de um executeBatch pela contagem de cada um: gravados (> 0), não gravados (0)
+     * e sem contagem (SUCCESS_NO_INFO), que precisam ser conferidos
+     */
+    private static void separarPorContagem(int[] resultados, List<Produto> parte, List<Produto> gravados,
+                                           List<Produto> naoGravados, List<Produto> semContagem) {
+        for (int i = 0; i < resultados.length; i++) {
+            if (resultados[i] > 0) {
+                gravados.add(parte.get(i));
+            } else if (resultados[i] == Statement.SUCCESS_NO_INFO) {
+                semContagem.add(parte.get(i));
+            } else {
+                naoGravados.add(parte.get(i));
+            }
+        }
+    }
+    
+    /**
+     * Confere, relendo as linhas na mesma transação, os itens para os quais o driver não devolveu
+     * contagem: o UPDATE sem versão alcança toda linha que existe; com versão, a linha gravada
+     * está na versão seguinte à do produto e com o conteúdo dele
+     */
+    private void conferirSemContagem(Connection connection, List<Produto> semContagem, boolean comVersao,
+                                     List<Produto> gravados, List<Produto> naoGravados) throws SQLException {
+        for (int inicio = 0; inicio < semContagem.size(); inicio += TAMANHO_LOTE_IDS) {
+            List<Produto> parte = semContagem.subList(inicio, Math.min(inicio + TAMANHO_LOTE_IDS, semContagem.size()));
+            List<Integer> ids = new ArrayList<>(parte.size());
+            for (Produto produto : parte) {
+                ids.add(produto.getId());
+            }
+            Map<Integer, Produto> linhas = new HashMap<>();
+            for (Produto linha : buscarPorIds(connection, ids)) {
+                linhas.put(linha.getId(), linha);
+            }
+            for (Produto produto : parte) {
+                Produto linha = linhas.get(produto.getId());
+                boolean gravado = linha != null
+                        && (!comVersao || linha.getVersao() == produto.getVersao() + 1 && mesmoConteudo(linha, produto));
+                if (gravado) {
+                    gravados.add(produto);
+                } else {
+                    naoGravados.add(produto);
+                }
+            }
+        }
+    }
+    
+    private static boolean mesmoConteudo(Produto a, Produto b) {
+        return Objects.equals(a.getNome(), b.getNome())
+                && Objects.equals(a.getDescricao(), b.getDescricao())
+                && a.getPrecoCentavos() == b.getPrecoCentavos()
+                && a.getQuantidade() == b.getQuantidade()
+                && Objects.equals(a.getCategoria(), b.getCategoria());
+    }
+    
+    /**
+     * Atribui as chaves geradas do último executeBatch aos produtos, a partir da posição informada
+     * Retorna a posição do próximo produto sem chave
+     */
+    private int atribuirChaves(PreparedStatement stmt, List<Produto> produtos, int posicao) throws SQLException {
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+            while (keys.next() && posicao < produtos.size()) {
+                produtos.get(posicao++).setId(keys.getInt(1));
+            }
+        }
+        return posicao;
+    }
+    
+    /**
+     * Versão atual da linha ou null se o produto não existe
+     */
+    private Integer buscarVersao(Connection connection, int id) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT versao FROM produtos WHERE id = ?")) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+    
+    /**
+     * Produtos completos dos ids informados (até TAMANHO_LOTE_IDS), lidos na conexão da transação
+     */
+    private List<Produto> buscarPorIds(Connection connection, List<Integer> ids) throws SQLException {
+        List<Produto> produtos = new ArrayList<>(ids.size());
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "SELECT " + COLUNAS_COMPLETAS + " FROM produtos WHERE id IN (" + marcadores(ids.size()) + ")")) {
+            definirParametros(stmt, new ArrayList<>(ids));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    produtos.add(mapearProduto(rs));
+                }
+            }
+        }
+        return produtos;
+    }
+    
+    private static String where(List<String> condicoes) {
+        return condicoes.isEmpty() ? "" : " WHERE " + String.join(" AND ", condicoes);
+    }
+    
+    private static void definirParametros(PreparedStatement stmt, List<Object> parametros) throws SQLException {
+        for (int i = 0; i < parametros.size(); i++) {
+            stmt.setObject(i + 1, parametros.get(i));
+        }
+    }
+    
+    private static String marcadores(int quantidade) {
+        StringBuilder sb = new StringBuilder(quantidade * 2);
+        for (int i = 0; i < quantidade; i++) {
+            sb.append(i == 0 ? "?" : ",?");
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Mantém as estruturas em memória coerentes após uma gravação confirmada
+     */
+    private void aposGravar(Produto produto) {
+        cache.invalidar(produto.getId());
+        indice.indexar(produto);
+        cacheBuscas.invalidar(produto);
+        snapshotEstoque.gravar(produto);
+    }
+    
+    /**
+     * Gravação de um produto que trazia só a prévia da descrição: o índice, o cache de buscas e o
+     * snapshot precisam da descrição completa, então a linha gravada é relida pela chave
+     * Se a releitura falhar, o produto fica apenas invalidado no cache
+     */
+    private void aposGravarPrevia(Connection connection, int id) {
+        cache.invalidar(id);
+        try {
+            List<Produto> gravados = buscarPorIds(connection, Collections.singletonList(id));
+            if (!gravados.isEmpty()) {
+                aposGravar(gravados.get(0));
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro ao reler produto " + id + " após gravação: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Após um ajuste de estoque só a quantidade mudou; o índice e o cache de buscas não dependem dela
+     */
+    private void aposAjustarEstoque(int id, int quantidade) {
+        cache.invalidar(id);
+        snapshotEstoque.atualizarQuantidade(id, quantidade);
+    }
+    
+    private void aposExcluir(int id) {
+        cache.invalidar(id);
+        indice.remover(id);
+        cacheBuscas.invalidar(id);
+        snapshotEstoque.remover(id);
+    }
+    
+    /**
+     * Mapeia a linha e a guarda no cache de produtos
+     * geracaoCache é lida antes da consulta: se uma gravação invalidou o cache no meio tempo,
+     * a linha lida pode ser anterior a ela e não é guardada
+     */
+    private Produto mapearEGuardar(ResultSet rs, long geracaoCache) throws SQLException {
+        Produto produto = mapearProduto(rs);
+        cache.guardar(produto, geracaoCache);
+        return produto;
+    }
+    
+    /**
+     * Mapeia uma linha lida com COLUNAS_LISTAGEM: se a descrição veio com mais caracteres
+     * que a prévia, ela foi cortada pelo LEFT e o produto fica marcado como incompleto
+     */
+    private Produto mapearPreviaEGuardar(ResultSet rs, long geracaoCache) throws SQLException {
+        Produto produto = mapearProduto(rs);
+        String descricao = produto.getDescricao();
+        if (descricao != null && descricao.codePointCount(0, descricao.length()) > Produto.TAMANHO_PREVIA_DESCRICAO) {
+            produto.setPreviaDescricao(descricao.substring(0, descricao.offsetByCodePoints(0, Produto.TAMANHO_PREVIA_DESCRICAO)));
+        }
+        cache.guardar(produto, geracaoCache);
+        return produto;
+    }
+    
+    private Produto mapearProduto(ResultSet rs) throws SQLException {
+        Produto produto = new Produto();
+        produto.setId(rs.getInt("id"));
+        produto.setNome(rs.getString("nome"));
+        produto.setDescricao(rs.getString("descricao"));
+        produto.setPreco(rs.getBigDecimal("preco"));
+        produto.setQuantidade(rs.getInt("quantidade"));
+        produto.setCategoria(rs.getString("categoria"));
+        produto.setVersao(rs.getInt("versao"));
+        return produto;
+    }
+    
+    /**
+     * Registra o erro, exceto quando a consulta foi cancelada intencionalmente
+     */
+    private void registrarErro(String mensagem, SQLException e, Cancelamento cancelamento, Medicao medicao) {
+        if (cancelamento == null || !cancelamento.isCancelado()) {
+            medicao.erro();
+            System.err.println(mensagem + e.getMessage());
+        }
+    }
 }
\ No newline at end of file
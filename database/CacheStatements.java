@@ -0,0 +1,252 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU de PreparedStatements de uma conexão física do pool
+ * O statement sobrevive ao close() do chamador e é reutilizado quando o mesmo SQL é preparado
+ * de novo na mesma conexão, evitando nova análise do SQL (no driver e, com prepares no
+ * servidor, também no MySQL)
+ * Enquanto emprestado, o statement sai do cache; o chamador recebe um proxy cujo close()
+ * fecha os ResultSets abertos, limpa parâmetros e lotes e devolve o statement ao cache
+ * Statements com configuração alterada (fetch size, timeout, limite de linhas etc.) são
+ * fechados em vez de devolvidos, para não vazar a configuração para o próximo uso
+ */
+class CacheStatements {
+    // SQLs maiores (ex.: IN com centenas de marcadores) não valem o espaço no cache
+    private static final int TAMANHO_MAXIMO_SQL = 2048;
+
+    private static final Set<String> CONFIGURACOES = new HashSet<>(Arrays.asList(
+            "setFetchSize", "setFetchDirection", "setMaxRows", "setLargeMaxRows", "setMaxFieldSize",
+            "setQueryTimeout", "setEscapeProcessing", "setCursorName", "setPoolable", "closeOnCompletion"));
+
+    private final Connection fisica;
+    private final Connection proxyConexao;
+    private final int tamanhoMaximo;
+    private final AtomicLong reutilizados;
+    private final AtomicLong preparados;
+
+    private final Map<Chave, PreparedStatement> livres;
+
+    CacheStatements(Connection fisica, Connection proxyConexao, int tamanhoMaximo,
+                    AtomicLong reutilizados, AtomicLong preparados) {
+        this.fisica = fisica;
+        this.proxyConexao = proxyConexao;
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.reutilizados = reutilizados;
+        this.preparados = preparados;
+        this.livres = new LinkedHashMap<Chave, PreparedStatement>(32, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Chave, PreparedStatement> eldest) {
+                if (size() > CacheStatements.this.tamanhoMaximo) {
+                    fechar(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Statement do cache ou recém-preparado, envolvido no proxy entregue ao chamador
+     * chavesGeradas é o segundo argumento de prepareStatement(String, int), ou null
+     */
+    PreparedStatement preparar(String sql, Integer chavesGeradas) throws SQLException {
+        Chave chave = new Chave(sql, chavesGeradas);
+        PreparedStatement statement;
+        synchronized (this) {
+            statement = livres.remove(chave);
+        }
+        if (statement != null) {
+            reutilizados.incrementAndGet();
+        } else {
+            statement = chavesGeradas == null
+                    ? fisica.prepareStatement(sql)
+                    : fisica.prepareStatement(sql, chavesGeradas);
+            preparados.incrementAndGet();
+        }
+        return new StatementEmprestado(chave, statement).proxy;
+    }
+
+    /**
+     * Fecha os statements guardados (a conexão física será fechada ou já foi)
+     */
+    synchronized void fecharTodos() {
+        Iterator<PreparedStatement> iterator = livres.values().iterator();
+        while (iterator.hasNext()) {
+            fechar(iterator.next());
+            iterator.remove();
+        }
+    }
+
+    synchronized int getTamanho() {
+        return livres.size();
+    }
+
+    private void devolver(Chave chave, PreparedStatement statement, boolean reutilizavel) {
+        if (reutilizavel && tamanhoMaximo > 0 && chave.sql.length() <= TAMANHO_MAXIMO_SQL) {
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+                synchronized (this) {
+                    // O mesmo SQL pode ter sido preparado duas vezes ao mesmo tempo; guarda só um
+                    if (livres.putIfAbsent(chave, statement) == null) {
+                        return;
+                    }
+                }
+            } catch (SQLException e) {
+                // Statement em estado inválido: é fechado abaixo
+            }
+        }
+        fechar(statement);
+    }
+
+    private static void fechar(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            System.err.println("Erro ao fechar statement do cache: " + e.getMessage());
+        }
+    }
+
+    private static final class Chave {
+        private final String sql;
+        private final Integer chavesGeradas;
+
+        Chave(String sql, Integer chavesGeradas) {
+            this.sql = sql;
+            this.chavesGeradas = chavesGeradas;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Chave)) return false;
+            Chave outra = (Chave) o;
+            return sql.equals(outra.sql) && Objects.equals(chavesGeradas, outra.chavesGeradas);
+        }
+
+        @Override
+        public int hashCode() {
+            return sql.hashCode() * 31 + Objects.hashCode(chavesGeradas);
+        }
+    }
+
+    /**
+     * Um empréstimo do statement: após close() o proxy deixa de aceitar chamadas, mesmo que o
+     * statement físico já esteja com outro chamador
+     * close() e cancel() vêm de threads diferentes (timeout, busca substituída) e são
+     * sincronizados no empréstimo: o cancelamento termina antes de o statement voltar ao cache
+     * ou encontra o empréstimo já fechado, e nunca atinge o próximo chamador
+     */
+    private class StatementEmprestado implements InvocationHandler {
+        private final Chave chave;
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private final List<ResultSet> resultados = new ArrayList<>(2);
+        private boolean configurado;
+        private volatile boolean fechado;
+
+        StatementEmprestado(Chave chave, PreparedStatement statement) {
+            this.chave = chave;
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nome = method.getName();
+            if ("close".equals(nome)) {
+                fechar();
+                return null;
+            }
+            if ("cancel".equals(nome)) {
+                cancelar();
+                return null;
+            }
+            if ("isClosed".equals(nome)) {
+                return fechado || statement.isClosed();
+            }
+            if ("equals".equals(nome)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(nome)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(nome)) {
+                return "StatementEmprestado[" + statement + "]";
+            }
+            if (fechado) {
+                throw new SQLException("Statement já fechado");
+            }
+            if ("getConnection".equals(nome)) {
+                return proxyConexao;
+            }
+            if (CONFIGURACOES.contains(nome)) {
+                configurado = true;
+            }
+            Object resultado;
+            try {
+                resultado = method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (resultado instanceof ResultSet) {
+                resultados.add((ResultSet) resultado);
+            }
+            return resultado;
+        }
+
+        private synchronized void fechar() {
+            if (!fechado) {
+                fechado = true;
+                devolver(chave, statement, fecharResultados() && !configurado);
+            }
+        }
+
+        /**
+         * Cancelamento atrasado (ex.: timeout de outra thread) depois do close() é ignorado
+         */
+        private synchronized void cancelar() throws SQLException {
+            if (!fechado) {
+                statement.cancel();
+            }
+        }
+
+        /**
+         * Fecha os ResultSets que o chamador deixou abertos; false se algum falhou
+         */
+        private boolean fecharResultados() {
+            boolean ok = true;
+            for (ResultSet resultado : resultados) {
+                try {
+                    resultado.close();
+                } catch (SQLException e) {
+                    ok = false;
+                }
+            }
+            resultados.clear();
+            return ok;
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de conexões JDBC limitado e validado
+ * Empresta conexões envolvidas em um proxy: chamar close() devolve a conexão ao pool
+ * Cada conexão física guarda seus PreparedStatements (ver CacheStatements), reutilizados
+ * entre empréstimos
+ */
+public class ConnectionPool implements ConnectionPoolMBean {
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int tamanhoMinimo;
+    private final int tamanhoMaximo;
+    private final int timeoutValidacaoSegundos;
+    private final long timeoutEmprestimoMs;
+    private final long tempoOciosoMaximoMs;
+    private final long limiteVazamentoMs;
+    private final int tamanhoCacheStatements;
+
+    // Conexões livres (LIFO: a mais recente é reutilizada primeiro)
+    private final LinkedBlockingDeque<ConexaoPool> livres = new LinkedBlockingDeque<>();
+    private final Map<Connection, ConexaoPool> emUso = new ConcurrentHashMap<>();
+    private final Semaphore permissoes;
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService manutencao;
+    private volatile boolean encerrado;
+
+    // Métricas
+    private final AtomicLong emprestimos = new AtomicLong();
+    private final AtomicLong esperaTotalNanos = new AtomicLong();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong criadas = new AtomicLong();
+    private final AtomicLong descartadas = new AtomicLong();
+    private final AtomicLong vazamentos = new AtomicLong();
+    private final AtomicLong statementsReutilizados = new AtomicLong();
+    private final AtomicLong statementsPreparados = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password,
+                          int tamanhoMinimo, int tamanhoMaximo,
+                          int timeoutValidacaoSegundos, long timeoutEmprestimoMs,
+                          long tempoOciosoMaximoMs, long limiteVazamentoMs,
+                          int tamanhoCacheStatements) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.tamanhoMinimo = tamanhoMinimo;
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.timeoutValidacaoSegundos = timeoutValidacaoSegundos;
+        this.timeoutEmprestimoMs = timeoutEmprestimoMs;
+        this.tempoOciosoMaximoMs = tempoOciosoMaximoMs;
+        this.limiteVazamentoMs = limiteVazamentoMs;
+        this.tamanhoCacheStatements = tamanhoCacheStatements;
+        this.permissoes = new Semaphore(tamanhoMaximo, true);
+
+        this.manutencao = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-conexoes-manutencao");
+            t.setDaemon(true);
+            return t;
+        });
+        long intervalo = Math.max(1000, Math.min(tempoOciosoMaximoMs, limiteVazamentoMs) / 2);
+        manutencao.scheduleWithFixedDelay(this::executarManutencao, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Empresta uma conexão válida, aguardando até o timeout configurado se o pool estiver cheio
+     */
+    public Connection borrow() throws SQLException {
+        if (encerrado) {
+            throw new SQLException("Pool de conexões encerrado");
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            if (!permissoes.tryAcquire(timeoutEmprestimoMs, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Tempo esgotado aguardando conexão do pool (" + timeoutEmprestimoMs + " ms)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando conexão do pool", e);
+        }
+
+        try {
+            ConexaoPool conexao = obterConexaoValida();
+            registrarEspera(System.nanoTime() - inicio);
+            conexao.marcarEmprestimo();
+            emUso.put(conexao.proxy, conexao);
+            return conexao.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    private ConexaoPool obterConexaoValida() throws SQLException {
+        ConexaoPool conexao;
+        while ((conexao = livres.pollFirst()) != null) {
+            if (validar(conexao)) {
+                return conexao;
+            }
+            descartar(conexao);
+        }
+        return criarConexao();
+    }
+
+    private boolean validar(ConexaoPool conexao) {
+        try {
+            return conexao.fisica.isValid(timeoutValidacaoSegundos);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private ConexaoPool criarConexao() throws SQLException {
+        Connection fisica = DriverManager.getConnection(url, user, password);
+        total.incrementAndGet();
+        criadas.incrementAndGet();
+        return new ConexaoPool(fisica);
+    }
+
+    private void registrarEspera(long nanos) {
+        emprestimos.incrementAndGet();
+        esperaTotalNanos.addAndGet(nanos);
+        esperaMaximaNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Devolve a conexão ao pool, restaurando o estado padrão (autocommit)
+     */
+    private void devolver(ConexaoPool conexao) {
+        emUso.remove(conexao.proxy);
+        try {
+            if (encerrado || conexao.fisica.isClosed()) {
+                descartar(conexao);
+                return;
+            }
+            if (!conexao.fisica.getAutoCommit()) {
+                conexao.fisica.rollback();
+                conexao.fisica.setAutoCommit(true);
+            }
+            conexao.ultimoUso = System.currentTimeMillis();
+            livres.offerFirst(conexao);
+        } catch (SQLException e) {
+            System.err.println("Erro ao devolver conexão ao pool: " + e.getMessage());
+            descartar(conexao);
+        } finally {
+            permissoes.release();
+        }
+    }
+
+    private void descartar(ConexaoPool conexao) {
+        total.decrementAndGet();
+        descartadas.incrementAndGet();
+        if (conexao.statements != null) {
+            conexao.statements.fecharTodos();
+        }
+        try {
+            conexao.fisica.close();
+        } catch (SQLException e) {
+            System.err.println("Erro ao fechar conexão descartada: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Remove conexões ociosas excedentes, detecta vazamentos e repõe o mínimo
+     */
+    private void executarManutencao() {
+        if (encerrado) return;
+
+        long agora = System.currentTimeMillis();
+
+        // Despejo de ociosas: começa pelas mais antigas (fim da fila)
+        ConexaoPool ociosa;
+        while (total.get() > tamanhoMinimo
+                && (ociosa = livres.peekLast()) != null
+                && agora - ociosa.ultimoUso > tempoOciosoMaximoMs) {
+            if (livres.removeLastOccurrence(ociosa)) {
+                descartar(ociosa);
+            }
+        }
+
+        // Detecção de vazamentos: conexões emprestadas há mais tempo que o limite
+        for (ConexaoPool conexao : emUso.values()) {
+            if (!conexao.vazamentoReportado && agora - conexao.emprestadaEm > limiteVazamentoMs) {
+                conexao.vazamentoReportado = true;
+                vazamentos.incrementAndGet();
+                System.err.println("Possível vazamento de conexão: emprestada há "
+                        + (agora - conexao.emprestadaEm) + " ms sem devolução");
+                conexao.origem.printStackTrace();
+            }
+        }
+
+        // Reposição do mínimo
+        while (total.get() < tamanhoMinimo) {
+            try {
+                ConexaoPool nova = criarConexao();
+                nova.ultimoUso = agora;
+                livres.offerLast(nova);
+            } catch (SQLException e) {
+                System.err.println("Erro ao repor conexões do pool: " + e.getMessage());
+                break;
+            }
+        }
+    }
+
+    /**
+     * Abre antecipadamente as conexões mínimas do pool
+     */
+    public void preencher() {
+        executarManutencao();
+    }
+
+    /**
+     * Abre as conexões mínimas na thread de manutenção, sem bloquear quem cria o pool
+     */
+    public void preencherEmSegundoPlano() {
+        manutencao.execute(this::executarManutencao);
+    }
+
+    /**
+     * Fecha todas as conexões livres; as emprestadas são fechadas ao serem devolvidas
+     */
+    public void shutdown() {
+        encerrado = true;
+        manutencao.shutdownNow();
+        ConexaoPool conexao;
+        while ((conexao = livres.pollFirst()) != null) {
+            descartar(conexao);
+        }
+    }
+
+    // Métricas do pool
+    public int getTotalConexoes() {
+        return total.get();
+    }
+
+    public int getConexoesLivres() {
+        return livres.size();
+    }
+
+    public int getConexoesEmUso() {
+        return emUso.size();
+    }
+
+    public long getEmprestimos() {
+        return emprestimos.get();
+    }
+
+    public double getEsperaMediaMs() {
+        long n = emprestimos.get();
+        return n == 0 ? 0 : esperaTotalNanos.get() / (n * 1_000_000.0);
+    }
+
+    public double getEsperaMaximaMs() {
+        return esperaMaximaNanos.get() / 1_000_000.0;
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    public long getConexoesCriadas() {
+        return criadas.get();
+    }
+
+    public long getConexoesDescartadas() {
+        return descartadas.get();
+    }
+
+    public long getVazamentosDetectados() {
+        return vazamentos.get();
+    }
+
+    public long getStatementsReutilizados() {
+        return statementsReutilizados.get();
+    }
+
+    public long getStatementsPreparados() {
+        return statementsPreparados.get();
+    }
+
+    /**
+     * Fração dos prepareStatement atendidos pelo cache das conexões
+     */
+    public double getTaxaReusoStatements() {
+        long total = statementsReutilizados.get() + statementsPreparados.get();
+        return total == 0 ? 0 : statementsReutilizados.get() / (double) total;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool{" +
+                "total=" + getTotalConexoes() +
+                ", livres=" + getConexoesLivres() +
+                ", emUso=" + getConexoesEmUso() +
+                ", emprestimos=" + getEmprestimos() +
+                ", esperaMediaMs=" + String.format("%.3f", getEsperaMediaMs()) +
+                ", esperaMaximaMs=" + String.format("%.3f", getEsperaMaximaMs()) +
+                ", timeouts=" + getTimeouts() +
+                ", vazamentos=" + getVazamentosDetectados() +
+                ", statementsReutilizados=" + getStatementsReutilizados() +
+                ", statementsPreparados=" + getStatementsPreparados() +
+                '}';
+    }
+
+    /**
+     * Conexão física gerenciada pelo pool e o proxy entregue aos chamadores
+     */
+    private class ConexaoPool implements InvocationHandler {
+        private final Connection fisica;
+        private final Connection proxy;
+        // null com o cache desligado (tamanho 0)
+        private final CacheStatements statements;
+        private volatile long ultimoUso = System.currentTimeMillis();
+        private volatile long emprestadaEm;
+        private volatile Throwable origem;
+        private volatile boolean vazamentoReportado;
+        private volatile boolean devolvida = true;
+
+        ConexaoPool(Connection fisica) {
+            this.fisica = fisica;
+            this.proxy = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, this);
+            this.statements = tamanhoCacheStatements > 0
+                    ? new CacheStatements(fisica, proxy, tamanhoCacheStatements,
+                            statementsReutilizados, statementsPreparados)
+                    : null;
+        }
+
+        void marcarEmprestimo() {
+            emprestadaEm = System.currentTimeMillis();
+            origem = new Throwable("Conexão emprestada aqui");
+            vazamentoReportado = false;
+            devolvida = false;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nome = method.getName();
+            if ("close".equals(nome)) {
+                if (!devolvida) {
+                    devolvida = true;
+                    devolver(this);
+                }
+                return null;
+            }
+            if ("isClosed".equals(nome)) {
+                return devolvida || fisica.isClosed();
+            }
+            if ("equals".equals(nome)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(nome)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(nome)) {
+                return "ConexaoPool[" + fisica + "]";
+            }
+            if (devolvida) {
+                throw new SQLException("Conexão já devolvida ao pool");
+            }
+            if (statements != null && "prepareStatement".equals(nome)) {
+                // Só as formas prepareStatement(sql) e prepareStatement(sql, chavesGeradas) passam pelo cache
+                Class<?>[] tipos = method.getParameterTypes();
+                if (tipos.length == 1) {
+                    return statements.preparar((String) args[0], null);
+                }
+                if (tipos.length == 2 && tipos[1] == int.class) {
+                    return statements.preparar((String) args[0], (Integer) args[1]);
+                }
+            }
+            try {
+                return method.invoke(fisica, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
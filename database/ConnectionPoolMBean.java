@@ -0,0 +1,32 @@
+package database;
+
+/**
+ * Interface JMX do pool de conexões
+ */
+public interface ConnectionPoolMBean {
+    int getTotalConexoes();
+
+    int getConexoesLivres();
+
+    int getConexoesEmUso();
+
+    long getEmprestimos();
+
+    double getEsperaMediaMs();
+
+    double getEsperaMaximaMs();
+
+    long getTimeouts();
+
+    long getConexoesCriadas();
+
+    long getConexoesDescartadas();
+
+    long getVazamentosDetectados();
+
+    long getStatementsReutilizados();
+
+    long getStatementsPreparados();
+
+    double getTaxaReusoStatements();
+}
@@ -1,100 +1,121 @@
 package database;
 
+import metricas.MetricasDAO;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
 
 /**
  * Classe responsável pela conexão com o banco de dados
- * Implementa padrão Singleton para garantir uma única instância
+ * Implementa padrão Singleton para garantir uma única instância do pool de conexões
  */
 public class DatabaseConnection {
-    private static final String URL = "jdbc:mysql://localhost:3306/sistema_crud?useSSL=false&serverTimezone=UTC";
-    private static final String USER = "root";
-    private static final String PASSWORD = ""; // Altere conforme sua configuração
+    // Podem ser sobrescritos com -Ddb.url, -Ddb.user e -Ddb.password (ex.: banco embarcado nos benchmarks)
+    // Os ajustes do driver do perfil (-Ddb.perfil ou perfil do Maven) completam a URL
+    private static final PerfilConexao PERFIL = PerfilConexao.atual();
+    private static final String URL = PERFIL.aplicar(System.getProperty("db.url",
+            "jdbc:mysql://localhost:3306/sistema_crud?useSSL=false&serverTimezone=UTC&rewriteBatchedStatements=true&useCursorFetch=true"));
+    private static final String USER = System.getProperty("db.user", "root");
+    private static final String PASSWORD = System.getProperty("db.password", ""); // Altere conforme sua configuração
+    
+    // Configurações do pool de conexões; o máximo pode ser aumentado com -Ddb.pool.maximo (modo servidor)
+    private static final int POOL_MINIMO = 2;
+    private static final int POOL_MAXIMO = Integer.getInteger("db.pool.maximo", 10);
+    private static final int TIMEOUT_VALIDACAO_SEGUNDOS = 2;
+    private static final long TIMEOUT_EMPRESTIMO_MS = 5_000;
+    private static final long TEMPO_OCIOSO_MAXIMO_MS = 5 * 60_000;
+    private static final long LIMITE_VAZAMENTO_MS = 60_000;
+    // PreparedStatements guardados por conexão (-Ddb.statements.cache; 0 desliga)
+    private static final int CACHE_STATEMENTS = Integer.getInteger("db.statements.cache", 64);
     
-    private static DatabaseConnection instance;
-    private Connection connection;
+    private static volatile DatabaseConnection instance;
+    private final ConnectionPool pool;
     
     private DatabaseConnection() {
         try {
             Class.forName("com.mysql.cj.jdbc.Driver");
-            this.connection = DriverManager.getConnection(URL, USER, PASSWORD);
-        } catch (ClassNotFoundException | SQLException e) {
-            System.err.println("Erro ao conectar com o banco de dados: " + e.getMessage());
+        } catch (ClassNotFoundException e) {
+            System.err.println("Driver não encontrado: " + e.getMessage());
         }
+        this.pool = new ConnectionPool(URL, USER, PASSWORD,
+                POOL_MINIMO, POOL_MAXIMO, TIMEOUT_VALIDACAO_SEGUNDOS,
+                TIMEOUT_EMPRESTIMO_MS, TEMPO_OCIOSO_MAXIMO_MS, LIMITE_VAZAMENTO_MS, CACHE_STATEMENTS);
+        // As conexões mínimas são abertas em segundo plano; a primeira requisição não espera por elas
+        this.pool.preencherEmSegundoPlano();
+        MetricasDAO.registrarMBean(MetricasDAO.DOMINIO_JMX + ":type=ConnectionPool", pool);
     }
     
     public static DatabaseConnection getInstance() {
-        if (instance == null) {
-            instance = new DatabaseConnection();
+        DatabaseConnection result = instance;
+        if (result == null) {
+            synchronized (DatabaseConnection.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new DatabaseConnection();
+                }
+            }
         }
-        return instance;
+        return result;
     }
     
-    public Connection getConnection() {
+    /**
+     * Empresta uma conexão do pool
+     * O chamador deve fechá-la (try-with-resources), o que a devolve ao pool
+     */
+    public Connection getConnection() throws SQLException {
+        long inicio = System.nanoTime();
+        Connection connection = pool.borrow();
+        MetricasDAO.getInstance().registrarAquisicaoConexao(System.nanoTime() - inicio);
+        return connection;
+    }
+    
+    public ConnectionPool getPool() {
+        return pool;
+    }
+    
+    /**
+     * Aplica as migrações pendentes do esquema (ver Migracoes), criando o banco se ele não existir
+     * Retorna false se o banco não pôde ser acessado
+     */
+    public static boolean initializeDatabase() {
         try {
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection(URL, USER, PASSWORD);
-            }
+            int aplicadas = Migracoes.executar(getInstance(), urlServidor(), nomeBanco(), USER, PASSWORD);
+            System.out.println(aplicadas == 0
+                    ? "Esquema do banco de dados em dia (versão " + Migracoes.getVersaoEsperada() + ")"
+                    : "Banco de dados inicializado com sucesso!");
+            return true;
         } catch (SQLException e) {
-            System.err.println("Erro ao obter conexão: " + e.getMessage());
+            System.err.println("Erro ao inicializar banco de dados: " + e.getMessage());
+            return false;
         }
-        return connection;
     }
     
     /**
-     * Método para criar o banco de dados e tabela se não existirem
+     * URL do servidor MySQL sem o banco (usada só para criá-lo); null para outros bancos
      */
-    public static void initializeDatabase() {
-    try {
-        Class.forName("com.mysql.cj.jdbc.Driver"); // Carrega driver explicitamente
-        
-        // Conecta sem especificar o banco, mas com parâmetros para evitar erros
-        Connection conn = DriverManager.getConnection("jdbc:mysql://localhost:3306/?useSSL=false&serverTimezone=UTC", "root", "");
-        Statement stmt = conn.createStatement();
-        
-        // Cria o banco se não existir
-        stmt.executeUpdate("CREATE DATABASE IF NOT EXISTS sistema_crud");
-        conn.close();
-        
-        // Conecta ao banco criado
-        DatabaseConnection dbConn = getInstance();
-        Connection connection = dbConn.getConnection();
-        Statement statement = connection.createStatement();
-        
-        // Cria a tabela produtos se não existir
-        String createTableSQL = """
-            CREATE TABLE IF NOT EXISTS produtos (
-                id INT AUTO_INCREMENT PRIMARY KEY,
-                nome VARCHAR(100) NOT NULL,
-                descricao TEXT,
-                preco DECIMAL(10,2) NOT NULL,
-                quantidade INT NOT NULL,
-                categoria VARCHAR(50) NOT NULL
-            )
-        """;
-        
-        statement.executeUpdate(createTableSQL);
-        statement.close();
-        
-        System.out.println("Banco de dados inicializado com sucesso!");
-        
-    } catch (ClassNotFoundException e) {
-        System.err.println("Driver não encontrado: " + e.getMessage());
-    } catch (SQLException e) {
-        System.err.println("Erro ao inicializar banco de dados: " + e.getMessage());
+    private static String urlServidor() {
+        int barra = posicaoBarraBanco();
+        if (barra < 0) return null;
+        int parametros = URL.indexOf('?', barra);
+        return URL.substring(0, barra + 1) + (parametros < 0 ? "" : URL.substring(parametros));
+    }
+    
+    private static String nomeBanco() {
+        int barra = posicaoBarraBanco();
+        if (barra < 0) return null;
+        int parametros = URL.indexOf('?', barra);
+        return URL.substring(barra + 1, parametros < 0 ? URL.length() : parametros);
     }
-}
     
+    private static int posicaoBarraBanco() {
+        String prefixo = "jdbc:mysql://";
+        return URL.startsWith(prefixo) ? URL.indexOf('/', prefixo.length()) : -1;
+    }
+    
+    /**
+     * Encerra o pool, fechando todas as conexões livres
+     */
     public void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            System.err.println("Erro ao fechar conexão: " + e.getMessage());
-        }
+        pool.shutdown();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,251 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Migrações versionadas do esquema
+ * A última versão aplicada fica em schema_versao: com o esquema em dia, a inicialização faz
+ * uma única consulta e nenhum DDL. Migrações novas entram no fim de MIGRACOES com a versão
+ * seguinte; as já publicadas não são alteradas
+ * As migrações 2 a 4 cobrem bancos criados antes de schema_versao existir, por isso verificam
+ * a coluna ou o índice antes de criá-los
+ * No MySQL, estações que iniciam juntas com o esquema desatualizado se revezam por GET_LOCK:
+ * só uma aplica as migrações e as demais, ao obter a trava, releem a versão já em dia
+ */
+public class Migracoes {
+    // Código de erro do MySQL para banco inexistente e SQLState de tabela inexistente
+    private static final int ERRO_BANCO_INEXISTENTE = 1049;
+    private static final String ESTADO_TABELA_INEXISTENTE = "42S02";
+
+    // Trava nomeada do MySQL (por servidor, por isso inclui o banco) e espera máxima por ela
+    private static final String TRAVA_MIGRACAO = "schema_versao";
+    private static final int ESPERA_TRAVA_SEGUNDOS = 60;
+
+    private static final String CREATE_SCHEMA_VERSAO = """
+        CREATE TABLE IF NOT EXISTS schema_versao (
+            versao INT PRIMARY KEY,
+            descricao VARCHAR(200) NOT NULL,
+            aplicada_em TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+        )
+    """;
+
+    private static final List<Migracao> MIGRACOES = List.of(
+        new Migracao(1, "Tabelas produtos e produtos_excluidos", (connection, statement) -> {
+            statement.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS produtos (
+                    id INT AUTO_INCREMENT PRIMARY KEY,
+                    nome VARCHAR(100) NOT NULL,
+                    descricao TEXT,
+                    preco DECIMAL(10,2) NOT NULL,
+                    quantidade INT NOT NULL,
+                    categoria VARCHAR(50) NOT NULL,
+                    data_criacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    data_atualizacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+                    INDEX idx_data_atualizacao (data_atualizacao)
+                )
+            """);
+            // Registro das exclusões, lido pela sincronização entre estações
+            statement.executeUpdate("""
+                CREATE TABLE IF NOT EXISTS produtos_excluidos (
+                    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    produto_id INT NOT NULL,
+                    data_exclusao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                    INDEX idx_data_exclusao (data_exclusao)
+                )
+            """);
+        }),
+        new Migracao(2, "Colunas de data em tabelas de versões anteriores", (connection, statement) -> {
+            adicionarColunaSeAusente(connection, statement, "produtos", "data_criacao",
+                    "TIMESTAMP DEFAULT CURRENT_TIMESTAMP");
+            adicionarColunaSeAusente(connection, statement, "produtos", "data_atualizacao",
+                    "TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP");
+            adicionarIndiceSeAusente(connection, statement, "produtos", "idx_data_atualizacao", "data_atualizacao");
+        }),
+        // Os compostos atendem categoria = ? com ordenação ou faixa de nome/preço (FiltroProdutos)
+        new Migracao(3, "Índices dos filtros e ordenações da listagem", (connection, statement) -> {
+            adicionarIndiceSeAusente(connection, statement, "produtos", "idx_nome", "nome");
+            adicionarIndiceSeAusente(connection, statement, "produtos", "idx_categoria_nome", "categoria, nome");
+            adicionarIndiceSeAusente(connection, statement, "produtos", "idx_categoria_preco", "categoria, preco");
+            adicionarIndiceSeAusente(connection, statement, "produtos", "idx_preco", "preco");
+            adicionarIndiceSeAusente(connection, statement, "produtos", "idx_quantidade", "quantidade");
+        }),
+        new Migracao(4, "Coluna versao (controle de concorrência otimista)", (connection, statement) ->
+            adicionarColunaSeAusente(connection, statement, "produtos", "versao", "INT NOT NULL DEFAULT 0"))
+    );
+
+    private Migracoes() {
+    }
+
+    /**
+     * Versão do esquema esperada por esta versão da aplicação
+     */
+    public static int getVersaoEsperada() {
+        return MIGRACOES.get(MIGRACOES.size() - 1).versao;
+    }
+
+    /**
+     * Aplica as migrações pendentes e retorna quantas foram aplicadas
+     * O banco só é criado se a conexão falhar por ele não existir
+     */
+    public static int executar(DatabaseConnection database, String urlServidor, String nomeBanco,
+                               String user, String password) throws SQLException {
+        Connection connection;
+        try {
+            connection = database.getConnection();
+        } catch (SQLException e) {
+            if (e.getErrorCode() != ERRO_BANCO_INEXISTENTE || urlServidor == null) {
+                throw e;
+            }
+            criarBanco(urlServidor, nomeBanco, user, password);
+            connection = database.getConnection();
+        }
+
+        try (Connection c = connection;
+             Statement statement = c.createStatement()) {
+            if (lerVersao(statement) >= getVersaoEsperada()) {
+                return 0;
+            }
+
+            boolean travado = travar(c);
+            try {
+                // Outra estação pode ter migrado enquanto esta esperava a trava
+                int versaoAtual = lerVersao(statement);
+                int aplicadas = 0;
+                for (Migracao migracao : MIGRACOES) {
+                    if (migracao.versao <= versaoAtual) continue;
+                    aplicar(c, statement, migracao);
+                    aplicadas++;
+                }
+                return aplicadas;
+            } finally {
+                if (travado) {
+                    liberar(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtém a trava de migração (GET_LOCK) no MySQL; outros bancos (H2 embarcado dos
+     * benchmarks) não são compartilhados entre estações e seguem sem trava
+     * Retorna se a trava foi obtida; lança SQLException se o tempo de espera se esgotar
+     */
+    private static boolean travar(Connection connection) throws SQLException {
+        if (!connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql")) {
+            return false;
+        }
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT GET_LOCK(CONCAT(DATABASE(), '.', ?), ?)")) {
+            stmt.setString(1, TRAVA_MIGRACAO);
+            stmt.setInt(2, ESPERA_TRAVA_SEGUNDOS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) != 1) {
+                    throw new SQLException("Tempo esgotado aguardando a migração do esquema por outra estação ("
+                            + ESPERA_TRAVA_SEGUNDOS + " s)");
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A trava é da sessão: precisa ser liberada antes de a conexão voltar ao pool
+     */
+    private static void liberar(Connection connection) {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT RELEASE_LOCK(CONCAT(DATABASE(), '.', ?))")) {
+            stmt.setString(1, TRAVA_MIGRACAO);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("Erro ao liberar a trava de migração: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Versão registrada em schema_versao; 0 se a tabela ainda não existe (banco novo ou
+     * criado antes do controle de versão), caso em que ela é criada
+     */
+    private static int lerVersao(Statement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT MAX(versao) FROM schema_versao")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            if (!ESTADO_TABELA_INEXISTENTE.equals(e.getSQLState())) {
+                throw e;
+            }
+            statement.executeUpdate(CREATE_SCHEMA_VERSAO);
+            return 0;
+        }
+    }
+
+    /**
+     * DDL do MySQL confirma implicitamente; a versão é registrada depois de todos os passos,
+     * e como os passos são idempotentes uma migração interrompida é simplesmente refeita
+     */
+    private static void aplicar(Connection connection, Statement statement, Migracao migracao) throws SQLException {
+        long inicio = System.nanoTime();
+        migracao.passo.aplicar(connection, statement);
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "INSERT INTO schema_versao (versao, descricao) VALUES (?, ?)")) {
+            stmt.setInt(1, migracao.versao);
+            stmt.setString(2, migracao.descricao);
+            stmt.executeUpdate();
+        }
+        System.out.printf("Migração %d aplicada (%s) em %d ms%n", migracao.versao, migracao.descricao,
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private static void criarBanco(String urlServidor, String nomeBanco, String user, String password)
+            throws SQLException {
+        System.out.println("Banco " + nomeBanco + " não encontrado; criando...");
+        try (Connection connection = DriverManager.getConnection(urlServidor, user, password);
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE DATABASE IF NOT EXISTS " + nomeBanco
+                    + " CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci");
+        }
+    }
+
+    private static void adicionarColunaSeAusente(Connection connection, Statement statement, String tabela,
+                                                 String coluna, String definicao) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getColumns(connection.getCatalog(), null, tabela, coluna)) {
+            if (rs.next()) return;
+        }
+        statement.executeUpdate("ALTER TABLE " + tabela + " ADD COLUMN " + coluna + " " + definicao);
+    }
+
+    private static void adicionarIndiceSeAusente(Connection connection, Statement statement, String tabela,
+                                                 String indice, String colunas) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, tabela, false, true)) {
+            while (rs.next()) {
+                if (indice.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return;
+            }
+        }
+        statement.executeUpdate("CREATE INDEX " + indice + " ON " + tabela + " (" + colunas + ")");
+    }
+
+    /**
+     * Passo de uma migração, executado na conexão de migração
+     */
+    private interface Passo {
+        void aplicar(Connection connection, Statement statement) throws SQLException;
+    }
+
+    private static final class Migracao {
+        private final int versao;
+        private final String descricao;
+        private final Passo passo;
+
+        private Migracao(int versao, String descricao, Passo passo) {
+            this.versao = versao;
+            this.descricao = descricao;
+            this.passo = passo;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Ajustes do driver MySQL (Connector/J) por ambiente, acrescentados à URL de conexão
+ * O perfil vem de -Ddb.perfil ou, se ausente, de banco.properties (preenchido pelos perfis
+ * dev/prod do Maven); sem nenhum dos dois vale DEV
+ * Parâmetros já presentes na URL (ex.: em -Ddb.url) prevalecem sobre os do perfil
+ */
+public enum PerfilConexao {
+    /**
+     * Prepares no cliente: o log geral do MySQL mostra o SQL final com os valores, o que ajuda a
+     * depurar; o driver ainda guarda o SQL já analisado para não refazer a análise a cada chamada
+     */
+    DEV(
+        "useServerPrepStmts", "false",
+        "cachePrepStmts", "true",
+        "prepStmtCacheSize", "100",
+        "prepStmtCacheSqlLimit", "2048"
+    ),
+
+    /**
+     * Prepares no servidor, mantidos abertos pelo cache do driver e pelo do pool: o MySQL analisa
+     * cada SQL uma vez por conexão e as execuções trafegam só os parâmetros (protocolo binário)
+     * O estado da sessão (autocommit, isolamento) fica em memória, evitando consultas ao servidor
+     */
+    PROD(
+        "useServerPrepStmts", "true",
+        "cachePrepStmts", "true",
+        "prepStmtCacheSize", "250",
+        "prepStmtCacheSqlLimit", "2048",
+        "cacheServerConfiguration", "true",
+        "cacheResultSetMetadata", "true",
+        "useLocalSessionState", "true",
+        "useLocalTransactionState", "true",
+        "elideSetAutoCommits", "true",
+        "maintainTimeStats", "false"
+    );
+
+    private static final String RECURSO = "/banco.properties";
+
+    private final Map<String, String> parametros = new LinkedHashMap<>();
+
+    PerfilConexao(String... chavesValores) {
+        for (int i = 0; i < chavesValores.length; i += 2) {
+            parametros.put(chavesValores[i], chavesValores[i + 1]);
+        }
+    }
+
+    public Map<String, String> getParametros() {
+        return parametros;
+    }
+
+    /**
+     * Perfil escolhido em -Ddb.perfil ou em banco.properties (dev ou prod)
+     */
+    public static PerfilConexao atual() {
+        String nome = System.getProperty("db.perfil");
+        if (nome == null) {
+            nome = lerRecurso();
+        }
+        if (nome == null || nome.trim().isEmpty() || nome.startsWith("${")) {
+            return DEV;
+        }
+        try {
+            return valueOf(nome.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Perfil de conexão desconhecido '" + nome + "', usando DEV");
+            return DEV;
+        }
+    }
+
+    private static String lerRecurso() {
+        try (InputStream entrada = PerfilConexao.class.getResourceAsStream(RECURSO)) {
+            if (entrada == null) {
+                return null;
+            }
+            Properties propriedades = new Properties();
+            propriedades.load(entrada);
+            return propriedades.getProperty("db.perfil");
+        } catch (IOException e) {
+            System.err.println("Erro ao ler " + RECURSO + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Acrescenta à URL os parâmetros do perfil que ela ainda não define; outras URLs
+     * (ex.: H2 nos benchmarks) são devolvidas sem alteração
+     */
+    public String aplicar(String url) {
+        if (!url.startsWith("jdbc:mysql:")) {
+            return url;
+        }
+        int inicioParametros = url.indexOf('?');
+        String existentes = inicioParametros < 0 ? "" : "&" + url.substring(inicioParametros + 1).toLowerCase(Locale.ROOT);
+        StringBuilder resultado = new StringBuilder(url);
+        char separador = inicioParametros < 0 ? '?' : '&';
+        for (Map.Entry<String, String> parametro : parametros.entrySet()) {
+            if (!existentes.contains("&" + parametro.getKey().toLowerCase(Locale.ROOT) + "=")) {
+                resultado.append(separador).append(parametro.getKey()).append('=').append(parametro.getValue());
+                separador = '&';
+            }
+        }
+        return resultado.toString();
+    }
+}
@@ -19,10 +19,29 @@ CREATE TABLE IF NOT EXISTS produtos (
     preco DECIMAL(10,2) NOT NULL CHECK (preco >= 0),
     quantidade INT NOT NULL CHECK (quantidade >= 0),
     categoria VARCHAR(50) NOT NULL,
+    -- Incrementada a cada gravação; o UPDATE do formulário só é aplicado se ela não mudou
+    versao INT NOT NULL DEFAULT 0,
     data_criacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     data_atualizacao TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX idx_nome (nome),
-    INDEX idx_categoria (categoria)
+    INDEX idx_categoria (categoria),
+    INDEX idx_data_atualizacao (data_atualizacao),
+    -- Filtros e ordenações da listagem
+    INDEX idx_categoria_nome (categoria, nome),
+    INDEX idx_categoria_preco (categoria, preco),
+    INDEX idx_preco (preco),
+    INDEX idx_quantidade (quantidade)
+);
+
+-- A aplicação registra em schema_versao as migrações aplicadas (ver database/Migracoes.java);
+-- num banco criado por este script ela apenas confirma que colunas e índices já existem
+
+-- Registro das exclusões (tombstones), usado na sincronização entre estações
+CREATE TABLE IF NOT EXISTS produtos_excluidos (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    produto_id INT NOT NULL,
+    data_exclusao TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_data_exclusao (data_exclusao)
 );
 
 -- Inserir dados de exemplo (opcional)
@@ -72,6 +91,12 @@ ORDER BY categoria;
 -- Restaurar backup
 -- mysql -u root -p sistema_crud < backup_produtos.sql
 
+-- Exportação em streaming pela aplicação (CSV, JSON Lines ou binário, com gzip opcional)
+-- java Main --exportar backup_produtos.prdb.gz
+
+-- Restauração rápida (formatos CSV e binário, preservando os ids)
+-- java Main --restaurar backup_produtos.prdb.gz
+
 -- Verificar tamanho da tabela
 -- SELECT 
 --     table_name AS 'Tabela',
@@ -0,0 +1,159 @@
+package estatisticas;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de SnapshotEstoque.calcular(); valores monetários em centavos
+ */
+public class ResumoEstoque {
+    private final int totalProdutos;
+    private final long estoqueTotal;
+    private final long valorTotalCentavos;
+    private final List<Categoria> categorias;
+    private final List<FaixaPreco> faixasPreco;
+    private final long totalEstoqueBaixo;
+    private final int[] idsEstoqueBaixo;
+    private final long versao;
+    private final long duracaoNanos;
+
+    ResumoEstoque(int totalProdutos, long estoqueTotal, long valorTotalCentavos, List<Categoria> categorias,
+                  List<FaixaPreco> faixasPreco, long totalEstoqueBaixo, int[] idsEstoqueBaixo,
+                  long versao, long duracaoNanos) {
+        this.totalProdutos = totalProdutos;
+        this.estoqueTotal = estoqueTotal;
+        this.valorTotalCentavos = valorTotalCentavos;
+        this.categorias = Collections.unmodifiableList(categorias);
+        this.faixasPreco = Collections.unmodifiableList(faixasPreco);
+        this.totalEstoqueBaixo = totalEstoqueBaixo;
+        this.idsEstoqueBaixo = idsEstoqueBaixo;
+        this.versao = versao;
+        this.duracaoNanos = duracaoNanos;
+    }
+
+    public int getTotalProdutos() {
+        return totalProdutos;
+    }
+
+    public long getEstoqueTotal() {
+        return estoqueTotal;
+    }
+
+    /**
+     * SUM(preco * quantidade)
+     */
+    public long getValorTotalCentavos() {
+        return valorTotalCentavos;
+    }
+
+    /**
+     * Categorias com pelo menos um produto, em ordem alfabética
+     */
+    public List<Categoria> getCategorias() {
+        return categorias;
+    }
+
+    public List<FaixaPreco> getFaixasPreco() {
+        return faixasPreco;
+    }
+
+    /**
+     * Total de produtos abaixo do limite de estoque, mesmo os que não couberam na lista
+     */
+    public long getTotalEstoqueBaixo() {
+        return totalEstoqueBaixo;
+    }
+
+    /**
+     * Ids dos produtos com menos estoque, do menor para o maior
+     */
+    public int[] getIdsEstoqueBaixo() {
+        return idsEstoqueBaixo.clone();
+    }
+
+    /**
+     * Versão do snapshot usada no cálculo
+     */
+    public long getVersao() {
+        return versao;
+    }
+
+    public double getDuracaoMs() {
+        return duracaoNanos / 1_000_000.0;
+    }
+
+    /**
+     * Agregados de uma categoria
+     */
+    public static class Categoria {
+        private final String nome;
+        private final long produtos;
+        private final long somaPrecosCentavos;
+        private final long estoque;
+        private final long valorCentavos;
+
+        Categoria(String nome, long produtos, long somaPrecosCentavos, long estoque, long valorCentavos) {
+            this.nome = nome;
+            this.produtos = produtos;
+            this.somaPrecosCentavos = somaPrecosCentavos;
+            this.estoque = estoque;
+            this.valorCentavos = valorCentavos;
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public long getProdutos() {
+            return produtos;
+        }
+
+        /**
+         * AVG(preco), em centavos
+         */
+        public double getPrecoMedioCentavos() {
+            return produtos == 0 ? 0 : (double) somaPrecosCentavos / produtos;
+        }
+
+        public long getEstoque() {
+            return estoque;
+        }
+
+        public long getValorCentavos() {
+            return valorCentavos;
+        }
+    }
+
+    /**
+     * Produtos com preço em [deCentavos, ateCentavos); ateCentavos é -1 na última faixa
+     */
+    public static class FaixaPreco {
+        private final long deCentavos;
+        private final long ateCentavos;
+        private final long produtos;
+        private final long valorCentavos;
+
+        FaixaPreco(long deCentavos, long ateCentavos, long produtos, long valorCentavos) {
+            this.deCentavos = deCentavos;
+            this.ateCentavos = ateCentavos;
+            this.produtos = produtos;
+            this.valorCentavos = valorCentavos;
+        }
+
+        public long getDeCentavos() {
+            return deCentavos;
+        }
+
+        public long getAteCentavos() {
+            return ateCentavos;
+        }
+
+        public long getProdutos() {
+            return produtos;
+        }
+
+        public long getValorCentavos() {
+            return valorCentavos;
+        }
+    }
+}
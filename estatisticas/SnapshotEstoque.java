@@ -0,0 +1,338 @@
+package estatisticas;
+
+import dao.FonteProdutos;
+import model.Produto;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Cópia colunar da tabela produtos para as estatísticas de estoque
+ * Cada coluna é um array primitivo (ids, quantidades, preço em centavos e código da categoria),
+ * com as categorias codificadas em dicionário; as agregações percorrem os arrays em paralelo
+ * É carregada uma vez do banco e mantida pelo DAO a cada gravação, como o índice de busca
+ * Implementa padrão Singleton
+ */
+public class SnapshotEstoque {
+    private static final int CAPACIDADE_INICIAL = 1024;
+    // Abaixo disso o custo de dividir o trabalho entre threads supera o ganho
+    private static final int MINIMO_PARALELO = 50_000;
+
+    private static volatile SnapshotEstoque instance;
+
+    // Colunas; a linha i descreve um produto e as linhas válidas vão de 0 a tamanho - 1
+    private int[] ids = new int[CAPACIDADE_INICIAL];
+    private int[] quantidades = new int[CAPACIDADE_INICIAL];
+    private long[] precosCentavos = new long[CAPACIDADE_INICIAL];
+    private int[] categorias = new int[CAPACIDADE_INICIAL];
+    private int tamanho;
+
+    private final Map<Integer, Integer> linhaPorId = new HashMap<>();
+    private final List<String> dicionario = new ArrayList<>();
+    private final Map<String, Integer> codigoPorCategoria = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean pronto;
+    private volatile boolean construindo;
+    // Incrementada a cada alteração, para a tela saber quando recalcular
+    private volatile long versao;
+    // Ids gravados durante a construção: a versão lida do banco pode estar desatualizada
+    private final Set<Integer> alteradosDuranteConstrucao = new HashSet<>();
+
+    private SnapshotEstoque() {
+    }
+
+    public static SnapshotEstoque getInstance() {
+        SnapshotEstoque result = instance;
+        if (result == null) {
+            synchronized (SnapshotEstoque.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new SnapshotEstoque();
+                }
+            }
+        }
+        return result;
+    }
+
+    public boolean isPronto() {
+        return pronto;
+    }
+
+    public long getVersao() {
+        return versao;
+    }
+
+    /**
+     * Carrega todos os produtos da fonte (banco ou cópia local) em streaming e marca o snapshot como pronto
+     */
+    public void construir(FonteProdutos fonte) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (construindo) return;
+            construindo = true;
+            pronto = false;
+            tamanho = 0;
+            linhaPorId.clear();
+            alteradosDuranteConstrucao.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            long total = fonte.percorrerTodos(produto -> {
+                lock.writeLock().lock();
+                try {
+                    if (!alteradosDuranteConstrucao.contains(produto.getId())) {
+                        gravarInterno(produto);
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            if (total >= 0) {
+                pronto = true;
+                System.out.printf("Snapshot de estoque carregado: %d produtos, %d categorias em %d ms%n",
+                        total, dicionario.size(), (System.nanoTime() - inicio) / 1_000_000);
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                construindo = false;
+                alteradosDuranteConstrucao.clear();
+                versao++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Inclui ou atualiza um produto; ignorado enquanto o snapshot não foi carregado
+     */
+    public void gravar(Produto produto) {
+        if (!pronto && !construindo) return;
+        lock.writeLock().lock();
+        try {
+            if (construindo) {
+                alteradosDuranteConstrucao.add(produto.getId());
+            }
+            gravarInterno(produto);
+            versao++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Altera só a quantidade de um produto já presente (ajuste de estoque)
+     * Um produto ainda não lido pela construção chega depois com a linha completa pela sincronização
+     */
+    public void atualizarQuantidade(int id, int quantidade) {
+        if (!pronto && !construindo) return;
+        lock.writeLock().lock();
+        try {
+            Integer linha = linhaPorId.get(id);
+            if (linha != null) {
+                quantidades[linha] = quantidade;
+                versao++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remover(int id) {
+        if (!pronto && !construindo) return;
+        lock.writeLock().lock();
+        try {
+            if (construindo) {
+                alteradosDuranteConstrucao.add(id);
+            }
+            removerInterno(id);
+            versao++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Calcula todas as estatísticas em uma passada pelas colunas
+     * Produtos com quantidade abaixo de limiteEstoqueBaixo são listados (no máximo maximoEstoqueBaixo,
+     * os de menor quantidade primeiro); faixasPrecoCentavos são os limites inferiores das faixas, em ordem
+     */
+    public ResumoEstoque calcular(int limiteEstoqueBaixo, int maximoEstoqueBaixo, long[] faixasPrecoCentavos) {
+        lock.readLock().lock();
+        try {
+            long inicio = System.nanoTime();
+            int n = tamanho;
+            int totalCategorias = dicionario.size();
+
+            Acumulador acumulado = linhas(n).collect(
+                    () -> new Acumulador(totalCategorias, faixasPrecoCentavos),
+                    (acumulador, i) -> acumulador.adicionar(i, limiteEstoqueBaixo),
+                    Acumulador::combinar);
+
+            // Quantidade nos 32 bits altos e id nos baixos: ordena sem boxing, os de menor
+            // quantidade primeiro e empates pelo id (quantidades e ids nunca são negativos)
+            int[] estoqueBaixo = linhas(n)
+                    .filter(i -> quantidades[i] < limiteEstoqueBaixo)
+                    .mapToLong(i -> ((long) quantidades[i] << 32) | ids[i])
+                    .sorted()
+                    .limit(maximoEstoqueBaixo)
+                    .mapToInt(chave -> (int) chave)
+                    .toArray();
+
+            List<ResumoEstoque.Categoria> porCategoria = new ArrayList<>();
+            for (int c = 0; c < totalCategorias; c++) {
+                if (acumulado.produtos[c] > 0) {
+                    porCategoria.add(new ResumoEstoque.Categoria(dicionario.get(c), acumulado.produtos[c],
+                            acumulado.somaPrecos[c], acumulado.estoque[c], acumulado.valor[c]));
+                }
+            }
+            porCategoria.sort((a, b) -> a.getNome().compareToIgnoreCase(b.getNome()));
+
+            List<ResumoEstoque.FaixaPreco> faixas = new ArrayList<>();
+            for (int f = 0; f < faixasPrecoCentavos.length; f++) {
+                long ate = f + 1 < faixasPrecoCentavos.length ? faixasPrecoCentavos[f + 1] : -1;
+                faixas.add(new ResumoEstoque.FaixaPreco(faixasPrecoCentavos[f], ate,
+                        acumulado.produtosFaixa[f], acumulado.valorFaixa[f]));
+            }
+
+            return new ResumoEstoque(n, acumulado.totalEstoque, acumulado.totalValor, porCategoria, faixas,
+                    acumulado.totalEstoqueBaixo, estoqueBaixo, versao, System.nanoTime() - inicio);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private IntStream linhas(int n) {
+        IntStream linhas = IntStream.range(0, n);
+        return n >= MINIMO_PARALELO ? linhas.parallel() : linhas;
+    }
+
+    /**
+     * Totais parciais de um trecho das colunas; cada thread do fork-join preenche o seu
+     */
+    private final class Acumulador {
+        final long[] faixasPreco;
+        final long[] produtos;
+        final long[] somaPrecos;
+        final long[] estoque;
+        final long[] valor;
+        final long[] produtosFaixa;
+        final long[] valorFaixa;
+        long totalEstoque;
+        long totalValor;
+        long totalEstoqueBaixo;
+
+        Acumulador(int totalCategorias, long[] faixasPreco) {
+            this.faixasPreco = faixasPreco;
+            produtos = new long[totalCategorias];
+            somaPrecos = new long[totalCategorias];
+            estoque = new long[totalCategorias];
+            valor = new long[totalCategorias];
+            produtosFaixa = new long[faixasPreco.length];
+            valorFaixa = new long[faixasPreco.length];
+        }
+
+        void adicionar(int i, int limiteEstoqueBaixo) {
+            int categoria = categorias[i];
+            long preco = precosCentavos[i];
+            int quantidade = quantidades[i];
+            long valorLinha = preco * quantidade;
+
+            produtos[categoria]++;
+            somaPrecos[categoria] += preco;
+            estoque[categoria] += quantidade;
+            valor[categoria] += valorLinha;
+            totalEstoque += quantidade;
+            totalValor += valorLinha;
+            if (quantidade < limiteEstoqueBaixo) {
+                totalEstoqueBaixo++;
+            }
+
+            int faixa = Arrays.binarySearch(faixasPreco, preco);
+            if (faixa < 0) {
+                faixa = -faixa - 2;
+            }
+            if (faixa >= 0) {
+                produtosFaixa[faixa]++;
+                valorFaixa[faixa] += valorLinha;
+            }
+        }
+
+        void combinar(Acumulador outro) {
+            for (int c = 0; c < produtos.length; c++) {
+                produtos[c] += outro.produtos[c];
+                somaPrecos[c] += outro.somaPrecos[c];
+                estoque[c] += outro.estoque[c];
+                valor[c] += outro.valor[c];
+            }
+            for (int f = 0; f < produtosFaixa.length; f++) {
+                produtosFaixa[f] += outro.produtosFaixa[f];
+                valorFaixa[f] += outro.valorFaixa[f];
+            }
+            totalEstoque += outro.totalEstoque;
+            totalValor += outro.totalValor;
+            totalEstoqueBaixo += outro.totalEstoqueBaixo;
+        }
+    }
+
+    private void gravarInterno(Produto produto) {
+        Integer linha = linhaPorId.get(produto.getId());
+        if (linha == null) {
+            if (tamanho == ids.length) {
+                int capacidade = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacidade);
+                quantidades = Arrays.copyOf(quantidades, capacidade);
+                precosCentavos = Arrays.copyOf(precosCentavos, capacidade);
+                categorias = Arrays.copyOf(categorias, capacidade);
+            }
+            linha = tamanho++;
+            linhaPorId.put(produto.getId(), linha);
+        }
+        ids[linha] = produto.getId();
+        quantidades[linha] = produto.getQuantidade();
+        precosCentavos[linha] = produto.getPrecoCentavos();
+        categorias[linha] = codificar(produto.getCategoria());
+    }
+
+    /**
+     * Move a última linha para o lugar da removida, mantendo as colunas contíguas
+     */
+    private void removerInterno(int id) {
+        Integer linha = linhaPorId.remove(id);
+        if (linha == null) return;
+
+        int ultima = --tamanho;
+        if (linha != ultima) {
+            ids[linha] = ids[ultima];
+            quantidades[linha] = quantidades[ultima];
+            precosCentavos[linha] = precosCentavos[ultima];
+            categorias[linha] = categorias[ultima];
+            linhaPorId.put(ids[linha], linha);
+        }
+    }
+
+    private int codificar(String categoria) {
+        String chave = categoria == null ? "" : categoria;
+        Integer codigo = codigoPorCategoria.get(chave);
+        if (codigo == null) {
+            codigo = dicionario.size();
+            dicionario.add(chave);
+            codigoPorCategoria.put(chave, codigo);
+        }
+        return codigo;
+    }
+}
@@ -0,0 +1,71 @@
+package exportacao;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Leitura bufferizada sobre um canal NIO, contraparte do CanalSaida
+ */
+class CanalEntrada implements AutoCloseable {
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private final ReadableByteChannel canal;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+    private long bytesLidos;
+
+    CanalEntrada(ReadableByteChannel canal) {
+        this.canal = canal;
+        buffer.flip(); // começa vazio
+    }
+
+    int lerInt() throws IOException {
+        garantir(Integer.BYTES);
+        return buffer.getInt();
+    }
+
+    long lerLong() throws IOException {
+        garantir(Long.BYTES);
+        return buffer.getLong();
+    }
+
+    byte[] lerBytes(int quantidade) throws IOException {
+        byte[] bytes = new byte[quantidade];
+        int posicao = 0;
+        while (posicao < quantidade) {
+            if (!buffer.hasRemaining()) {
+                preencher();
+            }
+            int parte = Math.min(buffer.remaining(), quantidade - posicao);
+            buffer.get(bytes, posicao, parte);
+            posicao += parte;
+        }
+        return bytes;
+    }
+
+    long getBytesLidos() {
+        return bytesLidos;
+    }
+
+    private void garantir(int bytes) throws IOException {
+        while (buffer.remaining() < bytes) {
+            preencher();
+        }
+    }
+
+    private void preencher() throws IOException {
+        buffer.compact();
+        int lidos = canal.read(buffer);
+        buffer.flip();
+        if (lidos < 0) {
+            throw new EOFException("Fim inesperado do arquivo");
+        }
+        bytesLidos += lidos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
@@ -0,0 +1,75 @@
+package exportacao;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escrita bufferizada sobre um canal NIO
+ * Acumula os bytes em um ByteBuffer direto e só escreve no canal quando ele enche
+ */
+class CanalSaida implements AutoCloseable {
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private final WritableByteChannel canal;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+    private long bytesEscritos;
+
+    CanalSaida(WritableByteChannel canal) {
+        this.canal = canal;
+    }
+
+    void escreverInt(int valor) throws IOException {
+        garantir(Integer.BYTES);
+        buffer.putInt(valor);
+    }
+
+    void escreverLong(long valor) throws IOException {
+        garantir(Long.BYTES);
+        buffer.putLong(valor);
+    }
+
+    void escreverBytes(byte[] bytes) throws IOException {
+        int posicao = 0;
+        while (posicao < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                descarregar();
+            }
+            int quantidade = Math.min(buffer.remaining(), bytes.length - posicao);
+            buffer.put(bytes, posicao, quantidade);
+            posicao += quantidade;
+        }
+    }
+
+    void escreverTexto(CharSequence texto) throws IOException {
+        escreverBytes(texto.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    long getBytesEscritos() {
+        return bytesEscritos + buffer.position();
+    }
+
+    private void garantir(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            descarregar();
+        }
+    }
+
+    private void descarregar() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesEscritos += canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            descarregar();
+        } finally {
+            canal.close();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package exportacao;
+
+import model.Produto;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Codifica produtos em um dos formatos de exportação
+ */
+abstract class EscritorProdutos {
+    // Identificação e versão do formato binário
+    static final int MAGICO_BINARIO = 0x50524442; // "PRDB"
+    static final int VERSAO_BINARIO = 1;
+    static final int FIM_BINARIO = 0;
+
+    protected final CanalSaida saida;
+
+    protected EscritorProdutos(CanalSaida saida) {
+        this.saida = saida;
+    }
+
+    static EscritorProdutos criar(FormatoExportacao formato, CanalSaida saida) {
+        switch (formato) {
+            case JSONL: return new Jsonl(saida);
+            case BINARIO: return new Binario(saida);
+            default: return new Csv(saida);
+        }
+    }
+
+    void iniciar() throws IOException {
+    }
+
+    abstract void escrever(Produto produto) throws IOException;
+
+    void finalizar() throws IOException {
+    }
+
+    /**
+     * Acrescenta o preço com duas casas decimais (ex.: 1234.50) direto dos centavos, sem objetos intermediários
+     */
+    static StringBuilder anexarPreco(StringBuilder texto, long centavos) {
+        if (centavos < 0) {
+            texto.append('-');
+            centavos = -centavos;
+        }
+        long fracao = centavos % 100;
+        return texto.append(centavos / 100).append(fracao < 10 ? ".0" : ".").append(fracao);
+    }
+
+    /**
+     * CSV com cabeçalho compatível com o ImportadorCsv
+     */
+    private static class Csv extends EscritorProdutos {
+        private final StringBuilder linha = new StringBuilder(256);
+
+        Csv(CanalSaida saida) {
+            super(saida);
+        }
+
+        @Override
+        void iniciar() throws IOException {
+            saida.escreverTexto("id,nome,descricao,preco,quantidade,categoria\n");
+        }
+
+        @Override
+        void escrever(Produto produto) throws IOException {
+            linha.setLength(0);
+            linha.append(produto.getId()).append(',');
+            campo(produto.getNome()).append(',');
+            campo(produto.getDescricao()).append(',');
+            anexarPreco(linha, produto.getPrecoCentavos()).append(',');
+            linha.append(produto.getQuantidade()).append(',');
+            campo(produto.getCategoria()).append('\n');
+            saida.escreverTexto(linha);
+        }
+
+        private StringBuilder campo(String valor) {
+            if (valor == null) {
+                return linha;
+            }
+            boolean aspas = valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0
+                    || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0;
+            if (!aspas) {
+                return linha.append(valor);
+            }
+            linha.append('"');
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                if (c == '"') linha.append('"');
+                linha.append(c);
+            }
+            return linha.append('"');
+        }
+    }
+
+    /**
+     * Um objeto JSON por linha
+     */
+    private static class Jsonl extends EscritorProdutos {
+        private final StringBuilder linha = new StringBuilder(256);
+
+        Jsonl(CanalSaida saida) {
+            super(saida);
+        }
+
+        @Override
+        void escrever(Produto produto) throws IOException {
+            linha.setLength(0);
+            linha.append("{\"id\":").append(produto.getId());
+            linha.append(",\"nome\":");
+            texto(produto.getNome());
+            linha.append(",\"descricao\":");
+            texto(produto.getDescricao());
+            anexarPreco(linha.append(",\"preco\":"), produto.getPrecoCentavos());
+            linha.append(",\"quantidade\":").append(produto.getQuantidade());
+            linha.append(",\"categoria\":");
+            texto(produto.getCategoria());
+            linha.append("}\n");
+            saida.escreverTexto(linha);
+        }
+
+        private void texto(String valor) {
+            if (valor == null) {
+                linha.append("null");
+                return;
+            }
+            linha.append('"');
+            for (int i = 0; i < valor.length(); i++) {
+                char c = valor.charAt(i);
+                switch (c) {
+                    case '"': linha.append("\\\""); break;
+                    case '\\': linha.append("\\\\"); break;
+                    case '\n': linha.append("\\n"); break;
+                    case '\r': linha.append("\\r"); break;
+                    case '\t': linha.append("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            linha.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            linha.append(c);
+                        }
+                }
+            }
+            linha.append('"');
+        }
+    }
+
+    /**
+     * Formato binário compacto:
+     * cabeçalho [mágico][versão], registros [id][nome][descrição][preço em centavos][quantidade][categoria]
+     * e id 0 como marcador de fim. Textos são gravados como [tamanho em bytes][UTF-8], -1 para nulo
+     */
+    private static class Binario extends EscritorProdutos {
+        Binario(CanalSaida saida) {
+            super(saida);
+        }
+
+        @Override
+        void iniciar() throws IOException {
+            saida.escreverInt(MAGICO_BINARIO);
+            saida.escreverInt(VERSAO_BINARIO);
+        }
+
+        @Override
+        void escrever(Produto produto) throws IOException {
+            saida.escreverInt(produto.getId());
+            texto(produto.getNome());
+            texto(produto.getDescricao());
+            saida.escreverLong(produto.getPrecoCentavos());
+            saida.escreverInt(produto.getQuantidade());
+            texto(produto.getCategoria());
+        }
+
+        @Override
+        void finalizar() throws IOException {
+            saida.escreverInt(FIM_BINARIO);
+        }
+
+        private void texto(String valor) throws IOException {
+            if (valor == null) {
+                saida.escreverInt(-1);
+                return;
+            }
+            byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+            saida.escreverInt(bytes.length);
+            saida.escreverBytes(bytes);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package exportacao;
+
+import dao.ProdutoDAO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportação da tabela produtos em streaming
+ * As linhas vão direto do ResultSet (cursor no servidor) para o arquivo,
+ * então a memória usada é constante independentemente da quantidade de linhas
+ */
+public class ExportadorProdutos {
+    private static final int TAMANHO_BUFFER_GZIP = 64 * 1024;
+
+    private final ProdutoDAO produtoDAO;
+
+    public ExportadorProdutos(ProdutoDAO produtoDAO) {
+        this.produtoDAO = produtoDAO;
+    }
+
+    /**
+     * Exporta todos os produtos para o arquivo no formato informado, opcionalmente compactado com gzip
+     */
+    public ResultadoExportacao exportar(Path destino, FormatoExportacao formato, boolean gzip) throws IOException {
+        long inicio = System.nanoTime();
+
+        FileChannel arquivo = FileChannel.open(destino,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        WritableByteChannel canal = arquivo;
+        if (gzip) {
+            OutputStream compactado = new GZIPOutputStream(Channels.newOutputStream(arquivo), TAMANHO_BUFFER_GZIP);
+            canal = Channels.newChannel(compactado);
+        }
+
+        long linhas;
+        try (CanalSaida saida = new CanalSaida(canal)) {
+            EscritorProdutos escritor = EscritorProdutos.criar(formato, saida);
+            escritor.iniciar();
+            linhas = produtoDAO.percorrerTodos(escritor::escrever);
+            if (linhas < 0) {
+                throw new IOException("Erro ao ler produtos do banco de dados");
+            }
+            escritor.finalizar();
+        } finally {
+            arquivo.close();
+        }
+
+        return new ResultadoExportacao(linhas, destino.toFile().length(), System.nanoTime() - inicio);
+    }
+}
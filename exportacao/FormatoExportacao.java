@@ -0,0 +1,42 @@
+package exportacao;
+
+import java.util.Locale;
+
+/**
+ * Formatos suportados pela exportação de produtos
+ */
+public enum FormatoExportacao {
+    CSV(".csv"),
+    JSONL(".jsonl"),
+    BINARIO(".prdb");
+
+    private final String extensao;
+
+    FormatoExportacao(String extensao) {
+        this.extensao = extensao;
+    }
+
+    public String getExtensao() {
+        return extensao;
+    }
+
+    /**
+     * Deduz o formato pela extensão do arquivo (ignorando ".gz"); CSV por padrão
+     */
+    public static FormatoExportacao porArquivo(String nomeArquivo) {
+        String nome = nomeArquivo.toLowerCase(Locale.ROOT);
+        if (nome.endsWith(".gz")) {
+            nome = nome.substring(0, nome.length() - 3);
+        }
+        for (FormatoExportacao formato : values()) {
+            if (nome.endsWith(formato.extensao)) {
+                return formato;
+            }
+        }
+        return CSV;
+    }
+
+    public static FormatoExportacao porNome(String nome) {
+        return valueOf(nome.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,121 @@
+package exportacao;
+
+import dao.ProdutoDAO;
+import importacao.ImportadorCsv;
+import importacao.ResultadoImportacao;
+import model.Produto;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Restauração rápida de arquivos gerados pelo ExportadorProdutos
+ * Aceita os formatos binário e CSV, compactados ou não; os ids originais são preservados
+ */
+public class RestauradorProdutos {
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+    private static final int MAGICO_GZIP = 0x1f8b;
+
+    private final ProdutoDAO produtoDAO;
+    private final int tamanhoLote;
+
+    public RestauradorProdutos(ProdutoDAO produtoDAO, int tamanhoLote) {
+        this.produtoDAO = produtoDAO;
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    public ResultadoExportacao restaurar(Path origem) throws IOException {
+        long inicio = System.nanoTime();
+
+        try (InputStream entrada = abrir(origem)) {
+            entrada.mark(Integer.BYTES);
+            int magico = (entrada.read() << 24) | (entrada.read() << 16) | (entrada.read() << 8) | entrada.read();
+            entrada.reset();
+
+            long linhas = magico == EscritorProdutos.MAGICO_BINARIO
+                    ? restaurarBinario(entrada)
+                    : restaurarCsv(entrada);
+            return new ResultadoExportacao(linhas, Files.size(origem), System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Abre o arquivo, descompactando automaticamente se for gzip
+     */
+    private InputStream abrir(Path origem) throws IOException {
+        BufferedInputStream entrada = new BufferedInputStream(Files.newInputStream(origem), TAMANHO_BUFFER);
+        entrada.mark(2);
+        int magico = (entrada.read() << 8) | entrada.read();
+        entrada.reset();
+        if (magico == MAGICO_GZIP) {
+            return new BufferedInputStream(new GZIPInputStream(entrada, TAMANHO_BUFFER), TAMANHO_BUFFER);
+        }
+        return entrada;
+    }
+
+    private long restaurarBinario(InputStream entrada) throws IOException {
+        CanalEntrada canal = new CanalEntrada(Channels.newChannel(entrada));
+        canal.lerInt(); // mágico
+        int versao = canal.lerInt();
+        if (versao != EscritorProdutos.VERSAO_BINARIO) {
+            throw new IOException("Versão de arquivo binário não suportada: " + versao);
+        }
+
+        List<Produto> lote = new ArrayList<>(tamanhoLote);
+        long total = 0;
+        int id;
+        while ((id = canal.lerInt()) != EscritorProdutos.FIM_BINARIO) {
+            Produto produto = new Produto();
+            produto.setId(id);
+            produto.setNome(lerTexto(canal));
+            produto.setDescricao(lerTexto(canal));
+            produto.setPrecoCentavos(canal.lerLong());
+            produto.setQuantidade(canal.lerInt());
+            produto.setCategoria(lerTexto(canal));
+            lote.add(produto);
+
+            if (lote.size() == tamanhoLote) {
+                total += gravar(lote);
+            }
+        }
+        total += gravar(lote);
+        return total;
+    }
+
+    private int gravar(List<Produto> lote) throws IOException {
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        int gravados = produtoDAO.restaurarEmLote(lote, tamanhoLote);
+        if (gravados < 0) {
+            throw new IOException("Erro ao gravar lote no banco de dados (id inicial " + lote.get(0).getId() + ")");
+        }
+        lote.clear();
+        return gravados;
+    }
+
+    private static String lerTexto(CanalEntrada canal) throws IOException {
+        int tamanho = canal.lerInt();
+        return tamanho < 0 ? null : new String(canal.lerBytes(tamanho), StandardCharsets.UTF_8);
+    }
+
+    private long restaurarCsv(InputStream entrada) throws IOException {
+        ImportadorCsv importador = new ImportadorCsv(produtoDAO, tamanhoLote);
+        importador.setManterIds(true);
+        ResultadoImportacao resultado = importador.importar(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        if (resultado.getRejeitadas() > 0) {
+            throw new IOException("Restauração concluída com " + resultado.getRejeitadas()
+                    + " linhas rejeitadas. " + resultado.getRejeicoes());
+        }
+        return resultado.getInseridas() + resultado.getAtualizadas();
+    }
+}
@@ -0,0 +1,42 @@
+package exportacao;
+
+/**
+ * Estatísticas de uma exportação ou restauração: linhas, bytes e vazão
+ */
+public class ResultadoExportacao {
+    private final long linhas;
+    private final long bytes;
+    private final double segundos;
+
+    ResultadoExportacao(long linhas, long bytes, long nanos) {
+        this.linhas = linhas;
+        this.bytes = bytes;
+        this.segundos = nanos / 1_000_000_000.0;
+    }
+
+    public long getLinhas() {
+        return linhas;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public double getSegundos() {
+        return segundos;
+    }
+
+    public double getLinhasPorSegundo() {
+        return segundos == 0 ? 0 : linhas / segundos;
+    }
+
+    public double getMegabytesPorSegundo() {
+        return segundos == 0 ? 0 : bytes / (1024.0 * 1024.0) / segundos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d linhas, %.1f MB em %.1f s (%.0f linhas/s, %.1f MB/s)",
+                linhas, bytes / (1024.0 * 1024.0), segundos, getLinhasPorSegundo(), getMegabytesPorSegundo());
+    }
+}
@@ -0,0 +1,311 @@
+package importacao;
+
+import dao.ProdutoDAO;
+import model.Produto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Importador de produtos a partir de CSV em streaming
+ * Lê e grava em lotes, sem carregar o arquivo inteiro em memória
+ * Linhas com id preenchido atualizam o produto existente; as demais são inseridas
+ *
+ * Cabeçalho esperado (ordem livre, separador ',' ou ';'):
+ * id (opcional), nome, descricao (opcional), preco, quantidade, categoria
+ */
+public class ImportadorCsv {
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private final ProdutoDAO produtoDAO;
+    private final int tamanhoLote;
+    private boolean manterIds;
+    private Consumer<ResultadoImportacao> ouvinteProgresso;
+
+    public ImportadorCsv(ProdutoDAO produtoDAO, int tamanhoLote) {
+        this.produtoDAO = produtoDAO;
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    /**
+     * Define um ouvinte chamado após cada lote gravado (na thread da importação)
+     */
+    public void setOuvinteProgresso(Consumer<ResultadoImportacao> ouvinteProgresso) {
+        this.ouvinteProgresso = ouvinteProgresso;
+    }
+
+    /**
+     * Em modo de restauração, linhas com id são gravadas com o mesmo id (inserindo se não existir)
+     */
+    public void setManterIds(boolean manterIds) {
+        this.manterIds = manterIds;
+    }
+
+    public ResultadoImportacao importar(Path arquivo) throws IOException {
+        try (Reader reader = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            return importar(reader);
+        }
+    }
+
+    public ResultadoImportacao importar(Reader origem) throws IOException {
+        BufferedReader reader = origem instanceof BufferedReader
+                ? (BufferedReader) origem
+                : new BufferedReader(origem, TAMANHO_BUFFER);
+        ResultadoImportacao resultado = new ResultadoImportacao();
+
+        reader.mark(TAMANHO_BUFFER);
+        String primeiraLinha = reader.readLine();
+        if (primeiraLinha == null) {
+            resultado.concluir();
+            return resultado;
+        }
+        reader.reset();
+
+        LeitorCsv leitor = new LeitorCsv(reader, LeitorCsv.detectarSeparador(primeiraLinha));
+        Colunas colunas = new Colunas(leitor.lerRegistro());
+
+        Lote novos = new Lote();
+        Lote alterados = new Lote();
+
+        int linha = leitor.getLinha();
+        List<String> campos;
+        while ((campos = leitor.lerRegistro()) != null) {
+            if (!linhaVazia(campos)) {
+                resultado.registrarLinha();
+                try {
+                    Produto produto = colunas.converter(campos);
+                    Lote destino = produto.getId() > 0 ? alterados : novos;
+                    destino.adicionar(produto, linha);
+                    if (destino.tamanho() >= tamanhoLote) {
+                        gravar(novos, alterados, resultado);
+                    }
+                } catch (IllegalArgumentException e) {
+                    resultado.registrarRejeicao(linha, e.getMessage());
+                }
+            }
+            linha = leitor.getLinha();
+        }
+
+        gravar(novos, alterados, resultado);
+        resultado.concluir();
+        return resultado;
+    }
+
+    /**
+     * Grava os lotes pendentes; se um lote falhar, regrava linha a linha para isolar as rejeições
+     */
+    private void gravar(Lote novos, Lote alterados, ResultadoImportacao resultado) {
+        if (novos.tamanho() == 0 && alterados.tamanho() == 0) {
+            return;
+        }
+
+        int inseridas = 0;
+        if (novos.tamanho() > 0) {
+            inseridas = produtoDAO.inserirEmLote(novos.produtos, tamanhoLote);
+            if (inseridas < 0) {
+                inseridas = 0;
+                for (int i = 0; i < novos.tamanho(); i++) {
+                    if (produtoDAO.inserir(novos.produtos.get(i))) {
+                        inseridas++;
+                    } else {
+                        resultado.registrarRejeicao(novos.linhas.get(i), "erro ao inserir no banco de dados");
+                    }
+                }
+            }
+        }
+
+        int atualizadas = 0;
+        if (alterados.tamanho() > 0) {
+            List<Integer> naoEncontrados = gravarAlterados(alterados.produtos);
+            if (naoEncontrados != null) {
+                Set<Integer> inexistentes = new HashSet<>(naoEncontrados);
+                for (int i = 0; i < alterados.tamanho(); i++) {
+                    if (inexistentes.contains(alterados.produtos.get(i).getId())) {
+                        resultado.registrarRejeicao(alterados.linhas.get(i), "id inexistente");
+                    } else {
+                        atualizadas++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < alterados.tamanho(); i++) {
+                    List<Integer> resultadoLinha = gravarAlterados(Collections.singletonList(alterados.produtos.get(i)));
+                    if (resultadoLinha == null) {
+                        resultado.registrarRejeicao(alterados.linhas.get(i), "erro ao atualizar no banco de dados");
+                    } else if (!resultadoLinha.isEmpty()) {
+                        resultado.registrarRejeicao(alterados.linhas.get(i), "id inexistente");
+                    } else {
+                        atualizadas++;
+                    }
+                }
+            }
+        }
+
+        resultado.registrarLote(inseridas, atualizadas);
+        novos.limpar();
+        alterados.limpar();
+
+        if (ouvinteProgresso != null) {
+            ouvinteProgresso.accept(resultado);
+        }
+    }
+
+    /**
+     * Retorna os ids não encontrados no banco ou null se o lote falhar
+     * A restauração grava com upsert, então não tem ids não encontrados
+     */
+    private List<Integer> gravarAlterados(List<Produto> produtos) {
+        if (manterIds) {
+            return produtoDAO.restaurarEmLote(produtos, tamanhoLote) < 0 ? null : Collections.<Integer>emptyList();
+        }
+        return produtoDAO.atualizarEmLote(produtos, tamanhoLote);
+    }
+
+    private static boolean linhaVazia(List<String> campos) {
+        for (String campo : campos) {
+            if (!campo.trim().isEmpty()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Converte preço nos formatos 1234.56, 1234,56 e 1.234,56, sem passar por double
+     */
+    static BigDecimal converterPreco(String texto) {
+        String valor = texto.trim().replace("R$", "").trim();
+        if (valor.contains(",")) {
+            valor = valor.replace(".", "").replace(",", ".");
+        }
+        return new BigDecimal(valor);
+    }
+
+    /**
+     * Normaliza nomes de coluna: minúsculas e sem acentos (ex.: "Preço" -> "preco")
+     */
+    static String normalizarNome(String nome) {
+        String semAcentos = Normalizer.normalize(nome.replace("\uFEFF", "").trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        return semAcentos.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Posição de cada coluna conhecida no cabeçalho
+     */
+    private static class Colunas {
+        private final int id;
+        private final int nome;
+        private final int descricao;
+        private final int preco;
+        private final int quantidade;
+        private final int categoria;
+
+        Colunas(List<String> cabecalho) throws IOException {
+            if (cabecalho == null) {
+                throw new IOException("Arquivo CSV sem cabeçalho");
+            }
+            Map<String, Integer> indices = new HashMap<>();
+            for (int i = 0; i < cabecalho.size(); i++) {
+                indices.put(normalizarNome(cabecalho.get(i)), i);
+            }
+            id = indices.getOrDefault("id", -1);
+            nome = obrigatoria(indices, "nome");
+            descricao = indices.getOrDefault("descricao", -1);
+            preco = obrigatoria(indices, "preco");
+            quantidade = obrigatoria(indices, "quantidade");
+            categoria = obrigatoria(indices, "categoria");
+        }
+
+        private static int obrigatoria(Map<String, Integer> indices, String coluna) throws IOException {
+            Integer indice = indices.get(coluna);
+            if (indice == null) {
+                throw new IOException("Coluna obrigatória ausente no cabeçalho: " + coluna);
+            }
+            return indice;
+        }
+
+        Produto converter(List<String> campos) {
+            Produto produto = new Produto();
+
+            String textoId = valor(campos, id);
+            if (!textoId.isEmpty()) {
+                produto.setId(converterInteiro(textoId, "id"));
+            }
+
+            String textoNome = valor(campos, nome);
+            if (textoNome.isEmpty()) throw new IllegalArgumentException("nome é obrigatório");
+            if (textoNome.length() > 100) throw new IllegalArgumentException("nome excede 100 caracteres");
+            produto.setNome(textoNome);
+
+            produto.setDescricao(valor(campos, descricao));
+
+            String textoPreco = valor(campos, preco);
+            BigDecimal valorPreco;
+            try {
+                valorPreco = converterPreco(textoPreco);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("preço inválido: '" + textoPreco + "'");
+            }
+            if (valorPreco.signum() < 0) throw new IllegalArgumentException("preço negativo");
+            produto.setPreco(valorPreco);
+
+            int valorQuantidade = converterInteiro(valor(campos, quantidade), "quantidade");
+            if (valorQuantidade < 0) throw new IllegalArgumentException("quantidade negativa");
+            produto.setQuantidade(valorQuantidade);
+
+            String textoCategoria = valor(campos, categoria);
+            if (textoCategoria.isEmpty()) throw new IllegalArgumentException("categoria é obrigatória");
+            if (textoCategoria.length() > 50) throw new IllegalArgumentException("categoria excede 50 caracteres");
+            produto.setCategoria(textoCategoria);
+
+            return produto;
+        }
+
+        private static String valor(List<String> campos, int indice) {
+            return indice >= 0 && indice < campos.size() ? campos.get(indice).trim() : "";
+        }
+
+        private static int converterInteiro(String texto, String coluna) {
+            try {
+                return Integer.parseInt(texto);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(coluna + " inválido: '" + texto + "'");
+            }
+        }
+    }
+
+    /**
+     * Produtos pendentes de gravação e as linhas de origem de cada um
+     */
+    private static class Lote {
+        private final List<Produto> produtos = new ArrayList<>();
+        private final List<Integer> linhas = new ArrayList<>();
+
+        void adicionar(Produto produto, int linha) {
+            produtos.add(produto);
+            linhas.add(linha);
+        }
+
+        int tamanho() {
+            return produtos.size();
+        }
+
+        void limpar() {
+            produtos.clear();
+            linhas.clear();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package importacao;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitor de CSV em streaming (RFC 4180)
+ * Lê um registro por vez, com suporte a campos entre aspas e quebras de linha dentro de aspas
+ */
+public class LeitorCsv implements AutoCloseable {
+    private final Reader reader;
+    private final char separador;
+    private final StringBuilder campo = new StringBuilder();
+    private int linha = 1;
+    private int proximo = -2; // caractere lido antecipadamente; -2 = nenhum
+
+    public LeitorCsv(Reader reader, char separador) {
+        this.reader = reader;
+        this.separador = separador;
+    }
+
+    /**
+     * Detecta o separador (';' ou ',') pela linha de cabeçalho
+     */
+    public static char detectarSeparador(String cabecalho) {
+        int pontoEVirgula = 0;
+        int virgula = 0;
+        for (int i = 0; i < cabecalho.length(); i++) {
+            char c = cabecalho.charAt(i);
+            if (c == ';') pontoEVirgula++;
+            else if (c == ',') virgula++;
+        }
+        return pontoEVirgula > virgula ? ';' : ',';
+    }
+
+    /**
+     * Número da linha física em que o próximo registro começa
+     */
+    public int getLinha() {
+        return linha;
+    }
+
+    /**
+     * Lê o próximo registro ou retorna null no fim do arquivo
+     */
+    public List<String> lerRegistro() throws IOException {
+        int c = ler();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> campos = new ArrayList<>();
+        campo.setLength(0);
+        boolean entreAspas = false;
+
+        while (true) {
+            if (entreAspas) {
+                if (c == -1) {
+                    throw new IOException("Aspas não fechadas no registro iniciado antes da linha " + linha);
+                }
+                if (c == '"') {
+                    int seguinte = ler();
+                    if (seguinte == '"') {
+                        campo.append('"');
+                    } else {
+                        entreAspas = false;
+                        c = seguinte;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') linha++;
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.length() == 0) {
+                entreAspas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int seguinte = ler();
+                    if (seguinte != '\n') {
+                        devolver(seguinte);
+                    }
+                }
+                if (c != -1) linha++;
+                campos.add(campo.toString());
+                return campos;
+            } else {
+                campo.append((char) c);
+            }
+            c = ler();
+        }
+    }
+
+    private int ler() throws IOException {
+        if (proximo != -2) {
+            int c = proximo;
+            proximo = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void devolver(int c) {
+        proximo = c;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,91 @@
+package importacao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Estatísticas de uma importação: linhas processadas, lotes, vazão e rejeições por linha
+ */
+public class ResultadoImportacao {
+    private static final int MAXIMO_REJEICOES_GUARDADAS = 1000;
+
+    private final long inicio = System.nanoTime();
+    private long fim;
+    private int linhasLidas;
+    private int inseridas;
+    private int atualizadas;
+    private int rejeitadas;
+    private int lotes;
+    private final List<String> rejeicoes = new ArrayList<>();
+
+    void registrarLinha() {
+        linhasLidas++;
+    }
+
+    void registrarLote(int inseridasNoLote, int atualizadasNoLote) {
+        lotes++;
+        inseridas += inseridasNoLote;
+        atualizadas += atualizadasNoLote;
+    }
+
+    void registrarRejeicao(int linha, String motivo) {
+        rejeitadas++;
+        if (rejeicoes.size() < MAXIMO_REJEICOES_GUARDADAS) {
+            rejeicoes.add("Linha " + linha + ": " + motivo);
+        }
+    }
+
+    void concluir() {
+        fim = System.nanoTime();
+    }
+
+    public int getLinhasLidas() {
+        return linhasLidas;
+    }
+
+    public int getInseridas() {
+        return inseridas;
+    }
+
+    public int getAtualizadas() {
+        return atualizadas;
+    }
+
+    public int getRejeitadas() {
+        return rejeitadas;
+    }
+
+    public int getLotes() {
+        return lotes;
+    }
+
+    /**
+     * Rejeições por linha (apenas as primeiras são guardadas)
+     */
+    public List<String> getRejeicoes() {
+        return Collections.unmodifiableList(rejeicoes);
+    }
+
+    public double getSegundos() {
+        long termino = fim == 0 ? System.nanoTime() : fim;
+        return (termino - inicio) / 1_000_000_000.0;
+    }
+
+    public double getLinhasPorSegundo() {
+        double segundos = getSegundos();
+        return segundos == 0 ? 0 : (inseridas + atualizadas) / segundos;
+    }
+
+    public double getLinhasPorLote() {
+        return lotes == 0 ? 0 : (inseridas + atualizadas) / (double) lotes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d linhas lidas, %d inseridas, %d atualizadas, %d rejeitadas "
+                        + "em %.1f s (%.0f linhas/s, %d lotes, %.0f linhas/lote)",
+                linhasLidas, inseridas, atualizadas, rejeitadas,
+                getSegundos(), getLinhasPorSegundo(), lotes, getLinhasPorLote());
+    }
+}
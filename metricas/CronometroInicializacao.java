@@ -0,0 +1,43 @@
+package metricas;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tempos das fases da inicialização da interface gráfica
+ * As fases correm em paralelo (banco em segundo plano, janela na EDT); cada uma é impressa
+ * com sua duração e o instante em que terminou, contado a partir de iniciar()
+ */
+public final class CronometroInicializacao {
+    private static volatile long inicio = System.nanoTime();
+
+    private CronometroInicializacao() {
+    }
+
+    /**
+     * Marca o início da inicialização; chamado na primeira linha do main
+     */
+    public static void iniciar() {
+        inicio = System.nanoTime();
+    }
+
+    public static long agora() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Registra uma fase iniciada em inicioFase (valor de agora())
+     */
+    public static void fase(String nome, long inicioFase) {
+        long fim = System.nanoTime();
+        System.out.printf("[inicialização] %-24s %6d ms (concluída em %d ms)%n", nome,
+                TimeUnit.NANOSECONDS.toMillis(fim - inicioFase), TimeUnit.NANOSECONDS.toMillis(fim - inicio));
+    }
+
+    /**
+     * Registra um marco, como a janela visível ou a primeira página exibida
+     */
+    public static void marco(String nome) {
+        System.out.printf("[inicialização] %-24s em %d ms%n", nome,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+    }
+}
@@ -0,0 +1,99 @@
+package metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências sem bloqueio, em microssegundos
+ * Faixas logarítmicas com 8 subdivisões por potência de 2 (erro relativo de até 12,5%),
+ * então a memória é fixa e registrar um valor custa apenas alguns incrementos atômicos
+ */
+public class Histograma {
+    private static final int SUBDIVISOES_BITS = 3;
+    private static final int SUBDIVISOES = 1 << SUBDIVISOES_BITS;
+    // Cobre até 2^40 µs (cerca de 12 dias); valores maiores caem na última faixa
+    private static final int EXPOENTE_MAXIMO = 40;
+    private static final int FAIXAS = SUBDIVISOES + (EXPOENTE_MAXIMO - SUBDIVISOES_BITS + 1) * SUBDIVISOES;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(FAIXAS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    public void registrarNanos(long nanos) {
+        registrar(Math.max(0, nanos / 1000));
+    }
+
+    public void registrar(long micros) {
+        contagens.incrementAndGet(faixa(micros));
+        total.increment();
+        soma.add(micros);
+        if (micros > maximo.get()) {
+            maximo.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    public double getMediaMs() {
+        long n = total.sum();
+        return n == 0 ? 0 : soma.sum() / (n * 1000.0);
+    }
+
+    public double getMaximoMs() {
+        return maximo.get() / 1000.0;
+    }
+
+    /**
+     * Percentil aproximado (0 a 100) em milissegundos, pelo limite superior da faixa
+     */
+    public double getPercentilMs(double percentil) {
+        long n = 0;
+        long[] copia = new long[FAIXAS];
+        for (int i = 0; i < FAIXAS; i++) {
+            copia[i] = contagens.get(i);
+            n += copia[i];
+        }
+        if (n == 0) return 0;
+
+        long alvo = (long) Math.ceil(n * percentil / 100.0);
+        long acumulado = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= Math.max(1, alvo)) {
+                return Math.min(limiteSuperior(i), maximo.get()) / 1000.0;
+            }
+        }
+        return getMaximoMs();
+    }
+
+    public void reiniciar() {
+        for (int i = 0; i < FAIXAS; i++) {
+            contagens.set(i, 0);
+        }
+        total.reset();
+        soma.reset();
+        maximo.set(0);
+    }
+
+    private static int faixa(long valor) {
+        if (valor < SUBDIVISOES) {
+            return (int) valor;
+        }
+        int expoente = Math.min(63 - Long.numberOfLeadingZeros(valor), EXPOENTE_MAXIMO);
+        int subdivisao = (int) (valor >>> (expoente - SUBDIVISOES_BITS)) & (SUBDIVISOES - 1);
+        return Math.min(FAIXAS - 1, SUBDIVISOES + (expoente - SUBDIVISOES_BITS) * SUBDIVISOES + subdivisao);
+    }
+
+    private static long limiteSuperior(int faixa) {
+        if (faixa < SUBDIVISOES) {
+            return faixa;
+        }
+        int expoente = (faixa - SUBDIVISOES) / SUBDIVISOES + SUBDIVISOES_BITS;
+        int subdivisao = (faixa - SUBDIVISOES) % SUBDIVISOES;
+        return ((long) (SUBDIVISOES + subdivisao + 1) << (expoente - SUBDIVISOES_BITS)) - 1;
+    }
+}
@@ -0,0 +1,82 @@
+package metricas;
+
+import java.util.Arrays;
+
+/**
+ * Medição de uma chamada do DAO, iniciada por MetricasDAO.iniciar()
+ * Deve ser encerrada em um bloco finally; não é compartilhada entre threads
+ */
+public class Medicao {
+    private final MetricasDAO metricas;
+    private final MetricasOperacao operacao;
+    private final Medicao anterior;
+    private final long inicio = System.nanoTime();
+    private String sql;
+    private Object[] parametros;
+    private long linhas;
+    private long aquisicaoNanos;
+    private boolean conectou;
+    private boolean erro;
+
+    Medicao(MetricasDAO metricas, MetricasOperacao operacao, Medicao anterior) {
+        this.metricas = metricas;
+        this.operacao = operacao;
+        this.anterior = anterior;
+    }
+
+    /**
+     * Guarda o SQL e os parâmetros para o log de consultas lentas
+     * Os valores só são formatados se a consulta ultrapassar o limite
+     */
+    public Medicao sql(String sql, Object... parametros) {
+        this.sql = sql;
+        this.parametros = parametros;
+        return this;
+    }
+
+    public void linha() {
+        linhas++;
+    }
+
+    public void linhas(long quantidade) {
+        linhas += quantidade;
+    }
+
+    public void erro() {
+        erro = true;
+    }
+
+    void conexaoObtida(long nanos) {
+        aquisicaoNanos += nanos;
+        conectou = true;
+    }
+
+    Medicao getAnterior() {
+        return anterior;
+    }
+
+    public void encerrar() {
+        long duracao = System.nanoTime() - inicio;
+        operacao.registrar(duracao, aquisicaoNanos, conectou, erro, linhas);
+        metricas.encerrar(this, duracao);
+    }
+
+    String descrever(long duracaoNanos) {
+        StringBuilder texto = new StringBuilder()
+                .append(String.format("%.1f ms", duracaoNanos / 1_000_000.0))
+                .append(" em ").append(operacao.getNome());
+        if (conectou) {
+            texto.append(String.format(" (conexão %.1f ms)", aquisicaoNanos / 1_000_000.0));
+        }
+        if (sql != null) {
+            texto.append(": ").append(sql.replaceAll("\\s+", " ").trim());
+        }
+        if (parametros != null && parametros.length > 0) {
+            texto.append(" ").append(Arrays.deepToString(parametros));
+        }
+        if (linhas > 0) {
+            texto.append(" -> ").append(linhas).append(" linha(s)");
+        }
+        return texto.toString();
+    }
+}
@@ -0,0 +1,205 @@
+package metricas;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro das métricas de acesso ao banco, exposto via JMX (domínio "sistemacrud")
+ * Cada operação do DAO tem histograma de latência, chamadas, erros, linhas e tempo de aquisição de conexão
+ * Consultas acima de -Ddao.consultaLenta.ms (padrão 500) são registradas com SQL e parâmetros
+ * Com -Dmetricas.log.segundos=N o resumo é impresso periodicamente
+ * Implementa padrão Singleton
+ */
+public class MetricasDAO implements MetricasDAOMBean {
+    public static final String DOMINIO_JMX = "sistemacrud";
+    private static final int CONSULTAS_LENTAS_GUARDADAS = 50;
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+    private static volatile MetricasDAO instance;
+
+    private final Map<String, MetricasOperacao> operacoes = new ConcurrentHashMap<>();
+    // Medição em andamento na thread, para atribuir o tempo de aquisição de conexão
+    private final ThreadLocal<Medicao> atual = new ThreadLocal<>();
+    private final Histograma aquisicaoConexao = new Histograma();
+    private final LongAdder consultasLentas = new LongAdder();
+    private final Deque<String> ultimasConsultasLentas = new ArrayDeque<>();
+    private volatile long limiteConsultaLentaNanos;
+
+    private MetricasDAO() {
+        limiteConsultaLentaNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("dao.consultaLenta.ms", 500));
+        registrarMBean(DOMINIO_JMX + ":type=MetricasDAO", this);
+
+        int intervaloLog = Integer.getInteger("metricas.log.segundos", 0);
+        if (intervaloLog > 0) {
+            ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metricas-log");
+                t.setDaemon(true);
+                return t;
+            });
+            agendador.scheduleAtFixedRate(() -> System.out.println(resumo()),
+                    intervaloLog, intervaloLog, TimeUnit.SECONDS);
+        }
+    }
+
+    public static MetricasDAO getInstance() {
+        MetricasDAO result = instance;
+        if (result == null) {
+            synchronized (MetricasDAO.class) {
+                result = instance;
+                if (result == null) {
+                    instance = result = new MetricasDAO();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Inicia a medição de uma operação; o chamador deve chamar encerrar() em um finally
+     */
+    public Medicao iniciar(String operacao) {
+        MetricasOperacao metricas = operacoes.computeIfAbsent(operacao, this::criarOperacao);
+        Medicao medicao = new Medicao(this, metricas, atual.get());
+        atual.set(medicao);
+        return medicao;
+    }
+
+    void encerrar(Medicao medicao, long duracaoNanos) {
+        if (medicao.getAnterior() == null) {
+            atual.remove();
+        } else {
+            atual.set(medicao.getAnterior());
+        }
+        if (duracaoNanos >= limiteConsultaLentaNanos) {
+            registrarConsultaLenta(medicao.descrever(duracaoNanos));
+        }
+    }
+
+    /**
+     * Registra o tempo para obter uma conexão do pool, atribuindo-o também à operação em andamento
+     */
+    public void registrarAquisicaoConexao(long nanos) {
+        aquisicaoConexao.registrarNanos(nanos);
+        Medicao medicao = atual.get();
+        if (medicao != null) {
+            medicao.conexaoObtida(nanos);
+        }
+    }
+
+    private void registrarConsultaLenta(String descricao) {
+        consultasLentas.increment();
+        String registro = LocalDateTime.now().format(FORMATO_HORA) + " " + descricao;
+        System.err.println("Consulta lenta: " + registro);
+        synchronized (ultimasConsultasLentas) {
+            if (ultimasConsultasLentas.size() == CONSULTAS_LENTAS_GUARDADAS) {
+                ultimasConsultasLentas.removeFirst();
+            }
+            ultimasConsultasLentas.addLast(registro);
+        }
+    }
+
+    private MetricasOperacao criarOperacao(String nome) {
+        MetricasOperacao metricas = new MetricasOperacao(nome);
+        registrarMBean(DOMINIO_JMX + ":type=MetricasDAO,operacao=" + nome, metricas);
+        return metricas;
+    }
+
+    public MetricasOperacao getOperacao(String nome) {
+        return operacoes.get(nome);
+    }
+
+    /**
+     * Registra um MBean na plataforma; falhas são apenas reportadas
+     */
+    public static void registrarMBean(String nome, Object mbean) {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(nome);
+            if (servidor.isRegistered(objectName)) {
+                servidor.unregisterMBean(objectName);
+            }
+            servidor.registerMBean(mbean, objectName);
+        } catch (JMException e) {
+            System.err.println("Erro ao registrar MBean " + nome + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String[] getOperacoes() {
+        return new TreeMap<>(operacoes).keySet().toArray(new String[0]);
+    }
+
+    @Override
+    public long getLimiteConsultaLentaMs() {
+        return TimeUnit.NANOSECONDS.toMillis(limiteConsultaLentaNanos);
+    }
+
+    @Override
+    public void setLimiteConsultaLentaMs(long limiteMs) {
+        limiteConsultaLentaNanos = TimeUnit.MILLISECONDS.toNanos(limiteMs);
+    }
+
+    @Override
+    public long getConsultasLentas() {
+        return consultasLentas.sum();
+    }
+
+    @Override
+    public String[] getUltimasConsultasLentas() {
+        synchronized (ultimasConsultasLentas) {
+            return ultimasConsultasLentas.toArray(new String[0]);
+        }
+    }
+
+    @Override
+    public double getAquisicaoConexaoMediaMs() {
+        return aquisicaoConexao.getMediaMs();
+    }
+
+    @Override
+    public double getAquisicaoConexaoP99Ms() {
+        return aquisicaoConexao.getPercentilMs(99);
+    }
+
+    /**
+     * Resumo textual das operações já chamadas, em ordem alfabética
+     */
+    @Override
+    public String resumo() {
+        StringBuilder texto = new StringBuilder("Métricas do DAO (")
+                .append(LocalDateTime.now().format(FORMATO_HORA)).append(")");
+        for (MetricasOperacao metricas : new TreeMap<>(operacoes).values()) {
+            if (metricas.getChamadas() > 0) {
+                texto.append("\n  ").append(metricas);
+            }
+        }
+        texto.append(String.format("%n  aquisição de conexão: média=%.3fms p99=%.3fms; consultas lentas=%d",
+                getAquisicaoConexaoMediaMs(), getAquisicaoConexaoP99Ms(), getConsultasLentas()));
+        return texto.toString();
+    }
+
+    @Override
+    public void reiniciar() {
+        for (MetricasOperacao metricas : operacoes.values()) {
+            metricas.reiniciar();
+        }
+        aquisicaoConexao.reiniciar();
+        consultasLentas.reset();
+        synchronized (ultimasConsultasLentas) {
+            ultimasConsultasLentas.clear();
+        }
+    }
+}
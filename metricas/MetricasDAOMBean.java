@@ -0,0 +1,24 @@
+package metricas;
+
+/**
+ * Interface JMX do registro de métricas do DAO
+ */
+public interface MetricasDAOMBean {
+    String[] getOperacoes();
+
+    long getLimiteConsultaLentaMs();
+
+    void setLimiteConsultaLentaMs(long limiteMs);
+
+    long getConsultasLentas();
+
+    String[] getUltimasConsultasLentas();
+
+    double getAquisicaoConexaoMediaMs();
+
+    double getAquisicaoConexaoP99Ms();
+
+    String resumo();
+
+    void reiniciar();
+}
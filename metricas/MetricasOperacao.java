@@ -0,0 +1,101 @@
+package metricas;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores e histogramas de uma operação do DAO (ex.: buscarPorId)
+ */
+public class MetricasOperacao implements MetricasOperacaoMBean {
+    private final String nome;
+    private final Histograma latencia = new Histograma();
+    private final Histograma aquisicaoConexao = new Histograma();
+    private final LongAdder erros = new LongAdder();
+    private final LongAdder linhas = new LongAdder();
+
+    MetricasOperacao(String nome) {
+        this.nome = nome;
+    }
+
+    void registrar(long nanos, long aquisicaoNanos, boolean conectou, boolean erro, long linhasLidas) {
+        latencia.registrarNanos(nanos);
+        if (conectou) {
+            aquisicaoConexao.registrarNanos(aquisicaoNanos);
+        }
+        if (erro) {
+            erros.increment();
+        }
+        if (linhasLidas > 0) {
+            linhas.add(linhasLidas);
+        }
+    }
+
+    @Override
+    public String getNome() {
+        return nome;
+    }
+
+    @Override
+    public long getChamadas() {
+        return latencia.getTotal();
+    }
+
+    @Override
+    public long getErros() {
+        return erros.sum();
+    }
+
+    @Override
+    public long getLinhas() {
+        return linhas.sum();
+    }
+
+    @Override
+    public double getLatenciaMediaMs() {
+        return latencia.getMediaMs();
+    }
+
+    @Override
+    public double getLatenciaP50Ms() {
+        return latencia.getPercentilMs(50);
+    }
+
+    @Override
+    public double getLatenciaP95Ms() {
+        return latencia.getPercentilMs(95);
+    }
+
+    @Override
+    public double getLatenciaP99Ms() {
+        return latencia.getPercentilMs(99);
+    }
+
+    @Override
+    public double getLatenciaMaximaMs() {
+        return latencia.getMaximoMs();
+    }
+
+    @Override
+    public double getAquisicaoConexaoMediaMs() {
+        return aquisicaoConexao.getMediaMs();
+    }
+
+    @Override
+    public double getAquisicaoConexaoP99Ms() {
+        return aquisicaoConexao.getPercentilMs(99);
+    }
+
+    @Override
+    public void reiniciar() {
+        latencia.reiniciar();
+        aquisicaoConexao.reiniciar();
+        erros.reset();
+        linhas.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-22s chamadas=%d erros=%d linhas=%d média=%.2fms p50=%.2fms p95=%.2fms p99=%.2fms máx=%.2fms conexão(média)=%.3fms",
+                nome, getChamadas(), getErros(), getLinhas(), getLatenciaMediaMs(), getLatenciaP50Ms(),
+                getLatenciaP95Ms(), getLatenciaP99Ms(), getLatenciaMaximaMs(), getAquisicaoConexaoMediaMs());
+    }
+}
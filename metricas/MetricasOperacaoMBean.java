@@ -0,0 +1,30 @@
+package metricas;
+
+/**
+ * Interface JMX das métricas de uma operação do DAO
+ */
+public interface MetricasOperacaoMBean {
+    String getNome();
+
+    long getChamadas();
+
+    long getErros();
+
+    long getLinhas();
+
+    double getLatenciaMediaMs();
+
+    double getLatenciaP50Ms();
+
+    double getLatenciaP95Ms();
+
+    double getLatenciaP99Ms();
+
+    double getLatenciaMaximaMs();
+
+    double getAquisicaoConexaoMediaMs();
+
+    double getAquisicaoConexaoP99Ms();
+
+    void reiniciar();
+}
@@ -1,40 +1,75 @@
 package model;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
 /**
  * Classe modelo para representar um Produto
  * Implementa os princípios da POO: encapsulamento
  */
 public class Produto {
+    // Tamanho, em caracteres, da prévia da descrição trazida pelas listagens
+    public static final int TAMANHO_PREVIA_DESCRICAO = 80;
+    
+    // Maior preço que cabe na coluna DECIMAL(10,2)
+    public static final BigDecimal PRECO_MAXIMO = new BigDecimal("99999999.99");
+    // A partir daqui o arredondamento para centavos passa de PRECO_MAXIMO
+    private static final BigDecimal LIMITE_ARREDONDAMENTO = new BigDecimal("99999999.995");
+    
     private int id;
     private String nome;
     private String descricao;
-    private double preco;
+    // Preço em centavos: exato como a coluna DECIMAL(10,2) e sem objeto por produto
+    private long precoCentavos;
     private int quantidade;
     private String categoria;
     
+    // Falso quando a descricao é apenas a prévia trazida por uma listagem
+    private boolean descricaoCompleta = true;
+    
+    // Versão da linha lida do banco; o UPDATE só é aplicado se ela não mudou (controle otimista)
+    private int versao;
+    
+    // Momento da última alteração no banco; preenchido apenas pela sincronização
+    private LocalDateTime dataAtualizacao;
+    
     // Construtor padrão
     public Produto() {
     }
     
     // Construtor com parâmetros
-    public Produto(String nome, String descricao, double preco, int quantidade, String categoria) {
+    public Produto(String nome, String descricao, BigDecimal preco, int quantidade, String categoria) {
         this.nome = nome;
         this.descricao = descricao;
-        this.preco = preco;
+        setPreco(preco);
         this.quantidade = quantidade;
         this.categoria = categoria;
     }
     
     // Construtor completo (com ID)
-    public Produto(int id, String nome, String descricao, double preco, int quantidade, String categoria) {
+    public Produto(int id, String nome, String descricao, BigDecimal preco, int quantidade, String categoria) {
         this.id = id;
         this.nome = nome;
         this.descricao = descricao;
-        this.preco = preco;
+        setPreco(preco);
         this.quantidade = quantidade;
         this.categoria = categoria;
     }
     
+    // Construtor de cópia
+    public Produto(Produto outro) {
+        this.id = outro.id;
+        this.nome = outro.nome;
+        this.descricao = outro.descricao;
+        this.precoCentavos = outro.precoCentavos;
+        this.quantidade = outro.quantidade;
+        this.categoria = outro.categoria;
+        this.descricaoCompleta = outro.descricaoCompleta;
+        this.versao = outro.versao;
+        this.dataAtualizacao = outro.dataAtualizacao;
+    }
+    
     // Getters e Setters
     public int getId() {
         return id;
@@ -58,14 +93,59 @@ public class Produto {
     
     public void setDescricao(String descricao) {
         this.descricao = descricao;
+        this.descricaoCompleta = true;
+    }
+    
+    /**
+     * Guarda apenas o início da descrição; a completa é carregada ao abrir o produto
+     */
+    public void setPreviaDescricao(String previa) {
+        this.descricao = previa;
+        this.descricaoCompleta = false;
+    }
+    
+    public boolean isDescricaoCompleta() {
+        return descricaoCompleta;
+    }
+    
+    /**
+     * Descrição limitada a TAMANHO_PREVIA_DESCRICAO caracteres, com reticências se cortada
+     */
+    public String getPreviaDescricao() {
+        if (descricao == null) {
+            return null;
+        }
+        if (descricao.codePointCount(0, descricao.length()) > TAMANHO_PREVIA_DESCRICAO) {
+            return descricao.substring(0, descricao.offsetByCodePoints(0, TAMANHO_PREVIA_DESCRICAO)) + "…";
+        }
+        return descricaoCompleta ? descricao : descricao + "…";
+    }
+    
+    /**
+     * Preço com duas casas decimais
+     */
+    public BigDecimal getPreco() {
+        return BigDecimal.valueOf(precoCentavos, 2);
     }
     
-    public double getPreco() {
-        return preco;
+    /**
+     * Arredonda para centavos (meio para cima), como o banco faz ao gravar em DECIMAL(10,2)
+     * Lança IllegalArgumentException se o preço não cabe na coluna (comparado antes do
+     * arredondamento, que expandiria expoentes como 1E+999999999)
+     */
+    public void setPreco(BigDecimal preco) {
+        if (preco.abs().compareTo(LIMITE_ARREDONDAMENTO) >= 0) {
+            throw new IllegalArgumentException("preço fora do limite de " + PRECO_MAXIMO.toPlainString());
+        }
+        this.precoCentavos = preco.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
     }
     
-    public void setPreco(double preco) {
-        this.preco = preco;
+    public long getPrecoCentavos() {
+        return precoCentavos;
+    }
+    
+    public void setPrecoCentavos(long precoCentavos) {
+        this.precoCentavos = precoCentavos;
     }
     
     public int getQuantidade() {
@@ -84,13 +164,29 @@ public class Produto {
         this.categoria = categoria;
     }
     
+    public int getVersao() {
+        return versao;
+    }
+    
+    public void setVersao(int versao) {
+        this.versao = versao;
+    }
+    
+    public LocalDateTime getDataAtualizacao() {
+        return dataAtualizacao;
+    }
+    
+    public void setDataAtualizacao(LocalDateTime dataAtualizacao) {
+        this.dataAtualizacao = dataAtualizacao;
+    }
+    
     @Override
     public String toString() {
         return "Produto{" +
                 "id=" + id +
                 ", nome='" + nome + '\'' +
                 ", descricao='" + descricao + '\'' +
-                ", preco=" + preco +
+                ", preco=" + getPreco() +
                 ", quantidade=" + quantidade +
                 ", categoria='" + categoria + '\'' +
                 '}';
@@ -0,0 +1,511 @@
+package service;
+
+import busca.IndiceTrigramas;
+import dao.Cancelamento;
+import dao.FilaGravacao;
+import dao.FiltroProdutos;
+import dao.ProdutoDAO;
+import estatisticas.ResumoEstoque;
+import estatisticas.SnapshotEstoque;
+import model.Produto;
+import sincronizacao.CatalogoLocal;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Camada de serviço assíncrona sobre o ProdutoDAO
+ * Executa o acesso ao banco fora da thread do Swing (EDT) e devolve CompletableFutures
+ * Com a cópia local aberta e o banco ainda não conectado (abertura ou falha de conexão),
+ * as leituras vêm do CatalogoLocal e as gravações são recusadas
+ */
+public class ProdutoService {
+    private static final int THREADS = 4;
+
+    /**
+     * Executor que entrega a continuação na thread do Swing
+     */
+    public static final Executor EDT = SwingUtilities::invokeLater;
+
+    // Canais de requisições que se substituem: a mais nova cancela a anterior
+    private static final String CANAL_BUSCA = "busca";
+    private static final String CANAL_SELECAO = "selecao";
+
+    // Tempo máximo para gravar a fila de gravação adiada ao desativá-la ou encerrar
+    private static final long TEMPO_DESCARGA_MS = 10_000;
+
+    private final ProdutoDAO produtoDAO;
+    private final ExecutorService executor;
+    private final Map<String, Cancelamento> canais = new ConcurrentHashMap<>();
+    private volatile FilaGravacao filaGravacao;
+    private volatile Consumer<List<Produto>> ouvinteRecusasGravacao;
+    private volatile CatalogoLocal catalogoLocal;
+    private volatile boolean conectado;
+    // Carga do índice de busca a partir da cópia local, que precede a aplicação das alterações do banco
+    private volatile CompletableFuture<Void> indiceCatalogoLocal = CompletableFuture.completedFuture(null);
+    private final Object travaCatalogo = new Object();
+
+    public ProdutoService(ProdutoDAO produtoDAO) {
+        this.produtoDAO = produtoDAO;
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(THREADS, r -> {
+            Thread t = new Thread(r, "produto-service-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public ProdutoDAO getProdutoDAO() {
+        return produtoDAO;
+    }
+
+    /**
+     * Insere o produto e devolve a linha gravada (com o id gerado) ou null em caso de falha
+     */
+    public CompletableFuture<Produto> inserir(Produto produto) {
+        if (isSomenteLeitura()) {
+            return recusarGravacao();
+        }
+        return executar(() -> produtoDAO.inserir(produto) ? produto : null);
+    }
+
+    /**
+     * Atualiza o produto e devolve a linha gravada ou null em caso de falha
+     * Se outra estação gravou o produto depois de lido, completa com ConflitoVersaoException
+     * Com a gravação adiada ativa, devolve o produto assim que a alteração entra na fila
+     * (e está no diário); o UPDATE é feito depois pelo gravador, com a mesma verificação de
+     * versão, e um conflito é informado ao ouvinte de recusas
+     */
+    public CompletableFuture<Produto> atualizar(Produto produto) {
+        if (isSomenteLeitura()) {
+            return recusarGravacao();
+        }
+        FilaGravacao fila = filaGravacao;
+        if (fila == null || !produto.isDescricaoCompleta()) {
+            return executar(() -> produtoDAO.atualizar(produto) ? produto : null);
+        }
+        return executar(() -> {
+            try {
+                fila.enfileirar(produto);
+                return produto;
+            } catch (IOException e) {
+                System.err.println("Erro ao registrar alteração no diário de gravações: " + e.getMessage());
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (IllegalStateException e) {
+                // Fila desativada enquanto a alteração esperava espaço
+                return produtoDAO.atualizar(produto) ? produto : null;
+            }
+        });
+    }
+
+    /**
+     * Ouvinte das alterações da gravação adiada recusadas pelo banco ou em conflito de versão, já descartadas (chamado fora
+     * da EDT); vale para as filas abertas depois de definido
+     */
+    public void setOuvinteRecusasGravacao(Consumer<List<Produto>> ouvinte) {
+        this.ouvinteRecusasGravacao = ouvinte;
+    }
+
+    /**
+     * Passa a enfileirar as atualizações (ver FilaGravacao); alterações deixadas no diário
+     * por uma execução anterior são regravadas
+     */
+    public synchronized void ativarGravacaoAdiada() throws IOException {
+        if (filaGravacao == null) {
+            filaGravacao = new FilaGravacao(produtoDAO, FilaGravacao.ARQUIVO_PADRAO, ouvinteRecusasGravacao);
+        }
+    }
+
+    /**
+     * Volta às atualizações síncronas depois de gravar o que estiver na fila
+     * Retorna false se alguma alteração ficou no diário sem ser gravada
+     */
+    public synchronized boolean desativarGravacaoAdiada() {
+        FilaGravacao fila = filaGravacao;
+        if (fila == null) {
+            return true;
+        }
+        filaGravacao = null;
+        return fila.encerrar(TEMPO_DESCARGA_MS);
+    }
+
+    public boolean isGravacaoAdiada() {
+        return filaGravacao != null;
+    }
+
+    /**
+     * Com a gravação adiada desativada, grava as alterações que uma execução anterior deixou
+     * no diário e devolve quantas eram
+     */
+    public CompletableFuture<Integer> recuperarGravacoesPendentes() {
+        return executar(() -> {
+            try {
+                if (filaGravacao != null || !Files.exists(FilaGravacao.ARQUIVO_PADRAO)
+                        || Files.size(FilaGravacao.ARQUIVO_PADRAO) == 0) {
+                    return 0;
+                }
+                FilaGravacao fila = new FilaGravacao(produtoDAO, FilaGravacao.ARQUIVO_PADRAO, ouvinteRecusasGravacao);
+                int recuperadas = fila.getPendentes();
+                fila.encerrar(TEMPO_DESCARGA_MS);
+                return recuperadas;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Soma delta ao estoque e devolve a nova quantidade, ou null se o produto não existe
+     * ou o estoque é insuficiente
+     */
+    public CompletableFuture<Integer> ajustarEstoque(int id, int delta) {
+        if (isSomenteLeitura()) {
+            return recusarGravacao();
+        }
+        return executar(() -> {
+            // Uma alteração do produto ainda na fila sobrescreveria a quantidade ajustada
+            if (!descarregarPendentes(List.of(id))) {
+                return null;
+            }
+            int quantidade = produtoDAO.ajustarEstoque(id, delta);
+            return quantidade >= 0 ? quantidade : null;
+        });
+    }
+
+    public CompletableFuture<Boolean> excluir(int id) {
+        if (isSomenteLeitura()) {
+            return recusarGravacao();
+        }
+        return executar(() -> produtoDAO.excluir(id));
+    }
+
+    /**
+     * Operações em lote sobre a seleção da tabela; resultam em null se a gravação falhar
+     * Alterações ainda na fila da gravação adiada são gravadas antes, para não sobrescreverem o lote
+     */
+    public CompletableFuture<List<Integer>> excluirEmLote(List<Integer> ids) {
+        if (isSomenteLeitura()) {
+            return recusarGravacao();
+        }
+        return executar(() -> descarregarPendentes(ids) ? produtoDAO.excluirEmLote(ids) : null);
+    }
+
+    public CompletableFuture<List<Produto>> alterarCategoriaEmLote(List<Integer> ids, String categoria) {
+        if (isSomenteLeitura()) {
+            return recusarGravacao();
+        }
+        return executar(() -> descarregarPendentes(ids) ? produtoDAO.alterarCategoriaEmLote(ids, categoria) : null);
+    }
+
+    public CompletableFuture<List<Produto>> reajustarPrecoEmLote(List<Integer> ids, BigDecimal percentual) {
+        if (isSomenteLeitura()) {
+            return recusarGravacao();
+        }
+        return executar(() -> descarregarPendentes(ids) ? produtoDAO.reajustarPrecoEmLote(ids, percentual) : null);
+    }
+
+    public CompletableFuture<List<Produto>> definirQuantidadeEmLote(List<Integer> ids, int quantidade) {
+        if (isSomenteLeitura()) {
+            return recusarGravacao();
+        }
+        return executar(() -> descarregarPendentes(ids) ? produtoDAO.definirQuantidadeEmLote(ids, quantidade) : null);
+    }
+
+    public CompletableFuture<Integer> contar() {
+        return executar(() -> {
+            CatalogoLocal local = catalogoSemConexao();
+            return local != null ? local.getQuantidade() : produtoDAO.contar();
+        });
+    }
+
+    public CompletableFuture<Integer> contarAte(int ultimoId) {
+        return executar(() -> {
+            CatalogoLocal local = catalogoSemConexao();
+            return local != null ? local.contarAte(ultimoId) : produtoDAO.contarAte(ultimoId);
+        });
+    }
+
+    public CompletableFuture<Integer> buscarUltimoId() {
+        return executar(() -> {
+            CatalogoLocal local = catalogoSemConexao();
+            return local != null ? local.getUltimoId() : produtoDAO.buscarUltimoId();
+        });
+    }
+
+    public CompletableFuture<Integer> contar(FiltroProdutos filtro) {
+        return executar(() -> {
+            CatalogoLocal local = catalogoSemConexao();
+            return local != null ? local.contar(filtro) : produtoDAO.contar(filtro);
+        });
+    }
+
+    /**
+     * Página da tabela; sem conexão, decodificada da cópia local só para as linhas pedidas
+     */
+    public CompletableFuture<List<Produto>> listarPagina(FiltroProdutos filtro, Produto apos, int deslocamento,
+                                                         int limite) {
+        return executar(() -> {
+            CatalogoLocal local = catalogoSemConexao();
+            return local != null
+                    ? local.listarPagina(filtro, apos, deslocamento, limite)
+                    : produtoDAO.listarPagina(filtro, apos, deslocamento, limite, null);
+        });
+    }
+
+    public CompletableFuture<Map<String, Integer>> contarPorCategoria() {
+        return executar(() -> {
+            CatalogoLocal local = catalogoSemConexao();
+            return local != null ? local.contarPorCategoria() : produtoDAO.contarPorCategoria();
+        });
+    }
+
+    /**
+     * Abre a cópia local gravada pela execução anterior e devolve quantos produtos ela tem
+     * (0 se não houver cópia); até a conexão, as páginas da tabela são lidas dela
+     * O índice de busca é carregado da cópia em seguida
+     */
+    public CompletableFuture<Integer> abrirCatalogoLocal() {
+        CompletableFuture<CatalogoLocal> abertura = executar(() -> {
+            try {
+                CatalogoLocal catalogo = CatalogoLocal.abrir(CatalogoLocal.DIRETORIO_PADRAO);
+                catalogoLocal = catalogo;
+                return catalogo;
+            } catch (IOException e) {
+                System.err.println("Erro ao abrir a cópia local: " + e.getMessage());
+                return null;
+            }
+        });
+        indiceCatalogoLocal = abertura.thenAcceptAsync(catalogo -> {
+            if (catalogo == null) return;
+            try {
+                IndiceTrigramas.getInstance().construir(catalogo);
+            } catch (IOException e) {
+                System.err.println("Erro ao carregar índice de busca da cópia local: " + e.getMessage());
+            }
+        }, executor);
+        return abertura.thenApply(catalogo -> catalogo != null ? catalogo.getQuantidade() : 0);
+    }
+
+    /**
+     * Passa a ler e gravar no banco; chamado quando a conexão fica pronta
+     */
+    public void marcarConectado() {
+        conectado = true;
+    }
+
+    /**
+     * Indica se as leituras vêm da cópia local (banco ainda não conectado) e as gravações são recusadas
+     */
+    public boolean isSomenteLeitura() {
+        return catalogoSemConexao() != null;
+    }
+
+    /**
+     * Instante (relógio do banco) até o qual a cópia local está atualizada, ou null sem cópia
+     */
+    public LocalDateTime getCatalogoLocalAtualizadoAte() {
+        CatalogoLocal catalogo = catalogoLocal;
+        return catalogo != null ? catalogo.getAtualizadaAte() : null;
+    }
+
+    /**
+     * Carrega o índice de busca em segundo plano; até terminar, a busca usa o banco
+     * O índice vem da cópia local: na primeira execução ela é gravada antes (uma única leitura
+     * do banco serve às duas); depois, só as alterações desde a última gravação são lidas e
+     * aplicadas à cópia e, pelo DAO, ao índice já carregado dela
+     */
+    public CompletableFuture<Void> carregarIndiceBusca() {
+        return indiceCatalogoLocal.thenRunAsync(() -> {
+            IndiceTrigramas indice = IndiceTrigramas.getInstance();
+            try {
+                CatalogoLocal catalogo = atualizarCatalogoLocal();
+                if (catalogo.isCompleta()) {
+                    indice.construir(catalogo);
+                    if (SnapshotEstoque.getInstance().isPronto()) {
+                        SnapshotEstoque.getInstance().construir(catalogo);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Erro ao gravar a cópia local: " + e.getMessage());
+                try {
+                    indice.construir(produtoDAO);
+                } catch (IOException erroIndice) {
+                    throw new UncheckedIOException(erroIndice);
+                }
+            }
+        }, executor);
+    }
+
+    /**
+     * Grava a cópia local na primeira vez e depois a atualiza pelas alterações do banco
+     */
+    private CatalogoLocal atualizarCatalogoLocal() throws IOException {
+        synchronized (travaCatalogo) {
+            CatalogoLocal atual = catalogoLocal;
+            CatalogoLocal novo = atual == null
+                    ? CatalogoLocal.gravarCompleta(CatalogoLocal.DIRETORIO_PADRAO, produtoDAO)
+                    : atual.atualizar(produtoDAO);
+            catalogoLocal = novo;
+            return novo;
+        }
+    }
+
+    /**
+     * Calcula as estatísticas de estoque, carregando o snapshot colunar na primeira chamada
+     */
+    public CompletableFuture<ResumoEstoque> calcularEstatisticas(int limiteEstoqueBaixo, int maximoEstoqueBaixo,
+                                                                 long[] faixasPrecoCentavos) {
+        return executar(() -> {
+            SnapshotEstoque snapshot = SnapshotEstoque.getInstance();
+            if (!snapshot.isPronto()) {
+                CatalogoLocal local = catalogoSemConexao();
+                try {
+                    snapshot.construir(local != null ? local : produtoDAO);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return snapshot.calcular(limiteEstoqueBaixo, maximoEstoqueBaixo, faixasPrecoCentavos);
+        });
+    }
+
+    public CompletableFuture<List<Produto>> buscarPorIds(int[] ids) {
+        return executar(() -> {
+            CatalogoLocal local = catalogoSemConexao();
+            return local != null ? local.buscarPorIds(ids) : produtoDAO.buscarPorIds(ids, null);
+        });
+    }
+
+    /**
+     * Busca por nome limitada aos primeiros resultados
+     * Uma busca mais recente cancela a anterior ainda em execução
+     */
+    public CompletableFuture<List<Produto>> buscarPorNome(String nome, int limite) {
+        return executarSubstituindo(CANAL_BUSCA, cancelamento -> {
+            CatalogoLocal local = catalogoSemConexao();
+            if (local == null) {
+                return produtoDAO.buscarPorNome(nome, limite, cancelamento);
+            }
+            IndiceTrigramas indice = IndiceTrigramas.getInstance();
+            return indice.isPronto() ? local.buscarPorIds(indice.buscar(nome, limite)) : local.buscarPorNome(nome, limite);
+        });
+    }
+
+    /**
+     * Busca por id para a seleção da tabela; uma seleção mais recente cancela a anterior
+     */
+    public CompletableFuture<Produto> buscarPorId(int id) {
+        return executarSubstituindo(CANAL_SELECAO, cancelamento -> {
+            CatalogoLocal local = catalogoSemConexao();
+            if (local != null) {
+                return local.buscarPorId(id);
+            }
+            // Uma alteração ainda na fila é mais nova que a linha do banco
+            FilaGravacao fila = filaGravacao;
+            Produto pendente = fila != null ? fila.pendente(id) : null;
+            return pendente != null ? pendente : produtoDAO.buscarPorId(id, cancelamento);
+        });
+    }
+
+    /**
+     * Executa uma tarefa arbitrária no executor do serviço
+     */
+    public <T> CompletableFuture<T> executar(Supplier<T> tarefa) {
+        return CompletableFuture.supplyAsync(tarefa, executor);
+    }
+
+    private CatalogoLocal catalogoSemConexao() {
+        return conectado ? null : catalogoLocal;
+    }
+
+    /**
+     * Grava a fila da gravação adiada se algum dos ids tem alteração pendente
+     * Retorna false se a thread foi interrompida na espera
+     */
+    private boolean descarregarPendentes(List<Integer> ids) {
+        FilaGravacao fila = filaGravacao;
+        if (fila == null || ids.stream().noneMatch(id -> fila.pendente(id) != null)) {
+            return true;
+        }
+        try {
+            fila.descarregar(TEMPO_DESCARGA_MS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static <T> CompletableFuture<T> recusarGravacao() {
+        return CompletableFuture.failedFuture(
+                new IllegalStateException("Sem conexão com o banco de dados: cópia local somente para leitura"));
+    }
+
+    private <T> CompletableFuture<T> executarSubstituindo(String canal, Function<Cancelamento, T> tarefa) {
+        Cancelamento cancelamento = new Cancelamento();
+        Cancelamento anterior = canais.put(canal, cancelamento);
+        if (anterior != null) {
+            anterior.cancelar();
+        }
+
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        futuro.whenComplete((resultado, erro) -> {
+            if (futuro.isCancelled()) {
+                cancelamento.cancelar();
+            }
+        });
+
+        executor.execute(() -> {
+            try {
+                if (cancelamento.isCancelado()) {
+                    futuro.cancel(false);
+                    return;
+                }
+                T resultado = tarefa.apply(cancelamento);
+                if (cancelamento.isCancelado()) {
+                    futuro.cancel(false);
+                } else {
+                    futuro.complete(resultado);
+                }
+            } catch (Throwable t) {
+                futuro.completeExceptionally(t);
+            } finally {
+                canais.remove(canal, cancelamento);
+            }
+        });
+        return futuro;
+    }
+
+    /**
+     * Grava a fila de gravação adiada, atualiza a cópia local e para o executor
+     */
+    public void encerrar() {
+        desativarGravacaoAdiada();
+        if (conectado && catalogoLocal != null) {
+            try {
+                atualizarCatalogoLocal();
+            } catch (IOException e) {
+                System.err.println("Erro ao atualizar a cópia local: " + e.getMessage());
+            }
+        }
+        executor.shutdownNow();
+    }
+}
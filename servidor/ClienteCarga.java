@@ -0,0 +1,164 @@
+package servidor;
+
+import metricas.Histograma;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Gerador de carga para o ServidorProdutos
+ * Cada cliente repete requisições sem pausa: 50% GET /produtos/{id}, 20% listagem paginada,
+ * 20% busca por nome e 10% listagem condicional com If-None-Match (espera 304)
+ * Ids e termos de busca vêm de uma amostra lida antes da medição
+ */
+public class ClienteCarga {
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+    private static final Pattern NOME = Pattern.compile("\"nome\":\"([^\"\\\\]{3,})");
+
+    private final URI base;
+    private final HttpClient cliente;
+    private final Map<String, Operacao> operacoes = new LinkedHashMap<>();
+
+    public ClienteCarga(URI base) {
+        this.base = base;
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (String nome : new String[] {"obter", "listar", "buscar", "listar condicional"}) {
+            operacoes.put(nome, new Operacao(nome));
+        }
+    }
+
+    /**
+     * Executa a carga com o número de clientes concorrentes pelo tempo dado e imprime o relatório
+     * Retorna false se a amostra inicial não pôde ser lida
+     */
+    public boolean executar(int clientes, int segundos) throws InterruptedException {
+        List<Integer> ids = new ArrayList<>();
+        List<String> termos = new ArrayList<>();
+        String etag;
+        try {
+            HttpResponse<String> amostra = enviar(get("/produtos?limite=500"));
+            if (amostra.statusCode() != 200) {
+                System.err.println("Amostra inicial falhou: HTTP " + amostra.statusCode());
+                return false;
+            }
+            Matcher id = ID.matcher(amostra.body());
+            while (id.find()) ids.add(Integer.parseInt(id.group(1)));
+            Matcher nome = NOME.matcher(amostra.body());
+            while (nome.find()) termos.add(nome.group(1).substring(0, 3));
+            etag = amostra.headers().firstValue("ETag").orElse(null);
+        } catch (IOException e) {
+            System.err.println("Servidor inacessível em " + base + ": " + e.getMessage());
+            return false;
+        }
+        if (ids.isEmpty()) {
+            System.err.println("Nenhum produto cadastrado para a carga");
+            return false;
+        }
+
+        System.out.printf("Carga em %s: %d cliente(s) por %d s (amostra de %d produtos)%n",
+                base, clientes, segundos, ids.size());
+        long fim = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        long inicio = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(clientes);
+        for (int i = 0; i < clientes; i++) {
+            executor.execute(() -> {
+                ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+                while (System.nanoTime() < fim) {
+                    int sorteio = aleatorio.nextInt(100);
+                    if (sorteio < 50) {
+                        medir(operacoes.get("obter"), get("/produtos/" + ids.get(aleatorio.nextInt(ids.size()))), 200);
+                    } else if (sorteio < 70) {
+                        int apos = ids.get(aleatorio.nextInt(ids.size()));
+                        medir(operacoes.get("listar"), get("/produtos?limite=50&apos=" + apos), 200);
+                    } else if (sorteio < 90) {
+                        String termo = URLEncoder.encode(termos.get(aleatorio.nextInt(termos.size())), StandardCharsets.UTF_8);
+                        medir(operacoes.get("buscar"), get("/produtos/busca?limite=20&q=" + termo), 200);
+                    } else {
+                        HttpRequest.Builder condicional = get("/produtos?limite=500");
+                        if (etag != null) condicional.header("If-None-Match", etag);
+                        medir(operacoes.get("listar condicional"), condicional, etag != null ? 304 : 200);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(segundos + 60L, TimeUnit.SECONDS);
+        double duracao = (System.nanoTime() - inicio) / 1e9;
+
+        long total = 0;
+        long erros = 0;
+        for (Operacao operacao : operacoes.values()) {
+            System.out.println("  " + operacao.relatorio(duracao));
+            total += operacao.latencia.getTotal();
+            erros += operacao.erros.sum();
+        }
+        System.out.printf("Total: %d requisições, %.1f req/s, %d erro(s)%n", total, total / duracao, erros);
+        return true;
+    }
+
+    private HttpRequest.Builder get(String caminho) {
+        return HttpRequest.newBuilder(base.resolve(caminho)).timeout(Duration.ofSeconds(30)).GET();
+    }
+
+    private HttpResponse<String> enviar(HttpRequest.Builder requisicao) throws IOException {
+        try {
+            return cliente.send(requisicao.build(), HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrompido", e);
+        }
+    }
+
+    /**
+     * Conta como erro qualquer status diferente do esperado ou falha de conexão
+     */
+    private void medir(Operacao operacao, HttpRequest.Builder requisicao, int statusEsperado) {
+        long inicio = System.nanoTime();
+        try {
+            HttpResponse<String> resposta = enviar(requisicao);
+            operacao.latencia.registrarNanos(System.nanoTime() - inicio);
+            if (resposta.statusCode() != statusEsperado) {
+                operacao.erros.increment();
+            }
+        } catch (IOException e) {
+            operacao.latencia.registrarNanos(System.nanoTime() - inicio);
+            operacao.erros.increment();
+        }
+    }
+
+    private static final class Operacao {
+        private final String nome;
+        private final Histograma latencia = new Histograma();
+        private final LongAdder erros = new LongAdder();
+
+        private Operacao(String nome) {
+            this.nome = nome;
+        }
+
+        private String relatorio(double duracaoSegundos) {
+            return String.format("%-20s requisições=%d req/s=%.1f erros=%d p50=%.2fms p99=%.2fms máx=%.2fms",
+                    nome, latencia.getTotal(), latencia.getTotal() / duracaoSegundos, erros.sum(),
+                    latencia.getPercentilMs(50), latencia.getPercentilMs(99), latencia.getMaximoMs());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package servidor;
+
+import model.Produto;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Codificação JSON da API: produtos na saída e objetos planos (sem aninhamento) na entrada
+ * Números de entrada viram BigDecimal, para que o preço não passe por double na leitura
+ */
+final class Json {
+    private Json() {
+    }
+
+    static void produto(StringBuilder saida, Produto produto) {
+        saida.append("{\"id\":").append(produto.getId());
+        saida.append(",\"nome\":");
+        texto(saida, produto.getNome());
+        saida.append(",\"descricao\":");
+        texto(saida, produto.getDescricao());
+        if (!produto.isDescricaoCompleta()) {
+            // Listagens trazem só a prévia; a descrição completa vem em GET /produtos/{id}
+            saida.append(",\"descricaoCompleta\":false");
+        }
+        saida.append(",\"preco\":").append(produto.getPreco().toPlainString());
+        saida.append(",\"quantidade\":").append(produto.getQuantidade());
+        saida.append(",\"categoria\":");
+        texto(saida, produto.getCategoria());
+        saida.append(",\"versao\":").append(produto.getVersao());
+        saida.append('}');
+    }
+
+    static void texto(StringBuilder saida, String valor) {
+        if (valor == null) {
+            saida.append("null");
+            return;
+        }
+        saida.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"': saida.append("\\\""); break;
+                case '\\': saida.append("\\\\"); break;
+                case '\n': saida.append("\\n"); break;
+                case '\r': saida.append("\\r"); break;
+                case '\t': saida.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        saida.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        saida.append(c);
+                    }
+            }
+        }
+        saida.append('"');
+    }
+
+    /**
+     * Lê um objeto JSON plano; valores são String, BigDecimal, Boolean ou null
+     * Lança IllegalArgumentException se o texto não for um objeto desse tipo
+     */
+    static Map<String, Object> lerObjeto(String json) {
+        Leitor leitor = new Leitor(json);
+        Map<String, Object> objeto = leitor.objeto();
+        leitor.espacos();
+        if (!leitor.fim()) {
+            throw leitor.erro("conteúdo após o objeto");
+        }
+        return objeto;
+    }
+
+    private static final class Leitor {
+        private final String texto;
+        private int posicao;
+
+        private Leitor(String texto) {
+            this.texto = texto;
+        }
+
+        private Map<String, Object> objeto() {
+            Map<String, Object> objeto = new LinkedHashMap<>();
+            esperar('{');
+            espacos();
+            if (consumir('}')) {
+                return objeto;
+            }
+            do {
+                espacos();
+                String chave = texto();
+                espacos();
+                esperar(':');
+                espacos();
+                objeto.put(chave, valor());
+                espacos();
+            } while (consumir(','));
+            esperar('}');
+            return objeto;
+        }
+
+        private Object valor() {
+            if (fim()) {
+                throw erro("valor ausente");
+            }
+            char c = texto.charAt(posicao);
+            if (c == '"') return texto();
+            if (texto.startsWith("null", posicao)) {
+                posicao += 4;
+                return null;
+            }
+            if (texto.startsWith("true", posicao)) {
+                posicao += 4;
+                return Boolean.TRUE;
+            }
+            if (texto.startsWith("false", posicao)) {
+                posicao += 5;
+                return Boolean.FALSE;
+            }
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                int inicio = posicao;
+                while (!fim() && "+-.eE0123456789".indexOf(texto.charAt(posicao)) >= 0) {
+                    posicao++;
+                }
+                try {
+                    return new BigDecimal(texto.substring(inicio, posicao));
+                } catch (NumberFormatException e) {
+                    throw erro("número inválido");
+                }
+            }
+            throw erro("apenas objetos planos são aceitos");
+        }
+
+        private String texto() {
+            esperar('"');
+            StringBuilder valor = new StringBuilder();
+            while (true) {
+                if (fim()) {
+                    throw erro("texto sem fim");
+                }
+                char c = texto.charAt(posicao++);
+                if (c == '"') {
+                    return valor.toString();
+                }
+                if (c != '\\') {
+                    valor.append(c);
+                    continue;
+                }
+                if (fim()) {
+                    throw erro("escape incompleto");
+                }
+                char escape = texto.charAt(posicao++);
+                switch (escape) {
+                    case 'n': valor.append('\n'); break;
+                    case 'r': valor.append('\r'); break;
+                    case 't': valor.append('\t'); break;
+                    case 'b': valor.append('\b'); break;
+                    case 'f': valor.append('\f'); break;
+                    case 'u':
+                        if (posicao + 4 > texto.length()) {
+                            throw erro("escape incompleto");
+                        }
+                        try {
+                            valor.append((char) Integer.parseInt(texto.substring(posicao, posicao + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw erro("escape inválido");
+                        }
+                        posicao += 4;
+                        break;
+                    default: valor.append(escape);
+                }
+            }
+        }
+
+        private void espacos() {
+            while (!fim() && Character.isWhitespace(texto.charAt(posicao))) {
+                posicao++;
+            }
+        }
+
+        private boolean consumir(char c) {
+            if (!fim() && texto.charAt(posicao) == c) {
+                posicao++;
+                return true;
+            }
+            return false;
+        }
+
+        private void esperar(char c) {
+            if (!consumir(c)) {
+                throw erro("esperado '" + c + "'");
+            }
+        }
+
+        private boolean fim() {
+            return posicao >= texto.length();
+        }
+
+        private IllegalArgumentException erro(String mensagem) {
+            return new IllegalArgumentException("JSON inválido na posição " + posicao + ": " + mensagem);
+        }
+    }
+}
@@ -0,0 +1,661 @@
+package servidor;
+
+import busca.IndiceTrigramas;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dao.CacheProdutos;
+import dao.CampoOrdenacao;
+import dao.ConflitoVersaoException;
+import dao.FiltroProdutos;
+import dao.ProdutoDAO;
+import model.Produto;
+import sincronizacao.SincronizadorProdutos;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * API HTTP/JSON sobre o ProdutoDAO, para terminais e scripts (modo servidor, sem interface)
+ * Usa o HttpServer do JDK com uma thread virtual por requisição quando a JVM oferece (Java 21+)
+ * e, nas anteriores, um pool de -Dservidor.threads threads; todas as requisições dividem o pool
+ * de conexões do DatabaseConnection
+ * Listagens têm ETag derivada da geração do CacheProdutos, que muda a cada gravação local ou
+ * lida pela sincronização: um If-None-Match igual recebe 304 sem consulta ao banco
+ * Corpos de resposta são escritos em streaming (chunked); GET /produtos/todos percorre a
+ * tabela com cursor no servidor sem juntá-la em memória
+ *
+ * GET    /produtos?apos=&limite=&ordem=&categoria=&nome=&precoMin=&precoMax=&quantidadeMin=&quantidadeMax=
+ * GET    /produtos/todos
+ * GET    /produtos/busca?q=&limite=
+ * GET    /produtos/contagem (mesmos filtros da listagem)
+ * GET    /produtos/{id}            ETag com a versão do produto
+ * POST   /produtos
+ * PUT    /produtos/{id}            If-Match opcional com a versão lida
+ * DELETE /produtos/{id}
+ * POST   /produtos/{id}/estoque    {"delta": n}
+ * GET    /categorias
+ */
+public class ServidorProdutos {
+    public static final int PORTA_PADRAO = 8080;
+
+    private static final int THREADS_PLATAFORMA = Integer.getInteger("servidor.threads", 32);
+    private static final int LIMITE_PADRAO = 50;
+    private static final int LIMITE_MAXIMO = 1000;
+    private static final int TAMANHO_MAXIMO_CORPO = 64 * 1024;
+    private static final String TIPO_JSON = "application/json; charset=utf-8";
+
+    static {
+        // Cabeçalhos e corpo saem em escritas separadas; com o algoritmo de Nagle o corpo espera
+        // o ACK atrasado do cliente (cerca de 40 ms por resposta)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final ProdutoDAO produtoDAO;
+    private final HttpServer servidor;
+    private final ExecutorService executor;
+    private final boolean threadsVirtuais;
+    private final SincronizadorProdutos sincronizador;
+    // Distingue as ETags desta execução das de uma anterior, em que a geração recomeçou do zero
+    private final String prefixoEtag = Long.toString(System.currentTimeMillis(), 36);
+
+    public ServidorProdutos(ProdutoDAO produtoDAO, int porta) throws IOException {
+        this.produtoDAO = produtoDAO;
+        this.servidor = HttpServer.create(new InetSocketAddress(porta), 0);
+        ExecutorService virtuais = criarExecutorVirtual();
+        this.threadsVirtuais = virtuais != null;
+        this.executor = virtuais != null ? virtuais : criarPool();
+        servidor.setExecutor(executor);
+        servidor.createContext("/produtos", this::tratar);
+        servidor.createContext("/categorias", this::tratar);
+
+        // As alterações de outras estações chegam ao DAO pela sincronização, que invalida o
+        // cache (e muda as ETags); não há tabela para atualizar
+        this.sincronizador = new SincronizadorProdutos(produtoDAO, new SincronizadorProdutos.OuvinteSincronizacao() {
+            @Override
+            public void aplicar(List<Produto> alterados, List<Integer> excluidos) {
+            }
+
+            @Override
+            public void recarregar() {
+            }
+        }, Runnable::run);
+    }
+
+    public void iniciar() {
+        servidor.start();
+        sincronizador.iniciar();
+        executor.execute(() -> {
+            try {
+                IndiceTrigramas.getInstance().construir(produtoDAO);
+            } catch (IOException e) {
+                System.err.println("Erro ao carregar índice de busca: " + e.getMessage());
+            }
+        });
+        System.out.println("Servidor HTTP na porta " + getPorta() + " ("
+                + (threadsVirtuais ? "threads virtuais" : THREADS_PLATAFORMA + " threads") + ")");
+    }
+
+    /**
+     * Para de aceitar conexões e espera as requisições em andamento por até esperaSegundos
+     */
+    public void parar(int esperaSegundos) {
+        sincronizador.parar();
+        servidor.stop(esperaSegundos);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(esperaSegundos, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor por reflexão, pois o projeto compila com Java 17
+     * Retorna null se a JVM não tiver threads virtuais
+     */
+    private static ExecutorService criarExecutorVirtual() {
+        try {
+            Method fabrica = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) fabrica.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService criarPool() {
+        AtomicInteger contador = new AtomicInteger();
+        return Executors.newFixedThreadPool(THREADS_PLATAFORMA, r -> {
+            Thread t = new Thread(r, "servidor-http-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private void tratar(HttpExchange troca) throws IOException {
+        boolean fechar = true;
+        try {
+            rotear(troca);
+        } catch (RespostaInterrompida e) {
+            // Sem fechar a troca (que enviaria o chunk final): o HttpServer derruba a conexão
+            System.err.println("Resposta de " + troca.getRequestURI() + " interrompida: " + e.getMessage());
+            fechar = false;
+            throw e;
+        } catch (ErroHttp e) {
+            responderErro(troca, e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            responderErro(troca, 400, e.getMessage());
+        } catch (IOException e) {
+            // Cliente desconectou no meio da resposta
+        } catch (RuntimeException e) {
+            System.err.println("Erro em " + troca.getRequestMethod() + " " + troca.getRequestURI() + ": " + e.getMessage());
+            responderErro(troca, 500, "Erro interno do servidor");
+        } finally {
+            if (fechar) {
+                troca.close();
+            }
+        }
+    }
+
+    private void rotear(HttpExchange troca) throws IOException {
+        String metodo = troca.getRequestMethod();
+        String[] partes = troca.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/+");
+        Map<String, String> parametros = lerParametros(troca.getRequestURI().getRawQuery());
+
+        if (partes[0].equals("categorias") && partes.length == 1) {
+            exigirMetodo(metodo, "GET");
+            listarCategorias(troca);
+            return;
+        }
+        if (!partes[0].equals("produtos")) {
+            throw new ErroHttp(404, "Recurso inexistente");
+        }
+
+        if (partes.length == 1) {
+            if (metodo.equals("POST")) {
+                criar(troca);
+            } else {
+                exigirMetodo(metodo, "GET");
+                listar(troca, parametros);
+            }
+        } else if (partes.length == 2 && partes[1].equals("todos")) {
+            exigirMetodo(metodo, "GET");
+            listarTodos(troca);
+        } else if (partes.length == 2 && partes[1].equals("busca")) {
+            exigirMetodo(metodo, "GET");
+            buscar(troca, parametros);
+        } else if (partes.length == 2 && partes[1].equals("contagem")) {
+            exigirMetodo(metodo, "GET");
+            contar(troca, parametros);
+        } else if (partes.length == 2) {
+            int id = lerInteiro("id", partes[1]);
+            switch (metodo) {
+                case "GET": obter(troca, id); break;
+                case "PUT": atualizar(troca, id); break;
+                case "DELETE": excluir(troca, id); break;
+                default: throw new ErroHttp(405, "Método não permitido");
+            }
+        } else if (partes.length == 3 && partes[2].equals("estoque")) {
+            exigirMetodo(metodo, "POST");
+            ajustarEstoque(troca, lerInteiro("id", partes[1]));
+        } else {
+            throw new ErroHttp(404, "Recurso inexistente");
+        }
+    }
+
+    private void listar(HttpExchange troca, Map<String, String> parametros) throws IOException {
+        FiltroProdutos filtro = lerFiltro(parametros);
+        String etag = etagListagem();
+        if (naoModificado(troca, etag)) return;
+
+        int limite = lerLimite(parametros);
+        Produto apos = null;
+        String aposId = parametros.get("apos");
+        if (aposId != null) {
+            int id = lerInteiro("apos", aposId);
+            if (filtro.getOrdenacao().stream().allMatch(o -> o.getCampo() == CampoOrdenacao.ID)) {
+                // Em ordem de id a chave da página anterior é só o id, mesmo que o produto tenha sido excluído
+                apos = new Produto();
+                apos.setId(id);
+            } else {
+                apos = produtoDAO.buscarPorId(id);
+                if (apos == null) {
+                    throw new ErroHttp(400, "Produto apos=" + id + " não encontrado");
+                }
+            }
+        }
+
+        List<Produto> pagina = produtoDAO.listarPagina(filtro, apos, 0, limite, null);
+        if (pagina == null) {
+            throw new ErroHttp(503, "Banco de dados indisponível");
+        }
+        if (pagina.size() == limite) {
+            // Cursor da próxima página
+            troca.getResponseHeaders().set("X-Proximo-Apos", String.valueOf(pagina.get(pagina.size() - 1).getId()));
+        }
+        responderProdutos(troca, etag, pagina);
+    }
+
+    /**
+     * Todos os produtos em ordem de id, escritos à medida que o cursor do banco avança
+     * Os cabeçalhos (200 e ETag) só são enviados com a primeira linha lida, então uma falha do
+     * banco antes dela responde 503; depois dela, a conexão é derrubada sem o chunk final e o
+     * cliente vê a transferência interrompida em vez de um array que parece completo
+     */
+    private void listarTodos(HttpExchange troca) throws IOException {
+        String etag = etagListagem();
+        if (naoModificado(troca, etag)) return;
+
+        StringBuilder linha = new StringBuilder(256);
+        Writer[] saida = {null};
+        long total = produtoDAO.percorrerTodos(produto -> {
+            linha.setLength(0);
+            if (saida[0] == null) {
+                iniciarResposta(troca, 200, etag);
+                saida[0] = escritor(troca);
+                linha.append('[');
+            } else {
+                linha.append(",\n");
+            }
+            Json.produto(linha, produto);
+            saida[0].append(linha);
+        });
+        if (total < 0) {
+            if (saida[0] == null) {
+                throw new ErroHttp(503, "Banco de dados indisponível");
+            }
+            throw new RespostaInterrompida("falha do banco durante a listagem");
+        }
+
+        if (saida[0] == null) {
+            iniciarResposta(troca, 200, etag);
+            saida[0] = escritor(troca);
+            saida[0].write('[');
+        }
+        try (Writer escrita = saida[0]) {
+            escrita.write("]\n");
+        }
+    }
+
+    private void buscar(HttpExchange troca, Map<String, String> parametros) throws IOException {
+        String termo = parametros.get("q");
+        if (termo == null || termo.trim().isEmpty()) {
+            throw new ErroHttp(400, "Parâmetro q é obrigatório");
+        }
+        String etag = etagListagem();
+        if (naoModificado(troca, etag)) return;
+        List<Produto> produtos = produtoDAO.buscarPorNome(termo.trim(), lerLimite(parametros), null);
+        if (produtos == null) {
+            throw new ErroHttp(503, "Banco de dados indisponível");
+        }
+        responderProdutos(troca, etag, produtos);
+    }
+
+    private void contar(HttpExchange troca, Map<String, String> parametros) throws IOException {
+        FiltroProdutos filtro = lerFiltro(parametros);
+        String etag = etagListagem();
+        if (naoModificado(troca, etag)) return;
+        int total = produtoDAO.contar(filtro);
+        if (total < 0) {
+            throw new ErroHttp(503, "Banco de dados indisponível");
+        }
+        responderJson(troca, 200, etag, "{\"total\":" + total + "}");
+    }
+
+    private void listarCategorias(HttpExchange troca) throws IOException {
+        String etag = etagListagem();
+        if (naoModificado(troca, etag)) return;
+        Map<String, Integer> categorias = produtoDAO.contarPorCategoria();
+        if (categorias == null) {
+            throw new ErroHttp(503, "Banco de dados indisponível");
+        }
+        StringBuilder json = new StringBuilder("{");
+        for (Map.Entry<String, Integer> categoria : categorias.entrySet()) {
+            if (json.length() > 1) json.append(',');
+            Json.texto(json, categoria.getKey());
+            json.append(':').append(categoria.getValue());
+        }
+        responderJson(troca, 200, etag, json.append('}').toString());
+    }
+
+    private void obter(HttpExchange troca, int id) throws IOException {
+        Produto produto = produtoDAO.buscarPorId(id);
+        if (produto == null) {
+            throw new ErroHttp(404, "Produto " + id + " não encontrado");
+        }
+        String etag = etagProduto(produto);
+        if (naoModificado(troca, etag)) return;
+        responderProduto(troca, 200, produto);
+    }
+
+    private void criar(HttpExchange troca) throws IOException {
+        Produto produto = lerProduto(troca);
+        if (!produtoDAO.inserir(produto)) {
+            throw new ErroHttp(503, "Não foi possível gravar o produto");
+        }
+        troca.getResponseHeaders().set("Location", "/produtos/" + produto.getId());
+        responderProduto(troca, 201, produto);
+    }
+
+    /**
+     * A versão esperada vem do If-Match, do campo versao do corpo ou, sem nenhum dos dois,
+     * da versão atual (a alteração vence qualquer outra)
+     */
+    private void atualizar(HttpExchange troca, int id) throws IOException {
+        Map<String, Object> corpo = lerCorpo(troca);
+        Produto produto = produtoDoJson(corpo);
+        produto.setId(id);
+
+        String seCorresponder = troca.getRequestHeaders().getFirst("If-Match");
+        if (seCorresponder != null) {
+            produto.setVersao(lerInteiro("If-Match", seCorresponder.replace("W/", "").replace("\"", "").trim()));
+        } else if (corpo.get("versao") instanceof BigDecimal) {
+            produto.setVersao(inteiroExato("versao", (BigDecimal) corpo.get("versao")));
+        } else {
+            Produto atual = produtoDAO.buscarPorId(id);
+            if (atual == null) {
+                throw new ErroHttp(404, "Produto " + id + " não encontrado");
+            }
+            produto.setVersao(atual.getVersao());
+        }
+
+        try {
+            if (!produtoDAO.atualizar(produto)) {
+                throw new ErroHttp(404, "Produto " + id + " não encontrado");
+            }
+        } catch (ConflitoVersaoException e) {
+            throw new ErroHttp(seCorresponder != null ? 412 : 409, "Produto " + id + " alterado por outro cliente (versão lida "
+                    + e.getVersaoLida() + ", atual " + e.getVersaoAtual() + ")");
+        }
+        responderProduto(troca, 200, produto);
+    }
+
+    private void excluir(HttpExchange troca, int id) throws IOException {
+        if (!produtoDAO.excluir(id)) {
+            throw new ErroHttp(404, "Produto " + id + " não encontrado");
+        }
+        troca.sendResponseHeaders(204, -1);
+    }
+
+    private void ajustarEstoque(HttpExchange troca, int id) throws IOException {
+        Object delta = lerCorpo(troca).get("delta");
+        if (!(delta instanceof BigDecimal)) {
+            throw new ErroHttp(400, "Campo delta é obrigatório");
+        }
+        int quantidade = produtoDAO.ajustarEstoque(id, inteiroExato("delta", (BigDecimal) delta));
+        if (quantidade < 0) {
+            throw new ErroHttp(409, "Produto " + id + " inexistente ou sem estoque suficiente");
+        }
+        responderJson(troca, 200, null, "{\"id\":" + id + ",\"quantidade\":" + quantidade + "}");
+    }
+
+    private String etagListagem() {
+        return "W/\"" + prefixoEtag + "-" + CacheProdutos.getInstance().getGeracao() + "\"";
+    }
+
+    private static String etagProduto(Produto produto) {
+        return "\"" + produto.getVersao() + "\"";
+    }
+
+    /**
+     * Responde 304 se o cliente já tem a representação com essa ETag
+     */
+    private static boolean naoModificado(HttpExchange troca, String etag) throws IOException {
+        String seNenhum = troca.getRequestHeaders().getFirst("If-None-Match");
+        if (seNenhum == null) {
+            return false;
+        }
+        for (String candidata : seNenhum.split(",")) {
+            String valor = candidata.trim();
+            // Comparação fraca (RFC 9110): o prefixo W/ não conta
+            if (valor.equals("*") || valor.replace("W/", "").equals(etag.replace("W/", ""))) {
+                troca.getResponseHeaders().set("ETag", etag);
+                troca.sendResponseHeaders(304, -1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void responderProdutos(HttpExchange troca, String etag, List<Produto> produtos) throws IOException {
+        iniciarResposta(troca, 200, etag);
+        try (Writer saida = escritor(troca)) {
+            StringBuilder linha = new StringBuilder(256);
+            saida.write('[');
+            for (int i = 0; i < produtos.size(); i++) {
+                linha.setLength(0);
+                if (i > 0) linha.append(",\n");
+                Json.produto(linha, produtos.get(i));
+                saida.append(linha);
+            }
+            saida.write("]\n");
+        }
+    }
+
+    private static void responderProduto(HttpExchange troca, int status, Produto produto) throws IOException {
+        StringBuilder json = new StringBuilder(256);
+        Json.produto(json, produto);
+        responderJson(troca, status, etagProduto(produto), json.toString());
+    }
+
+    private static void responderJson(HttpExchange troca, int status, String etag, String json) throws IOException {
+        byte[] corpo = json.getBytes(StandardCharsets.UTF_8);
+        Headers cabecalhos = troca.getResponseHeaders();
+        cabecalhos.set("Content-Type", TIPO_JSON);
+        if (etag != null) {
+            cabecalhos.set("ETag", etag);
+        }
+        troca.sendResponseHeaders(status, corpo.length);
+        troca.getResponseBody().write(corpo);
+    }
+
+    private static void responderErro(HttpExchange troca, int status, String mensagem) {
+        StringBuilder json = new StringBuilder("{\"erro\":");
+        Json.texto(json, mensagem);
+        try {
+            responderJson(troca, status, null, json.append('}').toString());
+        } catch (IOException e) {
+            // Cabeçalhos já enviados ou cliente desconectado
+        }
+    }
+
+    /**
+     * Envia os cabeçalhos sem tamanho: o corpo segue em chunks enquanto é escrito
+     * Sem cache implícito: o cliente sempre revalida com If-None-Match
+     */
+    private static void iniciarResposta(HttpExchange troca, int status, String etag) throws IOException {
+        Headers cabecalhos = troca.getResponseHeaders();
+        cabecalhos.set("Content-Type", TIPO_JSON);
+        cabecalhos.set("Cache-Control", "no-cache");
+        if (etag != null) {
+            cabecalhos.set("ETag", etag);
+        }
+        troca.sendResponseHeaders(status, 0);
+    }
+
+    private static Writer escritor(HttpExchange troca) {
+        return new BufferedWriter(new OutputStreamWriter(troca.getResponseBody(), StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    private static void exigirMetodo(String metodo, String esperado) {
+        if (!metodo.equals(esperado)) {
+            throw new ErroHttp(405, "Método não permitido");
+        }
+    }
+
+    private static Map<String, Object> lerCorpo(HttpExchange troca) throws IOException {
+        try (InputStream entrada = troca.getRequestBody()) {
+            byte[] bytes = entrada.readNBytes(TAMANHO_MAXIMO_CORPO + 1);
+            if (bytes.length > TAMANHO_MAXIMO_CORPO) {
+                throw new ErroHttp(413, "Corpo maior que " + TAMANHO_MAXIMO_CORPO + " bytes");
+            }
+            return Json.lerObjeto(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Produto lerProduto(HttpExchange troca) throws IOException {
+        return produtoDoJson(lerCorpo(troca));
+    }
+
+    /**
+     * Mesmas regras do ImportadorCsv e do formulário
+     */
+    private static Produto produtoDoJson(Map<String, Object> corpo) {
+        String nome = textoObrigatorio(corpo, "nome", 100);
+        String categoria = textoObrigatorio(corpo, "categoria", 50);
+        Object descricao = corpo.get("descricao");
+        if (descricao != null && !(descricao instanceof String)) {
+            throw new IllegalArgumentException("descricao deve ser texto");
+        }
+        BigDecimal preco = numeroObrigatorio(corpo, "preco");
+        if (preco.signum() < 0) throw new IllegalArgumentException("preço negativo");
+        BigDecimal quantidade = numeroObrigatorio(corpo, "quantidade");
+        if (quantidade.signum() < 0) throw new IllegalArgumentException("quantidade negativa");
+        // O construtor recusa com IllegalArgumentException o preço fora do limite da coluna
+        return new Produto(nome, (String) descricao, preco, inteiroExato("quantidade", quantidade), categoria);
+    }
+
+    private static String textoObrigatorio(Map<String, Object> corpo, String campo, int tamanhoMaximo) {
+        Object valor = corpo.get(campo);
+        if (!(valor instanceof String) || ((String) valor).trim().isEmpty()) {
+            throw new IllegalArgumentException(campo + " é obrigatório");
+        }
+        String texto = ((String) valor).trim();
+        if (texto.length() > tamanhoMaximo) {
+            throw new IllegalArgumentException(campo + " excede " + tamanhoMaximo + " caracteres");
+        }
+        return texto;
+    }
+
+    private static BigDecimal numeroObrigatorio(Map<String, Object> corpo, String campo) {
+        Object valor = corpo.get(campo);
+        if (!(valor instanceof BigDecimal)) {
+            throw new IllegalArgumentException(campo + " é obrigatório e numérico");
+        }
+        return (BigDecimal) valor;
+    }
+
+    private static FiltroProdutos lerFiltro(Map<String, String> parametros) {
+        FiltroProdutos filtro = new FiltroProdutos()
+                .categoria(parametros.get("categoria"))
+                .nomeComecaCom(parametros.get("nome"))
+                .precoEntre(lerDecimal("precoMin", parametros), lerDecimal("precoMax", parametros))
+                .quantidadeEntre(lerInteiroOpcional("quantidadeMin", parametros),
+                        lerInteiroOpcional("quantidadeMax", parametros));
+        // ordem=nome,-preco: colunas separadas por vírgula, "-" para decrescente
+        String ordem = parametros.get("ordem");
+        if (ordem != null) {
+            for (String coluna : ordem.split(",")) {
+                boolean decrescente = coluna.startsWith("-");
+                String nome = (decrescente ? coluna.substring(1) : coluna).trim().toUpperCase();
+                try {
+                    filtro.ordenarPor(CampoOrdenacao.valueOf(nome), decrescente);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Coluna de ordenação desconhecida: " + coluna);
+                }
+            }
+        }
+        return filtro;
+    }
+
+    private static int lerLimite(Map<String, String> parametros) {
+        Integer limite = lerInteiroOpcional("limite", parametros);
+        if (limite == null) {
+            return LIMITE_PADRAO;
+        }
+        if (limite < 1 || limite > LIMITE_MAXIMO) {
+            throw new IllegalArgumentException("limite deve estar entre 1 e " + LIMITE_MAXIMO);
+        }
+        return limite;
+    }
+
+    private static BigDecimal lerDecimal(String nome, Map<String, String> parametros) {
+        String valor = parametros.get(nome);
+        if (valor == null || valor.isEmpty()) return null;
+        try {
+            return new BigDecimal(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(nome + " inválido: '" + valor + "'");
+        }
+    }
+
+    private static Integer lerInteiroOpcional(String nome, Map<String, String> parametros) {
+        String valor = parametros.get(nome);
+        return valor == null || valor.isEmpty() ? null : lerInteiro(nome, valor);
+    }
+
+    /**
+     * Números do corpo JSON chegam como BigDecimal: frações e valores fora do int respondem 400
+     */
+    private static int inteiroExato(String nome, BigDecimal valor) {
+        try {
+            return valor.intValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(nome + " deve ser inteiro: " + valor);
+        }
+    }
+
+    private static int lerInteiro(String nome, String valor) {
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(nome + " inválido: '" + valor + "'");
+        }
+    }
+
+    private static Map<String, String> lerParametros(String consulta) {
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String nome = URLDecoder.decode(igual < 0 ? par : par.substring(0, igual), StandardCharsets.UTF_8);
+            String valor = igual < 0 ? "" : URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8);
+            parametros.put(nome, valor);
+        }
+        return parametros;
+    }
+
+    /**
+     * Falha depois de a resposta ter começado: não há mais status a devolver, só interromper a transferência
+     */
+    private static final class RespostaInterrompida extends IOException {
+        private RespostaInterrompida(String mensagem) {
+            super(mensagem);
+        }
+    }
+
+    /**
+     * Falha com o status HTTP a devolver ao cliente
+     */
+    private static final class ErroHttp extends RuntimeException {
+        private final int status;
+
+        private ErroHttp(int status, String mensagem) {
+            super(mensagem);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,659 @@
+package sincronizacao;
+
+import busca.NormalizadorTexto;
+import dao.Exclusao;
+import dao.FiltroProdutos;
+import dao.FonteProdutos;
+import dao.MarcaSincronizacao;
+import dao.ProcessadorProduto;
+import dao.ProdutoDAO;
+import model.Produto;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Cópia local do catálogo em um arquivo binário mapeado em memória, com índice por id
+ * Permite exibir a tabela na abertura antes de o banco responder e navegar sem conexão
+ * Layout: [cabeçalho][registros][índice]; o índice tem pares (id, posição) em ordem de id,
+ * para busca binária, e a marca do cabeçalho diz até onde o banco já foi copiado
+ * Cada gravação cria um arquivo novo (catalogo-<instante>.dat, movido atomicamente) e apaga
+ * os anteriores, pois um arquivo mapeado não pode ser substituído em todos os sistemas
+ * Uma instância é imutável: atualizar devolve outra cópia com as alterações do banco
+ */
+public class CatalogoLocal implements FonteProdutos {
+    public static final Path DIRETORIO_PADRAO = Paths.get(System.getProperty("user.home"), ".sistema-crud");
+
+    private static final String PREFIXO = "catalogo-";
+    private static final String SUFIXO = ".dat";
+    private static final int MAGICO = 0x50524354;
+    // 2: preço em centavos (long); cópias no formato anterior são ignoradas e refeitas
+    private static final int FORMATO = 2;
+
+    // mágico, formato, quantidade, reservado, posição do índice, marca (data e seq)
+    private static final int TAMANHO_CABECALHO = 4 * Integer.BYTES + 3 * Long.BYTES;
+    private static final int TAMANHO_ENTRADA_INDICE = Integer.BYTES + Long.BYTES;
+
+    // Acima disso a cópia é refeita por inteiro em vez de intercalada
+    private static final int LIMITE_ALTERACOES = 50_000;
+
+    // Sem alterações a cópia não é regravada, a menos que a marca fique mais velha que isso
+    private static final int IDADE_MAXIMA_MARCA_HORAS = 24;
+
+    private final Path arquivo;
+    private final MappedByteBuffer dados;
+    private final int quantidade;
+    private final int posicaoIndice;
+    private final MarcaSincronizacao marca;
+    private final boolean completa;
+
+    // Última visão filtrada, reaproveitada enquanto a tabela pagina com o mesmo filtro
+    private volatile Visao visao;
+
+    private CatalogoLocal(Path arquivo, MappedByteBuffer dados, int quantidade, int posicaoIndice,
+                          MarcaSincronizacao marca, boolean completa) {
+        this.arquivo = arquivo;
+        this.dados = dados;
+        this.quantidade = quantidade;
+        this.posicaoIndice = posicaoIndice;
+        this.marca = marca;
+        this.completa = completa;
+    }
+
+    /**
+     * Abre a cópia mais recente do diretório; null se não houver nenhuma válida
+     * Cópias antigas e temporárias deixadas por gravações interrompidas são apagadas
+     */
+    public static CatalogoLocal abrir(Path diretorio) throws IOException {
+        if (!Files.isDirectory(diretorio)) {
+            return null;
+        }
+        List<Path> arquivos = new ArrayList<>();
+        try (DirectoryStream<Path> lista = Files.newDirectoryStream(diretorio, PREFIXO + "*")) {
+            for (Path arquivo : lista) {
+                arquivos.add(arquivo);
+            }
+        }
+        // O nome traz o instante da gravação com largura fixa: a ordem do nome é a cronológica
+        arquivos.sort((a, b) -> b.getFileName().toString().compareTo(a.getFileName().toString()));
+
+        CatalogoLocal catalogo = null;
+        for (Path arquivo : arquivos) {
+            if (catalogo == null && arquivo.getFileName().toString().endsWith(SUFIXO)) {
+                try {
+                    catalogo = mapear(arquivo, false);
+                    continue;
+                } catch (IOException e) {
+                    System.err.println("Cópia local inválida ignorada (" + arquivo.getFileName() + "): " + e.getMessage());
+                }
+            }
+            Files.deleteIfExists(arquivo);
+        }
+        return catalogo;
+    }
+
+    /**
+     * Grava uma cópia nova com todos os produtos do banco
+     */
+    public static CatalogoLocal gravarCompleta(Path diretorio, ProdutoDAO produtoDAO) throws IOException {
+        // Tomada antes da leitura: o que mudar durante ela é relido na próxima atualização
+        MarcaSincronizacao marca = obterMarca(produtoDAO);
+        long inicio = System.nanoTime();
+        try (Escritor escritor = new Escritor(diretorio)) {
+            if (produtoDAO.percorrerTodos(escritor::escrever) < 0) {
+                throw new IOException("Erro ao ler os produtos do banco");
+            }
+            CatalogoLocal catalogo = escritor.concluir(marca, true);
+            System.out.printf("Cópia local gravada: %d produtos em %d ms%n", catalogo.quantidade,
+                    (System.nanoTime() - inicio) / 1_000_000);
+            return catalogo;
+        }
+    }
+
+    /**
+     * Intercala nesta cópia as alterações e exclusões do banco desde a sua marca e devolve a cópia nova
+     * Devolve esta mesma cópia se nada mudou, e uma cópia completa se há alterações demais ou
+     * se a marca é mais antiga que a retenção de produtos_excluidos
+     * As linhas lidas passam pelo DAO, então cache, índice de busca e snapshot também são atualizados
+     */
+    public CatalogoLocal atualizar(ProdutoDAO produtoDAO) throws IOException {
+        MarcaSincronizacao nova = obterMarca(produtoDAO);
+        if (marca.getDataAtualizacao().isBefore(
+                nova.getDataAtualizacao().minusDays(SincronizadorProdutos.RETENCAO_EXCLUSOES_DIAS))) {
+            return gravarCompleta(getDiretorio(), produtoDAO);
+        }
+
+        LocalDateTime desde = marca.getDataAtualizacao().minusSeconds(SincronizadorProdutos.SOBREPOSICAO_SEGUNDOS);
+        List<Produto> alterados = produtoDAO.listarAlteradosDesde(desde, LIMITE_ALTERACOES + 1);
+        List<Exclusao> exclusoes = produtoDAO.listarExclusoesDesde(marca.getSeqExclusao(), desde, LIMITE_ALTERACOES + 1);
+        if (alterados.size() > LIMITE_ALTERACOES || exclusoes.size() > LIMITE_ALTERACOES) {
+            return gravarCompleta(getDiretorio(), produtoDAO);
+        }
+
+        // Um produto excluído e depois gravado de novo (restauração) vale pela operação mais recente
+        Map<Integer, LocalDateTime> excluidos = new HashMap<>();
+        for (Exclusao exclusao : exclusoes) {
+            excluidos.merge(exclusao.getProdutoId(), exclusao.getDataExclusao(),
+                    (a, b) -> a.isAfter(b) ? a : b);
+        }
+        TreeMap<Integer, Produto> gravados = new TreeMap<>();
+        for (Produto produto : alterados) {
+            LocalDateTime excluidoEm = excluidos.get(produto.getId());
+            if (excluidoEm == null || produto.getDataAtualizacao().isAfter(excluidoEm)) {
+                excluidos.remove(produto.getId());
+                // A janela de sobreposição traz de novo linhas já copiadas
+                if (!igual(buscarPorId(produto.getId()), produto)) {
+                    gravados.put(produto.getId(), produto);
+                }
+            }
+        }
+        excluidos.keySet().removeIf(id -> localizar(id) < 0);
+
+        boolean marcaVelha = marca.getDataAtualizacao().isBefore(
+                nova.getDataAtualizacao().minusHours(IDADE_MAXIMA_MARCA_HORAS));
+        if (gravados.isEmpty() && excluidos.isEmpty() && !marcaVelha) {
+            return this;
+        }
+
+        try (Escritor escritor = new Escritor(getDiretorio())) {
+            Iterator<Produto> novos = gravados.values().iterator();
+            Produto[] proximo = {novos.hasNext() ? novos.next() : null};
+            percorrerTodos(existente -> {
+                while (proximo[0] != null && proximo[0].getId() < existente.getId()) {
+                    escritor.escrever(proximo[0]);
+                    proximo[0] = novos.hasNext() ? novos.next() : null;
+                }
+                if (proximo[0] != null && proximo[0].getId() == existente.getId()) {
+                    escritor.escrever(proximo[0]);
+                    proximo[0] = novos.hasNext() ? novos.next() : null;
+                } else if (!excluidos.containsKey(existente.getId())) {
+                    escritor.escrever(existente);
+                }
+            });
+            while (proximo[0] != null) {
+                escritor.escrever(proximo[0]);
+                proximo[0] = novos.hasNext() ? novos.next() : null;
+            }
+            CatalogoLocal catalogo = escritor.concluir(nova, false);
+            System.out.printf("Cópia local atualizada: %d gravado(s), %d excluído(s)%n",
+                    gravados.size(), excluidos.size());
+            return catalogo;
+        }
+    }
+
+    public int getQuantidade() {
+        return quantidade;
+    }
+
+    public MarcaSincronizacao getMarca() {
+        return marca;
+    }
+
+    /**
+     * Indica se esta cópia foi feita por uma leitura completa do banco, e não por intercalação;
+     * nesse caso estruturas derivadas da cópia anterior (índice, snapshot) devem ser reconstruídas
+     */
+    public boolean isCompleta() {
+        return completa;
+    }
+
+    /**
+     * Instante (relógio do banco) até o qual as alterações estão na cópia
+     */
+    public LocalDateTime getAtualizadaAte() {
+        return marca.getDataAtualizacao();
+    }
+
+    /**
+     * Produto com o id informado ou null, por busca binária no índice
+     */
+    public Produto buscarPorId(int id) {
+        int entrada = localizar(id);
+        return entrada >= 0 ? ler(posicaoRegistro(entrada)) : null;
+    }
+
+    /**
+     * Produtos dos ids informados, na ordem recebida; ids ausentes são ignorados
+     */
+    public List<Produto> buscarPorIds(int[] ids) {
+        List<Produto> produtos = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Produto produto = buscarPorId(id);
+            if (produto != null) {
+                produtos.add(produto);
+            }
+        }
+        return produtos;
+    }
+
+    /**
+     * Varredura por substring do nome, sem acentos e maiúsculas; usada enquanto o índice
+     * de busca não está pronto
+     * Só o nome é decodificado na varredura; o registro inteiro, apenas para os encontrados
+     */
+    public List<Produto> buscarPorNome(String termo, int limite) {
+        String consulta = NormalizadorTexto.normalizar(termo).trim();
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < quantidade && produtos.size() < limite; i++) {
+            int posicao = posicaoRegistro(i);
+            ByteBuffer registro = registro(posicao);
+            registro.position(Integer.BYTES);
+            if (NormalizadorTexto.normalizar(lerTexto(registro)).contains(consulta)) {
+                produtos.add(ler(posicao));
+            }
+        }
+        return produtos;
+    }
+
+    /**
+     * Página da listagem com o filtro, como ProdutoDAO.listarPagina: as linhas depois de apos
+     * (null na primeira página), pulando deslocamento linhas
+     * Só os registros da página são decodificados; em ordem de id e sem condições, o início
+     * vem da busca binária no índice
+     */
+    public List<Produto> listarPagina(FiltroProdutos filtro, Produto apos, int deslocamento, int limite) {
+        int[] entradas = filtro.isPadrao() ? null : visao(filtro);
+        int total = entradas != null ? entradas.length : quantidade;
+        int inicio = apos == null ? 0
+                : entradas != null ? posicaoApos(entradas, filtro.comparador(), apos) : primeiraEntradaApos(apos.getId());
+        inicio = (int) Math.min(total, (long) inicio + deslocamento);
+        int fim = (int) Math.min(total, (long) inicio + limite);
+
+        List<Produto> produtos = new ArrayList<>(fim - inicio);
+        for (int i = inicio; i < fim; i++) {
+            produtos.add(ler(posicaoRegistro(entradas != null ? entradas[i] : i)));
+        }
+        return produtos;
+    }
+
+    /**
+     * Número de produtos que satisfazem o filtro
+     */
+    public int contar(FiltroProdutos filtro) {
+        return filtro.temCondicoes() ? visao(filtro).length : quantidade;
+    }
+
+    /**
+     * Número de produtos com id até o informado
+     */
+    public int contarAte(int ultimoId) {
+        return primeiraEntradaApos(ultimoId);
+    }
+
+    /**
+     * Maior id da cópia, ou 0 se estiver vazia
+     */
+    public int getUltimoId() {
+        return quantidade > 0 ? dados.getInt(posicaoIndice + (quantidade - 1) * TAMANHO_ENTRADA_INDICE) : 0;
+    }
+
+    /**
+     * Contagem por categoria decodificando apenas a categoria de cada registro
+     */
+    public Map<String, Integer> contarPorCategoria() {
+        Map<String, Integer> contagem = new TreeMap<>();
+        for (int i = 0; i < quantidade; i++) {
+            ByteBuffer registro = registro(posicaoRegistro(i));
+            registro.position(Integer.BYTES);
+            pularTexto(registro);
+            pularTexto(registro);
+            registro.position(registro.position() + Long.BYTES + Integer.BYTES);
+            contagem.merge(lerTexto(registro), 1, Integer::sum);
+        }
+        return contagem;
+    }
+
+    @Override
+    public long percorrerTodos(ProcessadorProduto processador) throws IOException {
+        for (int i = 0; i < quantidade; i++) {
+            processador.processar(ler(posicaoRegistro(i)));
+        }
+        return quantidade;
+    }
+
+    private Path getDiretorio() {
+        return arquivo.toAbsolutePath().getParent();
+    }
+
+    /**
+     * Entrada do índice com o id, ou -1
+     * Só leituras absolutas no buffer, então a cópia pode ser lida por várias threads
+     */
+    private int localizar(int id) {
+        int inicio = 0;
+        int fim = quantidade - 1;
+        while (inicio <= fim) {
+            int meio = (inicio + fim) >>> 1;
+            int idMeio = dados.getInt(posicaoIndice + meio * TAMANHO_ENTRADA_INDICE);
+            if (idMeio < id) {
+                inicio = meio + 1;
+            } else if (idMeio > id) {
+                fim = meio - 1;
+            } else {
+                return meio;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Primeira entrada do índice com id maior que o informado (quantidade se não houver)
+     */
+    private int primeiraEntradaApos(int id) {
+        int inicio = 0;
+        int fim = quantidade;
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (dados.getInt(posicaoIndice + meio * TAMANHO_ENTRADA_INDICE) <= id) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+        return inicio;
+    }
+
+    /**
+     * Primeira posição da visão que vem depois de apos na ordem do filtro
+     */
+    private int posicaoApos(int[] entradas, Comparator<Produto> comparador, Produto apos) {
+        int inicio = 0;
+        int fim = entradas.length;
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (comparador.compare(lerSemDescricao(posicaoRegistro(entradas[meio])), apos) <= 0) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+        return inicio;
+    }
+
+    /**
+     * Entradas do índice que satisfazem o filtro, na ordem dele
+     * Guarda só as posições (4 bytes por linha); filtro e ordenação leem os registros sem a
+     * descrição, que não entra em nenhum dos dois, e só a ordenação os mantém até o fim do cálculo
+     * A última visão é reaproveitada pelas páginas seguintes e pela contagem do mesmo filtro
+     */
+    private int[] visao(FiltroProdutos filtro) {
+        Visao atual = visao;
+        if (atual != null && atual.filtro.equals(filtro)) {
+            return atual.entradas;
+        }
+        boolean ordenar = !filtro.getOrdenacao().isEmpty();
+        int[] aceitas = new int[quantidade];
+        List<Produto> chaves = new ArrayList<>();
+        int total = 0;
+        for (int i = 0; i < quantidade; i++) {
+            Produto produto = lerSemDescricao(posicaoRegistro(i));
+            if (filtro.aceita(produto)) {
+                aceitas[total++] = i;
+                if (ordenar) {
+                    chaves.add(produto);
+                }
+            }
+        }
+        int[] entradas;
+        if (ordenar) {
+            Integer[] ordem = new Integer[total];
+            for (int i = 0; i < total; i++) {
+                ordem[i] = i;
+            }
+            Comparator<Produto> comparador = filtro.comparador();
+            Arrays.sort(ordem, (a, b) -> comparador.compare(chaves.get(a), chaves.get(b)));
+            entradas = new int[total];
+            for (int i = 0; i < total; i++) {
+                entradas[i] = aceitas[ordem[i]];
+            }
+        } else {
+            entradas = Arrays.copyOf(aceitas, total);
+        }
+        visao = new Visao(new FiltroProdutos(filtro), entradas);
+        return entradas;
+    }
+
+    private int posicaoRegistro(int entrada) {
+        return (int) dados.getLong(posicaoIndice + entrada * TAMANHO_ENTRADA_INDICE + Integer.BYTES);
+    }
+
+    private Produto ler(int posicao) {
+        return ler(posicao, true);
+    }
+
+    /**
+     * Registro com a descrição pulada, para filtrar e ordenar sem decodificá-la
+     */
+    private Produto lerSemDescricao(int posicao) {
+        return ler(posicao, false);
+    }
+
+    private Produto ler(int posicao, boolean comDescricao) {
+        ByteBuffer registro = registro(posicao);
+        Produto produto = new Produto();
+        produto.setId(registro.getInt());
+        produto.setNome(lerTexto(registro));
+        if (comDescricao) {
+            produto.setDescricao(lerTexto(registro));
+        } else {
+            pularTexto(registro);
+        }
+        produto.setPrecoCentavos(registro.getLong());
+        produto.setQuantidade(registro.getInt());
+        produto.setCategoria(lerTexto(registro));
+        produto.setVersao(registro.getInt());
+        return produto;
+    }
+
+    private ByteBuffer registro(int posicao) {
+        return dados.slice(posicao + Integer.BYTES, dados.getInt(posicao));
+    }
+
+    private static CatalogoLocal mapear(Path arquivo, boolean completa) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = canal.size();
+            if (tamanho < TAMANHO_CABECALHO || tamanho > Integer.MAX_VALUE) {
+                throw new IOException("tamanho inválido (" + tamanho + " bytes)");
+            }
+            // O mapeamento continua válido depois de o canal ser fechado
+            MappedByteBuffer dados = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanho);
+            if (dados.getInt(0) != MAGICO || dados.getInt(4) != FORMATO) {
+                throw new IOException("formato desconhecido");
+            }
+            int quantidade = dados.getInt(8);
+            long posicaoIndice = dados.getLong(16);
+            if (quantidade < 0 || posicaoIndice < TAMANHO_CABECALHO
+                    || posicaoIndice + (long) quantidade * TAMANHO_ENTRADA_INDICE != tamanho) {
+                throw new IOException("índice inconsistente");
+            }
+            LocalDateTime data = LocalDateTime.ofInstant(Instant.ofEpochMilli(dados.getLong(24)), ZoneOffset.UTC);
+            MarcaSincronizacao marca = new MarcaSincronizacao(data, dados.getLong(32));
+            return new CatalogoLocal(arquivo, dados, quantidade, (int) posicaoIndice, marca, completa);
+        }
+    }
+
+    private static MarcaSincronizacao obterMarca(ProdutoDAO produtoDAO) throws IOException {
+        MarcaSincronizacao marca = produtoDAO.obterMarcaAtual();
+        if (marca == null) {
+            throw new IOException("Banco de dados inacessível");
+        }
+        return marca;
+    }
+
+    private static boolean igual(Produto a, Produto b) {
+        return a != null && a.getId() == b.getId() && a.getVersao() == b.getVersao()
+                && a.getQuantidade() == b.getQuantidade() && a.getPrecoCentavos() == b.getPrecoCentavos()
+                && Objects.equals(a.getNome(), b.getNome())
+                && Objects.equals(a.getDescricao(), b.getDescricao())
+                && Objects.equals(a.getCategoria(), b.getCategoria());
+    }
+
+    private static void pularTexto(ByteBuffer registro) {
+        int tamanho = registro.getInt();
+        if (tamanho > 0) {
+            registro.position(registro.position() + tamanho);
+        }
+    }
+
+    private static String lerTexto(ByteBuffer registro) {
+        int tamanho = registro.getInt();
+        if (tamanho < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[tamanho];
+        registro.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Entradas do índice que satisfazem um filtro, na ordem dele
+     */
+    private static final class Visao {
+        private final FiltroProdutos filtro;
+        private final int[] entradas;
+
+        private Visao(FiltroProdutos filtro, int[] entradas) {
+            this.filtro = filtro;
+            this.entradas = entradas;
+        }
+    }
+
+    /**
+     * Grava uma cópia nova em um arquivo temporário, com os produtos recebidos em ordem de id
+     * Se não for concluída, o temporário é apagado ao fechar
+     */
+    private static final class Escritor implements Closeable {
+        private final Path diretorio;
+        private final Path temporario;
+        private final DataOutputStream saida;
+        private final ByteArrayOutputStream registro = new ByteArrayOutputStream(256);
+        private final DataOutputStream saidaRegistro = new DataOutputStream(registro);
+        private int[] ids = new int[1024];
+        private long[] posicoes = new long[1024];
+        private int quantidade;
+        private long posicao = TAMANHO_CABECALHO;
+        private boolean concluido;
+
+        private Escritor(Path diretorio) throws IOException {
+            Files.createDirectories(diretorio);
+            this.diretorio = diretorio;
+            this.temporario = Files.createTempFile(diretorio, PREFIXO, SUFIXO + ".tmp");
+            this.saida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporario), 1 << 16));
+            // Cabeçalho provisório, preenchido em concluir
+            saida.write(new byte[TAMANHO_CABECALHO]);
+        }
+
+        private void escrever(Produto produto) throws IOException {
+            if (quantidade > 0 && produto.getId() <= ids[quantidade - 1]) {
+                throw new IOException("Produtos fora da ordem de id: " + produto.getId());
+            }
+            registro.reset();
+            saidaRegistro.writeInt(produto.getId());
+            escreverTexto(saidaRegistro, produto.getNome());
+            escreverTexto(saidaRegistro, produto.getDescricao());
+            saidaRegistro.writeLong(produto.getPrecoCentavos());
+            saidaRegistro.writeInt(produto.getQuantidade());
+            escreverTexto(saidaRegistro, produto.getCategoria());
+            saidaRegistro.writeInt(produto.getVersao());
+
+            if (quantidade == ids.length) {
+                ids = Arrays.copyOf(ids, quantidade * 2);
+                posicoes = Arrays.copyOf(posicoes, quantidade * 2);
+            }
+            ids[quantidade] = produto.getId();
+            posicoes[quantidade] = posicao;
+            quantidade++;
+
+            saida.writeInt(registro.size());
+            registro.writeTo(saida);
+            posicao += Integer.BYTES + registro.size();
+        }
+
+        /**
+         * Escreve o índice e o cabeçalho, força o arquivo ao disco, dá a ele o nome definitivo
+         * e apaga as cópias anteriores
+         */
+        private CatalogoLocal concluir(MarcaSincronizacao marca, boolean completa) throws IOException {
+            for (int i = 0; i < quantidade; i++) {
+                saida.writeInt(ids[i]);
+                saida.writeLong(posicoes[i]);
+            }
+            saida.close();
+
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+            cabecalho.putInt(MAGICO).putInt(FORMATO).putInt(quantidade).putInt(0).putLong(posicao)
+                    .putLong(marca.getDataAtualizacao().toInstant(ZoneOffset.UTC).toEpochMilli())
+                    .putLong(marca.getSeqExclusao());
+            cabecalho.flip();
+            try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+                while (cabecalho.hasRemaining()) {
+                    canal.write(cabecalho, cabecalho.position());
+                }
+                canal.force(true);
+            }
+
+            Path destino = diretorio.resolve(String.format("%s%013d%s", PREFIXO, System.currentTimeMillis(), SUFIXO));
+            Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE);
+            concluido = true;
+
+            try (DirectoryStream<Path> lista = Files.newDirectoryStream(diretorio, PREFIXO + "*" + SUFIXO)) {
+                for (Path anterior : lista) {
+                    if (anterior.getFileName().toString().compareTo(destino.getFileName().toString()) < 0) {
+                        try {
+                            Files.deleteIfExists(anterior);
+                        } catch (IOException e) {
+                            // Ainda mapeada neste processo (Windows): apagada na próxima abertura
+                        }
+                    }
+                }
+            }
+            return mapear(destino, completa);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!concluido) {
+                saida.close();
+                Files.deleteIfExists(temporario);
+            }
+        }
+
+        /**
+         * Texto como [tamanho em bytes][UTF-8], -1 para nulo (como no diário de gravações)
+         */
+        private static void escreverTexto(DataOutputStream saida, String valor) throws IOException {
+            if (valor == null) {
+                saida.writeInt(-1);
+                return;
+            }
+            byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+            saida.writeInt(bytes.length);
+            saida.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package sincronizacao;
+
+import busca.CacheBuscas;
+import busca.IndiceTrigramas;
+import dao.CacheProdutos;
+import dao.Exclusao;
+import dao.MarcaSincronizacao;
+import dao.ProdutoDAO;
+import estatisticas.SnapshotEstoque;
+import model.Produto;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sincronização por deltas entre estações que usam o mesmo banco
+ * Consulta periodicamente apenas os produtos com data_atualizacao a partir da marca
+ * e as exclusões registradas em produtos_excluidos, entregando-as ao ouvinte
+ * O intervalo é adaptativo: volta ao mínimo quando há alterações e dobra a cada consulta vazia
+ */
+public class SincronizadorProdutos {
+    private static final long INTERVALO_MINIMO_MS = 2_000;
+    private static final long INTERVALO_MAXIMO_MS = 30_000;
+
+    // Janela relida a cada consulta: cobre transações confirmadas depois de linhas mais novas
+    static final int SOBREPOSICAO_SEGUNDOS = 5;
+
+    // Acima disso é mais barato recarregar tudo do que aplicar linha a linha
+    private static final int LIMITE_ALTERACOES = 2_000;
+
+    static final int RETENCAO_EXCLUSOES_DIAS = 7;
+
+    /**
+     * Recebe as alterações na thread do executor de entrega (em geral a EDT)
+     */
+    public interface OuvinteSincronizacao {
+        void aplicar(List<Produto> alterados, List<Integer> excluidos);
+
+        /**
+         * Chamado quando há alterações demais para aplicar individualmente
+         */
+        void recarregar();
+    }
+
+    private final ProdutoDAO produtoDAO;
+    private final OuvinteSincronizacao ouvinte;
+    private final Executor entrega;
+    private final ScheduledExecutorService agendador;
+
+    // Estado acessado apenas pela thread do agendador
+    private MarcaSincronizacao marca;
+    private long intervaloMs = INTERVALO_MINIMO_MS;
+    private final Map<Integer, LocalDateTime> alteracoesVistas = new HashMap<>();
+    private final Map<Long, LocalDateTime> exclusoesVistas = new HashMap<>();
+
+    public SincronizadorProdutos(ProdutoDAO produtoDAO, OuvinteSincronizacao ouvinte, Executor entrega) {
+        this.produtoDAO = produtoDAO;
+        this.ouvinte = ouvinte;
+        this.entrega = entrega;
+        this.agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sincronizacao-produtos");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void iniciar() {
+        agendador.execute(this::executar);
+    }
+
+    public void parar() {
+        agendador.shutdownNow();
+    }
+
+    private void executar() {
+        try {
+            sincronizar();
+        } catch (RuntimeException e) {
+            System.err.println("Erro na sincronização de produtos: " + e.getMessage());
+            intervaloMs = INTERVALO_MAXIMO_MS;
+        }
+        if (!agendador.isShutdown()) {
+            agendador.schedule(this::executar, intervaloMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void sincronizar() {
+        if (marca == null) {
+            marca = produtoDAO.obterMarcaAtual();
+            if (marca == null) {
+                intervaloMs = INTERVALO_MAXIMO_MS;
+            } else {
+                produtoDAO.removerExclusoesAntigas(RETENCAO_EXCLUSOES_DIAS);
+            }
+            return;
+        }
+
+        LocalDateTime desde = marca.getDataAtualizacao().minusSeconds(SOBREPOSICAO_SEGUNDOS);
+        List<Produto> alterados = produtoDAO.listarAlteradosDesde(desde, LIMITE_ALTERACOES + 1);
+        List<Exclusao> exclusoes = produtoDAO.listarExclusoesDesde(marca.getSeqExclusao(), desde, LIMITE_ALTERACOES + 1);
+
+        if (alterados.size() > LIMITE_ALTERACOES || exclusoes.size() > LIMITE_ALTERACOES) {
+            recarregar();
+            return;
+        }
+
+        // A janela de sobreposição traz de novo o que já foi aplicado; entrega só o que mudou
+        LocalDateTime maisRecente = marca.getDataAtualizacao();
+        List<Produto> novos = new ArrayList<>();
+        for (Produto produto : alterados) {
+            LocalDateTime data = produto.getDataAtualizacao();
+            if (!data.equals(alteracoesVistas.put(produto.getId(), data))) {
+                novos.add(produto);
+            }
+            if (data.isAfter(maisRecente)) {
+                maisRecente = data;
+            }
+        }
+
+        long ultimoSeq = marca.getSeqExclusao();
+        List<Integer> excluidos = new ArrayList<>();
+        for (Exclusao exclusao : exclusoes) {
+            if (exclusoesVistas.put(exclusao.getSeq(), exclusao.getDataExclusao()) == null) {
+                excluidos.add(exclusao.getProdutoId());
+            }
+            ultimoSeq = Math.max(ultimoSeq, exclusao.getSeq());
+        }
+
+        marca = new MarcaSincronizacao(maisRecente, ultimoSeq);
+        LocalDateTime inicioJanela = maisRecente.minusSeconds(SOBREPOSICAO_SEGUNDOS);
+        alteracoesVistas.values().removeIf(data -> data.isBefore(inicioJanela));
+        exclusoesVistas.values().removeIf(data -> data.isBefore(inicioJanela));
+
+        if (novos.isEmpty() && excluidos.isEmpty()) {
+            intervaloMs = Math.min(INTERVALO_MAXIMO_MS, intervaloMs * 2);
+        } else {
+            intervaloMs = INTERVALO_MINIMO_MS;
+            entrega.execute(() -> ouvinte.aplicar(novos, excluidos));
+        }
+    }
+
+    /**
+     * Descarta o estado local (cache e índice de busca) e pede ao ouvinte uma recarga completa
+     */
+    private void recarregar() {
+        MarcaSincronizacao nova = produtoDAO.obterMarcaAtual();
+        if (nova == null) {
+            intervaloMs = INTERVALO_MAXIMO_MS;
+            return;
+        }
+        marca = nova;
+        alteracoesVistas.clear();
+        exclusoesVistas.clear();
+        intervaloMs = INTERVALO_MINIMO_MS;
+
+        CacheProdutos.getInstance().limpar();
+        CacheBuscas.getInstance().limpar();
+        try {
+            IndiceTrigramas.getInstance().construir(produtoDAO);
+        } catch (IOException e) {
+            System.err.println("Erro ao reconstruir índice de busca: " + e.getMessage());
+        }
+        if (SnapshotEstoque.getInstance().isPronto()) {
+            try {
+                SnapshotEstoque.getInstance().construir(produtoDAO);
+            } catch (IOException e) {
+                System.err.println("Erro ao recarregar snapshot de estoque: " + e.getMessage());
+            }
+        }
+        entrega.execute(ouvinte::recarregar);
+    }
+}
@@ -0,0 +1,87 @@
+package view;
+
+import javax.swing.DefaultComboBoxModel;
+import java.text.Collator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Modelo do combo de categorias mantido incrementalmente
+ * Guarda quantos produtos usam cada categoria: a categoria entra na lista com o primeiro
+ * produto e sai quando o último deixa de usá-la, sem consultar o banco novamente
+ * Todos os métodos devem ser chamados na thread do Swing (EDT)
+ */
+public class CategoriaComboBoxModel extends DefaultComboBoxModel<String> {
+    private final Map<String, Integer> contagens = new HashMap<>();
+    private final Collator collator = Collator.getInstance();
+
+    /**
+     * Substitui o conteúdo pelas contagens lidas do banco, preservando a seleção
+     */
+    public void carregar(Map<String, Integer> categorias) {
+        Object selecionada = getSelectedItem();
+        contagens.clear();
+        removeAllElements();
+        for (Map.Entry<String, Integer> entrada : categorias.entrySet()) {
+            if (entrada.getKey() != null) {
+                contagens.put(entrada.getKey(), entrada.getValue());
+                addElement(entrada.getKey());
+            }
+        }
+        setSelectedItem(selecionada);
+    }
+
+    /**
+     * Registra um produto na categoria, incluindo-a na lista se for nova
+     */
+    public void adicionar(String categoria) {
+        if (categoria == null) return;
+        if (contagens.merge(categoria, 1, Integer::sum) == 1) {
+            insertElementAt(categoria, posicaoDe(categoria));
+        }
+    }
+
+    /**
+     * Retira um produto da categoria, removendo-a da lista quando ficar vazia
+     */
+    public void remover(String categoria) {
+        if (categoria == null) return;
+        Integer restante = contagens.computeIfPresent(categoria, (c, n) -> n > 1 ? n - 1 : null);
+        if (restante == null) {
+            Object selecionada = getSelectedItem();
+            removeElement(categoria);
+            if (categoria.equals(selecionada)) {
+                // Mantém o texto digitado no combo editável
+                setSelectedItem(selecionada);
+            }
+        }
+    }
+
+    /**
+     * Move um produto de uma categoria para outra
+     */
+    public void alterar(String anterior, String nova) {
+        if (anterior != null && anterior.equals(nova)) return;
+        adicionar(nova);
+        remover(anterior);
+    }
+
+    public int getQuantidade(String categoria) {
+        return contagens.getOrDefault(categoria, 0);
+    }
+
+    // Busca binária na lista, que está em ordem alfabética
+    private int posicaoDe(String categoria) {
+        int inicio = 0;
+        int fim = getSize();
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (collator.compare(getElementAt(meio), categoria) < 0) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+        return inicio;
+    }
+}
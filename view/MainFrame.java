@@ -1,25 +1,76 @@
 package view;
 
+import busca.BuscaIncremental;
+import dao.ConflitoVersaoException;
+import dao.FiltroProdutos;
 import dao.ProdutoDAO;
+import exportacao.ExportadorProdutos;
+import exportacao.FormatoExportacao;
+import exportacao.RestauradorProdutos;
+import importacao.ImportadorCsv;
+import importacao.ResultadoImportacao;
+import metricas.CronometroInicializacao;
 import model.Produto;
+import service.ProdutoService;
+import sincronizacao.SincronizadorProdutos;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.text.NumberFormat;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 /**
  * Classe principal da interface gráfica
  * Implementa padrão MVC - View
  */
 public class MainFrame extends JFrame {
-    private ProdutoDAO produtoDAO;
+    // Busca enquanto digita: espera o usuário parar de digitar e traz só a primeira página
+    private static final int ATRASO_BUSCA_MS = 250;
+    private static final int LIMITE_BUSCA = ProdutoTableModel.TAMANHO_PAGINA;
+    
+    private static final String TITULO = "Sistema CRUD - Gerenciamento de Produtos";
+    private static final DateTimeFormatter FORMATO_DATA_COPIA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    
+    private ProdutoService produtoService;
     private JTable tabelaProdutos;
-    private DefaultTableModel modeloTabela;
+    private ProdutoTableModel modeloTabela;
+    private JPopupMenu menuLote;
     private JTextField txtBusca;
+    private JLabel lblLatenciaBusca;
+    private Timer temporizadorBusca;
+    private final BuscaIncremental buscaIncremental = new BuscaIncremental();
+    private int sequenciaBusca;
+    private PainelEstatisticas painelEstatisticas;
+    
+    // Filtros aplicados pelo banco na listagem
+    private JComboBox<String> cbFiltroCategoria;
+    private JTextField txtFiltroNome;
+    private JTextField txtFiltroPrecoMinimo;
+    private JTextField txtFiltroPrecoMaximo;
+    private JTextField txtFiltroQuantidadeMinima;
+    private JTextField txtFiltroQuantidadeMaxima;
     
     // Componentes do formulário
     private JTextField txtNome;
@@ -27,35 +78,313 @@ public class MainFrame extends JFrame {
     private JTextField txtPreco;
     private JTextField txtQuantidade;
     private JComboBox<String> cbCategoria;
+    private final CategoriaComboBoxModel modeloCategorias = new CategoriaComboBoxModel();
+    
+    // Indicador de operações em andamento
+    private JProgressBar indicadorOcupado;
+    private JLabel lblStatus;
+    private int operacoesPendentes;
     
     private Produto produtoSelecionado;
     
-    public MainFrame() {
-        this.produtoDAO = new ProdutoDAO();
+    // Recebe as alterações feitas por outras estações no mesmo banco
+    private SincronizadorProdutos sincronizador;
+    
+    private JCheckBoxMenuItem itemGravacaoAdiada;
+    
+    // Botões e menus que precisam do banco, desabilitados enquanto a tabela mostra a cópia local
+    private final List<JComponent> componentesDoBanco = new ArrayList<>();
+    
+    private boolean conectado;
+    
+    /**
+     * Monta a janela sem acessar o banco; os dados são carregados quando bancoPronto concluir
+     * Enquanto isso a tabela mostra a cópia local gravada na execução anterior, se houver;
+     * se o banco não responder, a cópia continua disponível somente para leitura
+     */
+    public MainFrame(CompletableFuture<Boolean> bancoPronto) {
+        this.produtoService = new ProdutoService(new ProdutoDAO());
+        produtoService.setOuvinteRecusasGravacao(recusados ->
+            SwingUtilities.invokeLater(() -> exibirRecusasGravacao(recusados)));
         initComponents();
-        carregarProdutos();
+        CompletableFuture<Integer> copiaLocal = produtoService.abrirCatalogoLocal();
+        copiaLocal.thenAcceptAsync(this::exibirCopiaLocal, ProdutoService.EDT);
+        emSegundoPlano(bancoPronto)
+            .thenAccept(inicializado -> {
+                if (inicializado) {
+                    carregarDados();
+                } else {
+                    semConexao(copiaLocal);
+                }
+            })
+            .exceptionally(erro -> {
+                System.err.println("Erro ao inicializar banco de dados: " + erro.getMessage());
+                semConexao(copiaLocal);
+                return null;
+            });
+    }
+    
+    /**
+     * Exibe a cópia local enquanto o banco não responde; as páginas da tabela são lidas dela
+     * pelo serviço até a conexão
+     */
+    private void exibirCopiaLocal(int quantidade) {
+        if (conectado || quantidade == 0) return;
+        habilitarComponentesDoBanco(false);
+        setTitle(TITULO + " - cópia local de " + formatarDataCopia() + ", conectando...");
+        carregarProdutos()
+            .thenRun(() -> CronometroInicializacao.marco("Cópia local exibida"));
+    }
+    
+    /**
+     * Sem banco, segue com a cópia local somente para leitura; sem cópia, encerra
+     */
+    private void semConexao(CompletableFuture<Integer> copiaLocal) {
+        copiaLocal.thenAcceptAsync(quantidade -> {
+            if (quantidade == 0) {
+                erroConexao();
+                return;
+            }
+            exibirCopiaLocal(quantidade);
+            setTitle(TITULO + " - sem conexão (cópia local de " + formatarDataCopia() + ", somente leitura)");
+            carregarCategorias();
+            JOptionPane.showMessageDialog(
+                this,
+                "Não foi possível conectar ao banco de dados.\nExibindo a cópia local de " + formatarDataCopia()
+                    + " somente para leitura.",
+                "Sem Conexão",
+                JOptionPane.WARNING_MESSAGE
+            );
+        }, ProdutoService.EDT);
+    }
+    
+    private String formatarDataCopia() {
+        LocalDateTime data = produtoService.getCatalogoLocalAtualizadoAte();
+        return data != null ? data.format(FORMATO_DATA_COPIA) : "?";
+    }
+    
+    private void habilitarComponentesDoBanco(boolean habilitar) {
+        for (JComponent componente : componentesDoBanco) {
+            componente.setEnabled(habilitar);
+        }
+    }
+    
+    private void erroConexao() {
+        JOptionPane.showMessageDialog(
+            this,
+            "Erro ao conectar com o banco de dados!\nVerifique se o MySQL está rodando e as configurações de conexão.",
+            "Erro de Conexão",
+            JOptionPane.ERROR_MESSAGE
+        );
+        System.exit(1);
+    }
+    
+    /**
+     * Primeira carga após a inicialização do banco; o tempo até a primeira página é registrado
+     */
+    private void carregarDados() {
+        conectado = true;
+        produtoService.marcarConectado();
+        habilitarComponentesDoBanco(true);
+        setTitle(TITULO);
+        long inicio = CronometroInicializacao.agora();
+        carregarProdutos()
+            .thenRun(() -> {
+                CronometroInicializacao.fase("Primeira página", inicio);
+                CronometroInicializacao.marco("Janela utilizável");
+            });
+        carregarCategorias();
+        produtoService.carregarIndiceBusca()
+            .exceptionally(erro -> {
+                System.err.println("Erro ao carregar índice de busca: " + erro.getMessage());
+                return null;
+            });
+        iniciarGravacaoAdiada();
+        iniciarSincronizacao();
+    }
+    
+    /**
+     * Ativa a gravação adiada se pedida com -Dgravacao.adiada=true; senão apenas grava
+     * o que uma execução anterior deixou no diário
+     */
+    private void iniciarGravacaoAdiada() {
+        if (Boolean.getBoolean("gravacao.adiada")) {
+            alternarGravacaoAdiada(true);
+            return;
+        }
+        produtoService.recuperarGravacoesPendentes()
+            .thenAcceptAsync(recuperadas -> {
+                if (recuperadas > 0) {
+                    lblStatus.setText(recuperadas + " alteração(ões) pendente(s) recuperada(s) do diário");
+                    carregarProdutos();
+                }
+            }, ProdutoService.EDT)
+            .exceptionally(erro -> {
+                System.err.println("Erro ao recuperar gravações pendentes: " + erro.getMessage());
+                return null;
+            });
+    }
+    
+    /**
+     * Alterações da gravação adiada recusadas pelo banco ou em conflito com outra estação: as linhas
+     * da tabela, que mostravam a alteração aceita, voltam a exibir o que está gravado
+     */
+    private void exibirRecusasGravacao(List<Produto> recusados) {
+        int[] ids = recusados.stream().mapToInt(Produto::getId).toArray();
+        produtoService.buscarPorIds(ids)
+            .thenAcceptAsync(produtos -> {
+                if (produtos != null) {
+                    modeloTabela.atualizarProdutos(produtos);
+                }
+            }, ProdutoService.EDT)
+            .exceptionally(erro -> {
+                System.err.println("Erro ao recarregar produtos recusados: " + erro.getMessage());
+                return null;
+            });
+        
+        StringBuilder nomes = new StringBuilder();
+        for (int i = 0; i < recusados.size() && i < 10; i++) {
+            nomes.append("\n- ").append(recusados.get(i).getNome());
+        }
+        if (recusados.size() > 10) {
+            nomes.append("\n... e mais ").append(recusados.size() - 10);
+        }
+        JOptionPane.showMessageDialog(this,
+            recusados.size() + " alteração(ões) não puderam ser gravadas e foram descartadas (recusadas pelo banco "
+                + "ou alteradas em outra estação depois de abertas):" + nomes,
+            "Gravação adiada", JOptionPane.WARNING_MESSAGE);
+    }
+    
+    private void alternarGravacaoAdiada(boolean ativar) {
+        if (ativar) {
+            try {
+                produtoService.ativarGravacaoAdiada();
+            } catch (IOException e) {
+                System.err.println("Erro ao abrir o diário de gravações: " + e.getMessage());
+                JOptionPane.showMessageDialog(this, "Não foi possível ativar a gravação adiada!", "Erro", JOptionPane.ERROR_MESSAGE);
+            }
+            itemGravacaoAdiada.setSelected(produtoService.isGravacaoAdiada());
+        } else {
+            // Descarregar a fila pode levar alguns segundos: fora da EDT
+            emSegundoPlano(produtoService.executar(produtoService::desativarGravacaoAdiada))
+                .thenAccept(gravou -> {
+                    if (!gravou) {
+                        JOptionPane.showMessageDialog(this,
+                            "Algumas alterações não foram gravadas no banco.\nElas serão gravadas na próxima execução.",
+                            "Gravação adiada", JOptionPane.WARNING_MESSAGE);
+                    }
+                })
+                .exceptionally(this::tratarErro);
+        }
+    }
+    
+    /**
+     * Ao fechar a janela, para a sincronização e grava a fila de gravação adiada
+     * antes de EXIT_ON_CLOSE encerrar a JVM
+     */
+    private void encerrar() {
+        if (sincronizador != null) {
+            sincronizador.parar();
+        }
+        produtoService.encerrar();
+    }
+    
+    private void iniciarSincronizacao() {
+        sincronizador = new SincronizadorProdutos(produtoService.getProdutoDAO(),
+            new SincronizadorProdutos.OuvinteSincronizacao() {
+                @Override
+                public void aplicar(List<Produto> alterados, List<Integer> excluidos) {
+                    aplicarAlteracoesRemotas(alterados, excluidos);
+                }
+                
+                @Override
+                public void recarregar() {
+                    buscarProdutos();
+                    carregarCategorias();
+                }
+            }, ProdutoService.EDT);
+        sincronizador.iniciar();
+    }
+    
+    /**
+     * Aplica na tabela as alterações lidas pela sincronização, sem recarregá-la
+     * As categorias só são recontadas no banco quando a linha anterior não estava em memória
+     */
+    private void aplicarAlteracoesRemotas(List<Produto> alterados, List<Integer> excluidos) {
+        boolean recontarCategorias = false;
+        for (Produto produto : alterados) {
+            Produto anterior = modeloTabela.getProdutoPorId(produto.getId());
+            modeloTabela.aplicarAlteracao(produto);
+            if (anterior != null) {
+                modeloCategorias.alterar(anterior.getCategoria(), produto.getCategoria());
+            } else if (modeloTabela.getProdutoPorId(produto.getId()) != null) {
+                modeloCategorias.adicionar(produto.getCategoria());
+            } else {
+                recontarCategorias = true;
+            }
+        }
+        for (int id : excluidos) {
+            if (modeloTabela.isRemovido(id)) continue;
+            Produto anterior = modeloTabela.getProdutoPorId(id);
+            modeloTabela.aplicarExclusao(id);
+            if (anterior != null) {
+                modeloCategorias.remover(anterior.getCategoria());
+            } else {
+                recontarCategorias = true;
+            }
+        }
+        
+        // O resultado guardado para refinar a busca pode estar desatualizado
+        buscaIncremental.limpar();
+        if (recontarCategorias) {
+            carregarCategorias();
+        }
     }
     
     private void initComponents() {
-        setTitle("Sistema CRUD - Gerenciamento de Produtos");
+        setTitle(TITULO);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                encerrar();
+            }
+        });
         setLayout(new BorderLayout());
         
-        // Painel superior - Busca
-        JPanel painelBusca = createPainelBusca();
-        add(painelBusca, BorderLayout.NORTH);
+        // Barra de menus
+        setJMenuBar(createMenu());
         
-        // Painel central - Tabela
+        // Painel superior - Busca e filtros
+        JPanel painelSuperior = new JPanel(new GridLayout(2, 1));
+        painelSuperior.add(createPainelBusca());
+        painelSuperior.add(createPainelFiltros());
+        add(painelSuperior, BorderLayout.NORTH);
+        
+        // Painel central - Tabela e estatísticas
         JScrollPane scrollTable = createTabelaProdutos();
-        add(scrollTable, BorderLayout.CENTER);
+        painelEstatisticas = new PainelEstatisticas(produtoService);
+        JTabbedPane abas = new JTabbedPane();
+        abas.addTab("Produtos", scrollTable);
+        abas.addTab("Estatísticas", painelEstatisticas);
+        abas.addChangeListener(e -> {
+            if (abas.getSelectedComponent() == painelEstatisticas) {
+                painelEstatisticas.ativar();
+            } else {
+                painelEstatisticas.desativar();
+            }
+        });
+        add(abas, BorderLayout.CENTER);
         
         // Painel direito - Formulário
         JPanel painelFormulario = createPainelFormulario();
         add(painelFormulario, BorderLayout.EAST);
         
-        // Painel inferior - Botões
-        JPanel painelBotoes = createPainelBotoes();
-        add(painelBotoes, BorderLayout.SOUTH);
+        // Painel inferior - Botões e barra de status
+        JPanel painelInferior = new JPanel(new BorderLayout());
+        painelInferior.add(createPainelBotoes(), BorderLayout.CENTER);
+        painelInferior.add(createBarraStatus(), BorderLayout.SOUTH);
+        add(painelInferior, BorderLayout.SOUTH);
         
         // Configurações da janela
         setSize(1000, 600);
@@ -63,14 +392,66 @@ public class MainFrame extends JFrame {
         setMinimumSize(new Dimension(800, 500));
     }
     
+    private JMenuBar createMenu() {
+        JMenuBar menuBar = new JMenuBar();
+        
+        JMenu menuArquivo = new JMenu("Arquivo");
+        JMenuItem itemImportar = new JMenuItem("Importar CSV...");
+        itemImportar.addActionListener(e -> importarCsv());
+        menuArquivo.add(itemImportar);
+        componentesDoBanco.add(itemImportar);
+        
+        JMenuItem itemExportar = new JMenuItem("Exportar...");
+        itemExportar.addActionListener(e -> exportarProdutos());
+        menuArquivo.add(itemExportar);
+        componentesDoBanco.add(itemExportar);
+        
+        JMenuItem itemRestaurar = new JMenuItem("Restaurar backup...");
+        itemRestaurar.addActionListener(e -> restaurarProdutos());
+        menuArquivo.add(itemRestaurar);
+        componentesDoBanco.add(itemRestaurar);
+        menuBar.add(menuArquivo);
+        
+        JMenu menuOpcoes = new JMenu("Opções");
+        itemGravacaoAdiada = new JCheckBoxMenuItem("Gravação adiada");
+        itemGravacaoAdiada.setToolTipText("Enfileira as atualizações e as grava em lote em segundo plano");
+        itemGravacaoAdiada.addActionListener(e -> alternarGravacaoAdiada(itemGravacaoAdiada.isSelected()));
+        menuOpcoes.add(itemGravacaoAdiada);
+        componentesDoBanco.add(itemGravacaoAdiada);
+        menuBar.add(menuOpcoes);
+        
+        return menuBar;
+    }
+    
     private JPanel createPainelBusca() {
         JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         panel.setBorder(BorderFactory.createTitledBorder("Busca"));
         
         panel.add(new JLabel("Buscar por nome:"));
         txtBusca = new JTextField(20);
+        txtBusca.addActionListener(e -> buscarProdutos());
         panel.add(txtBusca);
         
+        // Cada tecla reinicia o temporizador; a busca só dispara após a pausa
+        temporizadorBusca = new Timer(ATRASO_BUSCA_MS, e -> buscarProdutos());
+        temporizadorBusca.setRepeats(false);
+        txtBusca.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                temporizadorBusca.restart();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                temporizadorBusca.restart();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                temporizadorBusca.restart();
+            }
+        });
+        
         JButton btnBuscar = new JButton("Buscar");
         btnBuscar.addActionListener(e -> buscarProdutos());
         panel.add(btnBuscar);
@@ -78,38 +459,156 @@ public class MainFrame extends JFrame {
         JButton btnLimpar = new JButton("Limpar");
         btnLimpar.addActionListener(e -> {
             txtBusca.setText("");
-            carregarProdutos();
+            buscarProdutos();
         });
         panel.add(btnLimpar);
         
+        lblLatenciaBusca = new JLabel(" ");
+        lblLatenciaBusca.setForeground(Color.GRAY);
+        panel.add(lblLatenciaBusca);
+        
         return panel;
     }
     
-    private JScrollPane createTabelaProdutos() {
-        String[] colunas = {"ID", "Nome", "Descrição", "Preço", "Quantidade", "Categoria"};
-        modeloTabela = new DefaultTableModel(colunas, 0) {
+    private JPanel createPainelFiltros() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        panel.setBorder(BorderFactory.createTitledBorder("Filtros"));
+        
+        panel.add(new JLabel("Categoria:"));
+        cbFiltroCategoria = new JComboBox<>(new String[] {""});
+        cbFiltroCategoria.setPrototypeDisplayValue("Armazenamento");
+        // As opções são lidas das categorias conhecidas sempre que a lista é aberta
+        cbFiltroCategoria.addPopupMenuListener(new PopupMenuListener() {
+            @Override
+            public void popupMenuWillBecomeVisible(PopupMenuEvent e) {
+                Object selecionada = cbFiltroCategoria.getSelectedItem();
+                cbFiltroCategoria.removeAllItems();
+                cbFiltroCategoria.addItem("");
+                for (int i = 0; i < modeloCategorias.getSize(); i++) {
+                    cbFiltroCategoria.addItem(modeloCategorias.getElementAt(i));
+                }
+                cbFiltroCategoria.setSelectedItem(selecionada);
+            }
+            
+            @Override
+            public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+            }
+            
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Torna a tabela não editável
+            public void popupMenuCanceled(PopupMenuEvent e) {
             }
-        };
+        });
+        panel.add(cbFiltroCategoria);
+        
+        panel.add(new JLabel("Nome começa com:"));
+        txtFiltroNome = new JTextField(8);
+        panel.add(txtFiltroNome);
+        
+        panel.add(new JLabel("Preço de:"));
+        txtFiltroPrecoMinimo = new JTextField(5);
+        panel.add(txtFiltroPrecoMinimo);
+        panel.add(new JLabel("até:"));
+        txtFiltroPrecoMaximo = new JTextField(5);
+        panel.add(txtFiltroPrecoMaximo);
+        
+        panel.add(new JLabel("Quantidade de:"));
+        txtFiltroQuantidadeMinima = new JTextField(4);
+        panel.add(txtFiltroQuantidadeMinima);
+        panel.add(new JLabel("até:"));
+        txtFiltroQuantidadeMaxima = new JTextField(4);
+        panel.add(txtFiltroQuantidadeMaxima);
+        
+        ActionListener filtrar = e -> aplicarFiltros();
+        for (JTextField campo : new JTextField[] {txtFiltroNome, txtFiltroPrecoMinimo, txtFiltroPrecoMaximo,
+                txtFiltroQuantidadeMinima, txtFiltroQuantidadeMaxima}) {
+            campo.addActionListener(filtrar);
+        }
+        
+        JButton btnFiltrar = new JButton("Filtrar");
+        btnFiltrar.addActionListener(filtrar);
+        panel.add(btnFiltrar);
+        
+        JButton btnLimparFiltros = new JButton("Limpar filtros");
+        btnLimparFiltros.addActionListener(e -> {
+            cbFiltroCategoria.setSelectedItem("");
+            txtFiltroNome.setText("");
+            txtFiltroPrecoMinimo.setText("");
+            txtFiltroPrecoMaximo.setText("");
+            txtFiltroQuantidadeMinima.setText("");
+            txtFiltroQuantidadeMaxima.setText("");
+            aplicarFiltros();
+        });
+        panel.add(btnLimparFiltros);
+        
+        return panel;
+    }
+    
+    private JScrollPane createTabelaProdutos() {
+        modeloTabela = new ProdutoTableModel(produtoService);
         
         tabelaProdutos = new JTable(modeloTabela);
-        tabelaProdutos.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        // Várias linhas (Shift/Ctrl) podem ser selecionadas para as operações em lote
+        tabelaProdutos.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
         tabelaProdutos.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting()) {
                 selecionarProduto();
             }
         });
+        menuLote = createMenuLote();
+        tabelaProdutos.setComponentPopupMenu(menuLote);
         
         // Configurar largura das colunas
         tabelaProdutos.getColumnModel().getColumn(0).setMaxWidth(50);
         tabelaProdutos.getColumnModel().getColumn(3).setMaxWidth(100);
         tabelaProdutos.getColumnModel().getColumn(4).setMaxWidth(100);
         
+        // O preço chega do modelo como número e só é formatado em moeda ao desenhar a célula
+        tabelaProdutos.setDefaultRenderer(Long.class, new MoedaCellRenderer());
+        
+        // Clique no cabeçalho ordena pelo banco; com Shift a coluna entra como critério seguinte
+        tabelaProdutos.getTableHeader().setReorderingAllowed(false);
+        tabelaProdutos.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int coluna = tabelaProdutos.columnAtPoint(e.getPoint());
+                if (coluna >= 0) {
+                    ordenarPorColuna(tabelaProdutos.convertColumnIndexToModel(coluna), e.isShiftDown());
+                }
+            }
+        });
+        
         return new JScrollPane(tabelaProdutos);
     }
     
+    /**
+     * Operações sobre todas as linhas selecionadas (botão "Em Lote" e clique direito na tabela)
+     */
+    private JPopupMenu createMenuLote() {
+        JPopupMenu menu = new JPopupMenu();
+        
+        JMenuItem itemExcluir = new JMenuItem("Excluir selecionados");
+        itemExcluir.addActionListener(e -> excluirSelecionados());
+        menu.add(itemExcluir);
+        componentesDoBanco.add(itemExcluir);
+        
+        JMenuItem itemCategoria = new JMenuItem("Alterar categoria...");
+        itemCategoria.addActionListener(e -> alterarCategoriaSelecionados());
+        menu.add(itemCategoria);
+        componentesDoBanco.add(itemCategoria);
+        
+        JMenuItem itemPreco = new JMenuItem("Reajustar preço (%)...");
+        itemPreco.addActionListener(e -> reajustarPrecoSelecionados());
+        menu.add(itemPreco);
+        componentesDoBanco.add(itemPreco);
+        
+        JMenuItem itemQuantidade = new JMenuItem("Definir quantidade...");
+        itemQuantidade.addActionListener(e -> definirQuantidadeSelecionados());
+        menu.add(itemQuantidade);
+        componentesDoBanco.add(itemQuantidade);
+        
+        return menu;
+    }
+    
     private JPanel createPainelFormulario() {
         JPanel panel = new JPanel(new GridBagLayout());
         panel.setBorder(BorderFactory.createTitledBorder("Dados do Produto"));
@@ -154,9 +653,8 @@ public class MainFrame extends JFrame {
         gbc.gridx = 0; gbc.gridy = 4;
         panel.add(new JLabel("Categoria:"), gbc);
         gbc.gridx = 1;
-        cbCategoria = new JComboBox<>();
+        cbCategoria = new JComboBox<>(modeloCategorias);
         cbCategoria.setEditable(true);
-        carregarCategorias();
         panel.add(cbCategoria, gbc);
         
         return panel;
@@ -172,78 +670,197 @@ public class MainFrame extends JFrame {
         JButton btnSalvar = new JButton("Salvar");
         btnSalvar.addActionListener(e -> salvarProduto());
         panel.add(btnSalvar);
+        componentesDoBanco.add(btnSalvar);
         
         JButton btnAtualizar = new JButton("Atualizar");
         btnAtualizar.addActionListener(e -> atualizarProduto());
         panel.add(btnAtualizar);
+        componentesDoBanco.add(btnAtualizar);
         
         JButton btnExcluir = new JButton("Excluir");
         btnExcluir.addActionListener(e -> excluirProduto());
         panel.add(btnExcluir);
+        componentesDoBanco.add(btnExcluir);
+        
+        JButton btnAjustarEstoque = new JButton("Ajustar Estoque");
+        btnAjustarEstoque.addActionListener(e -> ajustarEstoque());
+        panel.add(btnAjustarEstoque);
+        componentesDoBanco.add(btnAjustarEstoque);
+        
+        JButton btnLote = new JButton("Em Lote");
+        btnLote.addActionListener(e -> menuLote.show(btnLote, 0, btnLote.getHeight()));
+        panel.add(btnLote);
+        componentesDoBanco.add(btnLote);
         
         return panel;
     }
     
-    private void carregarProdutos() {
-        modeloTabela.setRowCount(0);
-        List<Produto> produtos = produtoDAO.listarTodos();
+    private JPanel createBarraStatus() {
+        JPanel panel = new JPanel(new BorderLayout(5, 0));
+        panel.setBorder(BorderFactory.createEmptyBorder(2, 5, 2, 5));
         
-        NumberFormat currency = NumberFormat.getCurrencyInstance();
+        lblStatus = new JLabel(" ");
+        panel.add(lblStatus, BorderLayout.CENTER);
         
-        for (Produto produto : produtos) {
-            Object[] row = {
-                produto.getId(),
-                produto.getNome(),
-                produto.getDescricao(),
-                currency.format(produto.getPreco()),
-                produto.getQuantidade(),
-                produto.getCategoria()
-            };
-            modeloTabela.addRow(row);
+        indicadorOcupado = new JProgressBar();
+        indicadorOcupado.setIndeterminate(true);
+        indicadorOcupado.setVisible(false);
+        indicadorOcupado.setPreferredSize(new Dimension(120, 14));
+        panel.add(indicadorOcupado, BorderLayout.EAST);
+        
+        return panel;
+    }
+    
+    /**
+     * Exibe o indicador de ocupado enquanto a operação estiver em andamento
+     * O futuro retornado é concluído na EDT
+     */
+    private <T> CompletableFuture<T> emSegundoPlano(CompletableFuture<T> operacao) {
+        operacoesPendentes++;
+        atualizarIndicador();
+        return operacao.whenCompleteAsync((resultado, erro) -> {
+            operacoesPendentes--;
+            atualizarIndicador();
+        }, ProdutoService.EDT);
+    }
+    
+    private void atualizarIndicador() {
+        boolean ocupado = operacoesPendentes > 0;
+        indicadorOcupado.setVisible(ocupado);
+        lblStatus.setText(ocupado ? "Processando..." : " ");
+        setCursor(ocupado ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+    }
+    
+    /**
+     * Trata falhas de operações assíncronas; cancelamentos são ignorados
+     */
+    private Void tratarErro(Throwable erro) {
+        Throwable causa = erro instanceof CompletionException && erro.getCause() != null ? erro.getCause() : erro;
+        if (!(causa instanceof CancellationException)) {
+            System.err.println("Erro em operação assíncrona: " + causa.getMessage());
+            JOptionPane.showMessageDialog(this, "Erro ao acessar o banco de dados!", "Erro", JOptionPane.ERROR_MESSAGE);
         }
+        return null;
+    }
+    
+    private CompletableFuture<Void> carregarProdutos() {
+        buscaIncremental.limpar();
+        return emSegundoPlano(modeloTabela.carregarTodos())
+            .exceptionally(this::tratarErro);
     }
     
     private void buscarProdutos() {
+        temporizadorBusca.stop();
+        int sequencia = ++sequenciaBusca;
         String termo = txtBusca.getText().trim();
         if (termo.isEmpty()) {
+            lblLatenciaBusca.setText(" ");
             carregarProdutos();
             return;
         }
         
-        modeloTabela.setRowCount(0);
-        List<Produto> produtos = produtoDAO.buscarPorNome(termo);
+        long inicio = System.nanoTime();
+        
+        // Termo estendido: filtra o resultado anterior sem ir ao banco
+        List<Produto> refinado = buscaIncremental.refinar(termo);
+        if (refinado != null) {
+            modeloTabela.exibirLista(refinado);
+            exibirLatenciaBusca(refinado.size(), inicio, "refinado localmente");
+            return;
+        }
         
-        NumberFormat currency = NumberFormat.getCurrencyInstance();
+        emSegundoPlano(produtoService.buscarPorNome(termo, LIMITE_BUSCA))
+            .thenAccept(produtos -> {
+                if (sequencia != sequenciaBusca) return; // superada por uma busca mais nova
+                if (produtos == null) {
+                    JOptionPane.showMessageDialog(this, "Erro ao buscar produtos!", "Erro", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                buscaIncremental.registrar(termo, produtos, LIMITE_BUSCA);
+                modeloTabela.exibirLista(produtos);
+                exibirLatenciaBusca(produtos.size(), inicio, 
+                    produtos.size() >= LIMITE_BUSCA ? "primeiros resultados" : "banco de dados");
+            })
+            .exceptionally(this::tratarErro);
+    }
+    
+    /**
+     * Aplica os filtros do painel à listagem (ou ao resultado da busca por nome)
+     */
+    private void aplicarFiltros() {
+        FiltroProdutos filtro;
+        try {
+            filtro = modeloTabela.getFiltro()
+                .limparCondicoes()
+                .categoria((String) cbFiltroCategoria.getSelectedItem())
+                .nomeComecaCom(txtFiltroNome.getText())
+                .precoEntre(lerDecimal(txtFiltroPrecoMinimo), lerDecimal(txtFiltroPrecoMaximo))
+                .quantidadeEntre(lerInteiro(txtFiltroQuantidadeMinima), lerInteiro(txtFiltroQuantidadeMaxima));
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Valores numéricos inválidos nos filtros!", "Erro", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        modeloTabela.setFiltro(filtro);
+        buscarProdutos();
+    }
+    
+    private static BigDecimal lerDecimal(JTextField campo) {
+        String texto = campo.getText().trim();
+        return texto.isEmpty() ? null : new BigDecimal(texto.replace(",", "."));
+    }
+    
+    private static Integer lerInteiro(JTextField campo) {
+        String texto = campo.getText().trim();
+        return texto.isEmpty() ? null : Integer.valueOf(texto);
+    }
+    
+    private void ordenarPorColuna(int coluna, boolean adicionar) {
+        CompletableFuture<Void> recarga = modeloTabela.alternarOrdenacao(coluna, adicionar);
+        if (recarga == null) return;
         
-        for (Produto produto : produtos) {
-            Object[] row = {
-                produto.getId(),
-                produto.getNome(),
-                produto.getDescricao(),
-                currency.format(produto.getPreco()),
-                produto.getQuantidade(),
-                produto.getCategoria()
-            };
-            modeloTabela.addRow(row);
+        for (int i = 0; i < modeloTabela.getColumnCount(); i++) {
+            String indicador = modeloTabela.getIndicadorOrdenacao(i);
+            tabelaProdutos.getColumnModel().getColumn(i).setHeaderValue(
+                indicador.isEmpty() ? modeloTabela.getColumnName(i) : modeloTabela.getColumnName(i) + " " + indicador);
         }
+        tabelaProdutos.getTableHeader().repaint();
+        emSegundoPlano(recarga)
+            .exceptionally(this::tratarErro);
+    }
+    
+    private void exibirLatenciaBusca(int resultados, long inicio, String origem) {
+        double ms = (System.nanoTime() - inicio) / 1_000_000.0;
+        lblLatenciaBusca.setText(String.format("%d resultado(s) em %.1f ms (%s)", resultados, ms, origem));
     }
     
     private void selecionarProduto() {
+        int selecionadas = tabelaProdutos.getSelectedRowCount();
+        if (selecionadas > 1) {
+            // O formulário edita um produto por vez; com várias linhas só valem as operações em lote
+            produtoSelecionado = null;
+            lblStatus.setText(selecionadas + " produtos selecionados");
+            return;
+        }
         int selectedRow = tabelaProdutos.getSelectedRow();
         if (selectedRow >= 0) {
-            int id = (Integer) modeloTabela.getValueAt(selectedRow, 0);
-            produtoSelecionado = produtoDAO.buscarPorId(id);
+            Produto linha = modeloTabela.getProdutoAt(selectedRow);
+            if (linha == null) return;
             
-            if (produtoSelecionado != null) {
-                preencherFormulario(produtoSelecionado);
-            }
+            emSegundoPlano(produtoService.buscarPorId(linha.getId()))
+                .thenAccept(produto -> {
+                    produtoSelecionado = produto;
+                    if (produtoSelecionado != null) {
+                        preencherFormulario(produtoSelecionado);
+                    }
+                })
+                .exceptionally(this::tratarErro);
         }
     }
     
     private void preencherFormulario(Produto produto) {
         txtNome.setText(produto.getNome());
         txtDescricao.setText(produto.getDescricao());
-        txtPreco.setText(String.valueOf(produto.getPreco()));
+        txtPreco.setText(produto.getPreco().toPlainString());
         txtQuantidade.setText(String.valueOf(produto.getQuantidade()));
         cbCategoria.setSelectedItem(produto.getCategoria());
     }
@@ -265,20 +882,27 @@ public class MainFrame extends JFrame {
             Produto produto = new Produto();
             produto.setNome(txtNome.getText().trim());
             produto.setDescricao(txtDescricao.getText().trim());
-            produto.setPreco(Double.parseDouble(txtPreco.getText().replace(",", ".")));
+            produto.setPreco(lerDecimal(txtPreco));
             produto.setQuantidade(Integer.parseInt(txtQuantidade.getText()));
             produto.setCategoria(cbCategoria.getSelectedItem().toString());
             
-            if (produtoDAO.inserir(produto)) {
-                JOptionPane.showMessageDialog(this, "Produto salvo com sucesso!");
-                carregarProdutos();
-                carregarCategorias();
-                limparFormulario();
-            } else {
-                JOptionPane.showMessageDialog(this, "Erro ao salvar produto!", "Erro", JOptionPane.ERROR_MESSAGE);
-            }
+            emSegundoPlano(produtoService.inserir(produto))
+                .thenAccept(salvo -> {
+                    if (salvo != null) {
+                        JOptionPane.showMessageDialog(this, "Produto salvo com sucesso!");
+                        modeloTabela.inserirProduto(salvo);
+                        modeloCategorias.adicionar(salvo.getCategoria());
+                        limparFormulario();
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Erro ao salvar produto!", "Erro", JOptionPane.ERROR_MESSAGE);
+                    }
+                })
+                .exceptionally(this::tratarErro);
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(this, "Valores numéricos inválidos!", "Erro", JOptionPane.ERROR_MESSAGE);
+        } catch (IllegalArgumentException e) {
+            // Preço fora do limite da coluna
+            JOptionPane.showMessageDialog(this, "Valor inválido: " + e.getMessage(), "Erro", JOptionPane.ERROR_MESSAGE);
         }
     }
     
@@ -291,26 +915,108 @@ public class MainFrame extends JFrame {
         if (!validarFormulario()) return;
         
         try {
+            String categoriaAnterior = produtoSelecionado.getCategoria();
             produtoSelecionado.setNome(txtNome.getText().trim());
             produtoSelecionado.setDescricao(txtDescricao.getText().trim());
-            produtoSelecionado.setPreco(Double.parseDouble(txtPreco.getText().replace(",", ".")));
+            produtoSelecionado.setPreco(lerDecimal(txtPreco));
             produtoSelecionado.setQuantidade(Integer.parseInt(txtQuantidade.getText()));
             produtoSelecionado.setCategoria(cbCategoria.getSelectedItem().toString());
             
-            if (produtoDAO.atualizar(produtoSelecionado)) {
-                JOptionPane.showMessageDialog(this, "Produto atualizado com sucesso!");
-                carregarProdutos();
-                carregarCategorias();
-                limparFormulario();
-            } else {
-                JOptionPane.showMessageDialog(this, "Erro ao atualizar produto!", "Erro", JOptionPane.ERROR_MESSAGE);
-            }
+            int id = produtoSelecionado.getId();
+            emSegundoPlano(produtoService.atualizar(produtoSelecionado))
+                .thenAccept(atualizado -> {
+                    if (atualizado != null) {
+                        if (produtoService.isGravacaoAdiada()) {
+                            // Sem diálogo: a edição seguinte pode começar imediatamente
+                            lblStatus.setText("Alteração de \"" + atualizado.getNome() + "\" enfileirada para gravação");
+                        } else {
+                            JOptionPane.showMessageDialog(this, "Produto atualizado com sucesso!");
+                        }
+                        modeloTabela.atualizarProduto(atualizado);
+                        modeloCategorias.alterar(categoriaAnterior, atualizado.getCategoria());
+                        limparFormulario();
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Erro ao atualizar produto!", "Erro", JOptionPane.ERROR_MESSAGE);
+                    }
+                })
+                .exceptionally(erro -> {
+                    if (!(erro.getCause() instanceof ConflitoVersaoException)) {
+                        return tratarErro(erro);
+                    }
+                    // Outra estação gravou antes: recarrega o produto no formulário, descartando a edição
+                    JOptionPane.showMessageDialog(this,
+                        "O produto foi alterado em outra estação depois de aberto.\nOs dados atuais foram recarregados; refaça a alteração.",
+                        "Conflito de gravação", JOptionPane.WARNING_MESSAGE);
+                    recarregarProduto(id);
+                    return null;
+                });
         } catch (NumberFormatException e) {
             JOptionPane.showMessageDialog(this, "Valores numéricos inválidos!", "Erro", JOptionPane.ERROR_MESSAGE);
+        } catch (IllegalArgumentException e) {
+            // Preço fora do limite da coluna
+            JOptionPane.showMessageDialog(this, "Valor inválido: " + e.getMessage(), "Erro", JOptionPane.ERROR_MESSAGE);
         }
     }
     
+    /**
+     * Soma ou subtrai unidades do estoque do produto selecionado sem gravar os demais campos
+     * O ajuste é aplicado sobre a quantidade atual do banco, mesmo que outra estação a tenha mudado
+     */
+    private void ajustarEstoque() {
+        if (produtoSelecionado == null) {
+            JOptionPane.showMessageDialog(this, "Selecione um produto para ajustar o estoque!");
+            return;
+        }
+        
+        // A seleção pode mudar ou ser limpa antes de o ajuste terminar
+        int id = produtoSelecionado.getId();
+        String nome = produtoSelecionado.getNome();
+        String texto = JOptionPane.showInputDialog(this,
+            "Unidades a somar ao estoque de \"" + nome + "\" (negativo para retirar):",
+            "Ajustar Estoque", JOptionPane.QUESTION_MESSAGE);
+        if (texto == null || texto.trim().isEmpty()) return;
+        
+        int delta;
+        try {
+            delta = Integer.parseInt(texto.trim().replace("+", ""));
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Valores numéricos inválidos!", "Erro", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        emSegundoPlano(produtoService.ajustarEstoque(id, delta))
+            .thenAccept(quantidade -> {
+                if (quantidade != null) {
+                    lblStatus.setText("Estoque de \"" + nome + "\" ajustado para " + quantidade);
+                    recarregarProduto(id);
+                } else {
+                    JOptionPane.showMessageDialog(this, "Estoque insuficiente ou produto inexistente!", "Erro", JOptionPane.ERROR_MESSAGE);
+                }
+            })
+            .exceptionally(this::tratarErro);
+    }
+    
+    /**
+     * Relê o produto do banco e atualiza a linha da tabela e, se ainda selecionado, o formulário
+     */
+    private void recarregarProduto(int id) {
+        emSegundoPlano(produtoService.buscarPorId(id))
+            .thenAccept(produto -> {
+                if (produto == null) return;
+                modeloTabela.atualizarProduto(produto);
+                if (produtoSelecionado != null && produtoSelecionado.getId() == id) {
+                    produtoSelecionado = produto;
+                    preencherFormulario(produto);
+                }
+            })
+            .exceptionally(this::tratarErro);
+    }
+    
     private void excluirProduto() {
+        if (tabelaProdutos.getSelectedRowCount() > 1) {
+            excluirSelecionados();
+            return;
+        }
         if (produtoSelecionado == null) {
             JOptionPane.showMessageDialog(this, "Selecione um produto para excluir!");
             return;
@@ -324,15 +1030,155 @@ public class MainFrame extends JFrame {
         );
         
         if (opcao == JOptionPane.YES_OPTION) {
-            if (produtoDAO.excluir(produtoSelecionado.getId())) {
-                JOptionPane.showMessageDialog(this, "Produto excluído com sucesso!");
-                carregarProdutos();
+            Produto excluido = produtoSelecionado;
+            emSegundoPlano(produtoService.excluir(excluido.getId()))
+                .thenAccept(sucesso -> {
+                    if (sucesso) {
+                        JOptionPane.showMessageDialog(this, "Produto excluído com sucesso!");
+                        modeloTabela.removerProduto(excluido.getId());
+                        modeloCategorias.remover(excluido.getCategoria());
+                        limparFormulario();
+                    } else {
+                        JOptionPane.showMessageDialog(this, "Erro ao excluir produto!", "Erro", JOptionPane.ERROR_MESSAGE);
+                    }
+                })
+                .exceptionally(this::tratarErro);
+        }
+    }
+    
+    /**
+     * Linhas selecionadas para uma operação em lote, ou null (com aviso) se não houver seleção
+     */
+    private int[] linhasSelecionadas() {
+        int[] linhas = tabelaProdutos.getSelectedRows();
+        if (linhas.length == 0) {
+            JOptionPane.showMessageDialog(this, "Selecione um ou mais produtos na tabela!");
+            return null;
+        }
+        return linhas;
+    }
+    
+    /**
+     * Exclui todas as linhas selecionadas em uma única transação e remove-as da tabela de uma vez
+     */
+    private void excluirSelecionados() {
+        int[] linhas = linhasSelecionadas();
+        if (linhas == null) return;
+        
+        int opcao = JOptionPane.showConfirmDialog(
+            this,
+            "Deseja realmente excluir os " + linhas.length + " produtos selecionados?",
+            "Confirmar Exclusão",
+            JOptionPane.YES_NO_OPTION
+        );
+        if (opcao != JOptionPane.YES_OPTION) return;
+        
+        emSegundoPlano(modeloTabela.idsDasLinhas(linhas).thenCompose(produtoService::excluirEmLote))
+            .thenAccept(excluidos -> {
+                if (excluidos == null) {
+                    JOptionPane.showMessageDialog(this, "Erro ao excluir produtos!", "Erro", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                modeloTabela.removerProdutos(excluidos);
+                buscaIncremental.limpar();
                 carregarCategorias();
                 limparFormulario();
-            } else {
-                JOptionPane.showMessageDialog(this, "Erro ao excluir produto!", "Erro", JOptionPane.ERROR_MESSAGE);
-            }
+                JOptionPane.showMessageDialog(this, excluidos.size() + " produto(s) excluído(s) com sucesso!");
+            })
+            .exceptionally(this::tratarErro);
+    }
+    
+    private void alterarCategoriaSelecionados() {
+        int[] linhas = linhasSelecionadas();
+        if (linhas == null) return;
+        
+        JComboBox<String> cbNovaCategoria = new JComboBox<>();
+        for (int i = 0; i < modeloCategorias.getSize(); i++) {
+            cbNovaCategoria.addItem(modeloCategorias.getElementAt(i));
+        }
+        cbNovaCategoria.setEditable(true);
+        cbNovaCategoria.setSelectedIndex(-1);
+        int opcao = JOptionPane.showConfirmDialog(this,
+            new Object[]{"Nova categoria dos " + linhas.length + " produtos selecionados:", cbNovaCategoria},
+            "Alterar Categoria", JOptionPane.OK_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE);
+        if (opcao != JOptionPane.OK_OPTION) return;
+        
+        Object selecionada = cbNovaCategoria.getSelectedItem();
+        String categoria = selecionada != null ? selecionada.toString().trim() : "";
+        if (categoria.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Categoria é obrigatória!");
+            return;
         }
+        alterarSelecionados(linhas, ids -> produtoService.alterarCategoriaEmLote(ids, categoria), true);
+    }
+    
+    private void reajustarPrecoSelecionados() {
+        int[] linhas = linhasSelecionadas();
+        if (linhas == null) return;
+        
+        String texto = JOptionPane.showInputDialog(this,
+            "Percentual de reajuste do preço dos " + linhas.length + " produtos selecionados (negativo para reduzir):",
+            "Reajustar Preço", JOptionPane.QUESTION_MESSAGE);
+        if (texto == null || texto.trim().isEmpty()) return;
+        
+        BigDecimal percentual;
+        try {
+            percentual = new BigDecimal(texto.trim().replace("%", "").replace(",", "."));
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Valores numéricos inválidos!", "Erro", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (percentual.compareTo(BigDecimal.valueOf(-100)) <= 0) {
+            JOptionPane.showMessageDialog(this, "A redução deve ser menor que 100%!", "Erro", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        alterarSelecionados(linhas, ids -> produtoService.reajustarPrecoEmLote(ids, percentual), false);
+    }
+    
+    private void definirQuantidadeSelecionados() {
+        int[] linhas = linhasSelecionadas();
+        if (linhas == null) return;
+        
+        String texto = JOptionPane.showInputDialog(this,
+            "Quantidade em estoque dos " + linhas.length + " produtos selecionados:",
+            "Definir Quantidade", JOptionPane.QUESTION_MESSAGE);
+        if (texto == null || texto.trim().isEmpty()) return;
+        
+        int quantidade;
+        try {
+            quantidade = Integer.parseInt(texto.trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Valores numéricos inválidos!", "Erro", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (quantidade < 0) {
+            JOptionPane.showMessageDialog(this, "A quantidade não pode ser negativa!", "Erro", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        alterarSelecionados(linhas, ids -> produtoService.definirQuantidadeEmLote(ids, quantidade), false);
+    }
+    
+    /**
+     * Resolve os ids das linhas, aplica a alteração em lote e atualiza a tabela uma única vez
+     */
+    private void alterarSelecionados(int[] linhas, Function<List<Integer>, CompletableFuture<List<Produto>>> alteracao,
+                                     boolean recontarCategorias) {
+        emSegundoPlano(modeloTabela.idsDasLinhas(linhas).thenCompose(alteracao))
+            .thenAccept(produtos -> {
+                if (produtos == null) {
+                    JOptionPane.showMessageDialog(this, "Erro ao alterar produtos!", "Erro", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                modeloTabela.atualizarProdutos(produtos);
+                buscaIncremental.limpar();
+                if (recontarCategorias) {
+                    carregarCategorias();
+                }
+                // Com uma única linha selecionada o formulário passa a mostrar a nova versão
+                selecionarProduto();
+                JOptionPane.showMessageDialog(this, produtos.size() + " produto(s) alterado(s) com sucesso!");
+            })
+            .exceptionally(this::tratarErro);
     }
     
     private boolean validarFormulario() {
@@ -363,12 +1209,121 @@ public class MainFrame extends JFrame {
         return true;
     }
     
-    private void carregarCategorias() {
-        cbCategoria.removeAllItems();
-        List<String> categorias = produtoDAO.listarCategorias();
-        for (String categoria : categorias) {
-            cbCategoria.addItem(categoria);
+    private void importarCsv() {
+        JFileChooser seletor = new JFileChooser();
+        seletor.setFileFilter(new FileNameExtensionFilter("Arquivos CSV", "csv"));
+        if (seletor.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        
+        Path arquivo = seletor.getSelectedFile().toPath();
+        ImportadorCsv importador = new ImportadorCsv(produtoService.getProdutoDAO(), ProdutoDAO.TAMANHO_LOTE_PADRAO);
+        importador.setOuvinteProgresso(parcial -> {
+            String texto = "Importando: " + parcial;
+            SwingUtilities.invokeLater(() -> lblStatus.setText(texto));
+        });
+        
+        emSegundoPlano(produtoService.executar(() -> {
+            try {
+                return importador.importar(arquivo);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }))
+            .thenAccept(resultado -> {
+                exibirResultadoImportacao(resultado);
+                carregarProdutos();
+                carregarCategorias();
+            })
+            .exceptionally(erro -> exibirErroArquivo("Erro ao importar arquivo", erro));
+    }
+    
+    private void exibirResultadoImportacao(ResultadoImportacao resultado) {
+        StringBuilder mensagem = new StringBuilder("Importação concluída!\n").append(resultado);
+        List<String> rejeicoes = resultado.getRejeicoes();
+        int exibidas = Math.min(rejeicoes.size(), 20);
+        if (exibidas > 0) {
+            mensagem.append("\n\nLinhas rejeitadas:");
+            for (int i = 0; i < exibidas; i++) {
+                mensagem.append("\n").append(rejeicoes.get(i));
+            }
+            if (resultado.getRejeitadas() > exibidas) {
+                mensagem.append("\n... e mais ").append(resultado.getRejeitadas() - exibidas);
+            }
         }
-        cbCategoria.setSelectedIndex(-1);
+        JOptionPane.showMessageDialog(this, mensagem.toString(), "Importação", 
+            resultado.getRejeitadas() == 0 ? JOptionPane.INFORMATION_MESSAGE : JOptionPane.WARNING_MESSAGE);
+    }
+    
+    private void exportarProdutos() {
+        JFileChooser seletor = new JFileChooser();
+        seletor.setAcceptAllFileFilterUsed(false);
+        seletor.addChoosableFileFilter(new FileNameExtensionFilter("CSV (*.csv, *.csv.gz)", "csv", "gz"));
+        seletor.addChoosableFileFilter(new FileNameExtensionFilter("JSON Lines (*.jsonl, *.jsonl.gz)", "jsonl", "gz"));
+        seletor.addChoosableFileFilter(new FileNameExtensionFilter("Binário (*.prdb, *.prdb.gz)", "prdb", "gz"));
+        if (seletor.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        
+        // Sem extensão informada, usa a do filtro selecionado
+        File arquivo = seletor.getSelectedFile();
+        if (!arquivo.getName().contains(".")) {
+            String extensao = ((FileNameExtensionFilter) seletor.getFileFilter()).getExtensions()[0];
+            arquivo = new File(arquivo.getParentFile(), arquivo.getName() + "." + extensao);
+        }
+        Path destino = arquivo.toPath();
+        FormatoExportacao formato = FormatoExportacao.porArquivo(arquivo.getName());
+        boolean gzip = arquivo.getName().endsWith(".gz");
+        
+        ExportadorProdutos exportador = new ExportadorProdutos(produtoService.getProdutoDAO());
+        emSegundoPlano(produtoService.executar(() -> {
+            try {
+                return exportador.exportar(destino, formato, gzip);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }))
+            .thenAccept(resultado -> JOptionPane.showMessageDialog(this, "Exportação concluída!\n" + resultado))
+            .exceptionally(erro -> exibirErroArquivo("Erro ao exportar produtos", erro));
+    }
+    
+    private void restaurarProdutos() {
+        JFileChooser seletor = new JFileChooser();
+        seletor.setFileFilter(new FileNameExtensionFilter("Backups (*.csv, *.prdb, *.gz)", "csv", "prdb", "gz"));
+        if (seletor.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        
+        Path origem = seletor.getSelectedFile().toPath();
+        RestauradorProdutos restaurador = new RestauradorProdutos(produtoService.getProdutoDAO(), ProdutoDAO.TAMANHO_LOTE_PADRAO);
+        emSegundoPlano(produtoService.executar(() -> {
+            try {
+                return restaurador.restaurar(origem);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }))
+            .thenAccept(resultado -> {
+                JOptionPane.showMessageDialog(this, "Restauração concluída!\n" + resultado);
+                carregarProdutos();
+                carregarCategorias();
+            })
+            .exceptionally(erro -> exibirErroArquivo("Erro ao restaurar produtos", erro));
+    }
+    
+    private Void exibirErroArquivo(String titulo, Throwable erro) {
+        Throwable causa = erro.getCause() instanceof UncheckedIOException ? erro.getCause().getCause() : erro;
+        JOptionPane.showMessageDialog(this, titulo + ":\n" + causa.getMessage(), "Erro", JOptionPane.ERROR_MESSAGE);
+        return null;
+    }
+    
+    /**
+     * Lê as categorias com suas contagens; depois disso a lista é mantida a cada gravação
+     * Se a leitura falhar, a lista atual é mantida
+     */
+    private void carregarCategorias() {
+        emSegundoPlano(produtoService.contarPorCategoria())
+            .thenAccept(categorias -> {
+                if (categorias == null) {
+                    JOptionPane.showMessageDialog(this, "Erro ao carregar categorias!", "Erro", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                modeloCategorias.carregar(categorias);
+            })
+            .exceptionally(this::tratarErro);
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package view;
+
+import javax.swing.table.DefaultTableCellRenderer;
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+
+/**
+ * Renderizador das células de preço: o modelo entrega o preço em centavos (Long) e o texto em
+ * moeda só é gerado quando a célula é desenhada
+ * Os textos ficam em um cache de mapeamento direto indexado pelos centavos, em arrays, pois os
+ * mesmos preços se repetem entre linhas e a cada repintura (rolagem, seleção); a consulta não
+ * cria objetos e o BigDecimal só aparece ao formatar um preço que não está no cache
+ * Usado apenas na thread do Swing (EDT)
+ */
+public class MoedaCellRenderer extends DefaultTableCellRenderer {
+    private static final int BITS_CACHE = 12;
+    private static final int TAMANHO_CACHE = 1 << BITS_CACHE;
+
+    private final NumberFormat moeda = NumberFormat.getCurrencyInstance();
+
+    // Posição i guarda o texto de centavosEmCache[i]; texto nulo é posição vazia
+    private final long[] centavosEmCache = new long[TAMANHO_CACHE];
+    private final String[] formatados = new String[TAMANHO_CACHE];
+
+    public MoedaCellRenderer() {
+        setHorizontalAlignment(RIGHT);
+    }
+
+    @Override
+    protected void setValue(Object value) {
+        // Linha ainda não carregada chega como null
+        setText(value instanceof Long ? formatar((Long) value) : "");
+    }
+
+    public String formatar(long centavos) {
+        // Hash multiplicativo: preços redondos (múltiplos de 100) não se concentram em poucas posições
+        int posicao = (int) ((centavos * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - BITS_CACHE));
+        String texto = formatados[posicao];
+        if (texto == null || centavosEmCache[posicao] != centavos) {
+            texto = moeda.format(BigDecimal.valueOf(centavos, 2));
+            centavosEmCache[posicao] = centavos;
+            formatados[posicao] = texto;
+        }
+        return texto;
+    }
+}
@@ -0,0 +1,183 @@
+package view;
+
+import estatisticas.ResumoEstoque;
+import estatisticas.SnapshotEstoque;
+import model.Produto;
+import service.ProdutoService;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.text.NumberFormat;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Painel com as estatísticas de estoque: totais, agregados por categoria, faixas de preço
+ * e produtos com estoque baixo
+ * Os números vêm do SnapshotEstoque; enquanto o painel está visível ele é recalculado
+ * sempre que o snapshot muda
+ */
+public class PainelEstatisticas extends JPanel {
+    private static final int INTERVALO_VERIFICACAO_MS = 1000;
+    private static final int LIMITE_ESTOQUE_BAIXO_PADRAO = 10;
+    private static final int MAXIMO_ESTOQUE_BAIXO = 100;
+    // Limites inferiores das faixas de preço, em centavos (R$ 0, 100, 500, 1.000 e 5.000)
+    private static final long[] FAIXAS_PRECO = {0, 10_000, 50_000, 100_000, 500_000};
+
+    private final ProdutoService produtoService;
+    private final NumberFormat currency = NumberFormat.getCurrencyInstance();
+    private final NumberFormat numero = NumberFormat.getIntegerInstance();
+
+    private final JLabel lblTotais = new JLabel(" ");
+    private final JLabel lblCalculo = new JLabel(" ");
+    private final JSpinner spinnerEstoqueBaixo =
+            new JSpinner(new SpinnerNumberModel(LIMITE_ESTOQUE_BAIXO_PADRAO, 1, Integer.MAX_VALUE, 1));
+    private final DefaultTableModel modeloCategorias =
+            criarModelo("Categoria", "Produtos", "Preço médio", "Estoque", "Valor em estoque");
+    private final DefaultTableModel modeloFaixas = criarModelo("Faixa de preço", "Produtos", "Valor em estoque");
+    private final DefaultTableModel modeloEstoqueBaixo = criarModelo("ID", "Nome", "Quantidade");
+    private final Timer temporizador;
+
+    private long versaoExibida = -1;
+    private int limiteExibido;
+    private boolean calculando;
+
+    public PainelEstatisticas(ProdutoService produtoService) {
+        super(new BorderLayout(5, 5));
+        this.produtoService = produtoService;
+        setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+
+        JPanel painelTotais = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        painelTotais.add(lblTotais);
+        painelTotais.add(new JLabel("   Estoque baixo: menos de"));
+        painelTotais.add(spinnerEstoqueBaixo);
+        painelTotais.add(new JLabel("unidades"));
+        lblCalculo.setForeground(Color.GRAY);
+        painelTotais.add(lblCalculo);
+        add(painelTotais, BorderLayout.NORTH);
+
+        JPanel painelTabelas = new JPanel(new GridLayout(1, 3, 5, 0));
+        painelTabelas.add(criarTabela("Por categoria", modeloCategorias));
+        painelTabelas.add(criarTabela("Por faixa de preço", modeloFaixas));
+        painelTabelas.add(criarTabela("Estoque baixo", modeloEstoqueBaixo));
+        add(painelTabelas, BorderLayout.CENTER);
+
+        spinnerEstoqueBaixo.addChangeListener(e -> verificar());
+        temporizador = new Timer(INTERVALO_VERIFICACAO_MS, e -> verificar());
+    }
+
+    /**
+     * Chamado quando o painel passa a ser exibido; carrega o snapshot na primeira vez
+     */
+    public void ativar() {
+        verificar();
+        temporizador.start();
+    }
+
+    public void desativar() {
+        temporizador.stop();
+    }
+
+    /**
+     * Recalcula se o snapshot mudou ou o limite de estoque baixo foi alterado
+     */
+    private void verificar() {
+        int limite = (Integer) spinnerEstoqueBaixo.getValue();
+        SnapshotEstoque snapshot = SnapshotEstoque.getInstance();
+        if (calculando || (snapshot.isPronto() && snapshot.getVersao() == versaoExibida && limite == limiteExibido)) {
+            return;
+        }
+
+        calculando = true;
+        if (!snapshot.isPronto()) {
+            lblCalculo.setText("Carregando snapshot de estoque...");
+        }
+        produtoService.calcularEstatisticas(limite, MAXIMO_ESTOQUE_BAIXO, FAIXAS_PRECO)
+            .whenCompleteAsync((resumo, erro) -> {
+                calculando = false;
+                if (erro != null) {
+                    System.err.println("Erro ao calcular estatísticas: " + erro.getMessage());
+                    lblCalculo.setText("Erro ao calcular estatísticas");
+                    return;
+                }
+                versaoExibida = resumo.getVersao();
+                limiteExibido = limite;
+                exibir(resumo);
+            }, ProdutoService.EDT);
+    }
+
+    private void exibir(ResumoEstoque resumo) {
+        lblTotais.setText(String.format("Produtos: %s   Itens em estoque: %s   Valor total: %s   Estoque baixo: %s",
+                numero.format(resumo.getTotalProdutos()), numero.format(resumo.getEstoqueTotal()),
+                currency.format(resumo.getValorTotalCentavos() / 100.0), numero.format(resumo.getTotalEstoqueBaixo())));
+        lblCalculo.setText(String.format("(calculado em %.1f ms)", resumo.getDuracaoMs()));
+
+        modeloCategorias.setRowCount(0);
+        for (ResumoEstoque.Categoria categoria : resumo.getCategorias()) {
+            modeloCategorias.addRow(new Object[] {
+                categoria.getNome(),
+                categoria.getProdutos(),
+                currency.format(categoria.getPrecoMedioCentavos() / 100.0),
+                categoria.getEstoque(),
+                currency.format(categoria.getValorCentavos() / 100.0)
+            });
+        }
+
+        modeloFaixas.setRowCount(0);
+        for (ResumoEstoque.FaixaPreco faixa : resumo.getFaixasPreco()) {
+            String descricao = faixa.getAteCentavos() < 0
+                    ? "A partir de " + currency.format(faixa.getDeCentavos() / 100.0)
+                    : currency.format(faixa.getDeCentavos() / 100.0) + " a "
+                        + currency.format((faixa.getAteCentavos() - 1) / 100.0);
+            modeloFaixas.addRow(new Object[] {
+                descricao, faixa.getProdutos(), currency.format(faixa.getValorCentavos() / 100.0)
+            });
+        }
+
+        exibirEstoqueBaixo(resumo.getIdsEstoqueBaixo());
+    }
+
+    /**
+     * O snapshot guarda só colunas numéricas; nomes e quantidades vêm do DAO (e do cache)
+     */
+    private void exibirEstoqueBaixo(int[] ids) {
+        long versao = versaoExibida;
+        produtoService.buscarPorIds(ids)
+            .whenCompleteAsync((produtos, erro) -> {
+                if (versao != versaoExibida) return;
+                modeloEstoqueBaixo.setRowCount(0);
+                if (erro != null || produtos == null) {
+                    System.err.println("Erro ao buscar produtos com estoque baixo"
+                        + (erro != null ? ": " + erro.getMessage() : ""));
+                    return;
+                }
+                Map<Integer, Produto> porId = new HashMap<>();
+                for (Produto produto : produtos) {
+                    porId.put(produto.getId(), produto);
+                }
+                for (int id : ids) {
+                    Produto produto = porId.get(id);
+                    if (produto != null) {
+                        modeloEstoqueBaixo.addRow(new Object[] {id, produto.getNome(), produto.getQuantidade()});
+                    }
+                }
+            }, ProdutoService.EDT);
+    }
+
+    private static JScrollPane criarTabela(String titulo, DefaultTableModel modelo) {
+        JTable tabela = new JTable(modelo);
+        JScrollPane scroll = new JScrollPane(tabela);
+        scroll.setBorder(BorderFactory.createTitledBorder(titulo));
+        return scroll;
+    }
+
+    private static DefaultTableModel criarModelo(String... colunas) {
+        return new DefaultTableModel(colunas, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+    }
+}
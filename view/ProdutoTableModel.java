@@ -0,0 +1,655 @@
+package view;
+
+import dao.CampoOrdenacao;
+import dao.FiltroProdutos;
+import model.Produto;
+import service.ProdutoService;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Modelo de tabela virtual para produtos
+ * Carrega páginas sob demanda (keyset pagination) conforme a tabela é rolada
+ * e mantém apenas um número limitado de páginas em memória (LRU)
+ * As páginas são buscadas em segundo plano; as linhas ficam vazias até chegarem
+ * Filtro e ordenação (clique no cabeçalho) são aplicados pelo banco, página a página
+ * Gravações são aplicadas pontualmente (inserir/atualizar/remover) sem recarregar a tabela;
+ * com filtro ou ordenação, as que podem mudar a posição da linha recarregam a tabela
+ * As células trazem os valores crus (preço em centavos, como Long); a formatação fica com o renderizador
+ * Todos os métodos devem ser chamados na thread do Swing (EDT)
+ */
+public class ProdutoTableModel extends AbstractTableModel {
+    public static final int TAMANHO_PAGINA = 200;
+    private static final int MAXIMO_PAGINAS_RESIDENTES = 20;
+    private static final String[] COLUNAS = {"ID", "Nome", "Descrição", "Preço", "Quantidade", "Categoria"};
+    // Campo de ordenação de cada coluna; a descrição não é ordenável
+    private static final CampoOrdenacao[] CAMPOS = {CampoOrdenacao.ID, CampoOrdenacao.NOME, null,
+            CampoOrdenacao.PRECO, CampoOrdenacao.QUANTIDADE, CampoOrdenacao.CATEGORIA};
+
+    private final ProdutoService produtoService;
+
+    // Filtro e ordenação em uso; substituído (nunca alterado) a cada mudança
+    private FiltroProdutos filtro = new FiltroProdutos();
+    private boolean recargaAgendada;
+
+    // Resultado fixo (ex.: busca por nome); null quando em modo paginado
+    private List<Produto> lista;
+    private int totalLinhas;
+
+    // Maior id da tabela em modo paginado: ids acima dele ainda não fazem parte das linhas
+    private int ultimoId;
+
+    // Ids já removidos desta exibição, para ignorar a mesma exclusão vinda da sincronização
+    private final Set<Integer> removidos = new HashSet<>();
+
+    // Páginas residentes em ordem de acesso, descartando a menos usada
+    private final Map<Integer, List<Produto>> paginas =
+            new LinkedHashMap<Integer, List<Produto>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<Produto>> eldest) {
+                    if (size() > MAXIMO_PAGINAS_RESIDENTES) {
+                        desindexar(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+    // Id -> linha, apenas para as linhas residentes (lista fixa ou páginas carregadas)
+    private final Map<Integer, Integer> linhasPorId = new HashMap<>();
+
+    // Número da página -> última linha da página anterior (limite do keyset; null na página 0)
+    private final TreeMap<Integer, Produto> limites = new TreeMap<>();
+
+    // Páginas com carregamento em andamento
+    private final Set<Integer> carregando = new HashSet<>();
+
+    // Incrementada a cada recarga para descartar respostas de carregamentos antigos
+    private int geracao;
+
+    // Incrementada quando as posições das linhas mudam, invalidando páginas em carregamento
+    private int versaoPaginas;
+
+    public ProdutoTableModel(ProdutoService produtoService) {
+        this.produtoService = produtoService;
+    }
+
+    /**
+     * Exibe em modo paginado todos os produtos que satisfazem o filtro
+     * A primeira página é lida em paralelo com a contagem; o futuro é concluído na EDT
+     * quando ambas estiverem exibidas
+     * Sem filtro, a contagem considera apenas ids até o maior id lido, para que inserções
+     * posteriores entrem pelo fim
+     */
+    public CompletableFuture<Void> carregarTodos() {
+        int atual = reiniciar();
+        int versao = versaoPaginas;
+        carregando.add(0);
+        CompletableFuture<List<Produto>> primeiraPagina = produtoService.listarPagina(filtro, null, 0, TAMANHO_PAGINA)
+                .exceptionally(erro -> {
+                    System.err.println("Erro ao carregar página 0: " + erro.getMessage());
+                    return null;
+                });
+
+        if (!filtro.isPadrao()) {
+            return produtoService.contar(filtro)
+                    .thenAcceptBothAsync(primeiraPagina,
+                            (total, pagina) -> exibirPaginado(atual, versao, Integer.MAX_VALUE, total, pagina),
+                            ProdutoService.EDT);
+        }
+        return produtoService.buscarUltimoId()
+                .thenCompose(maiorId -> produtoService.contarAte(maiorId).thenApply(total -> new int[]{maiorId, total}))
+                .thenAcceptBothAsync(primeiraPagina,
+                        (resultado, pagina) -> exibirPaginado(atual, versao, resultado[0], resultado[1], pagina),
+                        ProdutoService.EDT);
+    }
+
+    /**
+     * Passa ao modo paginado com a contagem e, se lida, a primeira página
+     */
+    private void exibirPaginado(int atual, int versao, int maiorId, int total, List<Produto> primeiraPagina) {
+        if (atual != geracao) return;
+        lista = null;
+        ultimoId = maiorId;
+        // Contagem que falhou (-1): a tabela fica vazia, como sem produtos
+        totalLinhas = Math.max(0, total);
+        if (versao == versaoPaginas) {
+            carregando.remove(0);
+            if (primeiraPagina != null) {
+                List<Produto> pagina = new ArrayList<>(primeiraPagina);
+                // Linhas inseridas depois da leitura do maior id entram pelo fim, não aqui
+                pagina.removeIf(produto -> produto.getId() > maiorId);
+                guardarPagina(0, pagina);
+            }
+        }
+        fireTableDataChanged();
+    }
+
+    /**
+     * Exibe uma lista fixa de produtos (ex.: resultado de busca)
+     * O filtro é aplicado à lista em memória; sem ordenação escolhida, a ordem recebida é mantida
+     */
+    public void exibirLista(List<Produto> produtos) {
+        reiniciar();
+        lista = new ArrayList<>(produtos.size());
+        for (Produto produto : produtos) {
+            if (filtro.aceita(produto)) {
+                lista.add(produto);
+            }
+        }
+        if (!filtro.getOrdenacao().isEmpty()) {
+            lista.sort(filtro.comparador());
+        }
+        totalLinhas = lista.size();
+        indexar(lista, 0);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Substitui filtro e ordenação; a tabela deve ser recarregada em seguida
+     */
+    public void setFiltro(FiltroProdutos filtro) {
+        this.filtro = new FiltroProdutos(filtro);
+    }
+
+    public FiltroProdutos getFiltro() {
+        return new FiltroProdutos(filtro);
+    }
+
+    /**
+     * Clique no cabeçalho da coluna; com adicionar (Shift) a coluna entra como critério seguinte
+     * Em modo paginado a ordenação é feita pelo banco; uma lista fixa é reordenada em memória
+     * Retorna null se a coluna não for ordenável
+     */
+    public CompletableFuture<Void> alternarOrdenacao(int coluna, boolean adicionar) {
+        CampoOrdenacao campo = CAMPOS[coluna];
+        if (campo == null) return null;
+
+        filtro = new FiltroProdutos(filtro).alternarOrdenacao(campo, adicionar);
+        if (lista != null) {
+            lista.sort(filtro.comparador());
+            linhasPorId.clear();
+            indexar(lista, 0);
+            fireTableDataChanged();
+            return CompletableFuture.completedFuture(null);
+        }
+        return carregarTodos();
+    }
+
+    /**
+     * Seta (e posição, se houver mais de um critério) indicando a ordenação da coluna
+     */
+    public String getIndicadorOrdenacao(int coluna) {
+        List<FiltroProdutos.Ordenacao> ordenacao = filtro.getOrdenacao();
+        for (int i = 0; i < ordenacao.size(); i++) {
+            if (ordenacao.get(i).getCampo() == CAMPOS[coluna]) {
+                String seta = ordenacao.get(i).isDecrescente() ? "▼" : "▲";
+                return ordenacao.size() > 1 ? seta + (i + 1) : seta;
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Recarrega a tabela quando uma alteração afeta linhas fora da memória (posição desconhecida)
+     * Várias alterações seguidas resultam em uma única recarga
+     */
+    private void agendarRecarga() {
+        if (recargaAgendada) return;
+        recargaAgendada = true;
+        SwingUtilities.invokeLater(() -> {
+            recargaAgendada = false;
+            if (lista != null) return;
+            carregarTodos().exceptionally(erro -> {
+                System.err.println("Erro ao recarregar produtos: " + erro.getMessage());
+                return null;
+            });
+        });
+    }
+
+    private int reiniciar() {
+        paginas.clear();
+        limites.clear();
+        limites.put(0, null);
+        carregando.clear();
+        linhasPorId.clear();
+        removidos.clear();
+        versaoPaginas++;
+        return ++geracao;
+    }
+
+    /**
+     * Aplica uma alteração vinda de outra estação
+     * Atualiza a linha se estiver em memória; ids novos entram no fim em modo paginado
+     */
+    public void aplicarAlteracao(Produto produto) {
+        if (localizar(produto.getId()) >= 0) {
+            atualizarProduto(produto);
+        } else if (lista == null && !filtro.isPadrao()) {
+            if (filtro.aceita(produto)) {
+                agendarRecarga();
+            }
+        } else if (lista == null && produto.getId() > ultimoId && !removidos.contains(produto.getId())) {
+            inserirProduto(produto);
+        }
+    }
+
+    /**
+     * Aplica uma exclusão vinda de outra estação, ignorando ids que não fazem parte da exibição
+     */
+    public void aplicarExclusao(int id) {
+        if (removidos.contains(id)) return;
+        if (lista != null ? localizar(id) >= 0 : id <= ultimoId || localizar(id) >= 0) {
+            removerProduto(id);
+        }
+    }
+
+    /**
+     * Em modo paginado com filtro ou ordenação a posição de um produto novo é desconhecida:
+     * a tabela é recarregada se ele satisfizer o filtro
+     */
+    private boolean recarregarSeFiltrado(Produto produto) {
+        if (lista != null || filtro.isPadrao()) return false;
+        if (filtro.aceita(produto)) {
+            agendarRecarga();
+        }
+        return true;
+    }
+
+    /**
+     * Acrescenta um produto recém-inserido
+     * Em modo paginado ele entra no fim, pois a ordenação é por id e o id gerado é o maior
+     */
+    public void inserirProduto(Produto produto) {
+        if (recarregarSeFiltrado(produto)) return;
+        int linha = totalLinhas;
+        if (lista != null) {
+            lista.add(produto);
+        } else {
+            int numero = linha / TAMANHO_PAGINA;
+            List<Produto> pagina = paginas.get(numero);
+            if (pagina != null && pagina.size() == linha % TAMANHO_PAGINA) {
+                pagina.add(produto);
+            }
+            if (carregando.contains(numero)) {
+                // A resposta em andamento pode não conter o novo produto
+                versaoPaginas++;
+                carregando.clear();
+            }
+        }
+        totalLinhas++;
+        ultimoId = Math.max(ultimoId, produto.getId());
+        linhasPorId.put(produto.getId(), linha);
+        fireTableRowsInserted(linha, linha);
+    }
+
+    /**
+     * Substitui a linha do produto, se estiver residente
+     * Linhas fora da memória serão lidas atualizadas quando a página for carregada
+     */
+    public void atualizarProduto(Produto produto) {
+        int linha = substituirLinha(produto);
+        if (linha >= 0) {
+            fireTableRowsUpdated(linha, linha);
+        }
+    }
+
+    /**
+     * Aplica os produtos gravados por uma alteração em lote com um único evento para a tabela
+     */
+    public void atualizarProdutos(List<Produto> produtos) {
+        int primeira = Integer.MAX_VALUE;
+        int ultima = -1;
+        for (Produto produto : produtos) {
+            int linha = substituirLinha(produto);
+            if (linha >= 0) {
+                primeira = Math.min(primeira, linha);
+                ultima = Math.max(ultima, linha);
+            }
+        }
+        if (ultima >= 0) {
+            fireTableRowsUpdated(primeira, ultima);
+        }
+    }
+
+    /**
+     * Retorna a linha substituída ou -1 se não está residente ou a tabela será recarregada
+     */
+    private int substituirLinha(Produto produto) {
+        int linha = localizar(produto.getId());
+        if (linha < 0) return -1;
+
+        if (lista == null && !filtro.isPadrao()) {
+            Produto anterior = produtoResidente(linha);
+            if (!filtro.aceita(produto) || !filtro.mesmaPosicao(anterior, produto)) {
+                agendarRecarga();
+                return -1;
+            }
+        }
+
+        if (lista != null) {
+            lista.set(linha, produto);
+        } else {
+            paginas.get(linha / TAMANHO_PAGINA).set(linha % TAMANHO_PAGINA, produto);
+        }
+        return linha;
+    }
+
+    /**
+     * Remove a linha do produto
+     * As páginas residentes seguintes são deslocadas uma posição; as demais são descartadas
+     * Se a linha não estiver em memória a posição é desconhecida e a tabela é recarregada
+     */
+    public void removerProduto(int id) {
+        int linha = removerLinha(id);
+        if (linha >= 0) {
+            fireTableRowsDeleted(linha, linha);
+        }
+    }
+
+    /**
+     * Remove as linhas de uma exclusão em lote com um único evento para a tabela
+     * (que também limpa a seleção)
+     */
+    public void removerProdutos(Collection<Integer> ids) {
+        if (lista != null) {
+            Set<Integer> excluidos = new HashSet<>(ids);
+            removidos.addAll(excluidos);
+            if (lista.removeIf(produto -> excluidos.contains(produto.getId()))) {
+                totalLinhas = lista.size();
+                linhasPorId.clear();
+                indexar(lista, 0);
+                fireTableDataChanged();
+            }
+            return;
+        }
+        boolean removida = false;
+        for (int id : ids) {
+            removida |= removerLinha(id) >= 0;
+        }
+        if (removida) {
+            fireTableDataChanged();
+        }
+    }
+
+    private int removerLinha(int id) {
+        removidos.add(id);
+        int linha = localizar(id);
+        if (linha < 0) {
+            if (lista == null) {
+                agendarRecarga();
+            }
+            return -1;
+        }
+
+        linhasPorId.remove(id);
+        totalLinhas--;
+        if (lista != null) {
+            lista.remove(linha);
+            indexar(lista.subList(linha, lista.size()), linha);
+        } else {
+            deslocarPaginas(linha);
+        }
+        return linha;
+    }
+
+    private void deslocarPaginas(int linha) {
+        int numero = linha / TAMANHO_PAGINA;
+        List<Produto> pagina = paginas.get(numero);
+        pagina.remove(linha % TAMANHO_PAGINA);
+
+        // Puxa a primeira linha de cada página residente consecutiva para a anterior
+        List<Produto> seguinte;
+        while ((seguinte = paginas.get(numero + 1)) != null && !seguinte.isEmpty()) {
+            pagina.add(seguinte.remove(0));
+            limites.put(numero + 1, pagina.get(pagina.size() - 1));
+            indexar(pagina, numero * TAMANHO_PAGINA);
+            numero++;
+            pagina = seguinte;
+        }
+        indexar(pagina, numero * TAMANHO_PAGINA);
+
+        // Uma página incompleta só é válida se for a última da tabela
+        int ultima = Math.max(0, totalLinhas - 1) / TAMANHO_PAGINA;
+        int primeiraInvalida = pagina.size() < TAMANHO_PAGINA && numero < ultima ? numero : numero + 1;
+        paginas.entrySet().removeIf(entrada -> {
+            if (entrada.getKey() < primeiraInvalida) return false;
+            desindexar(entrada.getValue());
+            return true;
+        });
+        limites.tailMap(primeiraInvalida, false).clear();
+        versaoPaginas++;
+        carregando.clear();
+    }
+
+    /**
+     * Produto exibido com o id informado, se a linha estiver em memória
+     */
+    public Produto getProdutoPorId(int id) {
+        int linha = localizar(id);
+        if (linha < 0) return null;
+        return lista != null ? lista.get(linha) : produtoResidente(linha);
+    }
+
+    /**
+     * Indica se o produto já foi removido desta exibição
+     */
+    public boolean isRemovido(int id) {
+        return removidos.contains(id);
+    }
+
+    /**
+     * Linha do produto entre as residentes ou -1 se não estiver em memória
+     */
+    private int localizar(int id) {
+        Integer linha = linhasPorId.get(id);
+        if (linha == null || linha >= totalLinhas) {
+            return -1;
+        }
+        Produto produto = lista != null ? lista.get(linha) : produtoResidente(linha);
+        return produto != null && produto.getId() == id ? linha : -1;
+    }
+
+    private Produto produtoResidente(int linha) {
+        List<Produto> pagina = paginas.get(linha / TAMANHO_PAGINA);
+        int indice = linha % TAMANHO_PAGINA;
+        return pagina != null && indice < pagina.size() ? pagina.get(indice) : null;
+    }
+
+    private void indexar(List<Produto> produtos, int primeiraLinha) {
+        for (int i = 0; i < produtos.size(); i++) {
+            linhasPorId.put(produtos.get(i).getId(), primeiraLinha + i);
+        }
+    }
+
+    private void desindexar(List<Produto> produtos) {
+        for (Produto produto : produtos) {
+            linhasPorId.remove(produto.getId());
+        }
+    }
+
+    /**
+     * Ids das linhas informadas (seleção da tabela); o futuro é concluído na EDT
+     * Linhas fora da memória são lidas página a página, em ordem, para que cada leitura parta
+     * do limite da anterior; essas páginas não entram entre as residentes, para não descartar
+     * as que estão na tela
+     * Falha com CancellationException se a tabela for recarregada ou as linhas mudarem de
+     * posição durante a leitura
+     */
+    public CompletableFuture<List<Integer>> idsDasLinhas(int[] linhas) {
+        List<Integer> ids = new ArrayList<>(linhas.length);
+        TreeMap<Integer, List<Integer>> ausentes = new TreeMap<>();
+        for (int linha : linhas) {
+            if (linha < 0 || linha >= totalLinhas) continue;
+            Produto produto = lista != null ? lista.get(linha) : produtoResidente(linha);
+            if (produto != null) {
+                ids.add(produto.getId());
+            } else {
+                ausentes.computeIfAbsent(linha / TAMANHO_PAGINA, numero -> new ArrayList<>()).add(linha % TAMANHO_PAGINA);
+            }
+        }
+
+        int atual = geracao;
+        int versao = versaoPaginas;
+        CompletableFuture<Void> leitura = CompletableFuture.completedFuture(null);
+        for (Map.Entry<Integer, List<Integer>> pagina : ausentes.entrySet()) {
+            leitura = leitura.thenComposeAsync(
+                    nada -> lerIds(pagina.getKey(), pagina.getValue(), ids, atual, versao), ProdutoService.EDT);
+        }
+        return leitura.thenApply(nada -> ids);
+    }
+
+    private CompletableFuture<Void> lerIds(int numero, List<Integer> indices, List<Integer> ids, int atual, int versao) {
+        verificarPosicoes(atual, versao);
+        CompletableFuture<List<Produto>> leitura;
+        List<Produto> residente = paginas.get(numero);
+        if (residente != null) {
+            leitura = CompletableFuture.completedFuture(residente);
+        } else {
+            Map.Entry<Integer, Produto> anterior = limites.floorEntry(numero);
+            int deslocamento = (numero - anterior.getKey()) * TAMANHO_PAGINA;
+            leitura = produtoService.listarPagina(filtro, anterior.getValue(), deslocamento, TAMANHO_PAGINA);
+        }
+        return leitura.thenAcceptAsync(pagina -> {
+            verificarPosicoes(atual, versao);
+            if (pagina == null) {
+                throw new IllegalStateException("Erro ao ler a página " + numero + " da seleção");
+            }
+            if (!pagina.isEmpty()) {
+                limites.put(numero + 1, pagina.get(pagina.size() - 1));
+            }
+            for (int indice : indices) {
+                if (indice < pagina.size()) {
+                    ids.add(pagina.get(indice).getId());
+                }
+            }
+        }, ProdutoService.EDT);
+    }
+
+    private void verificarPosicoes(int atual, int versao) {
+        if (atual != geracao || versao != versaoPaginas) {
+            throw new CancellationException("As linhas da tabela mudaram durante a leitura da seleção");
+        }
+    }
+
+    public Produto getProdutoAt(int row) {
+        if (row < 0 || row >= totalLinhas) {
+            return null;
+        }
+        if (lista != null) {
+            return lista.get(row);
+        }
+
+        List<Produto> pagina = getPagina(row / TAMANHO_PAGINA);
+        int indice = row % TAMANHO_PAGINA;
+        return indice < pagina.size() ? pagina.get(indice) : null;
+    }
+
+    /**
+     * Retorna a página se estiver residente; caso contrário agenda seu carregamento e retorna lista vazia
+     */
+    private List<Produto> getPagina(int numero) {
+        List<Produto> pagina = paginas.get(numero);
+        if (pagina != null) {
+            return pagina;
+        }
+        if (carregando.add(numero)) {
+            carregarPagina(numero, versaoPaginas);
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Lê a página a partir do limite conhecido mais próximo; se não for o da própria página,
+     * as linhas intermediárias são puladas com OFFSET no banco
+     */
+    private void carregarPagina(int numero, int atual) {
+        Map.Entry<Integer, Produto> anterior = limites.floorEntry(numero);
+        int deslocamento = (numero - anterior.getKey()) * TAMANHO_PAGINA;
+        produtoService.listarPagina(filtro, anterior.getValue(), deslocamento, TAMANHO_PAGINA)
+                .whenCompleteAsync((resultado, erro) -> {
+                    if (atual != versaoPaginas) return;
+                    carregando.remove(numero);
+                    if (erro != null || resultado == null) {
+                        System.err.println("Erro ao carregar página " + numero
+                                + (erro != null ? ": " + erro.getMessage() : ""));
+                        return;
+                    }
+                    guardarPagina(numero, new ArrayList<>(resultado));
+                    int primeira = numero * TAMANHO_PAGINA;
+                    int ultima = Math.min(totalLinhas, primeira + TAMANHO_PAGINA) - 1;
+                    if (primeira <= ultima) {
+                        fireTableRowsUpdated(primeira, ultima);
+                    }
+                }, ProdutoService.EDT);
+    }
+
+    private void guardarPagina(int numero, List<Produto> pagina) {
+        paginas.put(numero, pagina);
+        indexar(pagina, numero * TAMANHO_PAGINA);
+        if (!pagina.isEmpty()) {
+            limites.put(numero + 1, pagina.get(pagina.size() - 1));
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return totalLinhas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUNAS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        switch (column) {
+            case 0:
+            case 4: return Integer.class;
+            case 3: return Long.class;
+            default: return String.class;
+        }
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false; // Torna a tabela não editável
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Produto produto = getProdutoAt(row);
+        if (produto == null) {
+            return null;
+        }
+
+        switch (column) {
+            case 0: return produto.getId();
+            case 1: return produto.getNome();
+            case 2: return produto.getPreviaDescricao();
+            case 3: return produto.getPrecoCentavos();
+            case 4: return produto.getQuantidade();
+            case 5: return produto.getCategoria();
+            default: return null;
+        }
+    }
+}